@@ -0,0 +1,116 @@
+#!/usr/bin/env python3
+"""Compares a JMH JSON result with a baseline run and flags regressions.
+
+Usage: benchmarks/compare.py [--threshold PERCENT] BASELINE [RESULT]
+
+BASELINE is an earlier result recorded on the same machine, RESULT defaults to target/jmh-result.json. No
+baseline is checked in, because scores from different hardware are not comparable. A benchmark regresses when its score
+is worse than the baseline by more than the threshold (10% by default) and by more than the two error
+margins combined, so noise within the confidence intervals is not reported. "Worse" means lower for
+throughput modes and higher for time modes. Exits with 1 when a regression was found, and with 2 when
+there is nothing to compare a benchmark against: the baseline is missing or empty, or has no entry for a
+benchmark of the run. Record the baseline with a full run first (see the Benchmarks section of the README).
+"""
+
+import argparse
+import json
+import sys
+from pathlib import Path
+
+ROOT = Path(__file__).resolve().parent.parent
+HIGHER_IS_BETTER = {"thrpt"}
+
+
+def load(path):
+    with open(path, encoding="utf-8") as file:
+        results = json.load(file)
+    return {key(result): result for result in results}
+
+
+def key(result):
+    params = ",".join(f"{name}={value}" for name, value in sorted(result.get("params", {}).items()))
+    name = result["benchmark"].rsplit(".", 2)
+    short = ".".join(name[-2:])
+    return f"{short}({params}) [{result['mode']}]" if params else f"{short} [{result['mode']}]"
+
+
+def error(result):
+    # JMH writes "NaN" when there were too few iterations to compute an error
+    value = float(result["primaryMetric"].get("scoreError", 0.0))
+    return 0.0 if value != value else value
+
+
+def compare(baseline, current, threshold):
+    regressions = 0
+    unbaselined = 0
+    for name in sorted(current):
+        now = current[name]
+        metric = now["primaryMetric"]
+        unit = metric["scoreUnit"]
+        before = baseline.get(name)
+        if before is None:
+            print(f"  NO BASELINE {name}: {metric['score']:.3f} {unit}")
+            unbaselined += 1
+            continue
+        if before["primaryMetric"]["scoreUnit"] != unit:
+            print(f"  SKIPPED     {name}: unit changed from {before['primaryMetric']['scoreUnit']} to {unit}")
+            continue
+
+        old_score = before["primaryMetric"]["score"]
+        new_score = metric["score"]
+        change = (new_score - old_score) / old_score * 100 if old_score else 0.0
+        worse = change < 0 if now["mode"] in HIGHER_IS_BETTER else change > 0
+        beyond_noise = abs(new_score - old_score) > error(before) + error(now)
+
+        if worse and abs(change) > threshold and beyond_noise:
+            status = "REGRESSION"
+            regressions += 1
+        elif not worse and abs(change) > threshold and beyond_noise:
+            status = "IMPROVED"
+        else:
+            status = "OK"
+        print(f"  {status:<11} {name}: {old_score:.3f} -> {new_score:.3f} {unit} ({change:+.1f}%)")
+
+    for name in sorted(set(baseline) - set(current)):
+        print(f"  MISSING     {name}: in the baseline but not in this run")
+    return regressions, unbaselined
+
+
+def record_hint(args):
+    print("Record the baseline with a full run on this machine before the change:", file=sys.stderr)
+    print(f"  cp {args.result} {args.baseline}", file=sys.stderr)
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Flags JMH regressions against a baseline.")
+    parser.add_argument("baseline", help="result of an earlier run on the same machine")
+    parser.add_argument("result", nargs="?", default=ROOT / "target" / "jmh-result.json")
+    parser.add_argument("--threshold", type=float, default=10.0,
+                        help="allowed slowdown in percent before a benchmark is flagged (default: 10)")
+    args = parser.parse_args()
+
+    if not Path(args.baseline).is_file():
+        print(f"error: no baseline at {args.baseline}", file=sys.stderr)
+        record_hint(args)
+        return 2
+    baseline = load(args.baseline)
+    current = load(args.result)
+    if not baseline:
+        print(f"error: {args.baseline} is empty, there is nothing to compare against", file=sys.stderr)
+        record_hint(args)
+        return 2
+
+    regressions, unbaselined = compare(baseline, current, args.threshold)
+    if regressions:
+        print(f"{regressions} benchmark(s) regressed by more than {args.threshold:g}%")
+        return 1
+    if unbaselined:
+        print(f"error: {unbaselined} benchmark(s) have no baseline entry and were not compared", file=sys.stderr)
+        record_hint(args)
+        return 2
+    print("No regressions")
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
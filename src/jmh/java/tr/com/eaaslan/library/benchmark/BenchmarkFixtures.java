@@ -0,0 +1,139 @@
+package tr.com.eaaslan.library.benchmark;
+
+import org.springframework.test.util.ReflectionTestUtils;
+import tr.com.eaaslan.library.model.Book;
+import tr.com.eaaslan.library.model.Borrowing;
+import tr.com.eaaslan.library.model.BorrowingStatus;
+import tr.com.eaaslan.library.model.Genre;
+import tr.com.eaaslan.library.model.User;
+import tr.com.eaaslan.library.model.UserRole;
+import tr.com.eaaslan.library.model.UserStatus;
+import tr.com.eaaslan.library.model.dto.book.BookResponse;
+import tr.com.eaaslan.library.model.dto.borrowing.BorrowingResponse;
+import tr.com.eaaslan.library.security.JwtUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic data shared by the benchmarks, shaped like the rows the application serves.
+ */
+final class BenchmarkFixtures {
+
+    private static final Genre[] GENRES = Genre.values();
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+    private BenchmarkFixtures() {
+    }
+
+    // Initialized the way Spring does it, with the development secret and a one hour expiration
+    static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "configuredSecretKey", "");
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", 3_600_000L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    static User patron(long id) {
+        User user = User.builder()
+                .email("patron" + id + "@library.com")
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3N2i3Jr5Y9fS7gE1x3qZ1yC")
+                .firstName("Patron")
+                .lastName("Number " + id)
+                .phoneNumber("0555" + String.format("%07d", id))
+                .role(UserRole.PATRON)
+                .status(UserStatus.ACTIVE)
+                .build();
+        user.setId(id);
+        return user;
+    }
+
+    static Book book(long id) {
+        Book book = Book.builder()
+                .isbn(isbn(id))
+                .title("The Collected Works, Volume " + id)
+                .author("Author " + id % 997)
+                .publicationYear(Year.of(1950 + (int) (id % 75)))
+                .publisher("Publisher " + id % 53)
+                .genre(GENRES[(int) (id % GENRES.length)])
+                .imageUrl("http://images.amazon.com/images/P/" + isbn(id) + ".01.LZZZZZZZ.jpg")
+                .description("A description of book " + id + " as long as a typical catalogue entry")
+                .available(true)
+                .quantity((int) (id % 5) + 1)
+                .build();
+        book.setId(id);
+        return book;
+    }
+
+    static Borrowing borrowing(long id) {
+        LocalDate borrowDate = TODAY.minusDays(id % 30);
+        boolean returned = id % 3 == 0;
+        Borrowing borrowing = Borrowing.builder()
+                .user(patron(id % 5_000 + 1))
+                .book(book(id % 20_000 + 1))
+                .borrowDate(borrowDate)
+                .dueDate(borrowDate.plusDays(14))
+                .returnDate(returned ? borrowDate.plusDays(10) : null)
+                .status(returned ? BorrowingStatus.RETURNED : BorrowingStatus.ACTIVE)
+                .build();
+        borrowing.setId(id);
+        return borrowing;
+    }
+
+    static List<BookResponse> bookResponses(int count) {
+        List<BookResponse> responses = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            Book book = book(id);
+            responses.add(new BookResponse(id, book.getIsbn(), book.getTitle(), book.getAuthor(),
+                    book.getPublicationYear().getValue(), book.getPublisher(), book.getGenre().name(),
+                    book.getImageUrl(), book.getDescription(), book.getQuantity(), book.isAvailable(),
+                    LocalDateTime.of(2025, 1, 1, 9, 0), "admin@library.com"));
+        }
+        return responses;
+    }
+
+    static List<BorrowingResponse> borrowingResponses(int count) {
+        List<BorrowingResponse> responses = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            LocalDate borrowDate = TODAY.minusDays(id % 30);
+            boolean returned = id % 3 == 0;
+            long userId = id % 5_000 + 1;
+            long bookId = id % 20_000 + 1;
+            responses.add(new BorrowingResponse(id, userId, "patron" + userId + "@library.com",
+                    "Patron Number " + userId, bookId, "The Collected Works, Volume " + bookId, isbn(bookId),
+                    borrowDate, borrowDate.plusDays(14), returned ? borrowDate.plusDays(10) : null,
+                    returned ? BorrowingStatus.RETURNED.name() : BorrowingStatus.ACTIVE.name(), false,
+                    borrowDate.atTime(10, 30), "librarian@library.com"));
+        }
+        return responses;
+    }
+
+    // The import format, with the header the importer expects and a quoted description
+    static byte[] booksCsv(int rows) {
+        StringBuilder csv = new StringBuilder(rows * 200)
+                .append("isbn,title,author,publication_year,publisher,image_url,description,genre,available,quantity\n");
+        for (long id = 1; id <= rows; id++) {
+            Book book = book(id);
+            csv.append(book.getIsbn()).append(',')
+                    .append(book.getTitle()).append(',')
+                    .append(book.getAuthor()).append(',')
+                    .append(book.getPublicationYear().getValue()).append(',')
+                    .append(book.getPublisher()).append(',')
+                    .append(book.getImageUrl()).append(",\"")
+                    .append(book.getDescription()).append(", reprinted\",")
+                    .append(book.getGenre().name()).append(',')
+                    .append(book.isAvailable()).append(',')
+                    .append(book.getQuantity()).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String isbn(long id) {
+        return String.format("978%010d", id);
+    }
+}
@@ -0,0 +1,85 @@
+package tr.com.eaaslan.library.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tr.com.eaaslan.library.service.CoBorrowingMatrix;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The nightly recommendation rebuild without its query: building the co-borrowing matrix from the loan pairs
+ * and ranking the top 20 of every book. Loans are spread over patrons with 1 to 9 books each (5 on average)
+ * and a 200k book catalog in which popular books are borrowed far more often than the long tail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class CoBorrowingMatrixBenchmark {
+
+    private static final int CATALOG_SIZE = 200_000;
+    private static final int MAX_BOOKS_PER_PATRON = 500;
+
+    @Param({"1000000", "10000000"})
+    private int loans;
+
+    private long[] userIds;
+    private long[] bookIds;
+    private CoBorrowingMatrix matrix;
+
+    @Setup
+    public void setUp() {
+        userIds = new long[loans];
+        bookIds = new long[loans];
+        SplittableRandom random = new SplittableRandom(42);
+        long userId = 0;
+        int loan = 0;
+        while (loan < loans) {
+            userId++;
+            int books = Math.min(1 + random.nextInt(9), loans - loan);
+            // Distinct, skewed book ids grouped by patron, as the rebuild query returns them
+            long first = skewedBookId(random);
+            for (int i = 0; i < books; i++, loan++) {
+                userIds[loan] = userId;
+                bookIds[loan] = (first + i * 7919L) % CATALOG_SIZE + 1;
+            }
+        }
+        matrix = buildMatrix();
+    }
+
+    @Benchmark
+    public CoBorrowingMatrix buildMatrix() {
+        CoBorrowingMatrix.Builder builder = new CoBorrowingMatrix.Builder(MAX_BOOKS_PER_PATRON);
+        for (int i = 0; i < userIds.length; i++) {
+            builder.add(userIds[i], bookIds[i]);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public int rankAllBooks() {
+        int ranked = 0;
+        for (Long bookId : matrix.bookIds()) {
+            ranked += matrix.topCoBorrowed(bookId, 20).size();
+        }
+        return ranked;
+    }
+
+    // Squaring a uniform draw puts most loans on the low (popular) ids
+    private static long skewedBookId(SplittableRandom random) {
+        double draw = random.nextDouble();
+        return (long) (draw * draw * CATALOG_SIZE);
+    }
+}
@@ -0,0 +1,50 @@
+package tr.com.eaaslan.library.benchmark;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.util.CsvDataImporter;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a book import file into entities. Batches go to a stubbed repository, so the score excludes the
+ * inserts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvImportBenchmark {
+
+    @Param({"1000", "10000"})
+    private int rows;
+
+    private CsvDataImporter importer;
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        BookRepository bookRepository = Mockito.mock(BookRepository.class, Mockito.withSettings().stubOnly());
+        importer = new CsvDataImporter(bookRepository, 500);
+        csv = BenchmarkFixtures.booksCsv(rows);
+    }
+
+    @Benchmark
+    public void importBooks() {
+        importer.importBooksFromCsv(new ByteArrayInputStream(csv));
+    }
+}
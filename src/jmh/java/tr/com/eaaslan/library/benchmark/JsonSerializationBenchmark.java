@@ -0,0 +1,59 @@
+package tr.com.eaaslan.library.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tr.com.eaaslan.library.model.dto.book.BookResponse;
+import tr.com.eaaslan.library.model.dto.borrowing.BorrowingResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing of response pages as the list endpoints return them, with an object mapper configured like
+ * Spring Boot's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<BookResponse> books;
+    private Page<BorrowingResponse> borrowings;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        books = new PageImpl<>(BenchmarkFixtures.bookResponses(pageSize), PageRequest.of(0, pageSize), 20_000);
+        borrowings = new PageImpl<>(BenchmarkFixtures.borrowingResponses(pageSize), PageRequest.of(0, pageSize), 100_000);
+    }
+
+    @Benchmark
+    public byte[] writeBookPage() throws Exception {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] writeBorrowingPage() throws Exception {
+        return objectMapper.writeValueAsBytes(borrowings);
+    }
+}
@@ -0,0 +1,75 @@
+package tr.com.eaaslan.library.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.security.JwtAuthenticationFilter;
+import tr.com.eaaslan.library.security.JwtUtil;
+import tr.com.eaaslan.library.security.LibraryUserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One request through {@link JwtAuthenticationFilter}, from reading the header to the populated security
+ * context. The user lookup is answered from memory, so the score is the filter's own cost without the database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final FilterChain CHAIN = (request, response) -> {
+    };
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = BenchmarkFixtures.jwtUtil();
+        LibraryUserDetails patron = new LibraryUserDetails(BenchmarkFixtures.patron(1L));
+        UserDetailsService userDetailsService = username -> patron;
+
+        filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, new LibraryMetrics(new SimpleMeterRegistry()));
+        authorization = "Bearer " + jwtUtil.generateToken(patron);
+    }
+
+    @Benchmark
+    public Authentication authenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/books");
+        request.addHeader("Authorization", authorization);
+        return filter(request);
+    }
+
+    @Benchmark
+    public Authentication anonymousRequest() throws Exception {
+        return filter(new MockHttpServletRequest("GET", "/api/v1/books"));
+    }
+
+    private Authentication filter(MockHttpServletRequest request) throws Exception {
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package tr.com.eaaslan.library.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tr.com.eaaslan.library.model.Book;
+import tr.com.eaaslan.library.model.Borrowing;
+import tr.com.eaaslan.library.model.dto.book.BookResponse;
+import tr.com.eaaslan.library.model.dto.borrowing.BorrowingResponse;
+import tr.com.eaaslan.library.model.mapper.BookMapper;
+import tr.com.eaaslan.library.model.mapper.BookMapperImpl;
+import tr.com.eaaslan.library.model.mapper.BorrowingMapper;
+import tr.com.eaaslan.library.model.mapper.BorrowingMapperImpl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Entity to response mapping of a default sized page, as done by the list endpoints after the query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final BookMapper bookMapper = new BookMapperImpl();
+    private final BorrowingMapper borrowingMapper = new BorrowingMapperImpl();
+    private List<Book> books;
+    private List<Borrowing> borrowings;
+
+    @Setup
+    public void setUp() {
+        books = LongStream.rangeClosed(1, PAGE_SIZE).mapToObj(BenchmarkFixtures::book).toList();
+        borrowings = LongStream.rangeClosed(1, PAGE_SIZE).mapToObj(BenchmarkFixtures::borrowing).toList();
+    }
+
+    @Benchmark
+    public List<BookResponse> mapBookPage() {
+        return books.stream().map(bookMapper::toResponse).toList();
+    }
+
+    @Benchmark
+    public List<BorrowingResponse> mapBorrowingPage() {
+        return borrowings.stream().map(borrowingMapper::toResponse).toList();
+    }
+}
@@ -0,0 +1,57 @@
+package tr.com.eaaslan.library.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.service.BorrowingPdfExportService;
+import tr.com.eaaslan.library.service.BorrowingService;
+import tr.com.eaaslan.library.service.WorkloadBulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of the "all borrowings" report. The loans come from memory, so only the PDF layout and
+ * writing are measured. The 100k rows report takes seconds per operation and needs a heap of about 2 GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PdfExportBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    private BorrowingPdfExportService exportService;
+
+    @Setup
+    public void setUp() {
+        // Stub only: recording invocations would keep every exported list reachable
+        BorrowingService borrowingService = Mockito.mock(BorrowingService.class, Mockito.withSettings().stubOnly());
+        Mockito.when(borrowingService.getAllBorrowingsForExport()).thenReturn(BenchmarkFixtures.borrowingResponses(rows));
+        LibraryMetrics libraryMetrics = new LibraryMetrics(new SimpleMeterRegistry());
+        // One export at a time, so the bulkhead admits every operation without waiting
+        WorkloadBulkhead workloadBulkhead = new WorkloadBulkhead(libraryMetrics, 2, 4, Duration.ofSeconds(10),
+                2, 100, Duration.ofMinutes(10), 10);
+        exportService = new BorrowingPdfExportService(borrowingService, libraryMetrics, workloadBulkhead);
+    }
+
+    @Benchmark
+    public byte[] exportAllBorrowings() {
+        return exportService.exportAllBorrowingsToPdf();
+    }
+}
@@ -0,0 +1,19 @@
+package tr.com.eaaslan.library.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * The clock that loan dates, job schedules and audit timestamps are read from. A test can replace it with a
+ * {@code @Primary} clock of its own to move the application through simulated days.
+ */
+@Configuration
+public class ClockConfig {
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
@@ -0,0 +1,67 @@
+package tr.com.eaaslan.library.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import tr.com.eaaslan.library.limit.AdaptiveConcurrencyLimiter;
+import tr.com.eaaslan.library.limit.ConcurrencyLimitFilter;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.LimitedEndpoint;
+
+import java.time.Duration;
+
+/**
+ * Adaptive concurrency limits on the checkout and login endpoints, one per group, since logins spend their time
+ * hashing passwords and checkouts in the database.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Value("${app.concurrency-limit.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${app.concurrency-limit.min-limit:2}")
+    private int minLimit;
+
+    @Value("${app.concurrency-limit.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${app.concurrency-limit.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${app.concurrency-limit.retry-after:PT1S}")
+    private Duration retryAfter;
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> borrowingsConcurrencyLimitFilter(
+            LibraryMetrics libraryMetrics,
+            @Value("${app.concurrency-limit.borrowings.latency-threshold:PT0.5S}") Duration latencyThreshold) {
+        return registration(LimitedEndpoint.BORROWINGS, latencyThreshold, libraryMetrics,
+                "/api/v1/borrowings", "/api/v1/borrowings/*");
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> authConcurrencyLimitFilter(
+            LibraryMetrics libraryMetrics,
+            @Value("${app.concurrency-limit.auth.latency-threshold:PT1S}") Duration latencyThreshold) {
+        return registration(LimitedEndpoint.AUTH, latencyThreshold, libraryMetrics, "/api/v1/auth/*");
+    }
+
+    // Right after the SQL statistics filter and before the security filters, so shed requests cost no user lookup
+    private FilterRegistrationBean<ConcurrencyLimitFilter> registration(LimitedEndpoint endpoint,
+                                                                        Duration latencyThreshold,
+                                                                        LibraryMetrics libraryMetrics,
+                                                                        String... urlPatterns) {
+        AdaptiveConcurrencyLimiter limiter =
+                new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limiter, endpoint, libraryMetrics, retryAfter));
+        registration.addUrlPatterns(urlPatterns);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,121 @@
+package tr.com.eaaslan.library.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tr.com.eaaslan.library.model.UserRole;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Business health of the library: whether there are books and an admin, and roughly how many rows the main
+ * tables hold. Probes are answered from a snapshot that a background job refreshes, so a health request never
+ * queries the database; the snapshot's age is reported with it.
+ * <p>
+ * Row counts are PostgreSQL planner estimates from {@code pg_class}, as exact counts would scan the tables.
+ */
+@Component
+@Slf4j
+public class LibraryBusinessHealthIndicator implements HealthIndicator {
+
+    private static final String APPROXIMATE_ROW_COUNT =
+            "SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE oid = to_regclass(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final Duration maxAge;
+
+    private volatile Snapshot snapshot;
+    private boolean rowEstimatesAvailable = true;
+
+    record Snapshot(boolean booksExist, boolean adminExists, Long approximateUsers, Long approximateBooks,
+                    Long approximateBorrowings, String error, Instant refreshedAt) {
+    }
+
+    public LibraryBusinessHealthIndicator(JdbcTemplate jdbcTemplate,
+                                          UserRepository userRepository,
+                                          BookRepository bookRepository,
+                                          @Value("${app.health.max-age:PT5M}") Duration maxAge) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+        this.maxAge = maxAge;
+    }
+
+    @Override
+    public Health health() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Health.unknown().withDetail("business_status", "Not checked yet").build();
+        }
+
+        Duration age = Duration.between(current.refreshedAt(), Instant.now());
+        Health.Builder builder = current.error() == null ? Health.up() : Health.down();
+        builder.withDetail("checked_at", current.refreshedAt().toString())
+                .withDetail("age_seconds", age.toSeconds())
+                .withDetail("stale", age.compareTo(maxAge) > 0);
+
+        if (current.error() != null) {
+            return builder.withDetail("business_status", "Business logic check failed")
+                    .withDetail("error", current.error())
+                    .build();
+        }
+
+        // No books is reported, not failed: the instance must stay ready so that books can be added
+        builder.withDetail("business_status", current.booksExist() ? "System operational" : "No books available in the system")
+                .withDetail("admin_exists", current.adminExists())
+                .withDetail("system_ready", current.booksExist() && current.adminExists());
+        if (!current.booksExist()) {
+            builder.withDetail("recommendation", "Add books to the library system");
+        }
+        if (current.approximateUsers() != null) {
+            builder.withDetail("approximate_users", current.approximateUsers())
+                    .withDetail("approximate_books", current.approximateBooks())
+                    .withDetail("approximate_borrowings", current.approximateBorrowings());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Recomputes the snapshot. Runs at startup and then every {@code app.health.refresh-interval}.
+     */
+    @Scheduled(fixedDelayString = "${app.health.refresh-interval:PT1M}")
+    public void refresh() {
+        try {
+            boolean booksExist = bookRepository.existsByIdNotNull();
+            boolean adminExists = userRepository.existsByRole(UserRole.ADMIN);
+            Long users = approximateRowCount("users");
+            Long books = users != null ? approximateRowCount("books") : null;
+            Long borrowings = books != null ? approximateRowCount("borrowing") : null;
+            snapshot = new Snapshot(booksExist, adminExists, users, books, borrowings, null, Instant.now());
+        } catch (DataAccessException e) {
+            log.warn("Health snapshot refresh failed: {}", e.getMessage());
+            snapshot = new Snapshot(false, false, null, null, null,
+                    e.getClass().getSimpleName() + ": " + e.getMostSpecificCause().getMessage(), Instant.now());
+        }
+    }
+
+    // Null on databases without pg_class (H2 in tests), which are then not asked again
+    private Long approximateRowCount(String table) {
+        if (!rowEstimatesAvailable) {
+            return null;
+        }
+        try {
+            return jdbcTemplate.queryForObject(APPROXIMATE_ROW_COUNT, Long.class, table);
+        } catch (BadSqlGrammarException e) {
+            log.info("Approximate row counts unavailable, reporting without them: {}", e.getMessage());
+            rowEstimatesAvailable = false;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package tr.com.eaaslan.library.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import tr.com.eaaslan.library.datasource.ReadYourWrites;
+import tr.com.eaaslan.library.datasource.ReplicaRoutingDataSource;
+import tr.com.eaaslan.library.datasource.ReplicaSet;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured data source with one routing read-only transactions to read replicas (see
+ * {@link ReplicaRoutingDataSource}). The primary is configured by {@code spring.datasource}, and every replica
+ * pool takes its settings from {@code spring.datasource.hikari} too, so the routing data source is the only
+ * {@link DataSource} bean and the SQL statistics proxy wraps it once.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+    @Bean
+    public ReplicaSet replicaSet(
+            DataSourceProperties properties,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            LibraryMetrics libraryMetrics,
+            @Value("${app.datasource.replicas.urls}") List<String> urls,
+            @Value("${app.datasource.replicas.username:}") String username,
+            @Value("${app.datasource.replicas.password:}") String password,
+            @Value("${app.datasource.replicas.lag-query}") String lagQuery,
+            @Value("${app.datasource.replicas.max-lag:PT5S}") Duration maxLag,
+            @Value("${app.datasource.replicas.lag-check-interval:PT1S}") Duration lagCheckInterval) {
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("app.datasource.replicas.enabled is set without any replica urls");
+        }
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = pool(properties, environment, meterRegistry);
+            String prefix = replica.getPoolName() != null ? replica.getPoolName() + "-" : "";
+            replica.setPoolName(prefix + "replica-" + (i + 1));
+            replica.setJdbcUrl(urls.get(i).trim());
+            if (!username.isEmpty()) {
+                replica.setUsername(username);
+                replica.setPassword(password);
+            }
+            replica.setReadOnly(true);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        ReplicaSet replicaSet = new ReplicaSet(replicas, lagQuery, maxLag, libraryMetrics);
+        replicaSet.startLagChecks(lagCheckInterval);
+        return replicaSet;
+    }
+
+    @Bean
+    public DataSource dataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            ReplicaSet replicaSet,
+            ReadYourWrites readYourWrites,
+            LibraryMetrics libraryMetrics) {
+        return ReplicaRoutingDataSource.create(pool(properties, environment, meterRegistry), replicaSet,
+                readYourWrites, libraryMetrics);
+    }
+
+    // A pool configured as the auto-configured one would be; it is not a bean, so its metrics are bound here
+    private static HikariDataSource pool(DataSourceProperties properties, Environment environment,
+                                         MeterRegistry meterRegistry) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind(HIKARI_PREFIX, Bindable.ofInstance(pool));
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
@@ -3,6 +3,7 @@ package tr.com.eaaslan.library.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -21,6 +22,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -43,7 +45,8 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           @Value("${management.server.port:-1}") int managementPort) throws Exception {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -55,9 +58,15 @@ public class SecurityConfig {
                         .requestMatchers("/api/v1/auth/**").permitAll()
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
 
-                        .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/health/liveness", "/actuator/health/readiness",
+                                "/actuator/info", "/livez", "/readyz").permitAll()
+                        // Scraped by Prometheus without a token, but only on the management port, which is not
+                        // published; on the application port it needs an admin like the other endpoints
+                        .requestMatchers(onManagementPort("/actuator/prometheus", managementPort)).permitAll()
                         .requestMatchers("/actuator/**").hasRole("ADMIN")
 
+                        // Per-patron stream, must match before the public book reads
+                        .requestMatchers("/api/v1/books/availability/holds/**").authenticated()
                         .requestMatchers(HttpMethod.GET, "/api/v1/books/**").permitAll()
 
                         .requestMatchers("/api/v1/books/availability/**").authenticated()
@@ -68,6 +77,11 @@ public class SecurityConfig {
                 .build();
     }
 
+    private static RequestMatcher onManagementPort(String path, int managementPort) {
+        return request -> managementPort > 0 && request.getLocalPort() == managementPort
+                && path.equals(request.getRequestURI());
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authConfig) throws Exception {
         return authConfig.getAuthenticationManager();
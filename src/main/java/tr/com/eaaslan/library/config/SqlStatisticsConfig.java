@@ -0,0 +1,55 @@
+package tr.com.eaaslan.library.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.metrics.SqlStatisticsFilter;
+import tr.com.eaaslan.library.metrics.SqlStatisticsListener;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes JDBC through datasource-proxy so that statements, rows and JDBC time are counted per request and per
+ * job run (see {@link tr.com.eaaslan.library.metrics.SqlStatistics}).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sql-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatisticsConfig {
+
+    // Static, so that the data source is wrapped before anything else picks it up
+    @Bean
+    public static BeanPostProcessor sqlStatisticsDataSourceProxy() {
+        SqlStatisticsListener listener = new SqlStatisticsListener();
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(listener)
+                            .methodListener(listener)
+                            .proxyResultSet()
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Outside the security filters, so that the JWT user lookup is counted too
+    @Bean
+    public FilterRegistrationBean<SqlStatisticsFilter> sqlStatisticsFilter(
+            LibraryMetrics libraryMetrics,
+            @Value("${app.sql-stats.statement-budget:30}") int statementBudget) {
+        FilterRegistrationBean<SqlStatisticsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatisticsFilter(libraryMetrics, statementBudget));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
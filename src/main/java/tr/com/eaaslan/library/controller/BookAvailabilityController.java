@@ -8,11 +8,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
+
+import java.security.Principal;
 import tr.com.eaaslan.library.model.event.BookAvailabilityEvent;
+import tr.com.eaaslan.library.model.event.HoldReadyEvent;
 import tr.com.eaaslan.library.service.BookAvailabilityEventService;
 
 @RestController
@@ -53,4 +57,28 @@ public class BookAvailabilityController {
     public Flux<BookAvailabilityEvent> streamBookAvailability() {
         return eventService.getEventStream();
     }
-}
\ No newline at end of file
+
+    @Operation(
+            summary = "Stream the current patron's ready holds",
+            description = "Sends an event whenever a copy is reserved for one of the current patron's holds, " +
+                    "with the deadline for borrowing it. Replaces polling the borrow endpoint for unavailable books."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Stream successfully established. Events will be sent as they occur.",
+                    content = @Content(
+                            mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = HoldReadyEvent.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "401", description = "Authentication required")
+    })
+    @GetMapping(value = "/holds/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<HoldReadyEvent> streamReadyHolds(Principal principal) {
+        if (principal == null) {
+            throw new AuthenticationCredentialsNotFoundException("Authentication required to follow your holds");
+        }
+        return eventService.getHoldReadyStream(principal.getName());
+    }
+}
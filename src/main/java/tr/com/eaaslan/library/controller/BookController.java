@@ -15,9 +15,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.web.bind.annotation.*;
+import tr.com.eaaslan.library.model.Genre;
+import tr.com.eaaslan.library.model.PopularityWindow;
 import tr.com.eaaslan.library.model.dto.book.BookCreateRequest;
+import tr.com.eaaslan.library.model.dto.book.BookRecommendationResponse;
 import tr.com.eaaslan.library.model.dto.book.BookResponse;
 import tr.com.eaaslan.library.model.dto.book.BookUpdateRequest;
+import tr.com.eaaslan.library.model.dto.book.PopularBookResponse;
+import tr.com.eaaslan.library.service.BookPopularityService;
+import tr.com.eaaslan.library.service.BookRecommendationService;
 import tr.com.eaaslan.library.service.BookService;
 
 import java.util.List;
@@ -30,6 +36,8 @@ import java.util.List;
 public class BookController {
 
     private final BookService bookService;
+    private final BookPopularityService bookPopularityService;
+    private final BookRecommendationService bookRecommendationService;
 
     @Operation(summary = "Create a new book", description = "Creates a new book with the provided information")
     @ApiResponses(value = {
@@ -86,6 +94,34 @@ public class BookController {
         return ResponseEntity.ok(bookService.getAllBooks(page, size, sortBy));
     }
 
+    @Operation(summary = "Get popular books",
+            description = "Returns the most borrowed books over the last 7, 30 or 365 days or of all time, optionally within one genre")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Popular books retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid window, genre or limit")
+    })
+    @GetMapping("/popular")
+    public ResponseEntity<List<PopularBookResponse>> getPopularBooks(
+            @Parameter(description = "Ranking window") @RequestParam(defaultValue = "MONTH") PopularityWindow window,
+            @Parameter(description = "Only rank books of this genre") @RequestParam(required = false) Genre genre,
+            @Parameter(description = "Number of books (1-100)") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookPopularityService.getPopularBooks(window, genre, limit));
+    }
+
+    @Operation(summary = "Get book recommendations",
+            description = "Returns the books most often borrowed by patrons who also borrowed this book")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Recommendations retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit"),
+            @ApiResponse(responseCode = "404", description = "Book not found")
+    })
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<List<BookRecommendationResponse>> getRecommendations(
+            @Parameter(description = "Book ID", required = true) @PathVariable Long id,
+            @Parameter(description = "Number of books (1-20)") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookRecommendationService.getRecommendations(id, limit));
+    }
+
     @Operation(summary = "Update book", description = "Updates an existing book with the provided information")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Book updated successfully",
@@ -13,7 +13,11 @@ import org.springframework.web.bind.annotation.*;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingCreateRequest;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingResponse;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingReturnRequest;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkBorrowRequest;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkOperationResponse;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkReturnRequest;
 import tr.com.eaaslan.library.service.BorrowingService;
+import tr.com.eaaslan.library.service.BulkBorrowingService;
 
 import java.security.Principal;
 
@@ -24,6 +28,7 @@ import java.security.Principal;
 public class BorrowingController {
 
     private final BorrowingService borrowingService;
+    private final BulkBorrowingService bulkBorrowingService;
 
     @Operation(
             summary = "Borrow a book",
@@ -58,6 +63,35 @@ public class BorrowingController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(
+            summary = "Borrow several books",
+            description = "The patron borrows a list of books in one request; the result reports each book separately"
+    )
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkOperationResponse> borrowBooks(
+            @Valid @RequestBody BulkBorrowRequest bulkBorrowRequest,
+            Principal principal) {
+        if (principal == null) {
+            throw new AuthenticationCredentialsNotFoundException("Authentication required to borrow books");
+        }
+        return ResponseEntity.ok(bulkBorrowingService.borrowBooks(bulkBorrowRequest, principal.getName()));
+    }
+
+    @Operation(
+            summary = "Return several books",
+            description = "Returns a list of borrowings in one request, e.g. when emptying a return bin; "
+                    + "the result reports each borrowing separately"
+    )
+    @PutMapping("/bulk/return")
+    public ResponseEntity<BulkOperationResponse> returnBooks(
+            @Valid @RequestBody BulkReturnRequest bulkReturnRequest,
+            Principal principal) {
+        if (principal == null) {
+            throw new AuthenticationCredentialsNotFoundException("Authentication required to return books");
+        }
+        return ResponseEntity.ok(bulkBorrowingService.returnBooks(bulkReturnRequest, principal.getName()));
+    }
+
     @Operation(
             summary = "Get all borrowings",
             description = "Returns all borrowings in the library"
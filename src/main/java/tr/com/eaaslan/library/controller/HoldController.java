@@ -0,0 +1,64 @@
+package tr.com.eaaslan.library.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.web.bind.annotation.*;
+import tr.com.eaaslan.library.model.dto.hold.HoldCreateRequest;
+import tr.com.eaaslan.library.model.dto.hold.HoldResponse;
+import tr.com.eaaslan.library.service.HoldService;
+
+import java.security.Principal;
+import java.util.List;
+
+@RestController
+@RequestMapping("/holds")
+@RequiredArgsConstructor
+@Tag(name = "Hold Management", description = "APIs for queueing for books that have no copy on the shelf")
+public class HoldController {
+
+    private final HoldService holdService;
+
+    @Operation(
+            summary = "Place a hold",
+            description = "Queues the patron for an unavailable book. The next returned copy is reserved for the " +
+                    "oldest hold and announced on /books/availability/holds/stream"
+    )
+    @PostMapping
+    public ResponseEntity<HoldResponse> placeHold(@Valid @RequestBody HoldCreateRequest holdCreateRequest,
+                                                  Principal principal) {
+        if (principal == null) {
+            throw new AuthenticationCredentialsNotFoundException("Authentication required to place holds");
+        }
+        HoldResponse response = holdService.placeHold(holdCreateRequest.bookId(), principal.getName());
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+
+    @Operation(
+            summary = "Get my holds",
+            description = "Returns the current patron's waiting and ready holds with their queue positions"
+    )
+    @GetMapping("/my-holds")
+    public ResponseEntity<List<HoldResponse>> getMyHolds(Principal principal) {
+        if (principal == null) {
+            throw new AuthenticationCredentialsNotFoundException("Authentication required to view your holds");
+        }
+        return ResponseEntity.ok(holdService.getOpenHolds(principal.getName()));
+    }
+
+    @Operation(
+            summary = "Cancel a hold",
+            description = "Cancels a waiting or ready hold; a reserved copy passes to the next patron in line"
+    )
+    @DeleteMapping("/{id}")
+    public ResponseEntity<HoldResponse> cancelHold(@PathVariable Long id, Principal principal) {
+        if (principal == null) {
+            throw new AuthenticationCredentialsNotFoundException("Authentication required to cancel holds");
+        }
+        return ResponseEntity.ok(holdService.cancelHold(id, principal.getName()));
+    }
+}
@@ -0,0 +1,37 @@
+package tr.com.eaaslan.library.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import tr.com.eaaslan.library.model.dto.job.JobRunResponse;
+import tr.com.eaaslan.library.service.JobRunner;
+
+@RestController
+@RequestMapping("/jobs")
+@RequiredArgsConstructor
+@Tag(name = "Scheduled Jobs", description = "Run history of the scheduled jobs")
+public class JobController {
+
+    private final JobRunner jobRunner;
+
+    @Operation(
+            summary = "Get job runs",
+            description = "Returns the recorded runs of the scheduled jobs, latest first, with the node that ran them, " +
+                    "their duration and the rows they affected"
+    )
+    @GetMapping("/runs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Page<JobRunResponse>> getRuns(
+            @RequestParam(required = false) String job,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(jobRunner.getRuns(job, page, size));
+    }
+}
@@ -0,0 +1,107 @@
+package tr.com.eaaslan.library.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import tr.com.eaaslan.library.model.dto.stats.*;
+import tr.com.eaaslan.library.service.LoanStatisticsService;
+import tr.com.eaaslan.library.service.StatisticsService;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/stats")
+@Tag(name = "Statistics", description = "Precomputed loan statistics for librarians")
+public class StatisticsController {
+
+    private final StatisticsService statisticsService;
+    private final LoanStatisticsService loanStatisticsService;
+    private final Clock clock;
+    private final TaskExecutor taskExecutor;
+
+    public StatisticsController(StatisticsService statisticsService,
+                                LoanStatisticsService loanStatisticsService,
+                                Clock clock,
+                                @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                TaskExecutor taskExecutor) {
+        this.statisticsService = statisticsService;
+        this.loanStatisticsService = loanStatisticsService;
+        this.clock = clock;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @Operation(
+            summary = "Get library summary",
+            description = "Returns total, open and overdue loans, utilization and the late return rate of the last 30 days"
+    )
+    @GetMapping("/summary")
+    @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
+    public ResponseEntity<StatisticsSummaryResponse> getSummary() {
+        return ResponseEntity.ok(statisticsService.getSummary());
+    }
+
+    @Operation(
+            summary = "Get loans per day",
+            description = "Returns loans, returns and late returns per day; defaults to the last 30 days"
+    )
+    @GetMapping("/loans/daily")
+    @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
+    public ResponseEntity<List<DailyLoanStatsResponse>> getDailyLoans(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(clock);
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return ResponseEntity.ok(statisticsService.getDailyLoans(start, end));
+    }
+
+    @Operation(
+            summary = "Get most borrowed books",
+            description = "Returns the books with the most loans of all time"
+    )
+    @GetMapping("/books/top")
+    @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
+    public ResponseEntity<List<TopBookResponse>> getTopBooks(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(statisticsService.getTopBooks(limit));
+    }
+
+    @Operation(
+            summary = "Get most borrowed authors",
+            description = "Returns the authors whose books have the most loans of all time"
+    )
+    @GetMapping("/authors/top")
+    @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
+    public ResponseEntity<List<TopAuthorResponse>> getTopAuthors(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(statisticsService.getTopAuthors(limit));
+    }
+
+    @Operation(
+            summary = "Get statistics per genre",
+            description = "Returns loans, utilization and overdue rate per genre, most borrowed genre first"
+    )
+    @GetMapping("/genres")
+    @PreAuthorize("hasRole('LIBRARIAN') or hasRole('ADMIN')")
+    public ResponseEntity<List<GenreStatsResponse>> getGenreStatistics() {
+        return ResponseEntity.ok(statisticsService.getGenreStatistics());
+    }
+
+    @Operation(
+            summary = "Rebuild statistics",
+            description = "Starts recomputing all statistics from the loans in the background, as the nightly job "
+                    + "does; skipped if a rebuild is already running on any node (Admin only)"
+    )
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> rebuild() {
+        // Checkouts wait for the rebuild's snapshot, so it runs as the job rather than on the request thread
+        taskExecutor.execute(loanStatisticsService::runRebuild);
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import tr.com.eaaslan.library.model.dto.user.*;
 import tr.com.eaaslan.library.security.SecurityService;
+import tr.com.eaaslan.library.service.UserBulkStatusService;
 import tr.com.eaaslan.library.service.UserService;
 
 import java.security.Principal;
@@ -21,10 +22,13 @@ public class UserController {
 
     private final UserService userService;
     private final SecurityService securityService;
+    private final UserBulkStatusService userBulkStatusService;
 
-    public UserController(UserService userService, SecurityService securityService) {
+    public UserController(UserService userService, SecurityService securityService,
+                          UserBulkStatusService userBulkStatusService) {
         this.userService = userService;
         this.securityService = securityService;
+        this.userBulkStatusService = userBulkStatusService;
     }
 
     @Operation(
@@ -163,5 +167,15 @@ public class UserController {
         return ResponseEntity.ok(userService.updateUserStatus(id, status));
     }
 
-
+    @Operation(
+            summary = "Update the status of many users",
+            description = "Changes the status of the given users, or of all users matching a role/status filter, "
+                    + "and returns a summary of the change"
+    )
+    @PutMapping("/status/bulk")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<UserBulkStatusResponse> updateUserStatuses(
+            @Valid @RequestBody UserBulkStatusRequest request, Principal principal) {
+        return ResponseEntity.ok(userBulkStatusService.updateStatus(request, principal.getName()));
+    }
 }
@@ -0,0 +1,60 @@
+package tr.com.eaaslan.library.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the reads of a patron on the primary for a while after they changed their own loans, so a listing right
+ * after a checkout shows it even if the replicas have not replayed it yet. The window is the largest lag a replica
+ * may have and still serve reads (see {@link ReplicaSet}).
+ * <p>
+ * Without replicas nothing is recorded.
+ */
+@Component
+public class ReadYourWrites {
+
+    private final Map<String, Long> primaryUntil = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final long windowNanos;
+
+    public ReadYourWrites(
+            @Value("${app.datasource.replicas.enabled:false}") boolean enabled,
+            @Value("${app.datasource.replicas.max-lag:PT5S}") Duration maxLag) {
+        this.enabled = enabled;
+        this.windowNanos = maxLag.toNanos();
+    }
+
+    public void recordWrite(String userEmail) {
+        if (enabled) {
+            primaryUntil.put(userEmail, System.nanoTime() + windowNanos);
+        }
+    }
+
+    /**
+     * Whether the authenticated user of the current thread wrote recently enough that their reads need the primary.
+     */
+    public boolean currentUserRequiresPrimary() {
+        if (primaryUntil.isEmpty()) {
+            return false;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return false;
+        }
+        Long until = primaryUntil.get(authentication.getName());
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.max-lag:PT5S}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        primaryUntil.values().removeIf(until -> until - now <= 0);
+    }
+}
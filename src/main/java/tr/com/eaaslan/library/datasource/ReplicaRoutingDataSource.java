@@ -0,0 +1,81 @@
+package tr.com.eaaslan.library.datasource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.ReadRoute;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to a replica within the maximum lag, and everything else, including the reads of
+ * a patron who just wrote (see {@link ReadYourWrites}), to the primary.
+ * <p>
+ * Use it through {@link #create}: transaction managers fetch their connection before the transaction is marked
+ * read-only, so the choice is deferred to the first statement by a {@link LazyConnectionDataSourceProxy}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final ReplicaSet replicas;
+    private final ReadYourWrites readYourWrites;
+    private final LibraryMetrics libraryMetrics;
+
+    private ReplicaRoutingDataSource(DataSource primary, ReplicaSet replicas, ReadYourWrites readYourWrites,
+                                     LibraryMetrics libraryMetrics) {
+        this.replicas = replicas;
+        this.readYourWrites = readYourWrites;
+        this.libraryMetrics = libraryMetrics;
+        Map<Object, Object> targets = replicas.targets();
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public static DataSource create(DataSource primary, ReplicaSet replicas, ReadYourWrites readYourWrites,
+                                    LibraryMetrics libraryMetrics) {
+        return new RoutingProxy(primary,
+                new ReplicaRoutingDataSource(primary, replicas, readYourWrites, libraryMetrics));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        if (readYourWrites.currentUserRequiresPrimary()) {
+            libraryMetrics.recordReadRoute(ReadRoute.READ_YOUR_WRITES);
+            return PRIMARY;
+        }
+        String replica = replicas.pick();
+        if (replica == null) {
+            libraryMetrics.recordReadRoute(ReadRoute.REPLICAS_BEHIND);
+            return PRIMARY;
+        }
+        libraryMetrics.recordReadRoute(ReadRoute.REPLICA);
+        return replica;
+    }
+
+    // Closes the primary pool with the context; the replica pools are closed by their ReplicaSet
+    private static final class RoutingProxy extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final DataSource primary;
+
+        private RoutingProxy(DataSource primary, ReplicaRoutingDataSource routing) {
+            super(routing);
+            this.primary = primary;
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (primary instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
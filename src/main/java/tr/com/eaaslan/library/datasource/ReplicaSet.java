@@ -0,0 +1,153 @@
+package tr.com.eaaslan.library.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read replicas with their replication lag, measured by {@link #checkLag()} with a query returning the lag in
+ * seconds (NULL counts as none). The lag of a replica may grow by the time since its check, so a replica measured
+ * L behind serves reads for at most the maximum lag minus L after the check. When no replica is within the
+ * maximum lag, because they are behind, down, or not checked recently, reads go to the primary. The checks run
+ * on a thread of their own (see {@link #startLagChecks}), so scheduled jobs occupying the task scheduler cannot
+ * hold them up and send every read to the primary.
+ */
+@Slf4j
+public class ReplicaSet implements AutoCloseable {
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final String lagQuery;
+    private final long maxLagNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService lagChecker;
+
+    public ReplicaSet(Map<String, DataSource> replicas, String lagQuery, Duration maxLag,
+                      LibraryMetrics libraryMetrics) {
+        this.lagQuery = lagQuery;
+        this.maxLagNanos = maxLag.toNanos();
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            libraryMetrics.registerReplicaLagGauge(name, () -> replica.lagSeconds);
+        });
+    }
+
+    Map<Object, Object> targets() {
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        replicas.forEach(replica -> targets.put(replica.name, replica.dataSource));
+        return targets;
+    }
+
+    /**
+     * The next replica in turn that is within the maximum lag, or null if there is none.
+     */
+    String pick() {
+        long now = System.nanoTime();
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.usableUntil - now > 0) {
+                return replica.name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks the lag now and then every interval after the previous check completed, until {@link #close}.
+     */
+    public synchronized void startLagChecks(Duration interval) {
+        if (lagChecker != null) {
+            throw new IllegalStateException("Lag checks have already been started");
+        }
+        lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(() -> {
+            // An exception escaping the task would cancel every later check
+            try {
+                checkLag();
+            } catch (RuntimeException e) {
+                log.error("Replica lag check failed", e);
+            }
+        }, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            boolean wasWithinLag = replica.withinLag;
+            // Taken before the query, so the time the check takes counts against the replica
+            long checkedAt = System.nanoTime();
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                double lagSeconds = resultSet.next() ? resultSet.getDouble(1) : 0;
+                long lagNanos = (long) (lagSeconds * 1_000_000_000L);
+                replica.lagSeconds = lagSeconds;
+                replica.withinLag = lagNanos < maxLagNanos;
+                replica.usableUntil = checkedAt + Math.max(maxLagNanos - lagNanos, 0);
+            } catch (SQLException e) {
+                replica.lagSeconds = Double.NaN;
+                replica.withinLag = false;
+                replica.usableUntil = checkedAt;
+                if (wasWithinLag) {
+                    log.warn("Replica {} cannot be reached, reading from the primary: {}",
+                            replica.name, e.getMessage());
+                }
+                continue;
+            }
+            if (wasWithinLag && !replica.withinLag) {
+                log.warn("Replica {} is {}s behind, reading from the primary until it catches up",
+                        replica.name, replica.lagSeconds);
+            } else if (!wasWithinLag && replica.withinLag) {
+                log.info("Replica {} serves reads, {}s behind", replica.name, replica.lagSeconds);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        synchronized (this) {
+            if (lagChecker != null) {
+                lagChecker.shutdownNow();
+                lagChecker.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile double lagSeconds = Double.NaN;
+        private volatile boolean withinLag;
+        private volatile long usableUntil = System.nanoTime();
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
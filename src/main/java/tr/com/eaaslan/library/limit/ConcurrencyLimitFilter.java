@@ -0,0 +1,85 @@
+package tr.com.eaaslan.library.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.LimitedEndpoint;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Admits the writes to a group of endpoints within an {@link AdaptiveConcurrencyLimiter} and answers the rest
+ * with 503 and Retry-After. The latency is measured over the whole filter chain, so it includes authentication;
+ * reads pass through unlimited.
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final LimitedEndpoint endpoint;
+    private final LibraryMetrics libraryMetrics;
+    private final long retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, LimitedEndpoint endpoint,
+                                  LibraryMetrics libraryMetrics, Duration retryAfter) {
+        this.limiter = limiter;
+        this.endpoint = endpoint;
+        this.libraryMetrics = libraryMetrics;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        libraryMetrics.registerConcurrencyLimitGauges(endpoint, limiter::getLimit, limiter::getInFlight);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = limiter.tryAcquire();
+        if (start < 0) {
+            libraryMetrics.recordConcurrencyLimitRejection(endpoint);
+            log.debug("{} {} shed at a concurrency limit of {}", request.getMethod(), request.getRequestURI(),
+                    limiter.getLimit());
+            reject(request, response);
+            return;
+        }
+
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        } finally {
+            limiter.release(start, failed);
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        body.put("error", "Service Unavailable");
+        body.put("message", "Too many requests in progress, try again later");
+        body.put("path", request.getServletPath());
+
+        OBJECT_MAPPER.writeValue(response.getOutputStream(), body);
+    }
+}
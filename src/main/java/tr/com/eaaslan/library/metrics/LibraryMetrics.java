@@ -0,0 +1,270 @@
+package tr.com.eaaslan.library.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * Domain metrics of the circulation hot paths. Their meters are registered up front, and
+ * tags only take values from the enums below, so recording is a map lookup and a clock read, and no user id or
+ * search term ever becomes a tag. Callers pass a {@link System#nanoTime()} start.
+ * <p>
+ * SLO buckets of the timers are configured under {@code management.metrics.distribution.slo}.
+ */
+@Component
+public class LibraryMetrics {
+
+    public enum SearchType {TITLE, AUTHOR, GENRE}
+
+    public enum PdfReport {ALL, USER, OVERDUE, BOOK, DATE_RANGE}
+
+    public enum JwtOutcome {AUTHENTICATED, ANONYMOUS, REJECTED}
+
+    public enum EventStream {AVAILABILITY, HOLDS}
+
+    public enum ReadRoute {REPLICA, READ_YOUR_WRITES, REPLICAS_BEHIND}
+
+    public enum Workload {REPORTING, JOBS}
+
+    public enum LimitedEndpoint {BORROWINGS, AUTH}
+
+    private final MeterRegistry registry;
+    private final Timer borrowSucceeded;
+    private final Timer borrowFailed;
+    private final Timer returnSucceeded;
+    private final Timer returnFailed;
+    private final Map<SearchType, Timer> searchTimers = new EnumMap<>(SearchType.class);
+    private final Map<PdfReport, Timer> pdfTimers = new EnumMap<>(PdfReport.class);
+    private final Map<PdfReport, DistributionSummary> pdfSizes = new EnumMap<>(PdfReport.class);
+    private final Map<JwtOutcome, Timer> jwtTimers = new EnumMap<>(JwtOutcome.class);
+    private final Map<EventStream, Counter> droppedEvents = new EnumMap<>(EventStream.class);
+    private final Map<ReadRoute, Counter> readRoutes = new EnumMap<>(ReadRoute.class);
+    private final Map<Workload, Timer> workloadWaits = new EnumMap<>(Workload.class);
+    private final Map<Workload, Counter> workloadRejections = new EnumMap<>(Workload.class);
+    private final Map<LimitedEndpoint, Counter> limitRejections = new EnumMap<>(LimitedEndpoint.class);
+
+    public LibraryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        borrowSucceeded = outcomeTimer("library.borrowing.borrow", "Checkout of a single book", "success");
+        borrowFailed = outcomeTimer("library.borrowing.borrow", "Checkout of a single book", "failure");
+        returnSucceeded = outcomeTimer("library.borrowing.return", "Return of a single book", "success");
+        returnFailed = outcomeTimer("library.borrowing.return", "Return of a single book", "failure");
+
+        for (SearchType type : SearchType.values()) {
+            searchTimers.put(type, Timer.builder("library.book.search")
+                    .description("Book search")
+                    .tag("type", tagValue(type))
+                    .register(registry));
+        }
+        for (PdfReport report : PdfReport.values()) {
+            pdfTimers.put(report, Timer.builder("library.pdf.export")
+                    .description("Loading and rendering a PDF report")
+                    .tag("report", tagValue(report))
+                    .register(registry));
+            pdfSizes.put(report, DistributionSummary.builder("library.pdf.size")
+                    .description("Size of the rendered PDF report")
+                    .baseUnit("bytes")
+                    .tag("report", tagValue(report))
+                    .register(registry));
+        }
+        for (JwtOutcome outcome : JwtOutcome.values()) {
+            jwtTimers.put(outcome, Timer.builder("library.security.jwt.filter")
+                    .description("Token parsing, user lookup and validation in the JWT filter")
+                    .tag("outcome", tagValue(outcome))
+                    .register(registry));
+        }
+        for (EventStream stream : EventStream.values()) {
+            droppedEvents.put(stream, Counter.builder("library.sse.events.dropped")
+                    .description("Events that could not be emitted to the stream's subscribers")
+                    .tag("stream", tagValue(stream))
+                    .register(registry));
+        }
+        for (ReadRoute route : ReadRoute.values()) {
+            readRoutes.put(route, Counter.builder("library.datasource.reads")
+                    .description("Read-only transactions by the data source they were routed to")
+                    .tag("route", tagValue(route))
+                    .register(registry));
+        }
+        for (Workload workload : Workload.values()) {
+            workloadWaits.put(workload, Timer.builder("library.workload.wait")
+                    .description("Time admitted work waited for a slot of its workload class")
+                    .tag("workload", tagValue(workload))
+                    .register(registry));
+            workloadRejections.put(workload, Counter.builder("library.workload.rejected")
+                    .description("Work rejected because its workload class was saturated")
+                    .tag("workload", tagValue(workload))
+                    .register(registry));
+        }
+        for (LimitedEndpoint endpoint : LimitedEndpoint.values()) {
+            limitRejections.put(endpoint, Counter.builder("library.concurrency.rejected")
+                    .description("Requests shed because the endpoints' concurrency limit was reached")
+                    .tag("endpoint", tagValue(endpoint))
+                    .register(registry));
+        }
+    }
+
+    public void recordBorrow(long startNanos, boolean succeeded) {
+        (succeeded ? borrowSucceeded : borrowFailed).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordReturn(long startNanos, boolean succeeded) {
+        (succeeded ? returnSucceeded : returnFailed).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSearch(SearchType type, long startNanos) {
+        searchTimers.get(type).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPdfExport(PdfReport report, long startNanos, int bytes) {
+        pdfTimers.get(report).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        pdfSizes.get(report).record(bytes);
+    }
+
+    public void recordJwtFilter(JwtOutcome outcome, long startNanos) {
+        jwtTimers.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDroppedEvent(EventStream stream) {
+        droppedEvents.get(stream).increment();
+    }
+
+    public void recordReadRoute(ReadRoute route) {
+        readRoutes.get(route).increment();
+    }
+
+    /**
+     * Publishes the number of subscribers connected to an event stream, read when the registry is scraped.
+     */
+    public void registerSubscriberGauge(EventStream stream, IntSupplier subscribers) {
+        Gauge.builder("library.sse.subscribers", subscribers, IntSupplier::getAsInt)
+                .description("Clients connected to the event stream")
+                .tag("stream", tagValue(stream))
+                .strongReference(true)
+                .register(registry);
+    }
+
+    public void recordWorkloadAdmission(Workload workload, long startNanos) {
+        workloadWaits.get(workload).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordWorkloadRejection(Workload workload) {
+        workloadRejections.get(workload).increment();
+    }
+
+    /**
+     * Publishes the running and waiting work of a workload class, read when the registry is scraped.
+     */
+    public void registerWorkloadGauges(Workload workload, IntSupplier active, IntSupplier queued) {
+        Gauge.builder("library.workload.active", active, IntSupplier::getAsInt)
+                .description("Work of the workload class running")
+                .tag("workload", tagValue(workload))
+                .strongReference(true)
+                .register(registry);
+        Gauge.builder("library.workload.queued", queued, IntSupplier::getAsInt)
+                .description("Work of the workload class waiting for a slot")
+                .tag("workload", tagValue(workload))
+                .strongReference(true)
+                .register(registry);
+    }
+
+    public void recordConcurrencyLimitRejection(LimitedEndpoint endpoint) {
+        limitRejections.get(endpoint).increment();
+    }
+
+    /**
+     * Publishes the current concurrency limit of the endpoints and their requests in flight, read when the
+     * registry is scraped.
+     */
+    public void registerConcurrencyLimitGauges(LimitedEndpoint endpoint, IntSupplier limit, IntSupplier inFlight) {
+        Gauge.builder("library.concurrency.limit", limit, IntSupplier::getAsInt)
+                .description("Concurrent requests the endpoints currently admit")
+                .tag("endpoint", tagValue(endpoint))
+                .strongReference(true)
+                .register(registry);
+        Gauge.builder("library.concurrency.in-flight", inFlight, IntSupplier::getAsInt)
+                .description("Requests to the endpoints being processed")
+                .tag("endpoint", tagValue(endpoint))
+                .strongReference(true)
+                .register(registry);
+    }
+
+    /**
+     * Publishes the last measured replication lag of a read replica, NaN while it cannot be reached.
+     */
+    public void registerReplicaLagGauge(String replica, DoubleSupplier lagSeconds) {
+        Gauge.builder("library.datasource.replica.lag", lagSeconds, DoubleSupplier::getAsDouble)
+                .description("Replication lag of the read replica at its last check")
+                .baseUnit("seconds")
+                .tag("replica", replica)
+                .strongReference(true)
+                .register(registry);
+    }
+
+    /**
+     * Records a finished scheduled job run. Job names are a fixed set, and runs are rare, so the meters are
+     * looked up per run.
+     */
+    public void recordJobRun(String job, boolean succeeded, long durationMillis, long rowsAffected) {
+        String status = succeeded ? "succeeded" : "failed";
+        Timer.builder("library.job.duration")
+                .description("Duration of a scheduled job run, per shard")
+                .tags("job", job, "status", status)
+                .register(registry)
+                .record(durationMillis, TimeUnit.MILLISECONDS);
+        Counter.builder("library.job.rows")
+                .description("Rows changed by scheduled job runs")
+                .tags("job", job, "status", status)
+                .register(registry)
+                .increment(rowsAffected);
+    }
+
+    /**
+     * Records the SQL work of a request. Route templates are a fixed set, so the meters are looked up per request.
+     */
+    public void recordRequestSql(String uri, SqlStatistics statistics) {
+        recordSql("library.http.sql", "uri", uri, statistics);
+    }
+
+    public void recordJobSql(String job, SqlStatistics statistics) {
+        recordSql("library.job.sql", "job", job, statistics);
+    }
+
+    private void recordSql(String prefix, String tag, String value, SqlStatistics statistics) {
+        DistributionSummary.builder(prefix + ".statements")
+                .description("SQL statements executed")
+                .tag(tag, value)
+                .register(registry)
+                .record(statistics.getStatements());
+        DistributionSummary.builder(prefix + ".rows")
+                .description("Rows read or changed by SQL statements")
+                .tag(tag, value)
+                .register(registry)
+                .record(statistics.getRows());
+        Timer.builder(prefix + ".time")
+                .description("Time spent executing SQL statements")
+                .tag(tag, value)
+                .register(registry)
+                .record(statistics.getJdbcMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private Timer outcomeTimer(String name, String description, String outcome) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -0,0 +1,78 @@
+package tr.com.eaaslan.library.metrics;
+
+/**
+ * SQL statements, rows and JDBC time of one unit of work (an HTTP request, a scheduled job run, a test), counted
+ * on the thread that runs it. The datasource proxy reports into the statistics open on the current thread, if any;
+ * work handed to other threads is not counted.
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private final SqlStatistics previous;
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+    private long statementStart;
+
+    private SqlStatistics(SqlStatistics previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Starts counting on the current thread until {@link #close()}; statistics opened inside are counted separately.
+     */
+    public static SqlStatistics open() {
+        SqlStatistics statistics = new SqlStatistics(CURRENT.get());
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stops counting and restores the statistics that were open before, if any. The counts remain readable.
+     */
+    public void close() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    void statementStarted() {
+        statementStart = System.nanoTime();
+    }
+
+    void statementFinished(long rowsAffected) {
+        statements++;
+        rows += rowsAffected;
+        jdbcNanos += System.nanoTime() - statementStart;
+    }
+
+    void rowRead() {
+        rows++;
+    }
+
+    // Round trips to the database; a JDBC batch counts once
+    public int getStatements() {
+        return statements;
+    }
+
+    // Rows read from result sets plus rows changed by updates
+    public long getRows() {
+        return rows;
+    }
+
+    public long getJdbcMillis() {
+        return jdbcNanos / 1_000_000;
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements, " + rows + " rows, " + getJdbcMillis() + " ms JDBC";
+    }
+}
@@ -0,0 +1,49 @@
+package tr.com.eaaslan.library.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements of each HTTP request, security lookups included, publishes them per endpoint and logs
+ * requests over the statement budget, which usually means an N+1 pattern.
+ */
+@Slf4j
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    public static final String STATISTICS_ATTRIBUTE = SqlStatisticsFilter.class.getName() + ".statistics";
+
+    private final LibraryMetrics libraryMetrics;
+    private final int statementBudget;
+
+    public SqlStatisticsFilter(LibraryMetrics libraryMetrics, int statementBudget) {
+        this.libraryMetrics = libraryMetrics;
+        this.statementBudget = statementBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.open();
+        request.setAttribute(STATISTICS_ATTRIBUTE, statistics);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statistics.close();
+            // The route template, never the raw path, so ids in paths do not become tags
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            libraryMetrics.recordRequestSql(uri, statistics);
+            if (statistics.getStatements() > statementBudget) {
+                log.warn("{} {} exceeded the SQL statement budget of {}: {}",
+                        request.getMethod(), uri, statementBudget, statistics);
+            }
+        }
+    }
+}
@@ -17,8 +17,15 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public abstract class BaseEntity {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Ids are drawn from {@code library_id_seq} in blocks of {@link #ID_ALLOCATION_SIZE} (pooled-lo optimizer),
+     * so Hibernate assigns ids in memory and can batch inserts instead of doing one round trip per row.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "library_id_seq")
+    @SequenceGenerator(name = "library_id_seq", sequenceName = "library_id_seq", allocationSize = BaseEntity.ID_ALLOCATION_SIZE)
     private Long id;
 
     @Version
@@ -41,15 +48,5 @@ public abstract class BaseEntity {
     @Column(nullable = false)
     private String updatedBy;
 
-    @PrePersist
-    public void prePersist() {
-        if (this.createdAt == null) {
-            this.createdAt = LocalDateTime.now();
-        }
-        if (this.updatedAt == null) {
-            this.updatedAt = LocalDateTime.now();
-        }
-    }
-
 }
 
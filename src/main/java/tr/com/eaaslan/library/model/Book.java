@@ -3,6 +3,10 @@ package tr.com.eaaslan.library.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.Year;
 
@@ -11,6 +15,9 @@ import java.time.Year;
         @Index(name = "idx_book_isbn", columnList = "isbn", unique = true),
         @Index(name = "idx_book_title", columnList = "title")
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "books")
+@NaturalIdCache(region = "books-by-isbn")
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,6 +25,7 @@ import java.time.Year;
 @Setter
 public class Book extends BaseEntity {
 
+    @NaturalId(mutable = true)
     @Column(name = "isbn", unique = true, nullable = false)
     @Size(min = 10, max = 13, message = "ISBN must be between 10 and 13 characters")
     @NotBlank(message = "ISBN is required")
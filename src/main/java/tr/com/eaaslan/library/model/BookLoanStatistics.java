@@ -0,0 +1,34 @@
+package tr.com.eaaslan.library.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * All-time loans and currently open and overdue loans of one book, maintained incrementally by
+ * {@code LoanStatisticsService}. Author and genre rankings are derived by joining these rows with
+ * {@code books}, which is bounded by the catalogue size rather than the loan history.
+ */
+@Entity
+@Table(name = "book_loan_statistics", indexes = {
+        @Index(name = "idx_book_loan_statistics_loan_count", columnList = "loan_count DESC")
+})
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookLoanStatistics {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "loan_count", nullable = false)
+    private long loanCount;
+
+    @Column(name = "open_loan_count", nullable = false)
+    private long openLoanCount;
+
+    @Column(name = "overdue_loan_count", nullable = false)
+    private long overdueLoanCount;
+}
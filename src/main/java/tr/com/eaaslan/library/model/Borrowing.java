@@ -10,7 +10,14 @@ import lombok.*;
 
 import java.time.LocalDate;
 
-@Table
+@Table(name = "borrowing", indexes = {
+        @Index(name = "idx_borrowing_user_status", columnList = "user_id, status"),
+        @Index(name = "idx_borrowing_user_borrow_date", columnList = "user_id, borrow_date DESC"),
+        @Index(name = "idx_borrowing_book_status", columnList = "book_id, status"),
+        @Index(name = "idx_borrowing_book_borrow_date", columnList = "book_id, borrow_date DESC"),
+        @Index(name = "idx_borrowing_status_due_date", columnList = "status, due_date"),
+        @Index(name = "idx_borrowing_borrow_date", columnList = "borrow_date")
+})
 @Entity
 @Getter
 @Setter
@@ -19,6 +26,12 @@ import java.time.LocalDate;
 @NoArgsConstructor
 public class Borrowing extends BaseEntity {
 
+    /**
+     * Partial unique index on (user_id, book_id) for ACTIVE and OVERDUE loans, created by the
+     * {@code V4__unique_active_loan} migration.
+     */
+    public static final String ACTIVE_LOAN_CONSTRAINT = "uk_borrowing_active_user_book";
+
     @Column(name = "borrow_date", nullable = false)
     @NotNull(message = "Borrow date is required")
     private LocalDate borrowDate;
@@ -39,11 +52,11 @@ public class Borrowing extends BaseEntity {
     @Builder.Default
     private boolean returnedLate = false;
 
-    @Transient
-    public boolean isOverdue() {
+    // Takes the day from the caller, who reads it from the application clock
+    public boolean isOverdue(LocalDate today) {
         return status == BorrowingStatus.ACTIVE &&
                 dueDate != null &&
-                dueDate.isBefore(LocalDate.now());
+                dueDate.isBefore(today);
     }
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,56 @@
+package tr.com.eaaslan.library.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Returned loan moved out of the {@code borrowing} table by the archival job.
+ * The layout is compact: the row keeps the id of the original borrowing, references users and books by id
+ * only, and drops the status, version and last-modified columns, since archived loans are always RETURNED
+ * and never change again. In PostgreSQL the table is range partitioned by month on {@code borrow_date}.
+ */
+@Entity
+@Table(name = "borrowing_archive", indexes = {
+        @Index(name = "idx_borrowing_archive_user_borrow_date", columnList = "user_id, borrow_date DESC"),
+        @Index(name = "idx_borrowing_archive_book_borrow_date", columnList = "book_id, borrow_date DESC")
+})
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BorrowingArchive {
+
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "borrow_date", nullable = false)
+    private LocalDate borrowDate;
+
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
+    @Column(name = "return_date")
+    private LocalDate returnDate;
+
+    @Column(name = "returned_late", nullable = false)
+    private boolean returnedLate;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "created_by", nullable = false)
+    private String createdBy;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
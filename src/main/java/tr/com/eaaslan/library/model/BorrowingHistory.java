@@ -0,0 +1,64 @@
+package tr.com.eaaslan.library.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view over both tiers of the borrowing history: the live {@code borrowing} table and
+ * {@code borrowing_archive}. History and export queries go through this entity so they see archived loans
+ * without callers knowing where a row is stored; anything that changes a loan still uses {@link Borrowing}.
+ */
+@Entity
+@Immutable
+@Subselect("""
+        SELECT b.id, b.user_id, b.book_id, b.borrow_date, b.due_date, b.return_date, b.status,
+               b.returned_late, b.created_at, b.created_by
+        FROM borrowing b
+        UNION ALL
+        SELECT a.id, a.user_id, a.book_id, a.borrow_date, a.due_date, a.return_date, 'RETURNED',
+               a.returned_late, a.created_at, a.created_by
+        FROM borrowing_archive a
+        """)
+@Synchronize({"borrowing", "borrowing_archive"})
+@Getter
+public class BorrowingHistory {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    @Column(name = "borrow_date")
+    private LocalDate borrowDate;
+
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
+    @Column(name = "return_date")
+    private LocalDate returnDate;
+
+    @Column(name = "status")
+    @Enumerated(EnumType.STRING)
+    private BorrowingStatus status;
+
+    @Column(name = "returned_late")
+    private boolean returnedLate;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "created_by")
+    private String createdBy;
+}
@@ -0,0 +1,33 @@
+package tr.com.eaaslan.library.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Loans started, loans returned and late returns per calendar day, maintained incrementally by
+ * {@code LoanStatisticsService}.
+ */
+@Entity
+@Table(name = "daily_loan_statistics")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyLoanStatistics {
+
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+
+    @Column(name = "loan_count", nullable = false)
+    private long loanCount;
+
+    @Column(name = "return_count", nullable = false)
+    private long returnCount;
+
+    @Column(name = "late_return_count", nullable = false)
+    private long lateReturnCount;
+}
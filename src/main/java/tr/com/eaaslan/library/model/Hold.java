@@ -0,0 +1,59 @@
+package tr.com.eaaslan.library.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Table(name = "book_holds", indexes = {
+        @Index(name = "idx_book_holds_book_status_requested", columnList = "book_id, status, requested_at"),
+        @Index(name = "idx_book_holds_user_status", columnList = "user_id, status"),
+        @Index(name = "idx_book_holds_status_deadline", columnList = "status, pickup_deadline")
+})
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class Hold extends BaseEntity {
+
+    /**
+     * Partial unique index on (user_id, book_id) for WAITING and READY holds, created by the
+     * {@code V8__book_holds} migration.
+     */
+    public static final String OPEN_HOLD_CONSTRAINT = "uk_book_holds_open_user_book";
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "status", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private HoldStatus status;
+
+    // Queue order within a book
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+
+    @Column(name = "ready_at")
+    private LocalDateTime readyAt;
+
+    // Until when a READY hold keeps its reserved copy
+    @Column(name = "pickup_deadline")
+    private LocalDateTime pickupDeadline;
+
+    @Override
+    public String toString() {
+        return "Hold{" +
+                "id=" + getId() +
+                ", status=" + status +
+                ", requestedAt=" + requestedAt +
+                ", pickupDeadline=" + pickupDeadline +
+                '}';
+    }
+}
@@ -0,0 +1,14 @@
+package tr.com.eaaslan.library.model;
+
+public enum HoldStatus {
+
+    WAITING,
+    READY,
+    FULFILLED,
+    CANCELLED,
+    EXPIRED;
+
+    public boolean isOpen() {
+        return this == WAITING || this == READY;
+    }
+}
@@ -0,0 +1,32 @@
+package tr.com.eaaslan.library.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last id processed by an incomplete pass of a chunked job or job shard.
+ */
+@Entity
+@Table(name = "job_checkpoints")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobCheckpoint {
+
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+
+    // Start of the pass, kept across resumed runs
+    @Column(name = "run_started_at", nullable = false)
+    private LocalDateTime runStartedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
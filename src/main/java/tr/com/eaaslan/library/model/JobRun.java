@@ -0,0 +1,60 @@
+package tr.com.eaaslan.library.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One execution of a scheduled job, or of one shard of it, on one node.
+ */
+@Entity
+@Table(name = "job_runs")
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class JobRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "library_id_seq")
+    @SequenceGenerator(name = "library_id_seq", sequenceName = "library_id_seq", allocationSize = BaseEntity.ID_ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "job_name", nullable = false, length = 100)
+    private String jobName;
+
+    // Null for jobs that are not sharded
+    @Column(name = "shard")
+    private Integer shard;
+
+    @Column(name = "shard_count")
+    private Integer shardCount;
+
+    @Column(name = "node", nullable = false)
+    private String node;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at", nullable = false)
+    private LocalDateTime finishedAt;
+
+    @Column(name = "duration_ms", nullable = false)
+    private long durationMs;
+
+    @Column(name = "rows_affected", nullable = false)
+    private long rowsAffected;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private JobRunStatus status;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+
+    // Last id of the interrupted pass this run continued; null for runs that started over
+    @Column(name = "resumed_after_id")
+    private Long resumedAfterId;
+}
@@ -0,0 +1,7 @@
+package tr.com.eaaslan.library.model;
+
+public enum JobRunStatus {
+
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,25 @@
+package tr.com.eaaslan.library.model;
+
+/**
+ * Time windows the popular books feed is ranked over. The sliding windows include today.
+ */
+public enum PopularityWindow {
+    WEEK(7),
+    MONTH(30),
+    YEAR(365),
+    ALL_TIME(0);
+
+    private final int days;
+
+    PopularityWindow(int days) {
+        this.days = days;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public boolean isSliding() {
+        return days > 0;
+    }
+}
@@ -3,6 +3,10 @@ package tr.com.eaaslan.library.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 
 import java.time.LocalDate;
@@ -12,6 +16,9 @@ import java.time.LocalDateTime;
 @Table(name = "users", indexes = {
         @Index(name = "idx_users_email", columnList = "email", unique = true),
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-email")
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,6 +26,7 @@ import java.time.LocalDateTime;
 @Setter
 public class User extends BaseEntity {
 
+    @NaturalId(mutable = true)
     @Column(nullable = false, name = "email", unique = true)
     @NotBlank(message = "Email is required")
     @Email(message = "Email is not valid")
@@ -69,6 +77,19 @@ public class User extends BaseEntity {
     @Builder.Default
     private int maxAllowedBorrows = 3;
 
+    /**
+     * Denormalized count of this user's ACTIVE loans. The counters are never written from the entity;
+     * they change only through the atomic updates in {@code UserRepository}, so a stale entity saved
+     * elsewhere cannot overwrite them.
+     */
+    @Column(name = "active_loan_count", nullable = false, updatable = false)
+    @Builder.Default
+    private int activeLoanCount = 0;
+
+    @Column(name = "overdue_loan_count", nullable = false, updatable = false)
+    @Builder.Default
+    private int overdueLoanCount = 0;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -93,6 +114,8 @@ public class User extends BaseEntity {
                 ", deletedAt=" + deletedAt +
                 ", deletedBy='" + deletedBy + '\'' +
                 ", maxAllowedBorrows=" + maxAllowedBorrows +
+                ", activeLoanCount=" + activeLoanCount +
+                ", overdueLoanCount=" + overdueLoanCount +
                 '}';
     }
 }
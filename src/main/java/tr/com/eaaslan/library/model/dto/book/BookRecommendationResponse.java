@@ -0,0 +1,9 @@
+package tr.com.eaaslan.library.model.dto.book;
+
+public record BookRecommendationResponse(
+        Long bookId,
+        String title,
+        String author,
+        int coBorrowers
+) {
+}
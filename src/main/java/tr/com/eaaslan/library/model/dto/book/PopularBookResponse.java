@@ -0,0 +1,8 @@
+package tr.com.eaaslan.library.model.dto.book;
+
+public record PopularBookResponse(
+        int rank,
+        long loans,
+        BookResponse book
+) {
+}
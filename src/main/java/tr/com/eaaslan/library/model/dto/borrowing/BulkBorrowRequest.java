@@ -0,0 +1,19 @@
+package tr.com.eaaslan.library.model.dto.borrowing;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record BulkBorrowRequest(
+
+        @NotEmpty(message = "At least one book ID is required")
+        @Size(max = 500, message = "At most 500 books can be borrowed in one request")
+        List<@NotNull @Positive Long> bookIds,
+
+        LocalDate dueDate
+) {
+}
@@ -0,0 +1,21 @@
+package tr.com.eaaslan.library.model.dto.borrowing;
+
+/**
+ * Outcome of one item in a bulk request. {@code id} is the requested borrowing ID for returns and the
+ * requested book ID for checkouts; {@code borrowing} is set only when the item succeeded.
+ */
+public record BulkItemResult(
+        Long id,
+        boolean success,
+        BorrowingResponse borrowing,
+        String error
+) {
+
+    public static BulkItemResult succeeded(Long id, BorrowingResponse borrowing) {
+        return new BulkItemResult(id, true, borrowing, null);
+    }
+
+    public static BulkItemResult failed(Long id, String error) {
+        return new BulkItemResult(id, false, null, error);
+    }
+}
@@ -0,0 +1,16 @@
+package tr.com.eaaslan.library.model.dto.borrowing;
+
+import java.util.List;
+
+public record BulkOperationResponse(
+        int requested,
+        int succeeded,
+        int failed,
+        List<BulkItemResult> results
+) {
+
+    public static BulkOperationResponse of(List<BulkItemResult> results) {
+        int succeeded = (int) results.stream().filter(BulkItemResult::success).count();
+        return new BulkOperationResponse(results.size(), succeeded, results.size() - succeeded, results);
+    }
+}
@@ -0,0 +1,19 @@
+package tr.com.eaaslan.library.model.dto.borrowing;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record BulkReturnRequest(
+
+        @NotEmpty(message = "At least one borrowing ID is required")
+        @Size(max = 500, message = "At most 500 borrowings can be returned in one request")
+        List<@NotNull @Positive Long> borrowingIds,
+
+        LocalDate returnDate
+) {
+}
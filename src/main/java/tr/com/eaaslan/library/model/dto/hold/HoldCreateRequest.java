@@ -0,0 +1,11 @@
+package tr.com.eaaslan.library.model.dto.hold;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record HoldCreateRequest(
+        @NotNull(message = "Book ID is required")
+        @Positive(message = "Book ID must be positive")
+        Long bookId
+) {
+}
@@ -0,0 +1,18 @@
+package tr.com.eaaslan.library.model.dto.hold;
+
+import java.time.LocalDateTime;
+
+public record HoldResponse(
+        Long id,
+        Long bookId,
+        String bookTitle,
+        Long userId,
+        String userEmail,
+        String status,
+        // 1 for the next patron in line; null once the hold left the queue
+        Integer queuePosition,
+        LocalDateTime requestedAt,
+        LocalDateTime readyAt,
+        LocalDateTime pickupDeadline
+) {
+}
@@ -0,0 +1,20 @@
+package tr.com.eaaslan.library.model.dto.job;
+
+import java.time.LocalDateTime;
+
+public record JobRunResponse(
+        Long id,
+        String jobName,
+        // Null for jobs that are not sharded
+        Integer shard,
+        Integer shardCount,
+        String node,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        long durationMs,
+        long rowsAffected,
+        String status,
+        String error,
+        Long resumedAfterId
+) {
+}
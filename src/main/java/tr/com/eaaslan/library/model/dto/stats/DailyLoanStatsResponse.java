@@ -0,0 +1,11 @@
+package tr.com.eaaslan.library.model.dto.stats;
+
+import java.time.LocalDate;
+
+public record DailyLoanStatsResponse(
+        LocalDate date,
+        long loans,
+        long returns,
+        long lateReturns
+) {
+}
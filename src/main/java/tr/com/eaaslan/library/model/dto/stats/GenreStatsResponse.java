@@ -0,0 +1,16 @@
+package tr.com.eaaslan.library.model.dto.stats;
+
+/**
+ * Per-genre figures. {@code utilization} is the share of the genre's copies currently on loan and
+ * {@code overdueRate} the share of its open loans that are overdue, both between 0 and 1.
+ */
+public record GenreStatsResponse(
+        String genre,
+        long totalLoans,
+        long openLoans,
+        long overdueLoans,
+        long copiesOnShelf,
+        double utilization,
+        double overdueRate
+) {
+}
@@ -0,0 +1,17 @@
+package tr.com.eaaslan.library.model.dto.stats;
+
+/**
+ * Library-wide figures; the {@code last30Days} values come from the daily aggregates of the last 30 days
+ * including today.
+ */
+public record StatisticsSummaryResponse(
+        long totalLoans,
+        long openLoans,
+        long overdueLoans,
+        double overdueRate,
+        double utilization,
+        long loansLast30Days,
+        long returnsLast30Days,
+        double lateReturnRateLast30Days
+) {
+}
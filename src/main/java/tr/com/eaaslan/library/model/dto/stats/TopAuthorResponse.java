@@ -0,0 +1,7 @@
+package tr.com.eaaslan.library.model.dto.stats;
+
+public record TopAuthorResponse(
+        String author,
+        Long loans
+) {
+}
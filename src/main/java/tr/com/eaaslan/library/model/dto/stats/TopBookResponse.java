@@ -0,0 +1,9 @@
+package tr.com.eaaslan.library.model.dto.stats;
+
+public record TopBookResponse(
+        Long bookId,
+        String title,
+        String author,
+        Long loans
+) {
+}
@@ -0,0 +1,38 @@
+package tr.com.eaaslan.library.model.dto.user;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import tr.com.eaaslan.library.model.UserRole;
+import tr.com.eaaslan.library.model.UserStatus;
+
+import java.util.List;
+
+/**
+ * Selects users either by explicit {@code userIds} or by a filter on {@code role} and/or {@code currentStatus},
+ * never both. Soft-deleted users are never selected.
+ */
+public record UserBulkStatusRequest(
+        @Size(max = 10000, message = "At most 10000 user IDs can be updated per request")
+        List<@NotNull @Positive Long> userIds,
+
+        UserRole role,
+
+        UserStatus currentStatus,
+
+        @NotNull(message = "Target status is required")
+        UserStatus targetStatus
+) {
+
+    @AssertTrue(message = "Provide either userIds or a role/currentStatus filter, not both")
+    public boolean isSelectionValid() {
+        boolean byIds = userIds != null && !userIds.isEmpty();
+        boolean byFilter = role != null || currentStatus != null;
+        return byIds != byFilter;
+    }
+
+    public boolean selectsByIds() {
+        return userIds != null && !userIds.isEmpty();
+    }
+}
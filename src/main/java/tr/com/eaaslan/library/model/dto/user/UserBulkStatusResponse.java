@@ -0,0 +1,14 @@
+package tr.com.eaaslan.library.model.dto.user;
+
+/**
+ * Summary of a bulk status change: {@code selected} users matched the request, {@code updated} of them changed
+ * status and the rest already had the target status.
+ */
+public record UserBulkStatusResponse(
+        String targetStatus,
+        int selected,
+        int updated,
+        int unchanged,
+        int chunks
+) {
+}
@@ -0,0 +1,13 @@
+package tr.com.eaaslan.library.model.event;
+
+import java.time.LocalDateTime;
+
+public record HoldReadyEvent(
+        Long holdId,
+        String userEmail,
+        Long bookId,
+        String bookTitle,
+        LocalDateTime pickupDeadline,
+        LocalDateTime timestamp
+) {
+}
@@ -5,6 +5,7 @@ import org.mapstruct.Mapping;
 import org.mapstruct.Named;
 import org.mapstruct.ReportingPolicy;
 import tr.com.eaaslan.library.model.Borrowing;
+import tr.com.eaaslan.library.model.BorrowingHistory;
 import tr.com.eaaslan.library.model.BorrowingStatus;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingResponse;
 
@@ -27,6 +28,15 @@ public interface BorrowingMapper {
     @Mapping(target = "returnedLate", source = "returnedLate")
     BorrowingResponse toResponse(Borrowing borrowing);
 
+    @Mapping(target = "userId", source = "user.id")
+    @Mapping(target = "userEmail", source = "user.email")
+    @Mapping(target = "userName", expression = "java(history.getUser().getFirstName() + \" \" + history.getUser().getLastName())")
+    @Mapping(target = "bookId", source = "book.id")
+    @Mapping(target = "bookTitle", source = "book.title")
+    @Mapping(target = "bookIsbn", source = "book.isbn")
+    @Mapping(target = "status", source = "status", qualifiedByName = "statusToString")
+    BorrowingResponse toResponse(BorrowingHistory history);
+
     @Named("statusToString")
     default String statusToString(BorrowingStatus status) {
         return status != null ? status.name() : null;
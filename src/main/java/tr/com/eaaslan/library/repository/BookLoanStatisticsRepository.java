@@ -0,0 +1,68 @@
+package tr.com.eaaslan.library.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import tr.com.eaaslan.library.model.BookLoanStatistics;
+import tr.com.eaaslan.library.model.dto.stats.TopAuthorResponse;
+import tr.com.eaaslan.library.model.dto.stats.TopBookResponse;
+
+import java.util.List;
+
+public interface BookLoanStatisticsRepository extends JpaRepository<BookLoanStatistics, Long> {
+
+    // Returns 0 when the book has no row yet, in which case the caller inserts it
+    @Modifying
+    @Query("UPDATE BookLoanStatistics s SET s.loanCount = s.loanCount + :loans, " +
+            "s.openLoanCount = s.openLoanCount + :openLoans, s.overdueLoanCount = s.overdueLoanCount + :overdueLoans " +
+            "WHERE s.bookId = :bookId")
+    int addDeltas(@Param("bookId") Long bookId,
+                  @Param("loans") long loans,
+                  @Param("openLoans") long openLoans,
+                  @Param("overdueLoans") long overdueLoans);
+
+    @Query("SELECT new tr.com.eaaslan.library.model.dto.stats.TopBookResponse(b.id, b.title, b.author, s.loanCount) " +
+            "FROM BookLoanStatistics s JOIN Book b ON b.id = s.bookId " +
+            "WHERE s.loanCount > 0 ORDER BY s.loanCount DESC, b.id")
+    List<TopBookResponse> findTopBooks(Pageable pageable);
+
+    @Query("SELECT new tr.com.eaaslan.library.model.dto.stats.TopAuthorResponse(b.author, SUM(s.loanCount)) " +
+            "FROM BookLoanStatistics s JOIN Book b ON b.id = s.bookId " +
+            "GROUP BY b.author HAVING SUM(s.loanCount) > 0 ORDER BY SUM(s.loanCount) DESC, b.author")
+    List<TopAuthorResponse> findTopAuthors(Pageable pageable);
+
+    // [genre, copies on shelf, open loans, overdue loans, total loans] for every genre in the catalogue
+    @Query("SELECT b.genre, SUM(b.quantity), COALESCE(SUM(s.openLoanCount), 0), " +
+            "COALESCE(SUM(s.overdueLoanCount), 0), COALESCE(SUM(s.loanCount), 0) " +
+            "FROM Book b LEFT JOIN BookLoanStatistics s ON s.bookId = b.id GROUP BY b.genre")
+    List<Object[]> sumByGenre();
+
+    // [bookId, loanCount] of every book that was ever borrowed
+    @Query("SELECT s.bookId, s.loanCount FROM BookLoanStatistics s WHERE s.loanCount > 0")
+    List<Object[]> findAllLoanCounts();
+
+    @Modifying
+    @Query("DELETE FROM BookLoanStatistics")
+    int deleteAllStatistics();
+
+    // Recomputes every book from the live and archived loans (run after deleteAllStatistics)
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "book_loan_statistics"))
+    @Query(value = """
+            INSERT INTO book_loan_statistics (book_id, loan_count, open_loan_count, overdue_loan_count)
+            SELECT book_id,
+                   COUNT(*),
+                   SUM(CASE WHEN status IN ('ACTIVE', 'OVERDUE') THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN status = 'OVERDUE' THEN 1 ELSE 0 END)
+            FROM (SELECT book_id, status FROM borrowing
+                  UNION ALL
+                  SELECT book_id, 'RETURNED' FROM borrowing_archive) loans
+            GROUP BY book_id
+            """, nativeQuery = true)
+    int rebuildFromLoans();
+}
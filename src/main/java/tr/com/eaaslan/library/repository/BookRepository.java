@@ -1,15 +1,26 @@
 package tr.com.eaaslan.library.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import tr.com.eaaslan.library.model.Book;
 import tr.com.eaaslan.library.model.Genre;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
-    Optional<Book> findByIsbn(String isbn);
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
+
+    // Whether there is any book at all; exists queries stop at the first row
+    boolean existsByIdNotNull();
 
     Page<Book> findByTitleContainingIgnoreCase(String title, Pageable pageable);
 
@@ -20,4 +31,46 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     Page<Book> findAllByAvailableTrue(Pageable pageable);
 
     Optional<Book> getBooksById(Long id);
+
+    // Checkouts and returns read the row itself, not the second-level cache entry another node may have outdated,
+    // and refresh that entry on the way
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "REFRESH"))
+    @Query("SELECT b FROM Book b WHERE b.id = :id")
+    Optional<Book> findCurrentById(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "REFRESH"))
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids")
+    List<Book> findAllCurrentById(@Param("ids") Collection<Long> ids);
+
+    // [id, genre] of every book, used to rank popular books per genre without loading the entities
+    @Query("SELECT b.id, b.genre FROM Book b")
+    List<Object[]> findAllIdsAndGenres();
+
+    // [id, title, author] of every book, cached next to the recommendations
+    @Query("SELECT b.id, b.title, b.author FROM Book b")
+    List<Object[]> findAllTitlesAndAuthors();
+
+    /**
+     * Puts back one copy per unreturned loan of the given users on each of the given books, in a single
+     * statement. Must run before those loans are closed, since the correlated count reads them.
+     * The native space limits the second-level cache invalidation to the books region; native writes without
+     * one clear every region.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "books"))
+    @Query(value = """
+            UPDATE books bk
+            SET quantity = bk.quantity + (SELECT COUNT(*) FROM borrowing b
+                                          WHERE b.book_id = bk.id AND b.user_id IN (:userIds)
+                                            AND b.status IN ('ACTIVE', 'OVERDUE')),
+                available = TRUE,
+                version = bk.version + 1,
+                updated_at = :now,
+                updated_by = :actor
+            WHERE bk.id IN (:bookIds)
+            """, nativeQuery = true)
+    int restockUnreturnedCopies(@Param("bookIds") Collection<Long> bookIds,
+                                @Param("userIds") Collection<Long> userIds,
+                                @Param("now") LocalDateTime now,
+                                @Param("actor") String actor);
 }
@@ -0,0 +1,11 @@
+package tr.com.eaaslan.library.repository;
+
+import tr.com.eaaslan.library.model.Book;
+
+import java.util.Optional;
+
+public interface BookRepositoryCustom {
+
+    // Natural-id lookup: served from the books-by-isbn and books cache regions before going to the database
+    Optional<Book> findByIsbn(String isbn);
+}
@@ -0,0 +1,67 @@
+package tr.com.eaaslan.library.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import tr.com.eaaslan.library.model.BorrowingArchive;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface BorrowingArchiveRepository extends JpaRepository<BorrowingArchive, Long> {
+
+    // Ids of returned loans that are old enough to leave the live table, read chunk by chunk in id order
+    @Query("SELECT b.id FROM Borrowing b WHERE b.status = 'RETURNED' AND b.returnDate < :cutoff " +
+            "AND b.id > :afterId AND b.id <= :lastId ORDER BY b.id")
+    List<Long> findArchivableBorrowingIds(@Param("cutoff") LocalDate cutoff,
+                                          @Param("afterId") long afterId,
+                                          @Param("lastId") long lastId,
+                                          Pageable pageable);
+
+    @Query("SELECT MIN(b.borrowDate) FROM Borrowing b WHERE b.status = 'RETURNED' AND b.returnDate < :cutoff")
+    LocalDate findEarliestArchivableBorrowDate(@Param("cutoff") LocalDate cutoff);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "borrowing_archive"))
+    @Query(value = """
+            INSERT INTO borrowing_archive (id, user_id, book_id, borrow_date, due_date, return_date, returned_late,
+                                           created_at, created_by, archived_at)
+            SELECT b.id, b.user_id, b.book_id, b.borrow_date, b.due_date, b.return_date,
+                   COALESCE(b.returned_late, FALSE), b.created_at, b.created_by, :archivedAt
+            FROM borrowing b
+            WHERE b.id IN (:ids) AND b.status = 'RETURNED'
+            """, nativeQuery = true)
+    int copyFromBorrowing(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Modifying
+    @Query("DELETE FROM Borrowing b WHERE b.id IN :ids AND b.status = 'RETURNED'")
+    int deleteArchivedBorrowings(@Param("ids") Collection<Long> ids);
+
+    // Creates the monthly partitions covering [fromDate, toDate]; PostgreSQL only (V5 migration)
+    @Query(value = "SELECT ensure_borrowing_archive_partitions(:fromDate, :toDate)", nativeQuery = true)
+    Integer ensureMonthlyPartitions(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    // Same shape as BorrowingRepository.countLoansByBookAndDaySince
+    @Query("SELECT a.bookId, a.borrowDate, COUNT(a) FROM BorrowingArchive a " +
+            "WHERE a.borrowDate >= :since GROUP BY a.bookId, a.borrowDate")
+    List<Object[]> countLoansByBookAndDaySince(@Param("since") LocalDate since);
+
+    @Modifying
+    @Query("DELETE FROM BorrowingArchive a WHERE a.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM BorrowingArchive a WHERE a.userId IN :userIds")
+    int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query("DELETE FROM BorrowingArchive a WHERE a.bookId = :bookId")
+    int deleteByBookId(@Param("bookId") Long bookId);
+}
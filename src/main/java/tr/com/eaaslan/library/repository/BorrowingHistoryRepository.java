@@ -0,0 +1,54 @@
+package tr.com.eaaslan.library.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import tr.com.eaaslan.library.model.BorrowingHistory;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-only queries over live and archived loans, see {@link BorrowingHistory}.
+ */
+public interface BorrowingHistoryRepository extends Repository<BorrowingHistory, Long> {
+
+    Optional<BorrowingHistory> findById(Long id);
+
+    long count();
+
+    @EntityGraph(attributePaths = {"user", "book"})
+    Page<BorrowingHistory> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "book"})
+    List<BorrowingHistory> findAll(Sort sort);
+
+    @EntityGraph(attributePaths = {"user", "book"})
+    Page<BorrowingHistory> findByUserId(Long userId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "book"})
+    Page<BorrowingHistory> findByBookId(Long bookId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"user", "book"})
+    List<BorrowingHistory> findByUserIdOrderByBorrowDateDesc(Long userId);
+
+    @EntityGraph(attributePaths = {"user", "book"})
+    List<BorrowingHistory> findByBookIdOrderByBorrowDateDesc(Long bookId);
+
+    @EntityGraph(attributePaths = {"user", "book"})
+    List<BorrowingHistory> findByBorrowDateGreaterThanEqualOrderByBorrowDateDesc(LocalDate startDate);
+
+    @EntityGraph(attributePaths = {"user", "book"})
+    List<BorrowingHistory> findByBorrowDateLessThanEqualOrderByBorrowDateDesc(LocalDate endDate);
+
+    @EntityGraph(attributePaths = {"user", "book"})
+    List<BorrowingHistory> findByBorrowDateBetweenOrderByBorrowDateDesc(LocalDate startDate, LocalDate endDate);
+
+    @Query("SELECT MAX(h.borrowDate) FROM BorrowingHistory h WHERE h.user.id = :userId")
+    LocalDate findLatestActivityDateByUserId(@Param("userId") Long userId);
+}
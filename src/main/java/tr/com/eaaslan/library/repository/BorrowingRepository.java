@@ -1,20 +1,32 @@
 package tr.com.eaaslan.library.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import tr.com.eaaslan.library.model.Borrowing;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import tr.com.eaaslan.library.model.BorrowingStatus;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BorrowingRepository extends JpaRepository<Borrowing, Long> {
 
+    // Listings are mapped to responses with the user and book of every loan
+    @Override
+    @EntityGraph(attributePaths = {"user", "book"})
+    Page<Borrowing> findAll(Pageable pageable);
+
     // Find by user ID
     Page<Borrowing> findByUserId(Long userId, Pageable pageable);
 
@@ -34,6 +46,7 @@ public interface BorrowingRepository extends JpaRepository<Borrowing, Long> {
     void deleteByUserId(Long userId);
 
     // Find overdue borrowings
+    @EntityGraph(attributePaths = {"user", "book"})
     @Query("SELECT b FROM Borrowing b WHERE b.status = 'OVERDUE'")
     Page<Borrowing> findOverdueBorrowings(LocalDateTime currentDate, Pageable pageable);
 
@@ -50,6 +63,86 @@ public interface BorrowingRepository extends JpaRepository<Borrowing, Long> {
     long countByUserIdAndReturnedLateAndReturnDateBetween(Long userId, boolean returnedLate,
                                                           LocalDate startDate, LocalDate endDate);
 
+    // Users of the chunk with at least the given number of late returns in the period
+    @Query("SELECT b.user.id FROM Borrowing b WHERE b.user.id IN :userIds AND b.returnedLate = true " +
+            "AND b.returnDate BETWEEN :startDate AND :endDate GROUP BY b.user.id HAVING COUNT(b) >= :minimum")
+    List<Long> findUserIdsWithLateReturnsBetween(@Param("userIds") Collection<Long> userIds,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate,
+                                                 @Param("minimum") long minimum);
+
+    // Overdue job: loans past their due date, read chunk by chunk in id order
+    @Query("SELECT b.id FROM Borrowing b WHERE b.status = :status AND b.dueDate < :date " +
+            "AND b.id > :afterId AND b.id <= :lastId ORDER BY b.id")
+    List<Long> findIdsByStatusAndDueDateBefore(@Param("status") BorrowingStatus status,
+                                               @Param("date") LocalDate date,
+                                               @Param("afterId") long afterId,
+                                               @Param("lastId") long lastId,
+                                               Pageable pageable);
+
+    // Bulk operations: one IN query with users and books fetched
+    @EntityGraph(attributePaths = {"user", "book"})
+    List<Borrowing> findByIdIn(Collection<Long> ids);
+
+    @Query("SELECT b.book.id FROM Borrowing b WHERE b.user.id = :userId AND b.status IN ('ACTIVE', 'OVERDUE')")
+    List<Long> findUnreturnedBookIdsByUserId(@Param("userId") Long userId);
+
+    // User offboarding: set-based statements whose count does not grow with the number of loans
+
+    // [bookId, status, count] of the users' ACTIVE and OVERDUE loans
+    @Query("SELECT b.book.id, b.status, COUNT(b) FROM Borrowing b " +
+            "WHERE b.user.id IN :userIds AND b.status IN ('ACTIVE', 'OVERDUE') GROUP BY b.book.id, b.status")
+    List<Object[]> countUnreturnedByBookAndStatusForUsers(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query("UPDATE Borrowing b SET b.returnedLate = CASE WHEN b.status = 'OVERDUE' THEN true ELSE false END, " +
+            "b.status = :returned, b.returnDate = :returnDate, b.version = b.version + 1, " +
+            "b.updatedAt = :now, b.updatedBy = :actor " +
+            "WHERE b.user.id IN :userIds AND b.status IN ('ACTIVE', 'OVERDUE')")
+    int closeUnreturnedByUserIds(@Param("userIds") Collection<Long> userIds,
+                                 @Param("returned") BorrowingStatus returned,
+                                 @Param("returnDate") LocalDate returnDate,
+                                 @Param("now") LocalDateTime now,
+                                 @Param("actor") String actor);
+
+    @Modifying
+    @Query("DELETE FROM Borrowing b WHERE b.user.id IN :userIds")
+    int deleteAllByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    // Per-user ACTIVE and OVERDUE counts as [userId, status, count], used to reconcile the User loan counters
+    @Query("SELECT b.user.id, b.status, COUNT(b) FROM Borrowing b " +
+            "WHERE b.status IN ('ACTIVE', 'OVERDUE') GROUP BY b.user.id, b.status")
+    List<Object[]> countUnreturnedByUserAndStatus();
+
+    @Query("SELECT b.user.id, b.status, COUNT(b) FROM Borrowing b " +
+            "WHERE b.user.id IN :userIds AND b.status IN ('ACTIVE', 'OVERDUE') GROUP BY b.user.id, b.status")
+    List<Object[]> countUnreturnedByUserAndStatusForUsers(@Param("userIds") Collection<Long> userIds);
+
+    // Loans per book and borrow day as [bookId, borrowDate, count], used to rebuild the popularity windows
+    @Query("SELECT b.book.id, b.borrowDate, COUNT(b) FROM Borrowing b " +
+            "WHERE b.borrowDate >= :since GROUP BY b.book.id, b.borrowDate")
+    List<Object[]> countLoansByBookAndDaySince(@Param("since") LocalDate since);
+
+    // Distinct [userId, bookId] pairs of live and archived loans, ordered by user; must be consumed in a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = """
+            SELECT user_id, book_id FROM borrowing
+            UNION
+            SELECT user_id, book_id FROM borrowing_archive
+            ORDER BY user_id
+            """, nativeQuery = true)
+    Stream<Object[]> streamDistinctUserBookPairs();
+
+    // [userId, bookId, count] of the users' live and archived loans
+    @Query(value = """
+            SELECT user_id, book_id, COUNT(*)
+            FROM (SELECT user_id, book_id FROM borrowing WHERE user_id IN (:userIds)
+                  UNION ALL
+                  SELECT user_id, book_id FROM borrowing_archive WHERE user_id IN (:userIds)) loans
+            GROUP BY user_id, book_id
+            """, nativeQuery = true)
+    List<Object[]> countLoansByUserAndBook(@Param("userIds") Collection<Long> userIds);
+
     @Query("SELECT MAX(b.borrowDate) FROM Borrowing b WHERE b.user.id = :userId")
     LocalDate findLatestActivityDateByUserId(@Param("userId") Long userId);
 
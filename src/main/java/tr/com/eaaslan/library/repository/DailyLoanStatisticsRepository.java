@@ -0,0 +1,51 @@
+package tr.com.eaaslan.library.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import tr.com.eaaslan.library.model.DailyLoanStatistics;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyLoanStatisticsRepository extends JpaRepository<DailyLoanStatistics, LocalDate> {
+
+    List<DailyLoanStatistics> findByStatDateBetweenOrderByStatDate(LocalDate from, LocalDate to);
+
+    // Returns 0 when the day has no row yet, in which case the caller inserts it
+    @Modifying
+    @Query("UPDATE DailyLoanStatistics d SET d.loanCount = d.loanCount + :loans, " +
+            "d.returnCount = d.returnCount + :returns, d.lateReturnCount = d.lateReturnCount + :lateReturns " +
+            "WHERE d.statDate = :date")
+    int addDeltas(@Param("date") LocalDate date,
+                  @Param("loans") long loans,
+                  @Param("returns") long returns,
+                  @Param("lateReturns") long lateReturns);
+
+    @Modifying
+    @Query("DELETE FROM DailyLoanStatistics")
+    int deleteAllStatistics();
+
+    // Recomputes every day from the live and archived loans (run after deleteAllStatistics)
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_loan_statistics"))
+    @Query(value = """
+            INSERT INTO daily_loan_statistics (stat_date, loan_count, return_count, late_return_count)
+            SELECT stat_date, SUM(loans), SUM(returns), SUM(late_returns)
+            FROM (SELECT borrow_date AS stat_date, 1 AS loans, 0 AS returns, 0 AS late_returns FROM borrowing
+                  UNION ALL
+                  SELECT return_date, 0, 1, CASE WHEN returned_late THEN 1 ELSE 0 END
+                  FROM borrowing WHERE return_date IS NOT NULL
+                  UNION ALL
+                  SELECT borrow_date, 1, 0, 0 FROM borrowing_archive
+                  UNION ALL
+                  SELECT return_date, 0, 1, CASE WHEN returned_late THEN 1 ELSE 0 END
+                  FROM borrowing_archive WHERE return_date IS NOT NULL) activity
+            GROUP BY stat_date
+            """, nativeQuery = true)
+    int rebuildFromLoans();
+}
@@ -0,0 +1,61 @@
+package tr.com.eaaslan.library.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import tr.com.eaaslan.library.model.Book;
+import tr.com.eaaslan.library.model.Hold;
+import tr.com.eaaslan.library.model.HoldStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+
+    // Head of the book's queue, with its patron
+    @Query("SELECT h FROM Hold h JOIN FETCH h.user WHERE h.book.id = :bookId AND h.status = 'WAITING' " +
+            "ORDER BY h.requestedAt, h.id")
+    List<Hold> findWaitingByBookId(@Param("bookId") Long bookId, Pageable pageable);
+
+    // WAITING holds of the book that are ahead of the given queue entry
+    @Query("SELECT COUNT(h) FROM Hold h WHERE h.book.id = :bookId AND h.status = 'WAITING' " +
+            "AND (h.requestedAt < :requestedAt OR (h.requestedAt = :requestedAt AND h.id < :id))")
+    long countWaitingAhead(@Param("bookId") Long bookId,
+                           @Param("requestedAt") LocalDateTime requestedAt,
+                           @Param("id") Long id);
+
+    Optional<Hold> findFirstByUserIdAndBookIdAndStatus(Long userId, Long bookId, HoldStatus status);
+
+    @Query("SELECT h.book.id FROM Hold h WHERE h.user.id = :userId AND h.status = :status")
+    List<Long> findBookIdsByUserIdAndStatus(@Param("userId") Long userId, @Param("status") HoldStatus status);
+
+    boolean existsByUserIdAndBookIdAndStatusIn(Long userId, Long bookId, Collection<HoldStatus> statuses);
+
+    long countByUserIdAndStatusIn(Long userId, Collection<HoldStatus> statuses);
+
+    @Query("SELECT h FROM Hold h JOIN FETCH h.book WHERE h.user.id = :userId AND h.status IN :statuses " +
+            "ORDER BY h.requestedAt")
+    List<Hold> findByUserIdAndStatusIn(@Param("userId") Long userId,
+                                       @Param("statuses") Collection<HoldStatus> statuses);
+
+    @Query("SELECT h FROM Hold h JOIN FETCH h.book WHERE h.status = 'READY' AND h.pickupDeadline < :now")
+    List<Hold> findExpiredReadyHolds(@Param("now") LocalDateTime now);
+
+    // Books with copies on the shelf that should have gone to a waiting patron (e.g. restocked in bulk)
+    @Query("SELECT DISTINCT h.book FROM Hold h WHERE h.status = 'WAITING' AND h.book.quantity > 0")
+    List<Book> findBooksWithWaitingHoldsAndCopiesOnShelf();
+
+    // Bulk deletes bypass the persistence context; cleared so that holds loaded before do not outlive their rows
+    // and hold on to the user or book deleted next
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Hold h WHERE h.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Hold h WHERE h.book.id = :bookId")
+    int deleteByBookId(@Param("bookId") Long bookId);
+}
@@ -0,0 +1,14 @@
+package tr.com.eaaslan.library.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import tr.com.eaaslan.library.model.JobCheckpoint;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+
+    @Modifying
+    @Query("DELETE FROM JobCheckpoint c WHERE c.name = :name")
+    int deleteByName(@Param("name") String name);
+}
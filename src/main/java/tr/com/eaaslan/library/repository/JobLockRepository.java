@@ -0,0 +1,52 @@
+package tr.com.eaaslan.library.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import tr.com.eaaslan.library.model.JobLock;
+
+import java.time.LocalDateTime;
+
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    // Fails with a constraint violation when the lock row exists, whoever holds it
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "job_locks"))
+    @Query(value = "INSERT INTO job_locks (name, locked_until, locked_at, locked_by) " +
+            "VALUES (:name, :lockedUntil, :now, :node)", nativeQuery = true)
+    int insertLock(@Param("name") String name,
+                   @Param("lockedUntil") LocalDateTime lockedUntil,
+                   @Param("now") LocalDateTime now,
+                   @Param("node") String node);
+
+    // Returns 1 when the previous lease has expired and this node took it over
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockedUntil = :lockedUntil, l.lockedAt = :now, l.lockedBy = :node " +
+            "WHERE l.name = :name AND l.lockedUntil <= :now")
+    int acquireExpired(@Param("name") String name,
+                       @Param("lockedUntil") LocalDateTime lockedUntil,
+                       @Param("now") LocalDateTime now,
+                       @Param("node") String node);
+
+    // Extends the lease taken at lockedAt; returns 0 when it expired and another node took the lock meanwhile
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockedUntil = :lockedUntil " +
+            "WHERE l.name = :name AND l.lockedBy = :node AND l.lockedAt = :lockedAt")
+    int renew(@Param("name") String name,
+              @Param("lockedUntil") LocalDateTime lockedUntil,
+              @Param("node") String node,
+              @Param("lockedAt") LocalDateTime lockedAt);
+
+    // Shortens the lease taken at lockedAt; a no-op when it expired and another node took the lock meanwhile
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockedUntil = :lockedUntil " +
+            "WHERE l.name = :name AND l.lockedBy = :node AND l.lockedAt = :lockedAt")
+    int release(@Param("name") String name,
+                @Param("lockedUntil") LocalDateTime lockedUntil,
+                @Param("node") String node,
+                @Param("lockedAt") LocalDateTime lockedAt);
+}
@@ -1,9 +1,13 @@
 package tr.com.eaaslan.library.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tr.com.eaaslan.library.model.User;
@@ -11,21 +15,33 @@ import tr.com.eaaslan.library.model.UserRole;
 import tr.com.eaaslan.library.model.UserStatus;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
     Page<User> findByDeletedFalse(Pageable pageable);
 
     Page<User> findByDeletedTrue(Pageable pageable);
 
-    Optional<User> findByEmail(String email);
+    // Checkouts and holds check the status in the row itself, not in the second-level cache entry another node
+    // may have outdated (e.g. a suspension), and refresh that entry on the way
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "REFRESH"))
+    @Query("SELECT u FROM User u WHERE u.email = :email")
+    Optional<User> findCurrentByEmail(@Param("email") String email);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "REFRESH"))
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findCurrentById(@Param("id") Long id);
 
     boolean existsByEmail(String email);
 
     boolean existsByPhoneNumber(String phoneNumber);
 
+    boolean existsByRole(UserRole role);
+
     Page<User> findByRole(UserRole role, Pageable pageable);
 
     Page<User> findByRoleAndStatus(UserRole role, UserStatus status, Pageable pageable);
@@ -43,4 +59,86 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Page<User> findAllByStatus(UserStatus status, Pageable pageable);
 
     List<User> findByStatusAndSuspensionEndDateBefore(UserStatus status, LocalDate date);
+
+    // Scheduled jobs: shards by user id range, read chunk by chunk in id order
+
+    @Query("SELECT u.id FROM User u WHERE u.status = :status AND u.id > :afterId AND u.id <= :lastId ORDER BY u.id")
+    List<Long> findIdsByStatusInRange(@Param("status") UserStatus status,
+                                      @Param("afterId") long afterId,
+                                      @Param("lastId") long lastId,
+                                      Pageable pageable);
+
+    @Query("SELECT u.id FROM User u WHERE u.status = :status AND u.suspensionEndDate < :date " +
+            "AND u.id > :afterId AND u.id <= :lastId ORDER BY u.id")
+    List<Long> findIdsByStatusAndSuspensionEndDateBefore(@Param("status") UserStatus status,
+                                                         @Param("date") LocalDate date,
+                                                         @Param("afterId") long afterId,
+                                                         @Param("lastId") long lastId,
+                                                         Pageable pageable);
+
+    @Query("SELECT MIN(u.id) FROM User u")
+    Long findMinId();
+
+    @Query("SELECT MAX(u.id) FROM User u")
+    Long findMaxId();
+
+    // Bulk status changes: keyset-paged id selection followed by one UPDATE per chunk
+
+    @Query("SELECT u.id FROM User u WHERE u.deleted = false AND u.id > :afterId " +
+            "AND (:role IS NULL OR u.role = :role) AND (:status IS NULL OR u.status = :status) ORDER BY u.id")
+    List<Long> findIdsForStatusChange(@Param("role") UserRole role,
+                                      @Param("status") UserStatus status,
+                                      @Param("afterId") Long afterId,
+                                      Pageable pageable);
+
+    @Query("SELECT COUNT(u) FROM User u WHERE u.id IN :ids AND u.deleted = false")
+    long countNotDeletedByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE User u SET u.status = :status, u.version = u.version + 1, u.updatedAt = :now, u.updatedBy = :actor " +
+            "WHERE u.id IN :ids AND u.deleted = false AND u.status <> :status")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids,
+                           @Param("status") UserStatus status,
+                           @Param("now") LocalDateTime now,
+                           @Param("actor") String actor);
+
+    // Loan counters: single-statement updates so concurrent checkouts and returns cannot lose increments
+
+    @Modifying
+    @Query("UPDATE User u SET u.activeLoanCount = u.activeLoanCount + 1 " +
+            "WHERE u.id = :userId AND u.activeLoanCount + u.overdueLoanCount < u.maxAllowedBorrows")
+    int incrementActiveLoanCountIfBelowLimit(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE User u SET u.activeLoanCount = u.activeLoanCount + :count " +
+            "WHERE u.id = :userId AND u.activeLoanCount + u.overdueLoanCount + :count <= u.maxAllowedBorrows")
+    int incrementActiveLoanCountIfWithinLimit(@Param("userId") Long userId, @Param("count") int count);
+
+    @Modifying
+    @Query("UPDATE User u SET u.activeLoanCount = u.activeLoanCount + :activeDelta, " +
+            "u.overdueLoanCount = u.overdueLoanCount + :overdueDelta WHERE u.id = :userId")
+    int adjustLoanCounts(@Param("userId") Long userId,
+                         @Param("activeDelta") int activeDelta,
+                         @Param("overdueDelta") int overdueDelta);
+
+    @Modifying
+    @Query("UPDATE User u SET u.activeLoanCount = :activeCount, u.overdueLoanCount = :overdueCount " +
+            "WHERE u.id = :userId")
+    int setLoanCounts(@Param("userId") Long userId,
+                      @Param("activeCount") int activeCount,
+                      @Param("overdueCount") int overdueCount);
+
+    @Modifying
+    @Query("UPDATE User u SET u.activeLoanCount = 0, u.overdueLoanCount = 0 WHERE u.id IN :userIds")
+    int resetLoanCounts(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT u.id, u.activeLoanCount, u.overdueLoanCount FROM User u " +
+            "WHERE u.activeLoanCount <> 0 OR u.overdueLoanCount <> 0")
+    List<Object[]> findNonZeroLoanCounts();
+
+    // [id, activeLoanCount, overdueLoanCount] of the users, row-locked until the transaction ends so checkouts and
+    // returns cannot change a counter between a recount and its repair; ordered to lock in a consistent order
+    @Query(value = "SELECT id, active_loan_count, overdue_loan_count FROM users WHERE id IN (:userIds) " +
+            "ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockLoanCounts(@Param("userIds") Collection<Long> userIds);
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package tr.com.eaaslan.library.repository;
+
+import tr.com.eaaslan.library.model.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    // Natural-id lookup: served from the users-by-email and users cache regions before going to the database
+    Optional<User> findByEmail(String email);
+}
@@ -17,6 +17,8 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.JwtOutcome;
 import tr.com.eaaslan.library.service.BookServiceImpl;
 
 import java.io.IOException;
@@ -27,6 +29,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final LibraryMetrics libraryMetrics;
 
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
@@ -34,10 +37,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
+        long start = System.nanoTime();
+        JwtOutcome outcome = JwtOutcome.ANONYMOUS;
         try {
             String jwt = parseJwt(request);
 
             if (jwt != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                outcome = JwtOutcome.REJECTED;
                 String username = jwtUtil.extractUsername(jwt);
 
                 if (username != null) {
@@ -50,12 +56,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
                         authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                        outcome = JwtOutcome.AUTHENTICATED;
                     }
                 }
             }
         } catch (Exception e) {
             log.error("Cannot set user authentication: {}", e.getMessage());
         }
+        libraryMetrics.recordJwtFilter(outcome, start);
 
         filterChain.doFilter(request, response);
     }
@@ -3,9 +3,9 @@ package tr.com.eaaslan.library.security;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import tr.com.eaaslan.library.model.Borrowing;
+import tr.com.eaaslan.library.model.BorrowingHistory;
 import tr.com.eaaslan.library.model.User;
-import tr.com.eaaslan.library.repository.BorrowingRepository;
+import tr.com.eaaslan.library.repository.BorrowingHistoryRepository;
 import tr.com.eaaslan.library.repository.UserRepository;
 
 import java.util.Optional;
@@ -14,11 +14,11 @@ import java.util.Optional;
 public class SecurityService {
 
     private final UserRepository userRepository;
-    private final BorrowingRepository borrowingRepository;
+    private final BorrowingHistoryRepository borrowingHistoryRepository;
 
-    public SecurityService(UserRepository userRepository, BorrowingRepository borrowingRepository) {
+    public SecurityService(UserRepository userRepository, BorrowingHistoryRepository borrowingHistoryRepository) {
         this.userRepository = userRepository;
-        this.borrowingRepository = borrowingRepository;
+        this.borrowingHistoryRepository = borrowingHistoryRepository;
     }
 
     public boolean isCurrentUser(Long userId) {
@@ -47,7 +47,8 @@ public class SecurityService {
             return false;
         }
 
-        Optional<Borrowing> borrowing = borrowingRepository.findById(borrowingId);
+        // Archived loans stay visible to their owner
+        Optional<BorrowingHistory> borrowing = borrowingHistoryRepository.findById(borrowingId);
         return borrowing.isPresent() && borrowing.get().getUser().getId().equals(user.get().getId());
     }
 }
\ No newline at end of file
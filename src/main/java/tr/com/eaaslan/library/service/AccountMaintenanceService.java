@@ -3,15 +3,17 @@ package tr.com.eaaslan.library.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import tr.com.eaaslan.library.model.User;
 import tr.com.eaaslan.library.model.UserRole;
 import tr.com.eaaslan.library.model.UserStatus;
-import tr.com.eaaslan.library.repository.BorrowingRepository;
+import tr.com.eaaslan.library.repository.BorrowingHistoryRepository;
 import tr.com.eaaslan.library.repository.UserRepository;
+import tr.com.eaaslan.library.service.JobRunner.IdRange;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -23,33 +25,47 @@ import java.util.List;
 public class AccountMaintenanceService {
 
     private final UserRepository userRepository;
-    private final BorrowingRepository borrowingRepository;
+    private final BorrowingHistoryRepository borrowingHistoryRepository;
+    private final LoanReleaseService loanReleaseService;
+    private final JobRunner jobRunner;
+    private final Clock clock;
 
     /**
-     * Check for inactive accounts and mark them as deleted.
-     * Runs weekly on Sunday at 3:00 AM.
+     * Runs weekly on Sunday at 3:00 AM, on one node per user id shard and in chunks of users.
      */
     @Scheduled(cron = "0 0 3 * * 0")
-    @Transactional
-    public void handleInactiveAccounts() {
-        log.info("Running inactive accounts check");
-        LocalDate now = LocalDate.now();
+    public void runInactiveAccountsCheck() {
+        jobRunner.runSharded("inactive-accounts",
+                IdRange.of(userRepository.findMinId(), userRepository.findMaxId()),
+                (afterId, lastId, limit) -> userRepository.findIdsByStatusInRange(
+                        UserStatus.ACTIVE, afterId, lastId, PageRequest.of(0, limit)),
+                this::handleInactiveAccounts);
+    }
+
+    /**
+     * Check the given accounts for inactivity and mark inactive ones as deleted.
+     * Must run in a transaction.
+     *
+     * @return the number of accounts deleted
+     */
+    public int handleInactiveAccounts(List<Long> userIds) {
+        LocalDate now = LocalDate.now(clock);
         LocalDate oneMonthAgo = now.minusDays(30);
 
-        List<User> activeUsers = userRepository.findAllByStatus(UserStatus.ACTIVE);
         List<User> usersToDelete = new ArrayList<>();
 
-        for (User user : activeUsers) {
-            if (user.getRole() == UserRole.ADMIN || user.getRole() == UserRole.LIBRARIAN) {
+        for (User user : userRepository.findAllById(userIds)) {
+            if (user.getStatus() != UserStatus.ACTIVE ||
+                    user.getRole() == UserRole.ADMIN || user.getRole() == UserRole.LIBRARIAN) {
                 continue;
             }
 
-            LocalDate lastActivity = borrowingRepository.findLatestActivityDateByUserId(user.getId());
+            LocalDate lastActivity = borrowingHistoryRepository.findLatestActivityDateByUserId(user.getId());
 
             if (lastActivity == null || lastActivity.isBefore(oneMonthAgo)) {
                 user.setStatus(UserStatus.DELETED);
                 user.setDeleted(true);
-                user.setDeletedAt(LocalDateTime.now());
+                user.setDeletedAt(LocalDateTime.now(clock));
                 user.setDeletedBy("system");
                 usersToDelete.add(user);
 
@@ -60,9 +76,10 @@ public class AccountMaintenanceService {
         }
 
         if (!usersToDelete.isEmpty()) {
+            loanReleaseService.releaseUnreturnedLoans(usersToDelete.stream().map(User::getId).toList(), "system");
             userRepository.saveAll(usersToDelete);
         }
 
-        log.info("Inactive accounts check complete: {} accounts deleted", usersToDelete.size());
+        return usersToDelete.size();
     }
 }
\ No newline at end of file
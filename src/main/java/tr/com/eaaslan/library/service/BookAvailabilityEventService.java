@@ -1,19 +1,31 @@
 package tr.com.eaaslan.library.service;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Sinks;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.EventStream;
 import tr.com.eaaslan.library.model.Book;
+import tr.com.eaaslan.library.model.Hold;
 import tr.com.eaaslan.library.model.event.BookAvailabilityEvent;
+import tr.com.eaaslan.library.model.event.HoldReadyEvent;
+import tr.com.eaaslan.library.util.TransactionCallbacks;
 
 import java.time.LocalDateTime;
 
 @Service
-@RequiredArgsConstructor
 public class BookAvailabilityEventService {
 
     private final Sinks.Many<BookAvailabilityEvent> sink = Sinks.many().multicast().onBackpressureBuffer();
+    // Patrons who are not connected see their ready holds through the holds endpoint instead
+    private final Sinks.Many<HoldReadyEvent> holdSink = Sinks.many().multicast().directBestEffort();
+    private final LibraryMetrics libraryMetrics;
+
+    public BookAvailabilityEventService(LibraryMetrics libraryMetrics) {
+        this.libraryMetrics = libraryMetrics;
+        libraryMetrics.registerSubscriberGauge(EventStream.AVAILABILITY, sink::currentSubscriberCount);
+        libraryMetrics.registerSubscriberGauge(EventStream.HOLDS, holdSink::currentSubscriberCount);
+    }
 
     public void publishBookAvailabilityChange(Book book) {
         BookAvailabilityEvent event = new BookAvailabilityEvent(
@@ -23,10 +35,37 @@ public class BookAvailabilityEventService {
                 book.getQuantity(),
                 LocalDateTime.now()
         );
-        sink.tryEmitNext(event);
+        emit(sink, event, EventStream.AVAILABILITY);
     }
 
     public Flux<BookAvailabilityEvent> getEventStream() {
         return sink.asFlux();
     }
-}
\ No newline at end of file
+
+    /**
+     * Notifies the patron of a hold that a copy is reserved for them, once the transaction commits.
+     */
+    public void publishHoldReady(Hold hold) {
+        HoldReadyEvent event = new HoldReadyEvent(
+                hold.getId(),
+                hold.getUser().getEmail(),
+                hold.getBook().getId(),
+                hold.getBook().getTitle(),
+                hold.getPickupDeadline(),
+                LocalDateTime.now()
+        );
+        TransactionCallbacks.afterCommit(() -> emit(holdSink, event, EventStream.HOLDS));
+    }
+
+    public Flux<HoldReadyEvent> getHoldReadyStream(String userEmail) {
+        return holdSink.asFlux().filter(event -> event.userEmail().equals(userEmail));
+    }
+
+    // Nobody listening is not a drop; a full buffer or a concurrent emission is
+    private <T> void emit(Sinks.Many<T> target, T event, EventStream stream) {
+        Sinks.EmitResult result = target.tryEmitNext(event);
+        if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            libraryMetrics.recordDroppedEvent(stream);
+        }
+    }
+}
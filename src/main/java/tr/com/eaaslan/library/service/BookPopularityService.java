@@ -0,0 +1,226 @@
+package tr.com.eaaslan.library.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tr.com.eaaslan.library.exception.BusinessRuleException;
+import tr.com.eaaslan.library.model.Book;
+import tr.com.eaaslan.library.model.Genre;
+import tr.com.eaaslan.library.model.PopularityWindow;
+import tr.com.eaaslan.library.model.dto.book.PopularBookResponse;
+import tr.com.eaaslan.library.model.mapper.BookMapper;
+import tr.com.eaaslan.library.repository.BookLoanStatisticsRepository;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingArchiveRepository;
+import tr.com.eaaslan.library.repository.BorrowingRepository;
+import tr.com.eaaslan.library.util.TransactionCallbacks;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ranks books by how often they were borrowed, overall and over sliding windows of 7, 30 and 365 days,
+ * optionally within one genre. The counts live in memory: they are loaded at startup, kept current by the
+ * checkout paths and reloaded nightly, so the popular books feed never scans the borrowing table and the
+ * rankings of different nodes do not drift apart for more than a day.
+ * <p>
+ * The sliding windows are kept as running totals next to one bucket of counts per day. When the day changes
+ * the buckets that left a window are subtracted from it, so a ranking costs one pass over the books borrowed
+ * in the window with a bounded heap of the requested size.
+ * <p>
+ * The counts are approximate: loans deleted with their user or book are only dropped at the next rebuild, and
+ * loans committed while a rebuild reads the tables may be missed until the one after.
+ */
+@Service
+@Slf4j
+public class BookPopularityService {
+
+    static final int MAX_LIMIT = 100;
+
+    private static final PopularityWindow[] SLIDING_WINDOWS = {
+            PopularityWindow.WEEK, PopularityWindow.MONTH, PopularityWindow.YEAR};
+
+    private static final Comparator<RankedBook> RANKING = Comparator.comparingLong(RankedBook::loans).reversed()
+            .thenComparingLong(RankedBook::bookId);
+
+    private final BorrowingRepository borrowingRepository;
+    private final BorrowingArchiveRepository borrowingArchiveRepository;
+    private final BookRepository bookRepository;
+    private final BookLoanStatisticsRepository bookLoanStatisticsRepository;
+    private final BookMapper bookMapper;
+    private final Clock clock;
+
+    // Guarded by this; replaced as a whole by a rebuild
+    private LoanCounts counts;
+
+    public record RankedBook(long bookId, long loans) {
+    }
+
+    public BookPopularityService(BorrowingRepository borrowingRepository,
+                                 BorrowingArchiveRepository borrowingArchiveRepository,
+                                 BookRepository bookRepository,
+                                 BookLoanStatisticsRepository bookLoanStatisticsRepository,
+                                 BookMapper bookMapper,
+                                 Clock clock) {
+        this.borrowingRepository = borrowingRepository;
+        this.borrowingArchiveRepository = borrowingArchiveRepository;
+        this.bookRepository = bookRepository;
+        this.bookLoanStatisticsRepository = bookLoanStatisticsRepository;
+        this.bookMapper = bookMapper;
+        this.clock = clock;
+        this.counts = new LoanCounts(LocalDate.now(clock));
+    }
+
+    /**
+     * Reloads the counts from the loan tables. Read-only and held by each node, so every node runs it.
+     * Runs at startup and daily at 4:45 AM, after the loan statistics rebuild.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.popularity.rebuild-cron:0 45 4 * * ?}")
+    public void rebuild() {
+        rebuild(LocalDate.now(clock));
+    }
+
+    void rebuild(LocalDate today) {
+        LoanCounts rebuilt = new LoanCounts(today);
+        LocalDate since = rebuilt.windowStart(PopularityWindow.YEAR);
+
+        bookRepository.findAllIdsAndGenres().forEach(row -> rebuilt.genres.put((Long) row[0], (Genre) row[1]));
+        bookLoanStatisticsRepository.findAllLoanCounts().forEach(row ->
+                rebuilt.allTime.put((Long) row[0], ((Number) row[1]).longValue()));
+        borrowingRepository.countLoansByBookAndDaySince(since).forEach(rebuilt::addDailyCount);
+        borrowingArchiveRepository.countLoansByBookAndDaySince(since).forEach(rebuilt::addDailyCount);
+
+        int borrowedBooks = rebuilt.allTime.size();
+        int borrowedLastYear = rebuilt.windows.get(PopularityWindow.YEAR).size();
+        synchronized (this) {
+            counts = rebuilt;
+        }
+        log.info("Popularity rankings rebuilt for {} books ({} borrowed in the last year)",
+                borrowedBooks, borrowedLastYear);
+    }
+
+    public void recordBorrow(Long bookId, Genre genre, LocalDate borrowDate) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                counts.advanceTo(borrowDate);
+                counts.genres.put(bookId, genre);
+                counts.allTime.merge(bookId, 1L, Long::sum);
+                counts.addDailyCount(bookId, borrowDate, 1);
+            }
+        });
+    }
+
+    public List<PopularBookResponse> getPopularBooks(PopularityWindow window, Genre genre, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BusinessRuleException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        while (true) {
+            List<RankedBook> ranked = getTopBooks(window, genre, limit, LocalDate.now(clock));
+            Map<Long, Book> books = bookRepository.findAllById(ranked.stream().map(RankedBook::bookId).toList())
+                    .stream().collect(Collectors.toMap(Book::getId, Function.identity()));
+
+            List<Long> deleted = ranked.stream().map(RankedBook::bookId).filter(id -> !books.containsKey(id)).toList();
+            if (deleted.isEmpty()) {
+                List<PopularBookResponse> result = new ArrayList<>(ranked.size());
+                for (RankedBook book : ranked) {
+                    result.add(new PopularBookResponse(result.size() + 1, book.loans(),
+                            bookMapper.toResponse(books.get(book.bookId()))));
+                }
+                return result;
+            }
+
+            // Deleted since they were counted; drop them and rank again
+            synchronized (this) {
+                deleted.forEach(counts::forget);
+            }
+        }
+    }
+
+    synchronized List<RankedBook> getTopBooks(PopularityWindow window, Genre genre, int limit, LocalDate today) {
+        counts.advanceTo(today);
+        Map<Long, Long> loans = window.isSliding() ? counts.windows.get(window) : counts.allTime;
+
+        // Min-heap of the best candidates so far, the weakest on top
+        PriorityQueue<RankedBook> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (Map.Entry<Long, Long> entry : loans.entrySet()) {
+            if (genre != null && genre != counts.genres.get(entry.getKey())) {
+                continue;
+            }
+            top.offer(new RankedBook(entry.getKey(), entry.getValue()));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<RankedBook> result = new ArrayList<>(top);
+        result.sort(RANKING);
+        return result;
+    }
+
+    private static final class LoanCounts {
+
+        private final Map<Long, Genre> genres = new HashMap<>();
+        private final Map<Long, Long> allTime = new HashMap<>();
+        private final Map<PopularityWindow, Map<Long, Long>> windows = new EnumMap<>(PopularityWindow.class);
+        // Loans per book for each day of the longest window
+        private final TreeMap<LocalDate, Map<Long, Long>> days = new TreeMap<>();
+        private LocalDate today;
+
+        private LoanCounts(LocalDate today) {
+            this.today = today;
+            for (PopularityWindow window : SLIDING_WINDOWS) {
+                windows.put(window, new HashMap<>());
+            }
+        }
+
+        private LocalDate windowStart(PopularityWindow window) {
+            return today.minusDays(window.getDays() - 1L);
+        }
+
+        private void addDailyCount(Object[] row) {
+            addDailyCount((Long) row[0], (LocalDate) row[1], ((Number) row[2]).longValue());
+        }
+
+        private void addDailyCount(Long bookId, LocalDate date, long loans) {
+            if (date.isBefore(windowStart(PopularityWindow.YEAR)) || date.isAfter(today)) {
+                return;
+            }
+            days.computeIfAbsent(date, d -> new HashMap<>()).merge(bookId, loans, Long::sum);
+            for (PopularityWindow window : SLIDING_WINDOWS) {
+                if (!date.isBefore(windowStart(window))) {
+                    windows.get(window).merge(bookId, loans, Long::sum);
+                }
+            }
+        }
+
+        // Subtracts the days that slid out of each window since the last call
+        private void advanceTo(LocalDate newToday) {
+            if (!newToday.isAfter(today)) {
+                return;
+            }
+            for (PopularityWindow window : SLIDING_WINDOWS) {
+                Map<Long, Long> loans = windows.get(window);
+                LocalDate newStart = newToday.minusDays(window.getDays() - 1L);
+                days.subMap(windowStart(window), newStart).values().forEach(day ->
+                        day.forEach((bookId, count) ->
+                                loans.computeIfPresent(bookId, (id, total) -> total > count ? total - count : null)));
+            }
+            today = newToday;
+            days.headMap(windowStart(PopularityWindow.YEAR)).clear();
+        }
+
+        private void forget(Long bookId) {
+            genres.remove(bookId);
+            allTime.remove(bookId);
+            windows.values().forEach(loans -> loans.remove(bookId));
+            days.values().forEach(day -> day.remove(bookId));
+        }
+    }
+}
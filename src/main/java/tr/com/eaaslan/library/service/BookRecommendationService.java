@@ -0,0 +1,283 @@
+package tr.com.eaaslan.library.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tr.com.eaaslan.library.exception.BusinessRuleException;
+import tr.com.eaaslan.library.exception.ResourceNotFoundException;
+import tr.com.eaaslan.library.model.Book;
+import tr.com.eaaslan.library.model.dto.book.BookRecommendationResponse;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingRepository;
+import tr.com.eaaslan.library.service.CoBorrowingMatrix.CoBorrowedBooks;
+import tr.com.eaaslan.library.util.CommitFence;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * "Patrons who borrowed this also borrowed" recommendations. A {@link CoBorrowingMatrix} built from every
+ * live and archived loan is kept in memory together with the top co-borrowed books of each book, so a
+ * request is a map lookup.
+ * <p>
+ * New loans are queued once their transaction commits and folded into the matrix by a job every minute,
+ * which reads the history of the affected patrons only. A nightly rebuild starts over from the loans, dropping
+ * deleted books and loans. It closes a {@link CommitFence} until its query has taken the snapshot, so a loan
+ * committing meanwhile is either in the snapshot or still pending afterwards, never both.
+ */
+@Service
+@Slf4j
+public class BookRecommendationService {
+
+    private static final int USER_BATCH_SIZE = 1000;
+    // How long a rebuild waits for in-flight loan transactions before giving up; checkouts queue meanwhile
+    private static final Duration FENCE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final BorrowingRepository borrowingRepository;
+    private final BookRepository bookRepository;
+    private final JobRunner jobRunner;
+    private final TransactionTemplate transactionTemplate;
+    private final int topN;
+    private final int maxBooksPerPatron;
+
+    // Only the jobs touch the matrix, one at a time
+    private final ReentrantLock matrixLock = new ReentrantLock();
+    private final CommitFence commitFence = new CommitFence();
+    private CoBorrowingMatrix matrix = new CoBorrowingMatrix();
+
+    // Read by requests without locking; entries are replaced whole
+    private volatile Map<Long, CoBorrowedBooks> recommendations = new ConcurrentHashMap<>();
+    private volatile Map<Long, BookSummary> bookSummaries = new ConcurrentHashMap<>();
+
+    // Loans committed since the last update as userId -> bookId -> loans; guarded by this
+    private Map<Long, Map<Long, Integer>> pendingLoans = new HashMap<>();
+
+    private record BookSummary(String title, String author) {
+    }
+
+    public BookRecommendationService(BorrowingRepository borrowingRepository,
+                                     BookRepository bookRepository,
+                                     JobRunner jobRunner,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${app.recommendations.top-n:20}") int topN,
+                                     @Value("${app.recommendations.max-books-per-patron:500}") int maxBooksPerPatron) {
+        this.borrowingRepository = borrowingRepository;
+        this.bookRepository = bookRepository;
+        this.jobRunner = jobRunner;
+        this.transactionTemplate = transactionTemplate;
+        this.topN = topN;
+        this.maxBooksPerPatron = maxBooksPerPatron;
+    }
+
+    public List<BookRecommendationResponse> getRecommendations(Long bookId, int limit) {
+        if (limit < 1 || limit > topN) {
+            throw new BusinessRuleException("Limit must be between 1 and " + topN);
+        }
+
+        CoBorrowedBooks coBorrowed = recommendations.get(bookId);
+        if (coBorrowed == null) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new ResourceNotFoundException("Book", "ID", bookId);
+            }
+            return List.of();
+        }
+
+        Map<Long, BookSummary> summaries = bookSummaries;
+        loadMissingSummaries(coBorrowed, summaries);
+
+        List<BookRecommendationResponse> result = new ArrayList<>(Math.min(limit, coBorrowed.size()));
+        for (int i = 0; i < coBorrowed.size() && result.size() < limit; i++) {
+            BookSummary summary = summaries.get(coBorrowed.bookIds()[i]);
+            // No summary: the book was deleted after the last rebuild
+            if (summary != null) {
+                result.add(new BookRecommendationResponse(coBorrowed.bookIds()[i], summary.title(),
+                        summary.author(), coBorrowed.borrowers()[i]));
+            }
+        }
+        return result;
+    }
+
+    public void recordBorrow(Long userId, Long bookId) {
+        commitFence.afterCommit(() -> {
+            synchronized (this) {
+                pendingLoans.computeIfAbsent(userId, id -> new HashMap<>()).merge(bookId, 1, Integer::sum);
+            }
+        });
+    }
+
+    /**
+     * Folds the loans committed since the last run into the matrix and refreshes the recommendations of every
+     * book whose row changed.
+     */
+    @Scheduled(fixedDelayString = "${app.recommendations.update-interval:PT1M}")
+    public void applyPendingLoans() {
+        matrixLock.lock();
+        try {
+            Map<Long, Map<Long, Integer>> pending;
+            synchronized (this) {
+                if (pendingLoans.isEmpty()) {
+                    return;
+                }
+                pending = pendingLoans;
+                pendingLoans = new HashMap<>();
+            }
+
+            Map<Long, Map<Long, Long>> history = loadHistory(pending.keySet());
+            Set<Long> touched = new HashSet<>();
+            pending.forEach((userId, newLoans) ->
+                    applyNewLoans(history.getOrDefault(userId, Map.of()), newLoans, touched));
+
+            Map<Long, CoBorrowedBooks> current = recommendations;
+            touched.forEach(bookId -> current.put(bookId, matrix.topCoBorrowed(bookId, topN)));
+            log.debug("Applied new loans of {} patrons, {} books re-ranked", pending.size(), touched.size());
+        } finally {
+            matrixLock.unlock();
+        }
+    }
+
+    /**
+     * Builds the matrix before the node serves its first recommendation.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAtStartup() {
+        rebuild();
+    }
+
+    /**
+     * Runs the rebuild through the {@link JobRunner}. The matrix is held by each node, so every node runs it.
+     * Runs daily at 5:00 AM, after the archival job.
+     */
+    @Scheduled(cron = "${app.recommendations.rebuild-cron:0 0 5 * * ?}")
+    public void runRebuild() {
+        jobRunner.runOnThisNode("recommendation-rebuild", this::rebuild);
+    }
+
+    /**
+     * Rebuilds the matrix from all live and archived loans. The pending loans are discarded once the rebuild
+     * succeeds: the commit fence guarantees they committed before the pairs query took its snapshot. Loans
+     * committed after it stay pending for the next update. If the rebuild fails the discarded loans are
+     * queued again.
+     *
+     * @return the number of book pairs in the matrix
+     */
+    public long rebuild() {
+        matrixLock.lock();
+        try {
+            if (!commitFence.close(FENCE_TIMEOUT)) {
+                throw new IllegalStateException("Loan transactions did not complete within " + FENCE_TIMEOUT);
+            }
+
+            try {
+                Map<Long, Map<Long, Integer>> discarded;
+                synchronized (this) {
+                    discarded = pendingLoans;
+                    pendingLoans = new HashMap<>();
+                }
+
+                try {
+                    return rebuildMatrix();
+                } catch (RuntimeException e) {
+                    synchronized (this) {
+                        discarded.forEach((userId, loans) -> {
+                            Map<Long, Integer> pending = pendingLoans.computeIfAbsent(userId, id -> new HashMap<>());
+                            loans.forEach((bookId, count) -> pending.merge(bookId, count, Integer::sum));
+                        });
+                    }
+                    throw e;
+                }
+            } finally {
+                commitFence.open();
+            }
+        } finally {
+            matrixLock.unlock();
+        }
+    }
+
+    private long rebuildMatrix() {
+        long start = System.nanoTime();
+        Map<Long, BookSummary> summaries = new ConcurrentHashMap<>();
+        CoBorrowingMatrix rebuilt = transactionTemplate.execute(status -> {
+            CoBorrowingMatrix.Builder builder = new CoBorrowingMatrix.Builder(maxBooksPerPatron);
+            try (Stream<Object[]> pairs = borrowingRepository.streamDistinctUserBookPairs()) {
+                // The query has run and fixed its snapshot; loans committing from here on stay pending
+                commitFence.open();
+                pairs.forEach(row -> builder.add(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+            }
+
+            bookRepository.findAllTitlesAndAuthors().forEach(row ->
+                    summaries.put((Long) row[0], new BookSummary((String) row[1], (String) row[2])));
+            return builder.build();
+        });
+
+        Map<Long, CoBorrowedBooks> ranked = new ConcurrentHashMap<>();
+        rebuilt.bookIds().forEach(bookId -> ranked.put(bookId, rebuilt.topCoBorrowed(bookId, topN)));
+
+        matrix = rebuilt;
+        bookSummaries = summaries;
+        recommendations = ranked;
+        log.info("Co-borrowing matrix rebuilt in {} ms: {} books, {} pairs",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), ranked.size(), rebuilt.pairs());
+        return rebuilt.pairs();
+    }
+
+    // userId -> bookId -> number of loans, live and archived
+    private Map<Long, Map<Long, Long>> loadHistory(Set<Long> userIds) {
+        Map<Long, Map<Long, Long>> history = new HashMap<>();
+        List<Long> ids = new ArrayList<>(userIds);
+        for (int from = 0; from < ids.size(); from += USER_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + USER_BATCH_SIZE, ids.size()));
+            for (Object[] row : borrowingRepository.countLoansByUserAndBook(batch)) {
+                history.computeIfAbsent(((Number) row[0]).longValue(), id -> new HashMap<>())
+                        .put(((Number) row[1]).longValue(), ((Number) row[2]).longValue());
+            }
+        }
+        return history;
+    }
+
+    private void applyNewLoans(Map<Long, Long> history, Map<Long, Integer> newLoans, Set<Long> touched) {
+        if (history.size() > maxBooksPerPatron) {
+            return;
+        }
+
+        // Books the patron had borrowed before these loans; each new book pairs with them once
+        List<Long> previous = new ArrayList<>();
+        history.forEach((bookId, loans) -> {
+            if (loans > newLoans.getOrDefault(bookId, 0)) {
+                previous.add(bookId);
+            }
+        });
+
+        newLoans.forEach((bookId, loans) -> {
+            Long total = history.get(bookId);
+            if (total == null || total > loans) {
+                return; // deleted meanwhile, or borrowed before and already counted
+            }
+            matrix.addBook(bookId, previous.stream().mapToLong(Long::longValue).toArray());
+            touched.add(bookId);
+            touched.addAll(previous);
+            previous.add(bookId);
+        });
+    }
+
+    private void loadMissingSummaries(CoBorrowedBooks coBorrowed, Map<Long, BookSummary> summaries) {
+        List<Long> missing = new ArrayList<>();
+        for (long bookId : coBorrowed.bookIds()) {
+            if (!summaries.containsKey(bookId)) {
+                missing.add(bookId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Book book : bookRepository.findAllById(missing)) {
+                summaries.put(book.getId(), new BookSummary(book.getTitle(), book.getAuthor()));
+            }
+        }
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.transaction.annotation.Transactional;
 import tr.com.eaaslan.library.exception.BusinessRuleException;
 import tr.com.eaaslan.library.exception.ResourceAlreadyExistException;
 import tr.com.eaaslan.library.exception.ResourceNotFoundException;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.SearchType;
 import tr.com.eaaslan.library.model.Book;
 import tr.com.eaaslan.library.model.Borrowing;
 import tr.com.eaaslan.library.model.BorrowingStatus;
@@ -20,6 +22,7 @@ import tr.com.eaaslan.library.model.dto.book.BookResponse;
 import tr.com.eaaslan.library.model.dto.book.BookUpdateRequest;
 import tr.com.eaaslan.library.model.mapper.BookMapper;
 import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingArchiveRepository;
 import tr.com.eaaslan.library.repository.BorrowingRepository;
 
 import java.util.List;
@@ -32,11 +35,19 @@ public class BookServiceImpl implements BookService {
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
     private final BorrowingRepository borrowingRepository;
+    private final BorrowingArchiveRepository borrowingArchiveRepository;
+    private final HoldService holdService;
+    private final LibraryMetrics libraryMetrics;
 
-    public BookServiceImpl(BookRepository bookRepository, BookMapper bookMapper, BorrowingRepository borrowingRepository) {
+    public BookServiceImpl(BookRepository bookRepository, BookMapper bookMapper, BorrowingRepository borrowingRepository,
+                           BorrowingArchiveRepository borrowingArchiveRepository, HoldService holdService,
+                           LibraryMetrics libraryMetrics) {
         this.bookRepository = bookRepository;
         this.bookMapper = bookMapper;
         this.borrowingRepository = borrowingRepository;
+        this.borrowingArchiveRepository = borrowingArchiveRepository;
+        this.holdService = holdService;
+        this.libraryMetrics = libraryMetrics;
     }
 
     @Override
@@ -100,6 +111,8 @@ public class BookServiceImpl implements BookService {
         }
 
         borrowingRepository.deleteByBookId(id);
+        borrowingArchiveRepository.deleteByBookId(id);
+        holdService.deleteHoldsOfBook(id);
         log.info("Deleting book with ID: {}", id);
         bookRepository.delete(book);
         return bookMapper.toResponse(book);
@@ -109,28 +122,37 @@ public class BookServiceImpl implements BookService {
     @Transactional(readOnly = true)
     public List<BookResponse> searchBooksByTitle(String title, int page, int size) {
         log.info("Searching books by title: {}", title);
+        long start = System.nanoTime();
         Pageable pageable = PageRequest.of(page, size);
         Page<Book> bookPage = bookRepository.findByTitleContainingIgnoreCase(title, pageable);
-        return bookPage.getContent().stream().map(bookMapper::toResponse).toList();
+        List<BookResponse> books = bookPage.getContent().stream().map(bookMapper::toResponse).toList();
+        libraryMetrics.recordSearch(SearchType.TITLE, start);
+        return books;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<BookResponse> searchBooksByAuthor(String author, int page, int size) {
         log.info("Searching books by author: {}", author);
+        long start = System.nanoTime();
         Pageable pageable = PageRequest.of(page, size);
         Page<Book> bookPage = bookRepository.findByAuthorContainingIgnoreCase(author, pageable);
-        return bookPage.getContent().stream().map(bookMapper::toResponse).toList();
+        List<BookResponse> books = bookPage.getContent().stream().map(bookMapper::toResponse).toList();
+        libraryMetrics.recordSearch(SearchType.AUTHOR, start);
+        return books;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<BookResponse> searchBooksByGenre(String genre, int page, int size) {
         log.info("Searching books by genre: {}", genre);
+        long start = System.nanoTime();
         Pageable pageable = PageRequest.of(page, size);
         Genre genreEnum = Genre.valueOf(genre.toUpperCase());
         Page<Book> bookPage = bookRepository.findByGenre(genreEnum, pageable);
-        return bookPage.getContent().stream().map(bookMapper::toResponse).toList();
+        List<BookResponse> books = bookPage.getContent().stream().map(bookMapper::toResponse).toList();
+        libraryMetrics.recordSearch(SearchType.GENRE, start);
+        return books;
     }
 
     @Override
@@ -0,0 +1,90 @@
+package tr.com.eaaslan.library.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tr.com.eaaslan.library.repository.BorrowingArchiveRepository;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves returned loans out of the live {@code borrowing} table into {@code borrowing_archive}.
+ */
+@Service
+@Slf4j
+public class BorrowingArchiveService {
+
+    // The late-return penalty looks back 30 days, so loans must stay live for longer than that
+    static final int MIN_RETENTION_MONTHS = 2;
+
+    private final BorrowingArchiveRepository archiveRepository;
+    private final JobRunner jobRunner;
+    private final Clock clock;
+    private final int retentionMonths;
+    private final boolean managePartitions;
+
+    public BorrowingArchiveService(BorrowingArchiveRepository archiveRepository,
+                                   JobRunner jobRunner,
+                                   Clock clock,
+                                   @Value("${app.borrowing.archive.retention-months:12}") int retentionMonths,
+                                   @Value("${app.borrowing.archive.manage-partitions:true}") boolean managePartitions) {
+        if (retentionMonths < MIN_RETENTION_MONTHS) {
+            throw new IllegalArgumentException("app.borrowing.archive.retention-months must be at least "
+                    + MIN_RETENTION_MONTHS + " but was " + retentionMonths);
+        }
+        this.archiveRepository = archiveRepository;
+        this.jobRunner = jobRunner;
+        this.clock = clock;
+        this.retentionMonths = retentionMonths;
+        this.managePartitions = managePartitions;
+    }
+
+    /**
+     * Archive returned loans older than the retention period, in chunks through the {@link JobRunner}.
+     * Runs daily at 3:30 AM.
+     */
+    @Scheduled(cron = "${app.borrowing.archive.cron:0 30 3 * * ?}")
+    public void archiveReturnedBorrowings() {
+        LocalDate cutoff = LocalDate.now(clock).minusMonths(retentionMonths);
+        // The node holding the lease creates the partitions with its first chunk
+        boolean[] partitionsReady = {!managePartitions};
+        jobRunner.runChunked("borrowing-archive",
+                (afterId, lastId, limit) -> archiveRepository.findArchivableBorrowingIds(
+                        cutoff, afterId, lastId, PageRequest.of(0, limit)),
+                ids -> {
+                    if (!partitionsReady[0]) {
+                        ensurePartitions(cutoff);
+                        partitionsReady[0] = true;
+                    }
+                    return archiveBatch(ids);
+                });
+    }
+
+    private void ensurePartitions(LocalDate cutoff) {
+        LocalDate earliest = archiveRepository.findEarliestArchivableBorrowDate(cutoff);
+        if (earliest != null) {
+            Integer created = archiveRepository.ensureMonthlyPartitions(earliest, cutoff);
+            log.debug("Created {} archive partitions", created);
+        }
+    }
+
+    /**
+     * Copies the given loans into the archive and removes them from the live table. Must run in a transaction.
+     *
+     * @return the number of archived loans
+     */
+    private int archiveBatch(List<Long> ids) {
+        int copied = archiveRepository.copyFromBorrowing(ids, LocalDateTime.now(clock));
+        int deleted = archiveRepository.deleteArchivedBorrowings(ids);
+        if (copied != deleted) {
+            throw new IllegalStateException("Archived " + copied + " borrowings but removed " + deleted
+                    + " from the live table");
+        }
+        return deleted;
+    }
+}
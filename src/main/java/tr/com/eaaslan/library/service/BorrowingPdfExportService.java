@@ -10,12 +10,16 @@ import com.itextpdf.layout.properties.UnitValue;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.PdfReport;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.Workload;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingResponse;
 
 import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -23,39 +27,49 @@ import java.util.List;
 public class BorrowingPdfExportService {
 
     private final BorrowingService borrowingService;
+    private final LibraryMetrics libraryMetrics;
+    private final WorkloadBulkhead workloadBulkhead;
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
 
     public byte[] exportAllBorrowingsToPdf() {
         log.info("Exporting all borrowings to PDF");
-        List<BorrowingResponse> borrowings = borrowingService.getAllBorrowingsForExport();
-        return generateBorrowingsPdf(borrowings, "All Borrowings Report");
+        return export(PdfReport.ALL, "All Borrowings Report", borrowingService::getAllBorrowingsForExport);
     }
 
     public byte[] exportUserBorrowingsToPdf(Long userId) {
         log.info("Exporting borrowings for user {} to PDF", userId);
-        List<BorrowingResponse> borrowings = borrowingService.getBorrowingsByUserForExport(userId);
-        return generateBorrowingsPdf(borrowings, "User Borrowings Report - User ID: " + userId);
+        return export(PdfReport.USER, "User Borrowings Report - User ID: " + userId,
+                () -> borrowingService.getBorrowingsByUserForExport(userId));
     }
 
     public byte[] exportOverdueBorrowingsToPdf() {
         log.info("Exporting overdue borrowings to PDF");
-        List<BorrowingResponse> borrowings = borrowingService.getOverdueBorrowingsForExport();
-        return generateBorrowingsPdf(borrowings, "Overdue Borrowings Report");
+        return export(PdfReport.OVERDUE, "Overdue Borrowings Report", borrowingService::getOverdueBorrowingsForExport);
     }
 
     public byte[] exportBookBorrowingsToPdf(Long bookId) {
         log.info("Exporting borrowings for book {} to PDF", bookId);
-        List<BorrowingResponse> borrowings = borrowingService.getBorrowingsByBookForExport(bookId);
-        return generateBorrowingsPdf(borrowings, "Book Borrowings Report - Book ID: " + bookId);
+        return export(PdfReport.BOOK, "Book Borrowings Report - Book ID: " + bookId,
+                () -> borrowingService.getBorrowingsByBookForExport(bookId));
     }
 
     public byte[] exportBorrowingsByDateRangeToPdf(LocalDate startDate, LocalDate endDate) {
         log.info("Exporting borrowings for date range {} to {} to PDF", startDate, endDate);
-        List<BorrowingResponse> borrowings = borrowingService.getBorrowingsByDateRangeForExport(startDate, endDate);
         String dateRange = formatDateRange(startDate, endDate);
-        return generateBorrowingsPdf(borrowings, "Borrowings Report - " + dateRange);
+        return export(PdfReport.DATE_RANGE, "Borrowings Report - " + dateRange,
+                () -> borrowingService.getBorrowingsByDateRangeForExport(startDate, endDate));
+    }
+
+    // Loads and renders within the reporting bulkhead, so concurrent exports cannot take over the connection pool
+    private byte[] export(PdfReport report, String title, Supplier<List<BorrowingResponse>> borrowings) {
+        return workloadBulkhead.call(Workload.REPORTING, () -> {
+            long start = System.nanoTime();
+            byte[] pdf = generateBorrowingsPdf(borrowings.get(), title);
+            libraryMetrics.recordPdfExport(report, start, pdf.length);
+            return pdf;
+        });
     }
 
     private byte[] generateBorrowingsPdf(List<BorrowingResponse> borrowings, String title) {
@@ -2,40 +2,58 @@ package tr.com.eaaslan.library.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import tr.com.eaaslan.library.datasource.ReadYourWrites;
 import tr.com.eaaslan.library.exception.*;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
 import tr.com.eaaslan.library.model.*;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingCreateRequest;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingResponse;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingReturnRequest;
 import tr.com.eaaslan.library.model.mapper.BorrowingMapper;
 import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingHistoryRepository;
 import tr.com.eaaslan.library.repository.BorrowingRepository;
 import tr.com.eaaslan.library.repository.UserRepository;
+import tr.com.eaaslan.library.util.TransactionCallbacks;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.chrono.ChronoLocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class BorrowingServiceImpl implements BorrowingService {
 
     private final BorrowingRepository borrowingRepository;
+    private final BorrowingHistoryRepository historyRepository;
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
     private final BorrowingMapper borrowingMapper;
     private final BookAvailabilityEventService eventService;
+    private final LoanStatisticsService loanStatisticsService;
+    private final BookPopularityService bookPopularityService;
+    private final BookRecommendationService bookRecommendationService;
+    private final HoldService holdService;
+    private final JobRunner jobRunner;
+    private final ReadYourWrites readYourWrites;
+    private final LibraryMetrics libraryMetrics;
+    private final Clock clock;
 
     private static final Logger log = LoggerFactory.getLogger(BorrowingServiceImpl.class);
 
@@ -44,53 +62,31 @@ public class BorrowingServiceImpl implements BorrowingService {
     @Override
     @Transactional
     public BorrowingResponse borrowBook(BorrowingCreateRequest request, String currentUserEmail) {
+        // Timed up to the end of the transaction, so the commit counts and rolled-back checkouts are failures
+        long start = System.nanoTime();
+        TransactionCallbacks.afterCompletion(committed -> libraryMetrics.recordBorrow(start, committed));
 
-        User currentUser = userRepository.findByEmail(currentUserEmail)
+        User currentUser = userRepository.findCurrentByEmail(currentUserEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "email", currentUserEmail));
 
-        if (currentUser.getStatus() != UserStatus.ACTIVE) {
-            if (currentUser.getStatus() == UserStatus.SUSPENDED) {
-                throw new UserSuspendedException(currentUserEmail, currentUser.getSuspensionEndDate());
-            }
-            throw new InvalidUserStatusException(currentUserEmail, currentUser.getStatus().toString());
-        }
-
-        long activeBorrowings = borrowingRepository.countByUserIdAndStatus(currentUser.getId(), BorrowingStatus.ACTIVE);
-        long overdueBorrowings = borrowingRepository.countByUserIdAndStatus(currentUser.getId(), BorrowingStatus.OVERDUE);
-        long totalUnreturnedBorrowings = activeBorrowings + overdueBorrowings;
+        ensureCanBorrow(currentUser);
 
-        if (totalUnreturnedBorrowings >= currentUser.getMaxAllowedBorrows()) {
+        // Checks the limit and reserves the slot in one statement; rolled back if the checkout fails later
+        if (userRepository.incrementActiveLoanCountIfBelowLimit(currentUser.getId()) == 0) {
             throw new BorrowingLimitExceededException(currentUser.getMaxAllowedBorrows());
         }
 
-        Book book = bookRepository.findById(request.bookId())
+        Book book = bookRepository.findCurrentById(request.bookId())
                 .orElseThrow(() -> new ResourceNotFoundException("Book", "ID", request.bookId()));
 
-        if (!book.isAvailable() || book.getQuantity() <= 0) {
+        // A copy reserved for the patron's hold is already off the shelf
+        boolean reservedCopy = holdService.claimReadyHold(currentUser.getId(), book.getId());
+        if (!reservedCopy && (!book.isAvailable() || book.getQuantity() <= 0)) {
             throw new BookNotAvailableException(book.getId());
         }
 
-        if (borrowingRepository.existsByUserIdAndBookIdAndStatus(
-                currentUser.getId(), request.bookId(), BorrowingStatus.ACTIVE)) {
-            throw new AlreadyBorrowedException(request.bookId(), currentUserEmail);
-        }
-
-        LocalDate today = LocalDate.now();
-        LocalDate dueDate;
-
-        if (request.dueDate() != null) {
-            dueDate = request.dueDate();
-
-            if (dueDate.isBefore(today)) {
-                throw new InvalidDueDateException("Due date cannot be in the past");
-            }
-
-            if (dueDate.isAfter(today.plusDays(30))) {
-                throw new InvalidDueDateException("Due date cannot be more than 30 days from today");
-            }
-        } else {
-            dueDate = today.plusDays(DEFAULT_BORROW_DAYS);
-        }
+        LocalDate today = LocalDate.now(clock);
+        LocalDate dueDate = resolveDueDate(request.dueDate(), today);
 
         Borrowing borrowing = Borrowing.builder()
                 .user(currentUser)
@@ -100,23 +96,70 @@ public class BorrowingServiceImpl implements BorrowingService {
                 .status(BorrowingStatus.ACTIVE)
                 .build();
 
-        borrowing = borrowingRepository.save(borrowing);
-
-        book.setQuantity(book.getQuantity() - 1);
-        if (book.getQuantity() <= 0) {
-            book.setAvailable(false);
+        // Duplicate loans are rejected by the unique index; flush now so the violation surfaces here
+        try {
+            borrowing = borrowingRepository.saveAndFlush(borrowing);
+        } catch (DataIntegrityViolationException e) {
+            if (isActiveLoanConstraintViolation(e)) {
+                throw new AlreadyBorrowedException(request.bookId(), currentUserEmail);
+            }
+            throw e;
         }
 
-        bookRepository.save(book);
+        if (!reservedCopy) {
+            book.setQuantity(book.getQuantity() - 1);
+            if (book.getQuantity() <= 0) {
+                book.setAvailable(false);
+            }
+            bookRepository.save(book);
+        }
 
         eventService.publishBookAvailabilityChange(book);
+        loanStatisticsService.recordBorrow(book.getId(), today);
+        bookPopularityService.recordBorrow(book.getId(), book.getGenre(), today);
+        bookRecommendationService.recordBorrow(currentUser.getId(), book.getId());
+        // The patron's own listings read the primary until the replicas have the loan
+        TransactionCallbacks.afterCommit(() -> readYourWrites.recordWrite(currentUserEmail));
 
         return borrowingMapper.toResponse(borrowing);
     }
 
+    static void ensureCanBorrow(User user) {
+        if (user.getStatus() != UserStatus.ACTIVE) {
+            if (user.getStatus() == UserStatus.SUSPENDED) {
+                throw new UserSuspendedException(user.getEmail(), user.getSuspensionEndDate());
+            }
+            throw new InvalidUserStatusException(user.getEmail(), user.getStatus().toString());
+        }
+    }
+
+    static LocalDate resolveDueDate(LocalDate requestedDueDate, LocalDate today) {
+        if (requestedDueDate == null) {
+            return today.plusDays(DEFAULT_BORROW_DAYS);
+        }
+        if (requestedDueDate.isBefore(today)) {
+            throw new InvalidDueDateException("Due date cannot be in the past");
+        }
+        if (requestedDueDate.isAfter(today.plusDays(30))) {
+            throw new InvalidDueDateException("Due date cannot be more than 30 days from today");
+        }
+        return requestedDueDate;
+    }
+
+    static boolean isActiveLoanConstraintViolation(DataIntegrityViolationException e) {
+        if (e.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null) {
+            return violation.getConstraintName().toLowerCase().contains(Borrowing.ACTIVE_LOAN_CONSTRAINT);
+        }
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase().contains(Borrowing.ACTIVE_LOAN_CONSTRAINT);
+    }
+
     @Override
     @Transactional
     public BorrowingResponse returnBook(Long id, BorrowingReturnRequest request, String currentUserEmail) {
+        long start = System.nanoTime();
+        TransactionCallbacks.afterCompletion(committed -> libraryMetrics.recordReturn(start, committed));
 
         User currentUser = userRepository.findByEmail(currentUserEmail)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "email", currentUserEmail));
@@ -134,8 +177,15 @@ public class BorrowingServiceImpl implements BorrowingService {
             throw new BookAlreadyReturnedException(id);
         }
 
+        boolean wasOverdue = borrowing.getStatus() == BorrowingStatus.OVERDUE;
+        if (wasOverdue) {
+            userRepository.adjustLoanCounts(borrowing.getUser().getId(), 0, -1);
+        } else {
+            userRepository.adjustLoanCounts(borrowing.getUser().getId(), -1, 0);
+        }
+
         LocalDate returnDate = request.returnDate() != null ?
-                request.returnDate() : LocalDate.now();
+                request.returnDate() : LocalDate.now(clock);
 
         borrowing.setReturnDate(returnDate);
         borrowing.setStatus(BorrowingStatus.RETURNED);
@@ -146,15 +196,22 @@ public class BorrowingServiceImpl implements BorrowingService {
                     returnDate.toEpochDay() - borrowing.getDueDate().toEpochDay());
         }
 
-        Book book = borrowing.getBook();
+        Long bookId = borrowing.getBook().getId();
+        Book book = bookRepository.findCurrentById(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException("Book", "ID", bookId));
         book.setQuantity(book.getQuantity() + 1);
         book.setAvailable(true);
+        // The copy goes to the next patron waiting for it, if any
+        holdService.allocateCopies(book);
 
         eventService.publishBookAvailabilityChange(book);
         bookRepository.save(book);
+        loanStatisticsService.recordReturn(book.getId(), returnDate, wasOverdue, borrowing.isReturnedLate());
 
         Borrowing updatedBorrowing = borrowingRepository.save(borrowing);
-        log.info("Book returned: {}, by user: {}", book.getTitle(), borrowing.getUser().getEmail());
+        String borrowerEmail = borrowing.getUser().getEmail();
+        log.info("Book returned: {}, by user: {}", book.getTitle(), borrowerEmail);
+        TransactionCallbacks.afterCommit(() -> readYourWrites.recordWrite(borrowerEmail));
 
         return borrowingMapper.toResponse(updatedBorrowing);
     }
@@ -175,7 +232,7 @@ public class BorrowingServiceImpl implements BorrowingService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "ID", userId));
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("borrowDate").descending());
-        return borrowingRepository.findByUserId(userId, pageable)
+        return historyRepository.findByUserId(userId, pageable)
                 .map(borrowingMapper::toResponse);
     }
 
@@ -196,7 +253,7 @@ public class BorrowingServiceImpl implements BorrowingService {
                 .orElseThrow(() -> new ResourceNotFoundException("Book", "ID", bookId));
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("borrowDate").descending());
-        return borrowingRepository.findByBookId(bookId, pageable)
+        return historyRepository.findByBookId(bookId, pageable)
                 .map(borrowingMapper::toResponse);
     }
 
@@ -204,7 +261,7 @@ public class BorrowingServiceImpl implements BorrowingService {
     @Transactional(readOnly = true)
     public Page<BorrowingResponse> getOverdueBorrowings(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("dueDate").ascending());
-        return borrowingRepository.findOverdueBorrowings(LocalDateTime.now(), pageable)
+        return borrowingRepository.findOverdueBorrowings(LocalDateTime.now(clock), pageable)
                 .map(borrowingMapper::toResponse);
     }
 
@@ -212,29 +269,52 @@ public class BorrowingServiceImpl implements BorrowingService {
     @Transactional(readOnly = true)
     public BorrowingResponse getBorrowingById(Long id) {
 
-        Borrowing borrowing = borrowingRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Borrowing record", "ID", id));
         log.info("Fetching borrowing with ID: {}", id);
-        return borrowingMapper.toResponse(borrowing);
+        return borrowingRepository.findById(id)
+                .map(borrowingMapper::toResponse)
+                .or(() -> historyRepository.findById(id).map(borrowingMapper::toResponse))
+                .orElseThrow(() -> new ResourceNotFoundException("Borrowing record", "ID", id));
     }
 
-    @Transactional
-    public void updateOverdueStatus() {
-
-        LocalDateTime now = LocalDateTime.now();
-        Page<Borrowing> activeBorrowings = borrowingRepository.findByStatus(
-                BorrowingStatus.ACTIVE,
-                PageRequest.of(0, Integer.MAX_VALUE));
+    /**
+     * Marks ACTIVE loans past their due date as OVERDUE, in chunks through the {@link JobRunner}.
+     * Runs daily at 0:15 AM, before the late penalty check.
+     */
+    @Scheduled(cron = "${app.borrowing.overdue.cron:0 15 0 * * ?}")
+    public void runOverdueStatusUpdate() {
+        LocalDate today = LocalDate.now(clock);
+        jobRunner.runChunked("overdue-loans",
+                (afterId, lastId, limit) -> borrowingRepository.findIdsByStatusAndDueDateBefore(
+                        BorrowingStatus.ACTIVE, today, afterId, lastId, PageRequest.of(0, limit)),
+                this::markOverdue);
+    }
 
-        List<Borrowing> overdueBorrowings = activeBorrowings.getContent().stream()
-                .filter(b -> b.getDueDate().isBefore(ChronoLocalDate.from(now)))
+    /**
+     * Marks the given loans OVERDUE if they are still ACTIVE and past their due date, and moves them to the
+     * overdue loan counters of their users. Must run in a transaction.
+     *
+     * @return the number of loans marked overdue
+     */
+    public int markOverdue(List<Long> borrowingIds) {
+
+        LocalDate today = LocalDate.now(clock);
+        List<Borrowing> overdueBorrowings = borrowingRepository.findByIdIn(borrowingIds).stream()
+                .filter(b -> b.getStatus() == BorrowingStatus.ACTIVE && b.getDueDate().isBefore(today))
                 .peek(b -> b.setStatus(BorrowingStatus.OVERDUE))
                 .toList();
 
         if (!overdueBorrowings.isEmpty()) {
             borrowingRepository.saveAll(overdueBorrowings);
+
+            Map<Long, Long> newlyOverdueByUser = overdueBorrowings.stream()
+                    .collect(Collectors.groupingBy(b -> b.getUser().getId(), Collectors.counting()));
+            newlyOverdueByUser.forEach((userId, count) ->
+                    userRepository.adjustLoanCounts(userId, -count.intValue(), count.intValue()));
+            overdueBorrowings.forEach(b -> loanStatisticsService.recordOverdue(b.getBook().getId()));
+
             log.info("Updated status for {} overdue borrowings", overdueBorrowings.size());
         }
+        return overdueBorrowings.size();
     }
 
     @Override
@@ -244,7 +324,7 @@ public class BorrowingServiceImpl implements BorrowingService {
 
         // Newest first order
         Sort sort = Sort.by(Sort.Direction.DESC, "borrowDate", "id");
-        List<Borrowing> borrowings = borrowingRepository.findAll(sort);
+        List<BorrowingHistory> borrowings = historyRepository.findAll(sort);
 
         log.info("Retrieved {} borrowing records for export", borrowings.size());
 
@@ -258,7 +338,7 @@ public class BorrowingServiceImpl implements BorrowingService {
     public List<BorrowingResponse> getBorrowingsByUserForExport(Long userId) {
         log.info("Fetching borrowing records for user {} for export", userId);
 
-        List<Borrowing> borrowings = borrowingRepository.findByUserIdOrderByBorrowDateDesc(userId);
+        List<BorrowingHistory> borrowings = historyRepository.findByUserIdOrderByBorrowDateDesc(userId);
 
         log.info("Retrieved {} borrowing records for user {} for export", borrowings.size(), userId);
 
@@ -286,20 +366,20 @@ public class BorrowingServiceImpl implements BorrowingService {
     public List<BorrowingResponse> getBorrowingsByDateRangeForExport(LocalDate startDate, LocalDate endDate) {
         log.info("Fetching borrowing records by date range for export: {} to {}", startDate, endDate);
 
-        List<Borrowing> borrowings;
+        List<BorrowingHistory> borrowings;
 
         if (startDate == null && endDate == null) {
             // Tüm kayıtları getir
-            borrowings = borrowingRepository.findAll(Sort.by(Sort.Direction.DESC, "borrowDate"));
+            borrowings = historyRepository.findAll(Sort.by(Sort.Direction.DESC, "borrowDate"));
         } else if (startDate == null) {
             // Sadece end date var
-            borrowings = borrowingRepository.findByBorrowDateLessThanEqualOrderByBorrowDateDesc(endDate);
+            borrowings = historyRepository.findByBorrowDateLessThanEqualOrderByBorrowDateDesc(endDate);
         } else if (endDate == null) {
             // Sadece start date var
-            borrowings = borrowingRepository.findByBorrowDateGreaterThanEqualOrderByBorrowDateDesc(startDate);
+            borrowings = historyRepository.findByBorrowDateGreaterThanEqualOrderByBorrowDateDesc(startDate);
         } else {
             // Her iki tarih de var
-            borrowings = borrowingRepository.findByBorrowDateBetweenOrderByBorrowDateDesc(startDate, endDate);
+            borrowings = historyRepository.findByBorrowDateBetweenOrderByBorrowDateDesc(startDate, endDate);
         }
 
         log.info("Retrieved {} borrowing records for date range export", borrowings.size());
@@ -314,7 +394,7 @@ public class BorrowingServiceImpl implements BorrowingService {
     public List<BorrowingResponse> getBorrowingsByBookForExport(Long bookId) {
         log.info("Fetching borrowing history for book {} for export", bookId);
 
-        List<Borrowing> borrowings = borrowingRepository.findByBookIdOrderByBorrowDateDesc(bookId);
+        List<BorrowingHistory> borrowings = historyRepository.findByBookIdOrderByBorrowDateDesc(bookId);
 
         log.info("Retrieved {} borrowing records for book {} for export", borrowings.size(), bookId);
 
@@ -0,0 +1,272 @@
+package tr.com.eaaslan.library.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tr.com.eaaslan.library.datasource.ReadYourWrites;
+import tr.com.eaaslan.library.exception.ResourceNotFoundException;
+import tr.com.eaaslan.library.model.*;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkBorrowRequest;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkItemResult;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkOperationResponse;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkReturnRequest;
+import tr.com.eaaslan.library.model.mapper.BorrowingMapper;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingRepository;
+import tr.com.eaaslan.library.repository.UserRepository;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Batch returns and checkouts. Each chunk of a request runs in one transaction and loads its borrowings or
+ * books with a single IN query. Items that fail validation are reported individually without aborting the
+ * chunk, and one availability event is published per affected book after the chunk commits.
+ */
+@Service
+@Slf4j
+public class BulkBorrowingService {
+
+    private final BorrowingRepository borrowingRepository;
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final BorrowingMapper borrowingMapper;
+    private final BookAvailabilityEventService eventService;
+    private final LoanStatisticsService loanStatisticsService;
+    private final BookPopularityService bookPopularityService;
+    private final BookRecommendationService bookRecommendationService;
+    private final HoldService holdService;
+    private final TransactionTemplate transactionTemplate;
+    private final ReadYourWrites readYourWrites;
+    private final Clock clock;
+    private final int chunkSize;
+
+    public BulkBorrowingService(BorrowingRepository borrowingRepository,
+                                UserRepository userRepository,
+                                BookRepository bookRepository,
+                                BorrowingMapper borrowingMapper,
+                                BookAvailabilityEventService eventService,
+                                LoanStatisticsService loanStatisticsService,
+                                BookPopularityService bookPopularityService,
+                                BookRecommendationService bookRecommendationService,
+                                HoldService holdService,
+                                TransactionTemplate transactionTemplate,
+                                ReadYourWrites readYourWrites,
+                                Clock clock,
+                                @Value("${app.borrowing.bulk.chunk-size:200}") int chunkSize) {
+        this.borrowingRepository = borrowingRepository;
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+        this.borrowingMapper = borrowingMapper;
+        this.eventService = eventService;
+        this.loanStatisticsService = loanStatisticsService;
+        this.bookPopularityService = bookPopularityService;
+        this.bookRecommendationService = bookRecommendationService;
+        this.holdService = holdService;
+        this.transactionTemplate = transactionTemplate;
+        this.readYourWrites = readYourWrites;
+        this.clock = clock;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkOperationResponse returnBooks(BulkReturnRequest request, String currentUserEmail) {
+        User currentUser = userRepository.findByEmail(currentUserEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "email", currentUserEmail));
+        boolean staff = currentUser.getRole() == UserRole.LIBRARIAN || currentUser.getRole() == UserRole.ADMIN;
+        LocalDate returnDate = request.returnDate() != null ? request.returnDate() : LocalDate.now(clock);
+
+        List<BulkItemResult> results = new ArrayList<>(request.borrowingIds().size());
+        for (List<Long> chunk : chunks(request.borrowingIds())) {
+            results.addAll(runChunk(chunk, affectedBooks ->
+                    returnChunk(chunk, currentUser.getId(), staff, returnDate, affectedBooks)));
+        }
+
+        BulkOperationResponse response = BulkOperationResponse.of(results);
+        log.info("Bulk return by {}: {} returned, {} failed", currentUserEmail, response.succeeded(), response.failed());
+        if (!staff && response.succeeded() > 0) {
+            readYourWrites.recordWrite(currentUserEmail);
+        }
+        return response;
+    }
+
+    public BulkOperationResponse borrowBooks(BulkBorrowRequest request, String currentUserEmail) {
+        User currentUser = userRepository.findCurrentByEmail(currentUserEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "email", currentUserEmail));
+        BorrowingServiceImpl.ensureCanBorrow(currentUser);
+
+        LocalDate today = LocalDate.now(clock);
+        LocalDate dueDate = BorrowingServiceImpl.resolveDueDate(request.dueDate(), today);
+
+        List<BulkItemResult> results = new ArrayList<>(request.bookIds().size());
+        for (List<Long> chunk : chunks(request.bookIds())) {
+            results.addAll(runChunk(chunk, affectedBooks ->
+                    borrowChunk(chunk, currentUser.getId(), today, dueDate, affectedBooks)));
+        }
+
+        BulkOperationResponse response = BulkOperationResponse.of(results);
+        log.info("Bulk checkout by {}: {} borrowed, {} failed", currentUserEmail, response.succeeded(), response.failed());
+        if (response.succeeded() > 0) {
+            readYourWrites.recordWrite(currentUserEmail);
+        }
+        return response;
+    }
+
+    /**
+     * Runs one chunk in its own transaction and publishes the coalesced availability events once it has
+     * committed. If the transaction itself fails (e.g. a concurrent update), every item of the chunk is
+     * reported as failed and nothing of it is kept.
+     */
+    private List<BulkItemResult> runChunk(List<Long> chunk,
+                                          Function<Map<Long, Book>, List<BulkItemResult>> work) {
+        Map<Long, Book> affectedBooks = new LinkedHashMap<>();
+        try {
+            List<BulkItemResult> results = transactionTemplate.execute(status -> work.apply(affectedBooks));
+            affectedBooks.values().forEach(eventService::publishBookAvailabilityChange);
+            return results;
+        } catch (RuntimeException e) {
+            log.warn("Bulk chunk of {} items rolled back: {}", chunk.size(), e.getMessage());
+            String error = e instanceof DataIntegrityViolationException ex
+                    && BorrowingServiceImpl.isActiveLoanConstraintViolation(ex)
+                    ? "Book is already borrowed by this user"
+                    : "Batch rolled back: " + e.getMessage();
+            return chunk.stream().map(id -> BulkItemResult.failed(id, error)).toList();
+        }
+    }
+
+    private List<BulkItemResult> returnChunk(List<Long> borrowingIds, Long currentUserId, boolean staff,
+                                             LocalDate returnDate, Map<Long, Book> affectedBooks) {
+        Map<Long, Borrowing> borrowings = borrowingRepository.findByIdIn(borrowingIds).stream()
+                .collect(Collectors.toMap(Borrowing::getId, Function.identity()));
+
+        List<BulkItemResult> results = new ArrayList<>(borrowingIds.size());
+        Map<Long, int[]> counterDeltas = new HashMap<>();
+        Set<Long> seen = new HashSet<>();
+        List<Borrowing> returned = new ArrayList<>();
+
+        for (Long id : borrowingIds) {
+            Borrowing borrowing = borrowings.get(id);
+            if (!seen.add(id)) {
+                results.add(BulkItemResult.failed(id, "Duplicate borrowing ID in request"));
+            } else if (borrowing == null) {
+                results.add(BulkItemResult.failed(id, "Borrowing not found with ID: '" + id + "'"));
+            } else if (!staff && !borrowing.getUser().getId().equals(currentUserId)) {
+                results.add(BulkItemResult.failed(id, "You can only return books borrowed by yourself"));
+            } else if (borrowing.getStatus() == BorrowingStatus.RETURNED) {
+                results.add(BulkItemResult.failed(id, "Book has already been returned for borrowing ID: " + id));
+            } else if (returnDate.isBefore(borrowing.getBorrowDate())) {
+                results.add(BulkItemResult.failed(id, "Return date cannot be before the borrow date"));
+            } else {
+                boolean wasOverdue = borrowing.getStatus() == BorrowingStatus.OVERDUE;
+                int[] delta = counterDeltas.computeIfAbsent(borrowing.getUser().getId(), userId -> new int[2]);
+                delta[wasOverdue ? 1 : 0]--;
+
+                borrowing.setReturnDate(returnDate);
+                borrowing.setStatus(BorrowingStatus.RETURNED);
+                borrowing.setReturnedLate(returnDate.isAfter(borrowing.getDueDate()));
+
+                Book book = borrowing.getBook();
+                book.setQuantity(book.getQuantity() + 1);
+                book.setAvailable(true);
+                affectedBooks.put(book.getId(), book);
+                loanStatisticsService.recordReturn(book.getId(), returnDate, wasOverdue, borrowing.isReturnedLate());
+
+                returned.add(borrowing);
+                results.add(BulkItemResult.succeeded(id, borrowingMapper.toResponse(borrowing)));
+            }
+        }
+
+        counterDeltas.forEach((userId, delta) -> userRepository.adjustLoanCounts(userId, delta[0], delta[1]));
+        borrowingRepository.saveAll(returned);
+        affectedBooks.values().forEach(holdService::allocateCopies);
+        bookRepository.saveAll(affectedBooks.values());
+        return results;
+    }
+
+    private List<BulkItemResult> borrowChunk(List<Long> bookIds, Long userId, LocalDate today, LocalDate dueDate,
+                                             Map<Long, Book> affectedBooks) {
+        User user = userRepository.findCurrentById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "ID", userId));
+        // A suspension committed since an earlier chunk rolls this one back
+        BorrowingServiceImpl.ensureCanBorrow(user);
+        Map<Long, Book> books = bookRepository.findAllCurrentById(bookIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        Set<Long> alreadyBorrowed = new HashSet<>(borrowingRepository.findUnreturnedBookIdsByUserId(userId));
+        // A copy reserved for one of the patron's holds is already off the shelf
+        Set<Long> reservedCopies = holdService.readyHoldBookIds(userId);
+
+        int remainingSlots = user.getMaxAllowedBorrows() - user.getActiveLoanCount() - user.getOverdueLoanCount();
+        List<BulkItemResult> results = new ArrayList<>(bookIds.size());
+        List<Borrowing> created = new ArrayList<>();
+        List<Integer> createdPositions = new ArrayList<>();
+
+        for (Long bookId : bookIds) {
+            Book book = books.get(bookId);
+            if (book == null) {
+                results.add(BulkItemResult.failed(bookId, "Book not found with ID: '" + bookId + "'"));
+            } else if (!alreadyBorrowed.add(bookId)) {
+                results.add(BulkItemResult.failed(bookId, "Book is already borrowed by this user"));
+            } else if (!reservedCopies.contains(bookId) && (!book.isAvailable() || book.getQuantity() <= 0)) {
+                results.add(BulkItemResult.failed(bookId, "Book is not available for borrowing"));
+            } else if (created.size() >= remainingSlots) {
+                results.add(BulkItemResult.failed(bookId,
+                        "Borrowing limit of " + user.getMaxAllowedBorrows() + " books reached"));
+            } else {
+                created.add(Borrowing.builder()
+                        .user(user)
+                        .book(book)
+                        .borrowDate(today)
+                        .dueDate(dueDate)
+                        .status(BorrowingStatus.ACTIVE)
+                        .build());
+                createdPositions.add(results.size());
+                results.add(null);
+
+                if (reservedCopies.contains(bookId)) {
+                    holdService.claimReadyHold(userId, bookId);
+                } else {
+                    book.setQuantity(book.getQuantity() - 1);
+                    if (book.getQuantity() <= 0) {
+                        book.setAvailable(false);
+                    }
+                    affectedBooks.put(bookId, book);
+                }
+            }
+        }
+
+        if (created.isEmpty()) {
+            return results;
+        }
+
+        // Re-checks the limit atomically in case another checkout for this user committed meanwhile
+        if (userRepository.incrementActiveLoanCountIfWithinLimit(userId, created.size()) == 0) {
+            throw new IllegalStateException("Borrowing limit changed concurrently, please retry");
+        }
+
+        borrowingRepository.saveAll(created);
+        bookRepository.saveAll(affectedBooks.values());
+        borrowingRepository.flush();
+
+        for (int i = 0; i < created.size(); i++) {
+            Borrowing borrowing = created.get(i);
+            loanStatisticsService.recordBorrow(borrowing.getBook().getId(), today);
+            bookPopularityService.recordBorrow(borrowing.getBook().getId(), borrowing.getBook().getGenre(), today);
+            bookRecommendationService.recordBorrow(userId, borrowing.getBook().getId());
+            results.set(createdPositions.get(i),
+                    BulkItemResult.succeeded(borrowing.getBook().getId(), borrowingMapper.toResponse(borrowing)));
+        }
+        return results;
+    }
+
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+        return chunks;
+    }
+}
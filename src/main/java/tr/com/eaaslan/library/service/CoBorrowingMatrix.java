@@ -0,0 +1,158 @@
+package tr.com.eaaslan.library.service;
+
+import tr.com.eaaslan.library.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Sparse, symmetric item-item matrix counting for every pair of books how many patrons borrowed both. Only
+ * pairs that actually co-occur are stored, one primitive row per book. Not thread-safe.
+ */
+public class CoBorrowingMatrix {
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingInt(Entry::borrowers).reversed()
+            .thenComparingLong(Entry::bookId);
+
+    private final Map<Long, LongIntHashMap> rows = new HashMap<>();
+    private long pairs;
+
+    /**
+     * Books ranked by the number of patrons who also borrowed a given book, highest first.
+     */
+    public record CoBorrowedBooks(long[] bookIds, int[] borrowers) {
+
+        static final CoBorrowedBooks NONE = new CoBorrowedBooks(new long[0], new int[0]);
+
+        public int size() {
+            return bookIds.length;
+        }
+    }
+
+    private record Entry(long bookId, int borrowers) {
+    }
+
+    /**
+     * Counts one patron: every pair of the given books gains one co-borrower.
+     *
+     * @param bookIds the patron's books, without duplicates
+     */
+    public void addBorrower(long[] bookIds) {
+        for (int i = 0; i < bookIds.length; i++) {
+            for (int j = i + 1; j < bookIds.length; j++) {
+                increment(bookIds[i], bookIds[j]);
+            }
+        }
+    }
+
+    /**
+     * Counts a book newly borrowed by a patron who had already borrowed the other books.
+     */
+    public void addBook(long bookId, long[] previousBookIds) {
+        for (long other : previousBookIds) {
+            if (other != bookId) {
+                increment(bookId, other);
+            }
+        }
+    }
+
+    /**
+     * @return the books most often co-borrowed with the given one, at most {@code limit}, ties broken by id
+     */
+    public CoBorrowedBooks topCoBorrowed(long bookId, int limit) {
+        LongIntHashMap row = rows.get(bookId);
+        if (row == null || row.isEmpty()) {
+            return CoBorrowedBooks.NONE;
+        }
+
+        // Min-heap of the best candidates so far, the weakest on top
+        PriorityQueue<Entry> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        row.forEach((other, borrowers) -> {
+            top.offer(new Entry(other, borrowers));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+
+        List<Entry> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+        long[] bookIds = new long[ranked.size()];
+        int[] borrowers = new int[ranked.size()];
+        for (int i = 0; i < ranked.size(); i++) {
+            bookIds[i] = ranked.get(i).bookId();
+            borrowers[i] = ranked.get(i).borrowers();
+        }
+        return new CoBorrowedBooks(bookIds, borrowers);
+    }
+
+    public Iterable<Long> bookIds() {
+        return rows.keySet();
+    }
+
+    /**
+     * @return the number of distinct co-borrowed pairs
+     */
+    public long pairs() {
+        return pairs;
+    }
+
+    private void increment(long first, long second) {
+        if (row(first).addTo(second, 1) == 1) {
+            pairs++;
+        }
+        row(second).addTo(first, 1);
+    }
+
+    private LongIntHashMap row(long bookId) {
+        return rows.computeIfAbsent(bookId, id -> new LongIntHashMap());
+    }
+
+    /**
+     * Builds a matrix from distinct (user, book) pairs that arrive grouped by user, e.g. from a query ordered
+     * by user id. Patrons with more books than the cap are left out: they add pairs quadratically while saying
+     * little about which books go together.
+     */
+    public static final class Builder {
+
+        private final CoBorrowingMatrix matrix = new CoBorrowingMatrix();
+        private final int maxBooksPerBorrower;
+        private long currentUserId;
+        private long[] books = new long[16];
+        private int bookCount;
+
+        public Builder(int maxBooksPerBorrower) {
+            this.maxBooksPerBorrower = maxBooksPerBorrower;
+        }
+
+        public void add(long userId, long bookId) {
+            if (userId != currentUserId) {
+                flushBorrower();
+                currentUserId = userId;
+            }
+            if (bookCount < maxBooksPerBorrower) {
+                if (bookCount == books.length) {
+                    books = Arrays.copyOf(books, bookCount * 2);
+                }
+                books[bookCount] = bookId;
+            }
+            bookCount++;
+        }
+
+        public CoBorrowingMatrix build() {
+            flushBorrower();
+            return matrix;
+        }
+
+        private void flushBorrower() {
+            if (bookCount > 1 && bookCount <= maxBooksPerBorrower) {
+                matrix.addBorrower(Arrays.copyOf(books, bookCount));
+            }
+            bookCount = 0;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package tr.com.eaaslan.library.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tr.com.eaaslan.library.exception.BusinessRuleException;
+import tr.com.eaaslan.library.exception.ResourceAlreadyExistException;
+import tr.com.eaaslan.library.exception.ResourceNotFoundException;
+import tr.com.eaaslan.library.model.*;
+import tr.com.eaaslan.library.model.dto.hold.HoldResponse;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingRepository;
+import tr.com.eaaslan.library.repository.HoldRepository;
+import tr.com.eaaslan.library.repository.UserRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hold queue for books without a copy on the shelf. Instead of retrying the checkout until a copy turns up,
+ * a patron places a hold; every returned copy is reserved for the oldest WAITING hold of its book, whose
+ * patron is notified on the hold stream and has until the pickup deadline to borrow it. Unclaimed copies move
+ * on to the next hold, or back to the shelf when the queue is empty.
+ * <p>
+ * Returns reserve copies in their own transaction. A periodic sweep expires unclaimed holds and also serves
+ * queues of books whose copies came back through paths that restock in bulk.
+ */
+@Service
+@Slf4j
+public class HoldService {
+
+    private static final Set<HoldStatus> OPEN = EnumSet.of(HoldStatus.WAITING, HoldStatus.READY);
+
+    private final HoldRepository holdRepository;
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final BorrowingRepository borrowingRepository;
+    private final BookAvailabilityEventService eventService;
+    private final JobRunner jobRunner;
+    private final Clock clock;
+    private final Duration pickupWindow;
+    private final int maxOpenHoldsPerUser;
+
+    public HoldService(HoldRepository holdRepository,
+                       BookRepository bookRepository,
+                       UserRepository userRepository,
+                       BorrowingRepository borrowingRepository,
+                       BookAvailabilityEventService eventService,
+                       JobRunner jobRunner,
+                       Clock clock,
+                       @Value("${app.holds.pickup-window:P3D}") Duration pickupWindow,
+                       @Value("${app.holds.max-open-per-user:5}") int maxOpenHoldsPerUser) {
+        this.holdRepository = holdRepository;
+        this.bookRepository = bookRepository;
+        this.userRepository = userRepository;
+        this.borrowingRepository = borrowingRepository;
+        this.eventService = eventService;
+        this.jobRunner = jobRunner;
+        this.clock = clock;
+        this.pickupWindow = pickupWindow;
+        this.maxOpenHoldsPerUser = maxOpenHoldsPerUser;
+    }
+
+    @Transactional
+    public HoldResponse placeHold(Long bookId, String currentUserEmail) {
+        User user = userRepository.findCurrentByEmail(currentUserEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "email", currentUserEmail));
+        BorrowingServiceImpl.ensureCanBorrow(user);
+
+        Book book = bookRepository.findCurrentById(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException("Book", "ID", bookId));
+
+        if (book.isAvailable() && book.getQuantity() > 0) {
+            throw new BusinessRuleException("Book is available, borrow it instead of placing a hold");
+        }
+        if (borrowingRepository.findUnreturnedBookIdsByUserId(user.getId()).contains(bookId)) {
+            throw new BusinessRuleException("You already have a copy of this book");
+        }
+        if (holdRepository.existsByUserIdAndBookIdAndStatusIn(user.getId(), bookId, OPEN)) {
+            throw new ResourceAlreadyExistException("Hold", "book ID", bookId);
+        }
+        if (holdRepository.countByUserIdAndStatusIn(user.getId(), OPEN) >= maxOpenHoldsPerUser) {
+            throw new BusinessRuleException("You cannot have more than " + maxOpenHoldsPerUser + " open holds");
+        }
+
+        Hold hold = Hold.builder()
+                .book(book)
+                .user(user)
+                .status(HoldStatus.WAITING)
+                // Truncated to what TIMESTAMP(6) stores, so that the hold does not count itself as ahead in the queue
+                .requestedAt(LocalDateTime.now(clock).truncatedTo(ChronoUnit.MICROS))
+                .build();
+
+        // A concurrent request for the same book is rejected by the unique index
+        try {
+            hold = holdRepository.saveAndFlush(hold);
+        } catch (DataIntegrityViolationException e) {
+            if (isOpenHoldConstraintViolation(e)) {
+                throw new ResourceAlreadyExistException("Hold", "book ID", bookId);
+            }
+            throw e;
+        }
+
+        log.info("Hold placed on book {} by {}", bookId, currentUserEmail);
+        return toResponse(hold);
+    }
+
+    @Transactional
+    public HoldResponse cancelHold(Long holdId, String currentUserEmail) {
+        User currentUser = userRepository.findByEmail(currentUserEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "email", currentUserEmail));
+        Hold hold = holdRepository.findById(holdId)
+                .orElseThrow(() -> new ResourceNotFoundException("Hold", "ID", holdId));
+
+        if (!hold.getUser().getId().equals(currentUser.getId()) &&
+                currentUser.getRole() != UserRole.LIBRARIAN &&
+                currentUser.getRole() != UserRole.ADMIN) {
+            throw new AccessDeniedException("You can only cancel your own holds");
+        }
+        if (!hold.getStatus().isOpen()) {
+            throw new BusinessRuleException("Hold is already " + hold.getStatus().name().toLowerCase());
+        }
+
+        boolean heldCopy = hold.getStatus() == HoldStatus.READY;
+        hold.setStatus(HoldStatus.CANCELLED);
+        if (heldCopy) {
+            releaseCopy(hold.getBook());
+        }
+
+        log.info("Hold {} cancelled by {}", holdId, currentUserEmail);
+        return toResponse(hold);
+    }
+
+    @Transactional(readOnly = true)
+    public List<HoldResponse> getOpenHolds(String currentUserEmail) {
+        User user = userRepository.findByEmail(currentUserEmail)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "email", currentUserEmail));
+        return holdRepository.findByUserIdAndStatusIn(user.getId(), OPEN).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    /**
+     * Reserves copies on the shelf for the book's waiting holds, oldest first, and lowers the quantity
+     * accordingly. Holds of patrons who can no longer borrow are cancelled on the way. Must run in the
+     * caller's transaction, after the copies were put back and before the book is saved.
+     *
+     * @return the number of copies reserved
+     */
+    public int allocateCopies(Book book) {
+        int reserved = 0;
+        while (book.getQuantity() > 0) {
+            List<Hold> next = holdRepository.findWaitingByBookId(book.getId(), PageRequest.of(0, 1));
+            if (next.isEmpty()) {
+                break;
+            }
+
+            Hold hold = next.getFirst();
+            if (hold.getUser().getStatus() != UserStatus.ACTIVE) {
+                hold.setStatus(HoldStatus.CANCELLED);
+                holdRepository.saveAndFlush(hold);
+                continue;
+            }
+
+            LocalDateTime now = LocalDateTime.now(clock);
+            hold.setStatus(HoldStatus.READY);
+            hold.setReadyAt(now);
+            hold.setPickupDeadline(now.plus(pickupWindow));
+            holdRepository.saveAndFlush(hold);
+
+            book.setQuantity(book.getQuantity() - 1);
+            book.setAvailable(book.getQuantity() > 0);
+            eventService.publishHoldReady(hold);
+            reserved++;
+            log.info("Copy of book {} reserved for hold {} until {}", book.getId(), hold.getId(), hold.getPickupDeadline());
+        }
+        return reserved;
+    }
+
+    /**
+     * The books with a copy reserved for the patron, i.e. with a READY hold of theirs.
+     */
+    public Set<Long> readyHoldBookIds(Long userId) {
+        return new HashSet<>(holdRepository.findBookIdsByUserIdAndStatus(userId, HoldStatus.READY));
+    }
+
+    /**
+     * Completes the patron's READY hold on the book, if any, as they borrow its reserved copy.
+     *
+     * @return whether a copy was reserved for the patron, in which case the book quantity already excludes it
+     */
+    public boolean claimReadyHold(Long userId, Long bookId) {
+        return holdRepository.findFirstByUserIdAndBookIdAndStatus(userId, bookId, HoldStatus.READY)
+                .map(hold -> {
+                    hold.setStatus(HoldStatus.FULFILLED);
+                    holdRepository.save(hold);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Runs the sweep on one node through the {@link JobRunner}.
+     */
+    @Scheduled(fixedDelayString = "${app.holds.sweep-interval:PT5M}")
+    public void runHoldSweep() {
+        jobRunner.run("hold-sweep", this::sweepHolds);
+    }
+
+    /**
+     * Expires READY holds past their pickup deadline, passing their copies on, and serves waiting holds of
+     * books that have copies on the shelf.
+     *
+     * @return the number of holds expired or made ready
+     */
+    @Transactional
+    public int sweepHolds() {
+        Set<Book> affectedBooks = new LinkedHashSet<>();
+
+        List<Hold> expired = holdRepository.findExpiredReadyHolds(LocalDateTime.now(clock));
+        for (Hold hold : expired) {
+            hold.setStatus(HoldStatus.EXPIRED);
+            Book book = hold.getBook();
+            book.setQuantity(book.getQuantity() + 1);
+            affectedBooks.add(book);
+        }
+        holdRepository.saveAllAndFlush(expired);
+        affectedBooks.addAll(holdRepository.findBooksWithWaitingHoldsAndCopiesOnShelf());
+
+        int reserved = 0;
+        for (Book book : affectedBooks) {
+            reserved += allocateCopies(book);
+            book.setAvailable(book.getQuantity() > 0);
+            bookRepository.save(book);
+            eventService.publishBookAvailabilityChange(book);
+        }
+
+        if (!affectedBooks.isEmpty()) {
+            log.info("Hold sweep: {} holds expired, {} copies reserved across {} books",
+                    expired.size(), reserved, affectedBooks.size());
+        }
+        return expired.size() + reserved;
+    }
+
+    /**
+     * Removes every hold of a user who is being deleted. Copies reserved for their READY holds go to the next
+     * patron in line or back to the shelf first, as a cancellation would, since the quantity no longer counts them.
+     *
+     * @return the number of holds deleted
+     */
+    @Transactional
+    public int deleteHoldsOfUser(Long userId) {
+        List<Hold> open = holdRepository.findByUserIdAndStatusIn(userId, OPEN);
+        for (Hold hold : open) {
+            boolean heldCopy = hold.getStatus() == HoldStatus.READY;
+            hold.setStatus(HoldStatus.CANCELLED);
+            holdRepository.saveAndFlush(hold);
+            if (heldCopy) {
+                releaseCopy(hold.getBook());
+            }
+        }
+
+        int deleted = holdRepository.deleteByUserId(userId);
+        if (deleted > 0) {
+            log.info("Deleted {} holds of user {}, {} of them open", deleted, userId, open.size());
+        }
+        return deleted;
+    }
+
+    /**
+     * Removes every hold on a book that is being deleted; their patrons are not waiting for anything anymore.
+     *
+     * @return the number of holds deleted
+     */
+    @Transactional
+    public int deleteHoldsOfBook(Long bookId) {
+        int deleted = holdRepository.deleteByBookId(bookId);
+        if (deleted > 0) {
+            log.info("Deleted {} holds of book {}", deleted, bookId);
+        }
+        return deleted;
+    }
+
+    // Hands a copy that was reserved for a hold to the next patron in line, or back to the shelf
+    private void releaseCopy(Book book) {
+        book.setQuantity(book.getQuantity() + 1);
+        allocateCopies(book);
+        book.setAvailable(book.getQuantity() > 0);
+        bookRepository.save(book);
+        eventService.publishBookAvailabilityChange(book);
+    }
+
+    private HoldResponse toResponse(Hold hold) {
+        Integer position = hold.getStatus() == HoldStatus.WAITING
+                ? (int) holdRepository.countWaitingAhead(hold.getBook().getId(), hold.getRequestedAt(), hold.getId()) + 1
+                : null;
+        return new HoldResponse(
+                hold.getId(),
+                hold.getBook().getId(),
+                hold.getBook().getTitle(),
+                hold.getUser().getId(),
+                hold.getUser().getEmail(),
+                hold.getStatus().name(),
+                position,
+                hold.getRequestedAt(),
+                hold.getReadyAt(),
+                hold.getPickupDeadline()
+        );
+    }
+
+    private static boolean isOpenHoldConstraintViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase().contains(Hold.OPEN_HOLD_CONSTRAINT);
+    }
+}
@@ -0,0 +1,541 @@
+package tr.com.eaaslan.library.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.config.CronTask;
+import org.springframework.scheduling.config.ScheduledTask;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tr.com.eaaslan.library.exception.ServiceOverloadedException;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.Workload;
+import tr.com.eaaslan.library.metrics.SqlStatistics;
+import tr.com.eaaslan.library.model.JobCheckpoint;
+import tr.com.eaaslan.library.model.JobRun;
+import tr.com.eaaslan.library.model.JobRunStatus;
+import tr.com.eaaslan.library.model.dto.job.JobRunResponse;
+import tr.com.eaaslan.library.repository.JobCheckpointRepository;
+import tr.com.eaaslan.library.repository.JobLockRepository;
+import tr.com.eaaslan.library.repository.JobRunRepository;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs scheduled jobs once per cluster instead of once per node. Every node still fires the {@code @Scheduled}
+ * trigger, but the work only runs on the node that takes the job's lease in {@code job_locks}; the others skip it.
+ * <p>
+ * A lease lasts {@code lock-at-most-for}, so the lock of a node that dies mid-run frees itself. Chunked jobs renew it
+ * in the transaction of every chunk, so a long run keeps its lease, and a run whose lease was lost anyway stops
+ * without committing another chunk. After a run the
+ * lease is kept for {@code lock-at-least-for} from its start, so that a node whose trigger fires a little later
+ * (clock skew, a long GC pause) does not run the job a second time. Lock times are taken from the node clocks,
+ * which must therefore agree to well within that margin.
+ * <p>
+ * Chunked jobs walk their rows by id (keyset) and process {@code chunk-size} ids per transaction, so a failure
+ * only rolls back the current chunk and no transaction holds row locks for long. The last id of every committed
+ * chunk is stored in {@code job_checkpoints} in the chunk's transaction; a run that starts within
+ * {@code checkpoint-max-age} of an interrupted one continues after its checkpoint instead of starting over. The
+ * max age must be shorter than the period of every cron schedule, so that the run at the next firing starts over
+ * and does not skip the rows the interrupted run had already done for its own firing; this is checked at startup.
+ * <p>
+ * Sharded jobs split an id range into {@code shards} parts, each locked and run on its own, so the nodes share the
+ * work: each starts with a different shard and moves on to the shards nobody has taken. With {@code parallelism}
+ * above 1 a node also runs several shards at once. Every run of a job or shard is recorded in {@code job_runs}
+ * with its duration and the rows it affected.
+ * <p>
+ * A run first waits for a slot in the node's {@link WorkloadBulkhead} and only then takes its lease, so a run that
+ * has to wait never holds a lease another node could use, and a run that gets no slot is left to the other nodes.
+ */
+@Service
+@Slf4j
+public class JobRunner {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JobLockRepository jobLockRepository;
+    private final JobRunRepository jobRunRepository;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    // Job work joins the caller's transaction, if any; lock and history writes always commit on their own
+    private final TransactionTemplate jobTransaction;
+    private final TransactionTemplate lockTransaction;
+    private final LibraryMetrics libraryMetrics;
+    private final WorkloadBulkhead workloadBulkhead;
+    private final Clock clock;
+    private final Duration lockAtMostFor;
+    private final Duration lockAtLeastFor;
+    private final int shards;
+    private final int parallelism;
+    private final int chunkSize;
+    private final Duration checkpointMaxAge;
+    private final Duration historyRetention;
+    private final String nodeId;
+
+    /**
+     * Inclusive range of ids, e.g. the user ids one shard of a job works on.
+     */
+    public record IdRange(long from, long to) {
+
+        // Every id the sequences hand out
+        public static final IdRange ALL = new IdRange(1, Long.MAX_VALUE);
+
+        public IdRange {
+            if (from > to) {
+                throw new IllegalArgumentException("Empty id range " + from + ".." + to);
+            }
+        }
+
+        /**
+         * @return the range between the bounds, or null when there are none, e.g. MIN/MAX over an empty table
+         */
+        public static IdRange of(Long from, Long to) {
+            return from == null || to == null ? null : new IdRange(from, to);
+        }
+
+        /**
+         * @return the range split into at most {@code parts} contiguous ranges of nearly equal width
+         */
+        public List<IdRange> split(int parts) {
+            long width = to - from + 1;
+            long partWidth = Math.ceilDiv(width, parts);
+            List<IdRange> ranges = new ArrayList<>(parts);
+            for (long start = from; start <= to; start += partWidth) {
+                ranges.add(new IdRange(start, Math.min(to, start + partWidth - 1)));
+            }
+            return ranges;
+        }
+    }
+
+    /**
+     * Reads the ids of the next chunk. Runs in the chunk's transaction.
+     */
+    @FunctionalInterface
+    public interface KeysetReader {
+        /**
+         * @return at most {@code limit} ids greater than {@code afterId} and not greater than {@code lastId}, ascending
+         */
+        List<Long> nextIds(long afterId, long lastId, int limit);
+    }
+
+    /**
+     * Processes and writes one chunk. Runs in the chunk's transaction.
+     */
+    @FunctionalInterface
+    public interface ChunkProcessor {
+        /**
+         * @return the number of rows affected
+         */
+        long process(List<Long> ids);
+    }
+
+    private record Lease(String name, LocalDateTime lockedAt) {
+    }
+
+    private record Chunk(long lastId, long rowsAffected) {
+    }
+
+    // Outcome of a run so far; kept when a chunk fails so the run history shows the committed work
+    private static final class Progress {
+        private long rowsAffected;
+        private Long resumedAfterId;
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        // The lease is null for jobs run on every node
+        void run(Lease lease, Progress progress);
+    }
+
+    public JobRunner(JobLockRepository jobLockRepository,
+                     JobRunRepository jobRunRepository,
+                     JobCheckpointRepository jobCheckpointRepository,
+                     PlatformTransactionManager transactionManager,
+                     LibraryMetrics libraryMetrics,
+                     WorkloadBulkhead workloadBulkhead,
+                     Clock clock,
+                     @Value("${app.jobs.lock-at-most-for:PT1H}") Duration lockAtMostFor,
+                     @Value("${app.jobs.lock-at-least-for:PT5M}") Duration lockAtLeastFor,
+                     @Value("${app.jobs.shards:4}") int shards,
+                     @Value("${app.jobs.parallelism:1}") int parallelism,
+                     @Value("${app.jobs.chunk-size:500}") int chunkSize,
+                     @Value("${app.jobs.checkpoint-max-age:PT12H}") Duration checkpointMaxAge,
+                     @Value("${app.jobs.history-retention:P90D}") Duration historyRetention,
+                     @Value("${app.jobs.node-id:}") String nodeId) {
+        if (shards < 1 || parallelism < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("app.jobs.shards, parallelism and chunk-size must be at least 1");
+        }
+        this.jobLockRepository = jobLockRepository;
+        this.jobRunRepository = jobRunRepository;
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.jobTransaction = new TransactionTemplate(transactionManager);
+        this.lockTransaction = new TransactionTemplate(transactionManager);
+        this.lockTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.libraryMetrics = libraryMetrics;
+        this.workloadBulkhead = workloadBulkhead;
+        this.clock = clock;
+        this.lockAtMostFor = lockAtMostFor;
+        this.lockAtLeastFor = lockAtLeastFor;
+        this.shards = shards;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.checkpointMaxAge = checkpointMaxAge;
+        this.historyRetention = historyRetention;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+    }
+
+    /**
+     * Runs the job in one transaction unless another node holds its lease. Meant for single statements;
+     * jobs that loop over rows use {@link #runChunked}.
+     *
+     * @param job returns the number of rows affected
+     * @return whether the job ran on this node
+     */
+    public boolean run(String jobName, LongSupplier job) {
+        return runLocked(jobName, null, null,
+                (lease, progress) -> progress.rowsAffected = jobTransaction.execute(status -> job.getAsLong()));
+    }
+
+    /**
+     * Like {@link #run}, but leaves the transactions to the job, e.g. one that needs its own isolation level.
+     *
+     * @param job returns the number of rows affected
+     * @return whether the job ran on this node
+     */
+    public boolean runWithoutTransaction(String jobName, LongSupplier job) {
+        return runLocked(jobName, null, null, (lease, progress) -> progress.rowsAffected = job.getAsLong());
+    }
+
+    /**
+     * Runs a job that rebuilds state held by this node, e.g. an in-memory index, and therefore has to run on every
+     * node. It takes no lease, but waits for a job slot and is recorded like the other jobs. Transactions are left
+     * to the job.
+     *
+     * @param job returns the number of rows read or affected
+     * @return whether the job ran; false when no job slot was free
+     */
+    public boolean runOnThisNode(String jobName, LongSupplier job) {
+        try {
+            return workloadBulkhead.call(Workload.JOBS, () -> runRecorded(jobName, null, null, jobName, null,
+                    (lease, progress) -> progress.rowsAffected = job.getAsLong()));
+        } catch (ServiceOverloadedException e) {
+            log.warn("Job {} skipped on node {}: {}", jobName, nodeId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Runs the job chunk by chunk over all ids unless another node holds its lease.
+     *
+     * @return whether the job ran on this node
+     */
+    public boolean runChunked(String jobName, KeysetReader reader, ChunkProcessor processor) {
+        return runLocked(jobName, null, null,
+                (lease, progress) -> runChunks(lease, IdRange.ALL, reader, processor, progress));
+    }
+
+    /**
+     * Runs the shards of the job this node can lease, chunk by chunk. A failing shard is recorded and does not
+     * stop the others.
+     *
+     * @param ids the ids to split into shards; null when there is nothing to work on
+     * @return the number of shards run on this node
+     */
+    public int runSharded(String jobName, IdRange ids, KeysetReader reader, ChunkProcessor processor) {
+        if (ids == null) {
+            log.debug("Job {} skipped: nothing to work on", jobName);
+            return 0;
+        }
+
+        List<IdRange> ranges = ids.split(shards);
+        // Nodes start at different shards so that simultaneous triggers spread over the shards
+        int first = Math.floorMod(nodeId.hashCode(), ranges.size());
+        List<BooleanSupplier> tasks = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            int shard = (first + i) % ranges.size();
+            IdRange range = ranges.get(shard);
+            tasks.add(() -> runLocked(jobName, shard, ranges.size(),
+                    (lease, progress) -> runChunks(lease, range, reader, processor, progress)));
+        }
+
+        int ran = 0;
+        if (parallelism == 1) {
+            for (BooleanSupplier task : tasks) {
+                ran += task.getAsBoolean() ? 1 : 0;
+            }
+            return ran;
+        }
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()))) {
+            List<Callable<Boolean>> callables = tasks.stream().<Callable<Boolean>>map(task -> task::getAsBoolean).toList();
+            for (Future<Boolean> result : executor.invokeAll(callables)) {
+                ran += result.get() ? 1 : 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Job " + jobName + " failed", e.getCause());
+        }
+        return ran;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @param jobName only runs of this job; null for all jobs
+     * @return recorded runs, latest first
+     */
+    public Page<JobRunResponse> getRuns(String jobName, int page, int size) {
+        PageRequest pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "startedAt"));
+        Page<JobRun> runs = jobName == null
+                ? jobRunRepository.findAll(pageable)
+                : jobRunRepository.findByJobName(jobName, pageable);
+        return runs.map(run -> new JobRunResponse(
+                run.getId(),
+                run.getJobName(),
+                run.getShard(),
+                run.getShardCount(),
+                run.getNode(),
+                run.getStartedAt(),
+                run.getFinishedAt(),
+                run.getDurationMs(),
+                run.getRowsAffected(),
+                run.getStatus().name(),
+                run.getError(),
+                run.getResumedAfterId()
+        ));
+    }
+
+    /**
+     * Deletes run history older than the retention. Runs daily at 0:30 AM.
+     */
+    @Scheduled(cron = "${app.jobs.history-purge-cron:0 30 0 * * ?}")
+    public void purgeHistory() {
+        run("job-history-purge", () -> jobRunRepository.deleteStartedBefore(now().minus(historyRetention)));
+    }
+
+    /**
+     * Fails the startup when checkpoints outlive a period of one of the node's cron schedules.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void validateCheckpointMaxAge(ApplicationReadyEvent event) {
+        Map<String, ScheduledTaskHolder> holders =
+                event.getApplicationContext().getBeansOfType(ScheduledTaskHolder.class);
+        for (ScheduledTaskHolder holder : holders.values()) {
+            for (ScheduledTask task : holder.getScheduledTasks()) {
+                if (task.getTask() instanceof CronTask cronTask) {
+                    validateCheckpointMaxAge(cronTask.getExpression());
+                }
+            }
+        }
+    }
+
+    void validateCheckpointMaxAge(String cron) {
+        Duration period = shortestPeriod(CronExpression.parse(cron), ZonedDateTime.now(clock));
+        if (period != null && checkpointMaxAge.compareTo(period) >= 0) {
+            throw new IllegalStateException("app.jobs.checkpoint-max-age (" + checkpointMaxAge + ") must be shorter "
+                    + "than " + period + ", the period of the schedule '" + cron + "', or a run would resume the pass "
+                    + "of the previous firing");
+        }
+    }
+
+    // Over a week of firings, so weekday and DST patterns are covered; null if the schedule fires at most once
+    private static Duration shortestPeriod(CronExpression cron, ZonedDateTime from) {
+        ZonedDateTime previous = cron.next(from);
+        ZonedDateTime end = from.plusWeeks(1);
+        Duration shortest = null;
+        while (previous != null && previous.isBefore(end)) {
+            ZonedDateTime next = cron.next(previous);
+            if (next == null) {
+                break;
+            }
+            Duration period = Duration.between(previous, next);
+            if (shortest == null || period.compareTo(shortest) < 0) {
+                shortest = period;
+            }
+            previous = next;
+        }
+        return shortest;
+    }
+
+    private boolean runLocked(String jobName, Integer shard, Integer shardCount, Work work) {
+        String lockName = shard == null ? jobName : jobName + "#" + shard + "/" + shardCount;
+        // The slot comes before the lease: a job waiting for a slot must not keep other nodes from running it, and
+        // its lease must not run out while it waits
+        try {
+            return workloadBulkhead.call(Workload.JOBS, () -> runLeased(jobName, shard, shardCount, lockName, work));
+        } catch (ServiceOverloadedException e) {
+            log.warn("Job {} skipped on node {}: {}", lockName, nodeId, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean runLeased(String jobName, Integer shard, Integer shardCount, String lockName, Work work) {
+        Lease lease = tryLock(lockName);
+        if (lease == null) {
+            log.debug("Job {} skipped: locked by another node", lockName);
+            return false;
+        }
+        return runRecorded(jobName, shard, shardCount, lockName, lease, work);
+    }
+
+    private boolean runRecorded(String jobName, Integer shard, Integer shardCount, String lockName, Lease lease,
+                                Work work) {
+        LocalDateTime startedAt = now();
+        long start = System.nanoTime();
+        Progress progress = new Progress();
+        String error = null;
+        SqlStatistics sql = SqlStatistics.open();
+        try {
+            work.run(lease, progress);
+        } catch (RuntimeException e) {
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            log.error("Job {} failed on node {}", lockName, nodeId, e);
+        } finally {
+            sql.close();
+            if (lease != null) {
+                unlock(lease);
+            }
+        }
+
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        JobRun run = JobRun.builder()
+                .jobName(jobName)
+                .shard(shard)
+                .shardCount(shardCount)
+                .node(nodeId)
+                .startedAt(startedAt)
+                .finishedAt(now())
+                .durationMs(durationMs)
+                .rowsAffected(progress.rowsAffected)
+                .resumedAfterId(progress.resumedAfterId)
+                .status(error == null ? JobRunStatus.SUCCEEDED : JobRunStatus.FAILED)
+                .error(error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH))
+                .build();
+        lockTransaction.executeWithoutResult(status -> jobRunRepository.save(run));
+        libraryMetrics.recordJobRun(jobName, error == null, durationMs, progress.rowsAffected);
+        libraryMetrics.recordJobSql(jobName, sql);
+
+        if (error == null) {
+            log.info("Job {} finished on node {} in {} ms, {} rows affected ({})",
+                    lockName, nodeId, durationMs, progress.rowsAffected, sql);
+        }
+        return true;
+    }
+
+    private void runChunks(Lease lease, IdRange ids, KeysetReader reader, ChunkProcessor processor,
+                           Progress progress) {
+        String lockName = lease.name();
+        LocalDateTime runStartedAt = now();
+        long afterId = ids.from() - 1;
+
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(lockName).orElse(null);
+        if (checkpoint != null && checkpoint.getRunStartedAt().isAfter(runStartedAt.minus(checkpointMaxAge))
+                && checkpoint.getLastId() >= ids.from() && checkpoint.getLastId() < ids.to()) {
+            runStartedAt = checkpoint.getRunStartedAt();
+            afterId = checkpoint.getLastId();
+            progress.resumedAfterId = afterId;
+            log.info("Job {} resumes after id {} from the run started at {}", lockName, afterId, runStartedAt);
+        }
+
+        LocalDateTime checkpointStartedAt = runStartedAt;
+        while (true) {
+            long chunkAfterId = afterId;
+            Chunk chunk = jobTransaction.execute(status -> {
+                renew(lease);
+                List<Long> chunkIds = reader.nextIds(chunkAfterId, ids.to(), chunkSize);
+                if (chunkIds.isEmpty()) {
+                    return null;
+                }
+                long rowsAffected = processor.process(chunkIds);
+                long lastId = chunkIds.getLast();
+                jobCheckpointRepository.save(new JobCheckpoint(lockName, lastId, checkpointStartedAt, now()));
+                return new Chunk(lastId, rowsAffected);
+            });
+            if (chunk == null) {
+                break;
+            }
+            progress.rowsAffected += chunk.rowsAffected();
+            afterId = chunk.lastId();
+        }
+
+        // The pass is complete; the next run starts over
+        lockTransaction.executeWithoutResult(status -> jobCheckpointRepository.deleteByName(lockName));
+    }
+
+    // Inserting the row takes a lock that never existed; the conditional update takes over an expired one
+    private Lease tryLock(String name) {
+        LocalDateTime now = now();
+        LocalDateTime lockedUntil = now.plus(lockAtMostFor);
+        try {
+            lockTransaction.executeWithoutResult(status -> jobLockRepository.insertLock(name, lockedUntil, now, nodeId));
+            return new Lease(name, now);
+        } catch (DataIntegrityViolationException e) {
+            // The lock row exists
+        }
+        Integer updated = lockTransaction.execute(status -> jobLockRepository.acquireExpired(name, lockedUntil, now, nodeId));
+        return updated != null && updated == 1 ? new Lease(name, now) : null;
+    }
+
+    // Extends the lease by lock-at-most-for in the caller's transaction; fails when the lease ran out and another
+    // node took the job over, so that the transaction rolls back
+    private void renew(Lease lease) {
+        if (jobLockRepository.renew(lease.name(), now().plus(lockAtMostFor), nodeId, lease.lockedAt()) != 1) {
+            throw new IllegalStateException("Job " + lease.name() + " lost its lease to another node");
+        }
+    }
+
+    private void unlock(Lease lease) {
+        LocalDateTime now = now();
+        LocalDateTime keepUntil = lease.lockedAt().plus(lockAtLeastFor);
+        LocalDateTime lockedUntil = keepUntil.isAfter(now) ? keepUntil : now;
+        try {
+            lockTransaction.executeWithoutResult(status ->
+                    jobLockRepository.release(lease.name(), lockedUntil, nodeId, lease.lockedAt()));
+        } catch (RuntimeException e) {
+            // The lease still expires after lock-at-most-for
+            log.warn("Could not release job lock {}", lease.name(), e);
+        }
+    }
+
+    // Truncated to what TIMESTAMP(6) stores, so that lockedAt compares equal after the round trip
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown-host";
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
+}
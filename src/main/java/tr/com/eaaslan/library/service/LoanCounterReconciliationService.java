@@ -0,0 +1,116 @@
+package tr.com.eaaslan.library.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tr.com.eaaslan.library.model.BorrowingStatus;
+import tr.com.eaaslan.library.repository.BorrowingRepository;
+import tr.com.eaaslan.library.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Verifies the denormalized loan counters on {@code User} against the borrowing table and repairs any drift,
+ * e.g. from rows written outside the services or from manual database fixes.
+ * <p>
+ * Drift is first found without locks. The drifted users are then row-locked and recounted before their
+ * counters are set: a checkout or return changes the loan and the counter in one transaction, so a count
+ * taken under the lock cannot miss a change the repair would overwrite.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoanCounterReconciliationService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final UserRepository userRepository;
+    private final BorrowingRepository borrowingRepository;
+    private final JobRunner jobRunner;
+
+    /**
+     * Runs the reconciliation on one node through the {@link JobRunner}.
+     * Runs daily at 4:00 AM, after the penalty and archival jobs.
+     */
+    @Scheduled(cron = "${app.borrowing.loan-counter-reconciliation.cron:0 0 4 * * ?}")
+    public void runLoanCounterReconciliation() {
+        jobRunner.run("loan-counter-reconciliation", this::reconcileLoanCounters);
+    }
+
+    /**
+     * Recompute loan counters and fix the users whose stored values differ.
+     *
+     * @return the number of users whose counters were repaired
+     */
+    @Transactional
+    public int reconcileLoanCounters() {
+        log.info("Reconciling user loan counters");
+
+        Map<Long, int[]> actual = unreturnedCounts(borrowingRepository.countUnreturnedByUserAndStatus());
+        Map<Long, int[]> stored = loanCounts(userRepository.findNonZeroLoanCounts());
+
+        Set<Long> candidates = new HashSet<>(actual.keySet());
+        candidates.addAll(stored.keySet());
+        candidates.removeIf(userId -> Arrays.equals(
+                actual.getOrDefault(userId, new int[2]), stored.getOrDefault(userId, new int[2])));
+
+        int repaired = 0;
+        List<Long> userIds = new ArrayList<>(candidates);
+        for (int from = 0; from < userIds.size(); from += BATCH_SIZE) {
+            List<Long> batch = userIds.subList(from, Math.min(from + BATCH_SIZE, userIds.size()));
+            repaired += repair(batch);
+        }
+
+        log.info("Loan counter reconciliation complete: {} users repaired", repaired);
+        return repaired;
+    }
+
+    private int repair(List<Long> userIds) {
+        Map<Long, int[]> locked = loanCounts(userRepository.lockLoanCounts(userIds));
+        Map<Long, int[]> actual = unreturnedCounts(borrowingRepository.countUnreturnedByUserAndStatusForUsers(userIds));
+
+        int repaired = 0;
+        for (Map.Entry<Long, int[]> entry : locked.entrySet()) {
+            Long userId = entry.getKey();
+            int[] current = entry.getValue();
+            int[] expected = actual.getOrDefault(userId, new int[2]);
+            // Equal again if a concurrent checkout or return settled the drift before the lock
+            if (!Arrays.equals(expected, current)) {
+                log.warn("Loan counter drift for user {}: stored active={} overdue={}, actual active={} overdue={}",
+                        userId, current[0], current[1], expected[0], expected[1]);
+                userRepository.setLoanCounts(userId, expected[0], expected[1]);
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    // [userId, status, count] rows as userId -> {active, overdue}
+    private static Map<Long, int[]> unreturnedCounts(List<Object[]> rows) {
+        Map<Long, int[]> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            int[] userCounts = counts.computeIfAbsent(((Number) row[0]).longValue(), id -> new int[2]);
+            int index = row[1] == BorrowingStatus.ACTIVE ? 0 : 1;
+            userCounts[index] = ((Number) row[2]).intValue();
+        }
+        return counts;
+    }
+
+    // [userId, active, overdue] rows as userId -> {active, overdue}
+    private static Map<Long, int[]> loanCounts(List<Object[]> rows) {
+        Map<Long, int[]> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(((Number) row[0]).longValue(),
+                    new int[]{((Number) row[1]).intValue(), ((Number) row[2]).intValue()});
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,119 @@
+package tr.com.eaaslan.library.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tr.com.eaaslan.library.model.BorrowingStatus;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingArchiveRepository;
+import tr.com.eaaslan.library.repository.BorrowingRepository;
+import tr.com.eaaslan.library.repository.UserRepository;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Releases the loans of users who are being offboarded. Every step is one set-based statement, so the
+ * number of round trips stays the same whether one user with a single loan or a batch of users with
+ * hundreds of loans is processed.
+ * <p>
+ * The statements bypass the persistence context: callers must not hold managed {@code Borrowing} or
+ * {@code Book} instances of the affected users, or those instances will be stale afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoanReleaseService {
+
+    private final BorrowingRepository borrowingRepository;
+    private final BookRepository bookRepository;
+    private final BorrowingArchiveRepository borrowingArchiveRepository;
+    private final UserRepository userRepository;
+    private final BookAvailabilityEventService eventService;
+    private final LoanStatisticsService loanStatisticsService;
+    private final Clock clock;
+
+    /**
+     * Closes all ACTIVE and OVERDUE loans of the given users as returned today (OVERDUE ones as returned
+     * late), puts the copies back on the shelf and resets the users' loan counters.
+     *
+     * @return the number of loans closed
+     */
+    @Transactional
+    public int releaseUnreturnedLoans(Collection<Long> userIds, String actor) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> openLoans = borrowingRepository.countUnreturnedByBookAndStatusForUsers(userIds);
+        if (openLoans.isEmpty()) {
+            return 0;
+        }
+
+        LocalDate today = LocalDate.now(clock);
+        List<Long> bookIds = restockUnreturnedCopies(openLoans, userIds, actor);
+        int closed = borrowingRepository.closeUnreturnedByUserIds(
+                userIds, BorrowingStatus.RETURNED, today, LocalDateTime.now(clock), actor);
+        userRepository.resetLoanCounts(userIds);
+        publishAvailability(bookIds);
+        forEachLoan(openLoans, (bookId, overdue) -> loanStatisticsService.recordReturn(bookId, today, overdue, overdue));
+
+        log.info("Released {} unreturned loans of {} users across {} books", closed, userIds.size(), bookIds.size());
+        return closed;
+    }
+
+    /**
+     * Deletes every loan of the given users, live and archived, after putting the copies of the unreturned
+     * ones back on the shelf.
+     *
+     * @return the number of live loans deleted
+     */
+    @Transactional
+    public int deleteAllLoans(Collection<Long> userIds, String actor) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> openLoans = borrowingRepository.countUnreturnedByBookAndStatusForUsers(userIds);
+        List<Long> bookIds = restockUnreturnedCopies(openLoans, userIds, actor);
+        int deleted = borrowingRepository.deleteAllByUserIdIn(userIds);
+        // Archived loans hold only returned books, so they are removed without touching quantities
+        int archived = borrowingArchiveRepository.deleteByUserIdIn(userIds);
+        publishAvailability(bookIds);
+        forEachLoan(openLoans, loanStatisticsService::recordDeletedLoan);
+
+        log.info("Deleted {} live and {} archived loans of {} users", deleted, archived, userIds.size());
+        return deleted;
+    }
+
+    private List<Long> restockUnreturnedCopies(List<Object[]> openLoans, Collection<Long> userIds, String actor) {
+        List<Long> bookIds = openLoans.stream().map(row -> (Long) row[0]).distinct().toList();
+        if (!bookIds.isEmpty()) {
+            bookRepository.restockUnreturnedCopies(bookIds, userIds, LocalDateTime.now(clock), actor);
+        }
+        return bookIds;
+    }
+
+    // Calls the action once per loan in the [bookId, status, count] rows
+    private static void forEachLoan(List<Object[]> openLoans, BiConsumer<Long, Boolean> action) {
+        for (Object[] row : openLoans) {
+            boolean overdue = row[1] == BorrowingStatus.OVERDUE;
+            long count = ((Number) row[2]).longValue();
+            for (long i = 0; i < count; i++) {
+                action.accept((Long) row[0], overdue);
+            }
+        }
+    }
+
+    // One event per affected book, however many of its copies came back
+    private void publishAvailability(List<Long> bookIds) {
+        if (!bookIds.isEmpty()) {
+            bookRepository.findAllById(bookIds).forEach(eventService::publishBookAvailabilityChange);
+        }
+    }
+}
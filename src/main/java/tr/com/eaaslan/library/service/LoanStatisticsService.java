@@ -0,0 +1,258 @@
+package tr.com.eaaslan.library.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tr.com.eaaslan.library.model.BookLoanStatistics;
+import tr.com.eaaslan.library.model.DailyLoanStatistics;
+import tr.com.eaaslan.library.repository.BookLoanStatisticsRepository;
+import tr.com.eaaslan.library.repository.DailyLoanStatisticsRepository;
+import tr.com.eaaslan.library.util.CommitFence;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains the loan statistics aggregates. Borrow, return and overdue transitions are recorded as in-memory
+ * deltas once their transaction commits and written out every few seconds with one UPDATE per touched day and
+ * book, so checkouts never contend on the aggregate rows. A nightly rebuild recomputes both tables from the
+ * live and archived loans, correcting whatever drift the deltas accumulated (e.g. deltas lost in a crash or
+ * loans changed outside the services).
+ * <p>
+ * The rebuild closes a {@link CommitFence} while it discards the pending deltas and takes its snapshot, so a
+ * loan committing meanwhile is counted either by the snapshot or by its delta, never by both. The rebuild runs on
+ * one node through the {@link JobRunner}, and the fence only covers that node's deltas: deltas another node has not
+ * flushed yet when the snapshot is taken, at most one flush interval of loans, are counted twice until the next
+ * rebuild.
+ */
+@Service
+@Slf4j
+public class LoanStatisticsService {
+
+    private static final int LOANS = 0;
+    private static final int RETURNS = 1;
+    private static final int LATE_RETURNS = 2;
+    private static final int OPEN_LOANS = 1;
+    private static final int OVERDUE_LOANS = 2;
+
+    // How long a rebuild waits for in-flight loan transactions before giving up; checkouts queue meanwhile
+    private static final Duration FENCE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final DailyLoanStatisticsRepository dailyRepository;
+    private final BookLoanStatisticsRepository bookRepository;
+    private final JobRunner jobRunner;
+    private final TransactionTemplate transactionTemplate;
+    // Repeatable read, so every statement of the rebuild sees the snapshot its first one took
+    private final TransactionTemplate rebuildTransaction;
+    private final CommitFence commitFence = new CommitFence();
+
+    // Guarded by this; swapped out as a whole when flushed
+    private Map<LocalDate, long[]> dailyDeltas = new HashMap<>();
+    private Map<Long, long[]> bookDeltas = new HashMap<>();
+
+    // Serializes flushes and rebuilds without blocking the recording of new deltas
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+    public LoanStatisticsService(DailyLoanStatisticsRepository dailyRepository,
+                                 BookLoanStatisticsRepository bookRepository,
+                                 JobRunner jobRunner,
+                                 PlatformTransactionManager transactionManager) {
+        this.dailyRepository = dailyRepository;
+        this.bookRepository = bookRepository;
+        this.jobRunner = jobRunner;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        this.rebuildTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public void recordBorrow(Long bookId, LocalDate borrowDate) {
+        commitFence.afterCommit(() -> {
+            synchronized (this) {
+                dailyDelta(borrowDate)[LOANS]++;
+                long[] book = bookDelta(bookId);
+                book[LOANS]++;
+                book[OPEN_LOANS]++;
+            }
+        });
+    }
+
+    public void recordReturn(Long bookId, LocalDate returnDate, boolean wasOverdue, boolean returnedLate) {
+        commitFence.afterCommit(() -> {
+            synchronized (this) {
+                long[] day = dailyDelta(returnDate);
+                day[RETURNS]++;
+                if (returnedLate) {
+                    day[LATE_RETURNS]++;
+                }
+                long[] book = bookDelta(bookId);
+                book[OPEN_LOANS]--;
+                if (wasOverdue) {
+                    book[OVERDUE_LOANS]--;
+                }
+            }
+        });
+    }
+
+    public void recordOverdue(Long bookId) {
+        commitFence.afterCommit(() -> {
+            synchronized (this) {
+                bookDelta(bookId)[OVERDUE_LOANS]++;
+            }
+        });
+    }
+
+    /**
+     * Records an unreturned loan that was deleted outright, e.g. with its user. The loan also disappears from
+     * the daily history, which only the nightly rebuild corrects.
+     */
+    public void recordDeletedLoan(Long bookId, boolean wasOverdue) {
+        commitFence.afterCommit(() -> {
+            synchronized (this) {
+                long[] book = bookDelta(bookId);
+                book[LOANS]--;
+                book[OPEN_LOANS]--;
+                if (wasOverdue) {
+                    book[OVERDUE_LOANS]--;
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the pending deltas in one transaction. If that fails they are merged back and retried on the
+     * next run.
+     */
+    @Scheduled(fixedDelayString = "${app.statistics.flush-interval:PT10S}")
+    public void flush() {
+        maintenanceLock.lock();
+        try {
+            Map<LocalDate, long[]> daily;
+            Map<Long, long[]> books;
+            synchronized (this) {
+                if (dailyDeltas.isEmpty() && bookDeltas.isEmpty()) {
+                    return;
+                }
+                daily = dailyDeltas;
+                books = bookDeltas;
+                dailyDeltas = new HashMap<>();
+                bookDeltas = new HashMap<>();
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    daily.forEach(this::applyDailyDelta);
+                    books.forEach(this::applyBookDelta);
+                });
+                log.debug("Flushed loan statistics for {} days and {} books", daily.size(), books.size());
+            } catch (RuntimeException e) {
+                log.warn("Flushing loan statistics failed, will retry: {}", e.getMessage());
+                synchronized (this) {
+                    daily.forEach((date, delta) -> add(dailyDelta(date), delta));
+                    books.forEach((bookId, delta) -> add(bookDelta(bookId), delta));
+                }
+            }
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Runs the rebuild on one node through the {@link JobRunner}.
+     * Runs daily at 4:30 AM, after the archival and counter reconciliation jobs, and on demand from the
+     * statistics endpoint.
+     */
+    @Scheduled(cron = "${app.statistics.rebuild-cron:0 30 4 * * ?}")
+    public void runRebuild() {
+        jobRunner.runWithoutTransaction("loan-statistics-rebuild", this::rebuild);
+    }
+
+    /**
+     * Recompute both aggregate tables from the loans. The pending deltas are discarded once the rebuild
+     * commits: the commit fence guarantees their loans committed before the snapshot was taken. Deltas of
+     * loans committed after it are kept for the next flush. If the rebuild fails the discarded deltas are
+     * merged back.
+     *
+     * @return the number of aggregate rows written
+     */
+    public int rebuild() {
+        maintenanceLock.lock();
+        try {
+            if (!commitFence.close(FENCE_TIMEOUT)) {
+                throw new IllegalStateException("Loan transactions did not complete within " + FENCE_TIMEOUT);
+            }
+
+            try {
+                log.info("Rebuilding loan statistics");
+                Map<LocalDate, long[]> daily;
+                Map<Long, long[]> books;
+                synchronized (this) {
+                    daily = dailyDeltas;
+                    books = bookDeltas;
+                    dailyDeltas = new HashMap<>();
+                    bookDeltas = new HashMap<>();
+                }
+
+                try {
+                    return rebuildTransaction.execute(status -> {
+                        dailyRepository.deleteAllStatistics();
+                        // The first statement took the snapshot; loans committing from here on keep their deltas
+                        commitFence.open();
+                        bookRepository.deleteAllStatistics();
+                        int days = dailyRepository.rebuildFromLoans();
+                        int rebuiltBooks = bookRepository.rebuildFromLoans();
+                        log.info("Loan statistics rebuilt: {} days, {} books", days, rebuiltBooks);
+                        return days + rebuiltBooks;
+                    });
+                } catch (RuntimeException e) {
+                    synchronized (this) {
+                        daily.forEach((date, delta) -> add(dailyDelta(date), delta));
+                        books.forEach((bookId, delta) -> add(bookDelta(bookId), delta));
+                    }
+                    throw e;
+                }
+            } finally {
+                commitFence.open();
+            }
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    private void applyDailyDelta(LocalDate date, long[] delta) {
+        if (dailyRepository.addDeltas(date, delta[LOANS], delta[RETURNS], delta[LATE_RETURNS]) == 0) {
+            dailyRepository.save(new DailyLoanStatistics(date, delta[LOANS], delta[RETURNS], delta[LATE_RETURNS]));
+        }
+    }
+
+    private void applyBookDelta(Long bookId, long[] delta) {
+        if (bookRepository.addDeltas(bookId, delta[LOANS], delta[OPEN_LOANS], delta[OVERDUE_LOANS]) == 0) {
+            bookRepository.save(new BookLoanStatistics(bookId, delta[LOANS], delta[OPEN_LOANS], delta[OVERDUE_LOANS]));
+        }
+    }
+
+    private long[] dailyDelta(LocalDate date) {
+        return dailyDeltas.computeIfAbsent(date, d -> new long[3]);
+    }
+
+    private long[] bookDelta(Long bookId) {
+        return bookDeltas.computeIfAbsent(bookId, id -> new long[3]);
+    }
+
+    private static void add(long[] target, long[] delta) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += delta[i];
+        }
+    }
+}
@@ -2,84 +2,120 @@ package tr.com.eaaslan.library.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import tr.com.eaaslan.library.model.User;
 import tr.com.eaaslan.library.model.UserStatus;
 import tr.com.eaaslan.library.repository.BorrowingRepository;
 import tr.com.eaaslan.library.repository.UserRepository;
+import tr.com.eaaslan.library.service.JobRunner.IdRange;
 
+import java.time.Clock;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Nightly suspension and reinstatement of patrons. Both jobs go through the {@link JobRunner}, so each runs
+ * on one node of the cluster in chunks of users; the late return check is also sharded by user id.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PenaltyService {
 
+    private static final int LATE_RETURNS_FOR_SUSPENSION = 3;
+
     private final UserRepository userRepository;
     private final BorrowingRepository borrowingRepository;
+    private final JobRunner jobRunner;
+    private final Clock clock;
 
     /**
-     * Check for users with 3+ late returns in the last month and apply suspensions.
      * Runs daily at 1:00 AM.
      */
     @Scheduled(cron = "0 0 1 * * ?")
-    @Transactional
-    public void applyLatePenalties() {
-        log.info("Running late penalties check");
-        LocalDate now = LocalDate.now();
-        LocalDate oneMonthAgo = now.minusDays(30);
-
-        // Check active users for late returns
-        List<User> activeUsers = userRepository.findAllByStatus(UserStatus.ACTIVE);
-        int suspendedCount = 0;
+    public void runLatePenalties() {
+        jobRunner.runSharded("late-penalties",
+                IdRange.of(userRepository.findMinId(), userRepository.findMaxId()),
+                (afterId, lastId, limit) -> userRepository.findIdsByStatusInRange(
+                        UserStatus.ACTIVE, afterId, lastId, PageRequest.of(0, limit)),
+                this::applyLatePenalties);
+    }
 
-        for (User user : activeUsers) {
-            // Count late returns in the last month
-            long lateReturnsCount = borrowingRepository.countByUserIdAndReturnedLateAndReturnDateBetween(
-                    user.getId(), true, oneMonthAgo, now);
+    /**
+     * Runs daily at 2:00 AM.
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void runSuspensionExpirations() {
+        LocalDate today = LocalDate.now(clock);
+        jobRunner.runChunked("suspension-expirations",
+                (afterId, lastId, limit) -> userRepository.findIdsByStatusAndSuspensionEndDateBefore(
+                        UserStatus.SUSPENDED, today, afterId, lastId, PageRequest.of(0, limit)),
+                this::checkSuspensionExpirations);
+    }
 
-            if (lateReturnsCount >= 3) {
-                // Apply suspension for 2 weeks
-                user.setStatus(UserStatus.SUSPENDED);
-                user.setSuspensionEndDate(now.plusDays(14));
-                userRepository.save(user);
+    /**
+     * Check the given users for 3+ late returns in the last month and apply suspensions.
+     * Must run in a transaction.
+     *
+     * @return the number of users suspended
+     */
+    public int applyLatePenalties(List<Long> userIds) {
+        LocalDate now = LocalDate.now(clock);
+        LocalDate oneMonthAgo = now.minusDays(30);
 
-                log.info("User suspended for 2 weeks due to excessive late returns: {}", user.getEmail());
-                suspendedCount++;
+        List<Long> lateUserIds = borrowingRepository.findUserIdsWithLateReturnsBetween(
+                userIds, oneMonthAgo, now, LATE_RETURNS_FOR_SUSPENSION);
+        if (lateUserIds.isEmpty()) {
+            return 0;
+        }
 
-                // todo send notification
-                // notificationService.sendSuspensionNotification(user, "late returns", 14);
+        List<User> suspendedUsers = new ArrayList<>();
+        for (User user : userRepository.findAllById(lateUserIds)) {
+            if (user.getStatus() != UserStatus.ACTIVE) {
+                continue;
             }
+            // Apply suspension for 2 weeks
+            user.setStatus(UserStatus.SUSPENDED);
+            user.setSuspensionEndDate(now.plusDays(14));
+            suspendedUsers.add(user);
+
+            log.info("User suspended for 2 weeks due to excessive late returns: {}", user.getEmail());
+
+            // todo send notification
+            // notificationService.sendSuspensionNotification(user, "late returns", 14);
         }
+        userRepository.saveAll(suspendedUsers);
 
-        log.info("Late penalty check complete: {} users suspended", suspendedCount);
+        return suspendedUsers.size();
     }
 
     /**
-     * Check for expired suspensions and restore user status.
-     * Runs daily at 2:00 AM.
+     * Restore the given users whose suspension has expired.
+     * Must run in a transaction.
+     *
+     * @return the number of users restored
      */
-    @Scheduled(cron = "0 0 2 * * ?")
-    @Transactional
-    public void checkSuspensionExpirations() {
-        log.info("Checking for expired suspensions");
-        LocalDate today = LocalDate.now();
-
-        List<User> suspendedUsers = userRepository.findByStatusAndSuspensionEndDateBefore(
-                UserStatus.SUSPENDED, today);
-
-        for (User user : suspendedUsers) {
+    public int checkSuspensionExpirations(List<Long> userIds) {
+        LocalDate today = LocalDate.now(clock);
+
+        List<User> restoredUsers = new ArrayList<>();
+        for (User user : userRepository.findAllById(userIds)) {
+            if (user.getStatus() != UserStatus.SUSPENDED || user.getSuspensionEndDate() == null
+                    || !user.getSuspensionEndDate().isBefore(today)) {
+                continue;
+            }
             user.setStatus(UserStatus.ACTIVE);
             user.setSuspensionEndDate(null);
-            userRepository.save(user);
+            restoredUsers.add(user);
 
             log.info("User suspension expired, status restored to ACTIVE: {}", user.getEmail());
             // notificationService.sendStatusRestorationNotification(user);
         }
+        userRepository.saveAll(restoredUsers);
 
-        log.info("Suspension expiration check complete: {} users restored", suspendedUsers.size());
+        return restoredUsers.size();
     }
-}
\ No newline at end of file
+}
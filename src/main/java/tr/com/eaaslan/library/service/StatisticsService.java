@@ -0,0 +1,104 @@
+package tr.com.eaaslan.library.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tr.com.eaaslan.library.exception.BusinessRuleException;
+import tr.com.eaaslan.library.model.DailyLoanStatistics;
+import tr.com.eaaslan.library.model.Genre;
+import tr.com.eaaslan.library.model.dto.stats.*;
+import tr.com.eaaslan.library.repository.BookLoanStatisticsRepository;
+import tr.com.eaaslan.library.repository.DailyLoanStatisticsRepository;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Read side of the library statistics. Every query reads the aggregates maintained by
+ * {@link LoanStatisticsService}, so the figures can lag the borrowing table by one flush interval.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class StatisticsService {
+
+    static final int MAX_LIMIT = 100;
+    static final int MAX_RANGE_DAYS = 366;
+
+    private final DailyLoanStatisticsRepository dailyRepository;
+    private final BookLoanStatisticsRepository bookRepository;
+    private final Clock clock;
+
+    public List<DailyLoanStatsResponse> getDailyLoans(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BusinessRuleException("Start date must not be after end date");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new BusinessRuleException("Date range cannot exceed " + MAX_RANGE_DAYS + " days");
+        }
+        return dailyRepository.findByStatDateBetweenOrderByStatDate(from, to).stream()
+                .map(d -> new DailyLoanStatsResponse(d.getStatDate(), d.getLoanCount(), d.getReturnCount(),
+                        d.getLateReturnCount()))
+                .toList();
+    }
+
+    public List<TopBookResponse> getTopBooks(int limit) {
+        return bookRepository.findTopBooks(PageRequest.of(0, checkLimit(limit)));
+    }
+
+    public List<TopAuthorResponse> getTopAuthors(int limit) {
+        return bookRepository.findTopAuthors(PageRequest.of(0, checkLimit(limit)));
+    }
+
+    // Genres ordered by all-time loans, most borrowed first
+    public List<GenreStatsResponse> getGenreStatistics() {
+        return bookRepository.sumByGenre().stream()
+                .map(row -> genreStats(((Genre) row[0]).name(), toLong(row[1]), toLong(row[2]), toLong(row[3]),
+                        toLong(row[4])))
+                .sorted(Comparator.comparingLong(GenreStatsResponse::totalLoans).reversed())
+                .toList();
+    }
+
+    public StatisticsSummaryResponse getSummary() {
+        List<GenreStatsResponse> genres = getGenreStatistics();
+        long totalLoans = genres.stream().mapToLong(GenreStatsResponse::totalLoans).sum();
+        long openLoans = genres.stream().mapToLong(GenreStatsResponse::openLoans).sum();
+        long overdueLoans = genres.stream().mapToLong(GenreStatsResponse::overdueLoans).sum();
+        long copiesOnShelf = genres.stream().mapToLong(GenreStatsResponse::copiesOnShelf).sum();
+
+        LocalDate today = LocalDate.now(clock);
+        List<DailyLoanStatistics> lastMonth = dailyRepository.findByStatDateBetweenOrderByStatDate(today.minusDays(29), today);
+        long loans = lastMonth.stream().mapToLong(DailyLoanStatistics::getLoanCount).sum();
+        long returns = lastMonth.stream().mapToLong(DailyLoanStatistics::getReturnCount).sum();
+        long lateReturns = lastMonth.stream().mapToLong(DailyLoanStatistics::getLateReturnCount).sum();
+
+        return new StatisticsSummaryResponse(totalLoans, openLoans, overdueLoans,
+                ratio(overdueLoans, openLoans), ratio(openLoans, openLoans + copiesOnShelf),
+                loans, returns, ratio(lateReturns, returns));
+    }
+
+    private static GenreStatsResponse genreStats(String genre, long copiesOnShelf, long openLoans,
+                                                 long overdueLoans, long totalLoans) {
+        return new GenreStatsResponse(genre, totalLoans, openLoans, overdueLoans, copiesOnShelf,
+                ratio(openLoans, openLoans + copiesOnShelf), ratio(overdueLoans, openLoans));
+    }
+
+    private static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BusinessRuleException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    private static double ratio(long part, long whole) {
+        return whole == 0 ? 0.0 : (double) part / whole;
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,87 @@
+package tr.com.eaaslan.library.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tr.com.eaaslan.library.exception.BusinessRuleException;
+import tr.com.eaaslan.library.model.UserStatus;
+import tr.com.eaaslan.library.model.dto.user.UserBulkStatusRequest;
+import tr.com.eaaslan.library.model.dto.user.UserBulkStatusResponse;
+import tr.com.eaaslan.library.repository.UserRepository;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Changes the status of many users at once, e.g. activating the PENDING patrons registered for a new semester.
+ * Users are processed in chunks, each chunk being one UPDATE in its own transaction, so a large batch neither
+ * loads the users nor holds row locks for the whole run.
+ * <p>
+ * Principals are rebuilt from the database on every request by the JWT filter, so there is no principal cache
+ * to invalidate: affected users see the new status from their next request on. The bulk UPDATE also
+ * invalidates any second-level cache region of {@code User}.
+ */
+@Service
+@Slf4j
+public class UserBulkStatusService {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int chunkSize;
+
+    public UserBulkStatusService(UserRepository userRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 Clock clock,
+                                 @Value("${app.user.bulk.chunk-size:1000}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.chunkSize = chunkSize;
+    }
+
+    public UserBulkStatusResponse updateStatus(UserBulkStatusRequest request, String actor) {
+        // Deleting releases loans and must go through UserService.deleteUser
+        if (request.targetStatus() == UserStatus.DELETED) {
+            throw new BusinessRuleException("Users cannot be deleted through a bulk status change");
+        }
+
+        UserStatus target = request.targetStatus();
+        int selected = 0;
+        int updated = 0;
+        int chunks = 0;
+
+        if (request.selectsByIds()) {
+            List<Long> ids = request.userIds().stream().distinct().toList();
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                selected += (int) userRepository.countNotDeletedByIdIn(chunk);
+                updated += updateChunk(chunk, target, actor);
+                chunks++;
+            }
+        } else {
+            long afterId = 0L;
+            List<Long> chunk;
+            while (!(chunk = userRepository.findIdsForStatusChange(
+                    request.role(), request.currentStatus(), afterId, PageRequest.of(0, chunkSize))).isEmpty()) {
+                selected += chunk.size();
+                updated += updateChunk(chunk, target, actor);
+                chunks++;
+                afterId = chunk.getLast();
+            }
+        }
+
+        log.info("Bulk status change to {} by {}: {} selected, {} updated in {} chunks",
+                target, actor, selected, updated, chunks);
+        return new UserBulkStatusResponse(target.name(), selected, updated, selected - updated, chunks);
+    }
+
+    private int updateChunk(List<Long> ids, UserStatus target, String actor) {
+        Integer updated = transactionTemplate.execute(status ->
+                userRepository.updateStatusByIdIn(ids, target, LocalDateTime.now(clock), actor));
+        return updated != null ? updated : 0;
+    }
+}
@@ -14,11 +14,9 @@ import tr.com.eaaslan.library.exception.ResourceNotFoundException;
 import tr.com.eaaslan.library.model.*;
 import tr.com.eaaslan.library.model.dto.user.*;
 import tr.com.eaaslan.library.model.mapper.UserMapper;
-import tr.com.eaaslan.library.repository.BookRepository;
-import tr.com.eaaslan.library.repository.BorrowingRepository;
 import tr.com.eaaslan.library.repository.UserRepository;
 
-import java.time.LocalDate;
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -28,15 +26,18 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
-    private final BorrowingRepository borrowingRepository;
-    private final BookRepository bookRepository;
+    private final LoanReleaseService loanReleaseService;
+    private final HoldService holdService;
+    private final Clock clock;
 
-    public UserServiceImpl(UserRepository userRepository, UserMapper userMapper, PasswordEncoder passwordEncoder, BorrowingRepository borrowingRepository, BookRepository bookRepository) {
+    public UserServiceImpl(UserRepository userRepository, UserMapper userMapper, PasswordEncoder passwordEncoder,
+                           LoanReleaseService loanReleaseService, HoldService holdService, Clock clock) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
         this.passwordEncoder = passwordEncoder;
-        this.borrowingRepository = borrowingRepository;
-        this.bookRepository = bookRepository;
+        this.loanReleaseService = loanReleaseService;
+        this.holdService = holdService;
+        this.clock = clock;
     }
 
     @Override
@@ -132,7 +133,7 @@ public class UserServiceImpl implements UserService {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String currentUserEmail = auth.getName();
         user.setUpdatedBy(currentUserEmail);
-        user.setUpdatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now(clock));
 
         userMapper.updateEntity(userUpdateRequest, user);
         userRepository.save(user);
@@ -144,60 +145,17 @@ public class UserServiceImpl implements UserService {
     public UserResponse deleteUser(Long id, String userName) {
         User user = userRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("User", "ID", id));
 
-        List<Borrowing> activeBorrowings = borrowingRepository.findByUserIdAndStatus(user.getId(), BorrowingStatus.ACTIVE);
-        List<Borrowing> overdueBorrowings = borrowingRepository.findByUserIdAndStatus(user.getId(), BorrowingStatus.OVERDUE);
-
-        if (!activeBorrowings.isEmpty()) {
-            processActiveBorrowingsForDeletedUser(activeBorrowings);
-        }
-
-        if (!overdueBorrowings.isEmpty()) {
-            processOverdueBorrowingsForDeletedUser(overdueBorrowings);
-        }
+        loanReleaseService.releaseUnreturnedLoans(List.of(user.getId()), userName);
 
         user.setStatus(UserStatus.DELETED);
         user.setDeleted(true);
-        user.setDeletedAt(LocalDateTime.now());
+        user.setDeletedAt(LocalDateTime.now(clock));
         user.setDeletedBy(userName);
 
         userRepository.save(user);
         return userMapper.toResponse(user);
     }
 
-    private void processActiveBorrowingsForDeletedUser(List<Borrowing> activeBorrowings) {
-        for (Borrowing borrowing : activeBorrowings) {
-            borrowing.setStatus(BorrowingStatus.RETURNED);
-            borrowing.setReturnDate(LocalDate.now());
-            borrowing.setReturnedLate(false); // Active borrowings are not late
-            borrowingRepository.save(borrowing);
-
-            Book book = borrowing.getBook();
-            book.setQuantity(book.getQuantity() + 1);
-            if (!book.isAvailable()) {
-                book.setAvailable(true);
-            }
-            bookRepository.save(book);
-        }
-        borrowingRepository.saveAll(activeBorrowings);
-    }
-
-    private void processOverdueBorrowingsForDeletedUser(List<Borrowing> overdueBorrowings) {
-        for (Borrowing borrowing : overdueBorrowings) {
-            borrowing.setStatus(BorrowingStatus.RETURNED);
-            borrowing.setReturnDate(LocalDate.now());
-            borrowing.setReturnedLate(true); // Overdue borrowings are returned late
-            borrowingRepository.save(borrowing);
-
-            Book book = borrowing.getBook();
-            book.setQuantity(book.getQuantity() + 1);
-            if (!book.isAvailable()) {
-                book.setAvailable(true);
-            }
-            bookRepository.save(book);
-        }
-        borrowingRepository.saveAll(overdueBorrowings);
-    }
-
     @Override
     @Transactional
     public UserUpdateResponse updateUserStatus(Long id, String status) {
@@ -206,7 +164,7 @@ public class UserServiceImpl implements UserService {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String currentUserEmail = auth.getName();
         user.setUpdatedBy(currentUserEmail);
-        user.setUpdatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now(clock));
         userRepository.save(user);
         return userMapper.toUpdateResponse(user);
     }
@@ -217,23 +175,9 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "ID", id));
 
-        List<Borrowing> allBorrowings = borrowingRepository.findByUserId(user.getId(), Pageable.unpaged()).getContent();
-
-        if (!allBorrowings.isEmpty()) {
-        
-            for (Borrowing borrowing : allBorrowings) {
-                if (borrowing.getStatus() != BorrowingStatus.RETURNED) {
-                    Book book = borrowing.getBook();
-                    book.setQuantity(book.getQuantity() + 1);
-                    if (!book.isAvailable()) {
-                        book.setAvailable(true);
-                    }
-                    bookRepository.save(book);
-                }
-            }
-
-            borrowingRepository.deleteAll(allBorrowings);
-        }
+        loanReleaseService.deleteAllLoans(List.of(user.getId()), userName);
+        // After the loans, so the copies they restocked are on the books the hold release loads
+        holdService.deleteHoldsOfUser(user.getId());
 
         userRepository.delete(user);
         return userMapper.toResponse(user);
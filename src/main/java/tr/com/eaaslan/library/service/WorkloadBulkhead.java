@@ -0,0 +1,137 @@
+package tr.com.eaaslan.library.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tr.com.eaaslan.library.exception.ServiceOverloadedException;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.Workload;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Keeps reports and scheduled jobs from crowding out checkouts. Every workload class runs at most
+ * {@code max-concurrent} pieces of work at once, each holding at most one database connection at a time, so with
+ * the sum of those limits below the pool size the rest of the pool stays free for request traffic. Further work
+ * waits in turn, up to {@code max-queued} of it for at most {@code max-wait}; beyond that it is rejected with a
+ * {@link ServiceOverloadedException}.
+ * <p>
+ * Request traffic itself is not limited here.
+ */
+@Component
+@Slf4j
+public class WorkloadBulkhead {
+
+    private final Map<Workload, Compartment> compartments = new EnumMap<>(Workload.class);
+    private final LibraryMetrics libraryMetrics;
+
+    public WorkloadBulkhead(LibraryMetrics libraryMetrics,
+                            @Value("${app.workload.reporting.max-concurrent:2}") int reportingMaxConcurrent,
+                            @Value("${app.workload.reporting.max-queued:4}") int reportingMaxQueued,
+                            @Value("${app.workload.reporting.max-wait:PT10S}") Duration reportingMaxWait,
+                            @Value("${app.workload.jobs.max-concurrent:2}") int jobsMaxConcurrent,
+                            @Value("${app.workload.jobs.max-queued:100}") int jobsMaxQueued,
+                            @Value("${app.workload.jobs.max-wait:PT10M}") Duration jobsMaxWait,
+                            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        if (reportingMaxConcurrent < 1 || jobsMaxConcurrent < 1) {
+            throw new IllegalArgumentException("app.workload.*.max-concurrent must be at least 1");
+        }
+        this.libraryMetrics = libraryMetrics;
+        compartments.put(Workload.REPORTING,
+                new Compartment(Workload.REPORTING, reportingMaxConcurrent, reportingMaxQueued, reportingMaxWait));
+        compartments.put(Workload.JOBS,
+                new Compartment(Workload.JOBS, jobsMaxConcurrent, jobsMaxQueued, jobsMaxWait));
+
+        if (reportingMaxConcurrent + jobsMaxConcurrent >= poolSize) {
+            log.warn("Reports ({}) and jobs ({}) may hold all {} pooled connections; lower their max-concurrent",
+                    reportingMaxConcurrent, jobsMaxConcurrent, poolSize);
+        }
+    }
+
+    /**
+     * Runs the work in the calling thread once its class has a free slot.
+     *
+     * @throws ServiceOverloadedException if the class is saturated and the work cannot wait for a slot
+     */
+    public <T> T call(Workload workload, Supplier<T> work) {
+        Compartment compartment = compartments.get(workload);
+        compartment.acquire();
+        try {
+            return work.get();
+        } finally {
+            compartment.permits.release();
+        }
+    }
+
+    public void run(Workload workload, Runnable work) {
+        call(workload, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private final class Compartment {
+
+        private final Workload workload;
+        private final int maxConcurrent;
+        private final int maxQueued;
+        private final Duration maxWait;
+        // Fair, so waiting work runs in arrival order
+        private final Semaphore permits;
+        private final AtomicInteger queued = new AtomicInteger();
+
+        private Compartment(Workload workload, int maxConcurrent, int maxQueued, Duration maxWait) {
+            this.workload = workload;
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueued = maxQueued;
+            this.maxWait = maxWait;
+            this.permits = new Semaphore(maxConcurrent, true);
+            libraryMetrics.registerWorkloadGauges(workload,
+                    () -> maxConcurrent - permits.availablePermits(), queued::get);
+        }
+
+        private void acquire() {
+            long start = System.nanoTime();
+            // Timed even without waiting, as only that keeps new work from overtaking waiting work
+            if (!tryAcquire(Duration.ZERO)) {
+                if (queued.incrementAndGet() > maxQueued) {
+                    queued.decrementAndGet();
+                    throw rejected("%d running and %d waiting".formatted(maxConcurrent, maxQueued));
+                }
+                boolean acquired;
+                try {
+                    acquired = tryAcquire(maxWait);
+                } finally {
+                    queued.decrementAndGet();
+                }
+                if (!acquired) {
+                    throw rejected("no slot within " + maxWait);
+                }
+            }
+            libraryMetrics.recordWorkloadAdmission(workload, start);
+        }
+
+        private boolean tryAcquire(Duration timeout) {
+            try {
+                return permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private ServiceOverloadedException rejected(String reason) {
+            libraryMetrics.recordWorkloadRejection(workload);
+            String name = workload.name().toLowerCase(Locale.ROOT);
+            return new ServiceOverloadedException(
+                    "Too much " + name + " work in progress (" + reason + "), try again later", maxWait);
+        }
+    }
+}
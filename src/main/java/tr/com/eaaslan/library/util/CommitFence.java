@@ -0,0 +1,73 @@
+package tr.com.eaaslan.library.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Separates in-memory deltas a rebuild has already read from the database from those it has not. A transaction
+ * enters the fence when it records its first delta and leaves once it has committed or rolled back.
+ * {@link #close} waits for every transaction inside to finish and keeps new ones out until {@link #open}, so
+ * a rebuild that closes the fence, discards the pending deltas and fixes its snapshot before reopening it
+ * neither loses nor double counts a change.
+ */
+public final class CommitFence {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Runs the delta once the current transaction commits, keeping the transaction inside the fence until it
+     * completes. Outside a transaction the delta runs immediately.
+     */
+    public void afterCommit(Runnable delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lock.readLock().lock();
+            try {
+                delta.run();
+            } finally {
+                lock.readLock().unlock();
+            }
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.hasResource(this)) {
+            lock.readLock().lock();
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(CommitFence.this);
+                    lock.readLock().unlock();
+                }
+            });
+        }
+        TransactionCallbacks.afterCommit(delta);
+    }
+
+    /**
+     * Waits for the transactions inside the fence to complete and keeps new ones out. Returns false, leaving
+     * the fence open, if that takes longer than the timeout; transactions queue behind a closing fence, so
+     * the timeout bounds how long they can stall.
+     */
+    public boolean close(Duration timeout) {
+        try {
+            return lock.writeLock().tryLock(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Lets transactions record again. Does nothing unless the calling thread closed the fence, so it can be
+     * called from a finally block whether or not the fence was reopened already.
+     */
+    public void open() {
+        if (lock.isWriteLockedByCurrentThread()) {
+            lock.writeLock().unlock();
+        }
+    }
+}
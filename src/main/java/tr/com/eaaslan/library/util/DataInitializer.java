@@ -11,12 +11,16 @@ import tr.com.eaaslan.library.model.*;
 import tr.com.eaaslan.library.repository.BookRepository;
 import tr.com.eaaslan.library.repository.BorrowingRepository;
 import tr.com.eaaslan.library.repository.UserRepository;
+import tr.com.eaaslan.library.service.LoanCounterReconciliationService;
+import tr.com.eaaslan.library.service.LoanStatisticsService;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Year;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 @Component
@@ -28,7 +32,11 @@ public class DataInitializer implements CommandLineRunner {
     private final BookRepository bookRepository;
     private final BorrowingRepository borrowingRepository;
     private final PasswordEncoder passwordEncoder;
+    private final LoanCounterReconciliationService loanCounterReconciliationService;
+    private final LoanStatisticsService loanStatisticsService;
     private final Random random = new Random();
+    // Books loaded once per run; quantity changes are written back with a single batched saveAll
+    private final Map<Long, Book> bookCache = new LinkedHashMap<>();
 
     @Override
     public void run(String... args) {
@@ -45,6 +53,9 @@ public class DataInitializer implements CommandLineRunner {
 
         // Create borrowings with separate transaction
         createBorrowingsWithNewTransaction(bookIds);
+        // Seed borrowings bypass BorrowingService, so derive the user loan counters and statistics from them
+        loanCounterReconciliationService.reconcileLoanCounters();
+        loanStatisticsService.rebuild();
 
         log.info("Data initialization completed successfully.");
     }
@@ -275,6 +286,8 @@ public class DataInitializer implements CommandLineRunner {
         }
 
         List<Borrowing> borrowings = new ArrayList<>();
+        bookCache.clear();
+        bookRepository.findAllById(bookIds).forEach(book -> bookCache.put(book.getId(), book));
 
         User patron = userRepository.findByEmail("patron@library.com").orElse(null);
         User patron2 = userRepository.findByEmail("patron2@library.com").orElse(null);
@@ -296,7 +309,7 @@ public class DataInitializer implements CommandLineRunner {
 
             Borrowing borrowing = Borrowing.builder()
                     .user(patron)
-                    .book(bookRepository.getReferenceById(bookId)) // Use reference instead of loaded entity
+                    .book(bookCache.get(bookId))
                     .borrowDate(borrowDate)
                     .dueDate(dueDate)
                     .status(BorrowingStatus.ACTIVE)
@@ -316,7 +329,7 @@ public class DataInitializer implements CommandLineRunner {
 
             Borrowing borrowing = Borrowing.builder()
                     .user(patron2)
-                    .book(bookRepository.getReferenceById(bookId))
+                    .book(bookCache.get(bookId))
                     .borrowDate(borrowDate)
                     .dueDate(dueDate)
                     .status(BorrowingStatus.ACTIVE)
@@ -334,7 +347,7 @@ public class DataInitializer implements CommandLineRunner {
 
             Borrowing borrowing = Borrowing.builder()
                     .user(patron2)
-                    .book(bookRepository.getReferenceById(bookId))
+                    .book(bookCache.get(bookId))
                     .borrowDate(borrowDate)
                     .dueDate(dueDate)
                     .status(BorrowingStatus.OVERDUE)
@@ -354,7 +367,7 @@ public class DataInitializer implements CommandLineRunner {
 
             Borrowing borrowing = Borrowing.builder()
                     .user(suspendedUser)
-                    .book(bookRepository.getReferenceById(bookId2))
+                    .book(bookCache.get(bookId2))
                     .borrowDate(borrowDate)
                     .dueDate(dueDate)
                     .status(BorrowingStatus.ACTIVE)
@@ -372,7 +385,7 @@ public class DataInitializer implements CommandLineRunner {
 
             Borrowing borrowing = Borrowing.builder()
                     .user(suspendedUser)
-                    .book(bookRepository.getReferenceById(bookId3))
+                    .book(bookCache.get(bookId3))
                     .borrowDate(borrowDate)
                     .dueDate(dueDate)
                     .status(BorrowingStatus.OVERDUE)
@@ -389,6 +402,7 @@ public class DataInitializer implements CommandLineRunner {
         createOnTimeReturnedBorrowings(borrowings, patron, patron2, bookIds);
 
         if (!borrowings.isEmpty()) {
+            bookRepository.saveAll(bookCache.values());
             borrowingRepository.saveAll(borrowings);
             log.info("Created {} test borrowing records", borrowings.size());
         } else {
@@ -408,7 +422,7 @@ public class DataInitializer implements CommandLineRunner {
 
             Borrowing borrowing = Borrowing.builder()
                     .user(user)
-                    .book(bookRepository.getReferenceById(bookId))
+                    .book(bookCache.get(bookId))
                     .borrowDate(borrowDate)
                     .dueDate(dueDate)
                     .returnDate(returnDate)
@@ -433,7 +447,7 @@ public class DataInitializer implements CommandLineRunner {
 
             Borrowing borrowing = Borrowing.builder()
                     .user(patron)
-                    .book(bookRepository.getReferenceById(bookId))
+                    .book(bookCache.get(bookId))
                     .borrowDate(borrowDate)
                     .dueDate(dueDate)
                     .returnDate(returnDate)
@@ -455,7 +469,7 @@ public class DataInitializer implements CommandLineRunner {
 
             Borrowing borrowing = Borrowing.builder()
                     .user(patron2)
-                    .book(bookRepository.getReferenceById(bookId))
+                    .book(bookCache.get(bookId))
                     .borrowDate(borrowDate)
                     .dueDate(dueDate)
                     .returnDate(returnDate)
@@ -468,9 +482,8 @@ public class DataInitializer implements CommandLineRunner {
     }
 
     // Get a random available book ID
-    @Transactional(propagation = Propagation.REQUIRED)
     protected Long getRandomAvailableBookId(List<Long> bookIds) {
-        List<Long> availableBookIds = bookRepository.findAllById(bookIds).stream()
+        List<Long> availableBookIds = bookCache.values().stream()
                 .filter(Book::isAvailable)
                 .filter(book -> book.getQuantity() > 0)
                 .map(Book::getId)
@@ -480,11 +493,10 @@ public class DataInitializer implements CommandLineRunner {
             // Make a book available if none are
             if (!bookIds.isEmpty()) {
                 Long bookId = bookIds.get(random.nextInt(bookIds.size()));
-                Book book = bookRepository.findById(bookId).orElse(null);
+                Book book = bookCache.get(bookId);
                 if (book != null) {
                     book.setQuantity(1);
                     book.setAvailable(true);
-                    bookRepository.save(book);
                     return bookId;
                 }
             }
@@ -501,15 +513,13 @@ public class DataInitializer implements CommandLineRunner {
     }
 
     // Safely decrement book quantity
-    @Transactional(propagation = Propagation.REQUIRED)
     protected void decrementBookQuantity(Long bookId) {
-        Book book = bookRepository.findById(bookId).orElse(null);
+        Book book = bookCache.get(bookId);
         if (book != null) {
             book.setQuantity(book.getQuantity() - 1);
             if (book.getQuantity() <= 0) {
                 book.setAvailable(false);
             }
-            bookRepository.save(book);
         }
     }
 
@@ -0,0 +1,420 @@
+package tr.com.eaaslan.library.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import tr.com.eaaslan.library.model.BaseEntity;
+import tr.com.eaaslan.library.model.BorrowingStatus;
+import tr.com.eaaslan.library.model.Genre;
+import tr.com.eaaslan.library.model.UserRole;
+import tr.com.eaaslan.library.model.UserStatus;
+import tr.com.eaaslan.library.repository.BorrowingArchiveRepository;
+import tr.com.eaaslan.library.service.LoanStatisticsService;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Period;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills a PostgreSQL database with a library of load-test size: patrons, librarians, a catalogue and years of
+ * loan history. Rows go in with JDBC batch inserts, a few thousand patrons and their loans per transaction, so
+ * millions of rows take minutes rather than hours.
+ * <p>
+ * The history is drawn from skewed distributions instead of uniform ones:
+ * <ul>
+ *     <li>book popularity is Zipfian, a few titles take most loans while the long tail is rarely borrowed;</li>
+ *     <li>loans per patron are geometric, most patrons borrow a little and a few borrow a lot;</li>
+ *     <li>borrow dates follow a yearly season peaking in {@code peak-month}, with quieter weekends;</li>
+ *     <li>a share of loans comes back late, the rest within the loan period.</li>
+ * </ul>
+ * Loans not returned by today stay ACTIVE or OVERDUE, at most three per patron and one per book, like checkouts
+ * through the API. Returned loans older than the archive retention go straight to {@code borrowing_archive}.
+ * Loan counters and book quantities are written consistently, so no reconciliation is needed afterwards.
+ * <p>
+ * Runs in the {@code loadtest} profile and does nothing when generated patrons are already present. All generated
+ * accounts share the password {@code app.loadtest.password}; emails are {@code patron<n>@loadtest.library.com}
+ * and {@code librarian<n>@loadtest.library.com}.
+ */
+@Component
+@Profile("loadtest")
+@Slf4j
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    public static final String PATRON_EMAIL = "patron%d@loadtest.library.com";
+    public static final String LIBRARIAN_EMAIL = "librarian%d@loadtest.library.com";
+
+    private static final String CREATED_BY = "loadtest";
+    // Same as BorrowingServiceImpl's default due date and the User default borrow limit
+    private static final int LOAN_DAYS = 14;
+    private static final int MAX_UNRETURNED_LOANS = 3;
+    private static final double WEEKEND_FACTOR = 0.6;
+
+    private static final String INSERT_USER = """
+            INSERT INTO users (id, version, created_at, created_by, updated_at, updated_by, email, password, first_name,
+                               last_name, phone_number, role, status, deleted, max_allowed_borrows,
+                               active_loan_count, overdue_loan_count)
+            VALUES (?, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, FALSE, ?, ?, ?)
+            """;
+    private static final String INSERT_BOOK = """
+            INSERT INTO books (id, version, created_at, created_by, updated_at, updated_by, isbn, title, author,
+                               publication_year, publisher, genre, image_url, description, available, quantity)
+            VALUES (?, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String INSERT_BORROWING = """
+            INSERT INTO borrowing (id, version, created_at, created_by, updated_at, updated_by, borrow_date,
+                                   return_date, due_date, status, returned_late, book_id, user_id)
+            VALUES (?, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String INSERT_ARCHIVE = """
+            INSERT INTO borrowing_archive (id, user_id, book_id, borrow_date, due_date, return_date, returned_late,
+                                           created_at, created_by, archived_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String[] FIRST_NAMES = {
+            "Ayse", "Mehmet", "Elif", "Mustafa", "Zeynep", "Ahmet", "Emily", "James", "Sofia", "Lucas",
+            "Fatma", "Ali", "Hannah", "Noah", "Deniz", "Can", "Olivia", "Liam", "Selin", "Emre"
+    };
+    private static final String[] LAST_NAMES = {
+            "Yilmaz", "Kaya", "Demir", "Sahin", "Celik", "Smith", "Johnson", "Brown", "Garcia", "Miller",
+            "Aslan", "Ozturk", "Arslan", "Dogan", "Wilson", "Taylor", "Martin", "Lee", "Koc", "Aydin"
+    };
+    private static final String[] TITLE_WORDS = {
+            "Garden", "River", "Empire", "Shadow", "Winter", "Journey", "Silence", "Mountain", "Secret", "Harbor",
+            "Crown", "Mirror", "Forest", "Storm", "Letters", "Island", "Memory", "Station", "Orchard", "Compass"
+    };
+    private static final String[] PUBLISHERS = {
+            "Penguin Random House", "HarperCollins", "Simon & Schuster", "Hachette Book Group",
+            "Macmillan Publishers", "Oxford University Press", "Cambridge University Press", "Scholastic"
+    };
+    private static final Genre[] GENRES = Genre.values();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final BorrowingArchiveRepository archiveRepository;
+    private final LoanStatisticsService loanStatisticsService;
+    private final Clock clock;
+    private final int patrons;
+    private final int librarians;
+    private final int books;
+    private final double loansPerPatron;
+    private final Period history;
+    private final double zipfExponent;
+    private final double seasonalAmplitude;
+    private final Month peakMonth;
+    private final double lateReturnRate;
+    private final long seed;
+    private final int batchSize;
+    private final String password;
+    private final int retentionMonths;
+
+    public SyntheticDataGenerator(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  PasswordEncoder passwordEncoder,
+                                  BorrowingArchiveRepository archiveRepository,
+                                  LoanStatisticsService loanStatisticsService,
+                                  Clock clock,
+                                  @Value("${app.loadtest.patrons:100000}") int patrons,
+                                  @Value("${app.loadtest.librarians:20}") int librarians,
+                                  @Value("${app.loadtest.books:20000}") int books,
+                                  @Value("${app.loadtest.loans-per-patron:8}") double loansPerPatron,
+                                  @Value("${app.loadtest.history:P2Y}") Period history,
+                                  @Value("${app.loadtest.zipf-exponent:1.0}") double zipfExponent,
+                                  @Value("${app.loadtest.seasonal-amplitude:0.3}") double seasonalAmplitude,
+                                  @Value("${app.loadtest.peak-month:OCTOBER}") Month peakMonth,
+                                  @Value("${app.loadtest.late-return-rate:0.12}") double lateReturnRate,
+                                  @Value("${app.loadtest.seed:42}") long seed,
+                                  @Value("${app.loadtest.batch-size:5000}") int batchSize,
+                                  @Value("${app.loadtest.password:loadtest123}") String password,
+                                  @Value("${app.borrowing.archive.retention-months:12}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.archiveRepository = archiveRepository;
+        this.loanStatisticsService = loanStatisticsService;
+        this.clock = clock;
+        this.patrons = patrons;
+        this.librarians = librarians;
+        this.books = books;
+        this.loansPerPatron = loansPerPatron;
+        this.history = history;
+        this.zipfExponent = zipfExponent;
+        this.seasonalAmplitude = seasonalAmplitude;
+        this.peakMonth = peakMonth;
+        this.lateReturnRate = lateReturnRate;
+        this.seed = seed;
+        this.batchSize = batchSize;
+        this.password = password;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Override
+    public void run(String... args) {
+        Boolean generated = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM users WHERE email = ?)",
+                Boolean.class, PATRON_EMAIL.formatted(1));
+        if (Boolean.TRUE.equals(generated)) {
+            log.info("Load-test data already present. Skipping generation.");
+            return;
+        }
+
+        log.info("Generating load-test data: {} patrons, {} librarians, {} books, {} loans per patron over {}",
+                patrons, librarians, books, loansPerPatron, history);
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDate today = LocalDate.now(clock);
+        String passwordHash = passwordEncoder.encode(password);
+
+        Catalog catalog = insertBooks(random);
+        insertLibrarians(passwordHash);
+        long loans = insertPatronsAndLoans(random, catalog, today, passwordHash);
+        updateBookQuantities(catalog);
+
+        loanStatisticsService.rebuild();
+        jdbcTemplate.execute("ANALYZE users, books, borrowing, borrowing_archive");
+        log.info("Load-test data generated in {} s: {} patrons, {} books, {} loans",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), patrons, books, loans);
+    }
+
+    private Catalog insertBooks(SplittableRandom random) {
+        long[] ids = allocateIds(books);
+        int[] copies = new int[books];
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(clock));
+
+        for (int from = 0; from < books; from += batchSize) {
+            List<Object[]> rows = new ArrayList<>(batchSize);
+            for (int i = from; i < Math.min(from + batchSize, books); i++) {
+                copies[i] = 1 + random.nextInt(5);
+                String isbn = "979%010d".formatted(i + 1);
+                String title = "The " + pick(random, TITLE_WORDS) + " of " + pick(random, TITLE_WORDS) + " " + (i % 7 + 1);
+                rows.add(new Object[]{ids[i], now, CREATED_BY, now, CREATED_BY, isbn, title,
+                        pick(random, FIRST_NAMES) + " " + pick(random, LAST_NAMES),
+                        LocalDate.now(clock).getYear() - random.nextInt(80), pick(random, PUBLISHERS),
+                        GENRES[random.nextInt(GENRES.length)].name(),
+                        "http://images.amazon.com/images/P/" + isbn + ".01.LZZZZZZZ.jpg",
+                        "A " + pick(random, TITLE_WORDS).toLowerCase() + " story, generated for load tests.",
+                        true, copies[i]});
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_BOOK, rows));
+        }
+        log.info("Generated {} books", books);
+
+        // Popularity ranks are shuffled over the books, so popular books are not simply the lowest ids
+        int[] byRank = new int[books];
+        for (int i = 0; i < books; i++) {
+            int j = random.nextInt(i + 1);
+            byRank[i] = byRank[j];
+            byRank[j] = i;
+        }
+        double[] weights = new double[books];
+        for (int rank = 0; rank < books; rank++) {
+            weights[rank] = 1.0 / Math.pow(rank + 1, zipfExponent);
+        }
+        return new Catalog(ids, copies, new int[books], byRank, new Distribution(weights));
+    }
+
+    private void insertLibrarians(String passwordHash) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(clock));
+        List<Object[]> rows = new ArrayList<>(librarians);
+        long[] ids = allocateIds(librarians);
+        for (int i = 0; i < librarians; i++) {
+            rows.add(new Object[]{ids[i], now, CREATED_BY, now, CREATED_BY, LIBRARIAN_EMAIL.formatted(i + 1),
+                    passwordHash, "Librarian", "Number " + (i + 1), "058%08d".formatted(i + 1),
+                    UserRole.LIBRARIAN.name(), UserStatus.ACTIVE.name(), MAX_UNRETURNED_LOANS, 0, 0});
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_USER, rows));
+    }
+
+    private long insertPatronsAndLoans(SplittableRandom random, Catalog catalog, LocalDate today, String passwordHash) {
+        LocalDate firstDay = today.minus(history);
+        LocalDate archiveCutoff = today.minusMonths(retentionMonths);
+        Distribution borrowDays = seasonalDays(firstDay, today);
+        if (firstDay.isBefore(archiveCutoff)) {
+            transactionTemplate.execute(status -> archiveRepository.ensureMonthlyPartitions(firstDay, archiveCutoff));
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(clock));
+        double geometric = loansPerPatron / (loansPerPatron + 1);
+        long loans = 0;
+
+        for (int from = 0; from < patrons; from += batchSize) {
+            int count = Math.min(batchSize, patrons - from);
+            long[] userIds = allocateIds(count);
+            List<Object[]> users = new ArrayList<>(count);
+            List<Loan> chunkLoans = new ArrayList<>();
+
+            for (int i = 0; i < count; i++) {
+                int patron = from + i + 1;
+                int loanCount = (int) (Math.log(1 - random.nextDouble()) / Math.log(geometric));
+                int[] unreturnedBooks = new int[MAX_UNRETURNED_LOANS];
+                int unreturned = 0;
+                int overdue = 0;
+
+                for (int l = 0; l < loanCount; l++) {
+                    int book = catalog.byRank()[catalog.popularity().sample(random)];
+                    LocalDate borrowDate = firstDay.plusDays(borrowDays.sample(random));
+                    LocalDate dueDate = borrowDate.plusDays(LOAN_DAYS);
+                    LocalDate returnDate = random.nextDouble() < lateReturnRate
+                            ? dueDate.plusDays(1 + random.nextInt(21))
+                            : borrowDate.plusDays(1 + random.nextInt(LOAN_DAYS));
+
+                    if (returnDate.isAfter(today)) {
+                        if (unreturned == MAX_UNRETURNED_LOANS || contains(unreturnedBooks, unreturned, book)) {
+                            returnDate = today;
+                        } else {
+                            unreturnedBooks[unreturned++] = book;
+                            catalog.outstanding()[book]++;
+                            if (dueDate.isBefore(today)) {
+                                overdue++;
+                            }
+                            chunkLoans.add(new Loan(userIds[i], catalog.ids()[book], borrowDate, dueDate, null,
+                                    dueDate.isBefore(today) ? BorrowingStatus.OVERDUE : BorrowingStatus.ACTIVE));
+                            continue;
+                        }
+                    }
+                    chunkLoans.add(new Loan(userIds[i], catalog.ids()[book], borrowDate, dueDate, returnDate,
+                            BorrowingStatus.RETURNED));
+                }
+
+                String firstName = pick(random, FIRST_NAMES);
+                String lastName = pick(random, LAST_NAMES);
+                users.add(new Object[]{userIds[i], now, CREATED_BY, now, CREATED_BY, PATRON_EMAIL.formatted(patron),
+                        passwordHash, firstName, lastName, "059%08d".formatted(patron), UserRole.PATRON.name(),
+                        UserStatus.ACTIVE.name(), MAX_UNRETURNED_LOANS, unreturned - overdue, overdue});
+            }
+
+            long[] loanIds = allocateIds(chunkLoans.size());
+            List<Object[]> live = new ArrayList<>(chunkLoans.size());
+            List<Object[]> archived = new ArrayList<>();
+            for (int i = 0; i < chunkLoans.size(); i++) {
+                Loan loan = chunkLoans.get(i);
+                Timestamp createdAt = Timestamp.valueOf(loan.borrowDate().atTime(10, 0));
+                boolean late = loan.returnDate() != null && loan.returnDate().isAfter(loan.dueDate());
+                if (loan.returnDate() != null && loan.returnDate().isBefore(archiveCutoff)) {
+                    archived.add(new Object[]{loanIds[i], loan.userId(), loan.bookId(), Date.valueOf(loan.borrowDate()),
+                            Date.valueOf(loan.dueDate()), Date.valueOf(loan.returnDate()), late, createdAt, CREATED_BY, now});
+                } else {
+                    Timestamp updatedAt = loan.returnDate() != null ? Timestamp.valueOf(loan.returnDate().atTime(16, 0)) : createdAt;
+                    live.add(new Object[]{loanIds[i], createdAt, CREATED_BY, updatedAt, CREATED_BY,
+                            Date.valueOf(loan.borrowDate()), loan.returnDate() != null ? Date.valueOf(loan.returnDate()) : null,
+                            Date.valueOf(loan.dueDate()), loan.status().name(), late, loan.bookId(), loan.userId()});
+                }
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_USER, users);
+                jdbcTemplate.batchUpdate(INSERT_BORROWING, live);
+                jdbcTemplate.batchUpdate(INSERT_ARCHIVE, archived);
+            });
+            loans += chunkLoans.size();
+            log.info("Generated {}/{} patrons, {} loans so far", from + count, patrons, loans);
+        }
+        return loans;
+    }
+
+    // Copies out on loan leave the shelf; books with more loans out than copies simply have none left
+    private void updateBookQuantities(Catalog catalog) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < books; i++) {
+            if (catalog.outstanding()[i] > 0) {
+                int quantity = Math.max(catalog.copies()[i] - catalog.outstanding()[i], 0);
+                rows.add(new Object[]{quantity, quantity > 0, catalog.ids()[i]});
+            }
+        }
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Object[]> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate("UPDATE books SET quantity = ?, available = ? WHERE id = ?", batch));
+        }
+    }
+
+    // Weight of every day in the history: a cosine season peaking mid peak month, quieter on weekends
+    private Distribution seasonalDays(LocalDate firstDay, LocalDate today) {
+        int days = (int) ChronoUnit.DAYS.between(firstDay, today) + 1;
+        int peakDay = LocalDate.of(today.getYear(), peakMonth, 15).getDayOfYear();
+        double[] weights = new double[days];
+        for (int d = 0; d < days; d++) {
+            LocalDate day = firstDay.plusDays(d);
+            double season = 1 + seasonalAmplitude * Math.cos(2 * Math.PI * (day.getDayOfYear() - peakDay) / 365.25);
+            weights[d] = day.getDayOfWeek().getValue() >= 6 ? season * WEEKEND_FACTOR : season;
+        }
+        return new Distribution(weights);
+    }
+
+    /**
+     * Takes ids from {@code library_id_seq} the way Hibernate's pooled-lo optimizer does, one block of
+     * {@link BaseEntity#ID_ALLOCATION_SIZE} per {@code nextval}, so they never collide with ids the application
+     * hands out meanwhile.
+     */
+    private long[] allocateIds(int count) {
+        int blocks = (count + BaseEntity.ID_ALLOCATION_SIZE - 1) / BaseEntity.ID_ALLOCATION_SIZE;
+        List<Long> starts = jdbcTemplate.queryForList("SELECT nextval('library_id_seq') FROM generate_series(1, ?)",
+                Long.class, blocks);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = starts.get(i / BaseEntity.ID_ALLOCATION_SIZE) + i % BaseEntity.ID_ALLOCATION_SIZE;
+        }
+        return ids;
+    }
+
+    private static boolean contains(int[] values, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Book ids and copies by book index, loans still out per book, and the book index of each popularity rank.
+     */
+    private record Catalog(long[] ids, int[] copies, int[] outstanding, int[] byRank, Distribution popularity) {
+    }
+
+    private record Loan(long userId, long bookId, LocalDate borrowDate, LocalDate dueDate, LocalDate returnDate,
+                        BorrowingStatus status) {
+    }
+
+    /**
+     * Draws indexes with probability proportional to their weights, by binary search over the cumulative sums.
+     */
+    static final class Distribution {
+
+        private final double[] cumulative;
+
+        Distribution(double[] weights) {
+            cumulative = new double[weights.length];
+            double sum = 0;
+            for (int i = 0; i < weights.length; i++) {
+                sum += weights[i];
+                cumulative[i] = sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int index = Arrays.binarySearch(cumulative, target);
+            return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+        }
+    }
+}
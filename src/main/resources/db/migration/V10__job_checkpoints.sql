@@ -0,0 +1,13 @@
+-- Progress of chunked jobs: the last id of the latest committed chunk of each job or shard, written in the
+-- chunk's transaction. A row only exists while a pass is incomplete; the next run continues after it.
+
+CREATE TABLE job_checkpoints
+(
+    name           VARCHAR(100) NOT NULL PRIMARY KEY,
+    last_id        BIGINT       NOT NULL,
+    run_started_at TIMESTAMP(6) NOT NULL,
+    updated_at     TIMESTAMP(6) NOT NULL
+);
+
+-- Set on runs that continued an interrupted pass
+ALTER TABLE job_runs ADD COLUMN resumed_after_id BIGINT;
@@ -0,0 +1,69 @@
+-- Baseline schema, matching what Hibernate generated for the entities before migrations were introduced.
+-- Existing databases are baselined at version 1 (spring.flyway.baseline-on-migrate) and skip this script.
+
+CREATE SEQUENCE IF NOT EXISTS library_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users
+(
+    id                  BIGINT       NOT NULL PRIMARY KEY,
+    version             INTEGER,
+    created_at          TIMESTAMP(6) NOT NULL,
+    created_by          VARCHAR(255) NOT NULL,
+    updated_at          TIMESTAMP(6) NOT NULL,
+    updated_by          VARCHAR(255) NOT NULL,
+    email               VARCHAR(255) NOT NULL,
+    password            VARCHAR(255) NOT NULL,
+    first_name          VARCHAR(255) NOT NULL,
+    last_name           VARCHAR(255) NOT NULL,
+    phone_number        VARCHAR(255) NOT NULL,
+    role                VARCHAR(255) NOT NULL,
+    status              VARCHAR(255) NOT NULL,
+    suspension_end_date DATE,
+    deleted             BOOLEAN,
+    deleted_at          TIMESTAMP(6),
+    deleted_by          VARCHAR(255),
+    max_allowed_borrows INTEGER,
+    CONSTRAINT uk_users_phone_number UNIQUE (phone_number)
+);
+
+CREATE UNIQUE INDEX idx_users_email ON users (email);
+
+CREATE TABLE books
+(
+    id               BIGINT       NOT NULL PRIMARY KEY,
+    version          INTEGER,
+    created_at       TIMESTAMP(6) NOT NULL,
+    created_by       VARCHAR(255) NOT NULL,
+    updated_at       TIMESTAMP(6) NOT NULL,
+    updated_by       VARCHAR(255) NOT NULL,
+    isbn             VARCHAR(255) NOT NULL,
+    title            VARCHAR(255) NOT NULL,
+    author           VARCHAR(255) NOT NULL,
+    publication_year INTEGER      NOT NULL,
+    publisher        VARCHAR(255) NOT NULL,
+    genre            VARCHAR(255) NOT NULL,
+    image_url        VARCHAR(255),
+    description      TEXT,
+    available        BOOLEAN      NOT NULL,
+    quantity         INTEGER      NOT NULL
+);
+
+CREATE UNIQUE INDEX idx_book_isbn ON books (isbn);
+CREATE INDEX idx_book_title ON books (title);
+
+CREATE TABLE borrowing
+(
+    id            BIGINT       NOT NULL PRIMARY KEY,
+    version       INTEGER,
+    created_at    TIMESTAMP(6) NOT NULL,
+    created_by    VARCHAR(255) NOT NULL,
+    updated_at    TIMESTAMP(6) NOT NULL,
+    updated_by    VARCHAR(255) NOT NULL,
+    borrow_date   DATE         NOT NULL,
+    return_date   DATE,
+    due_date      DATE,
+    status        VARCHAR(255),
+    returned_late BOOLEAN,
+    book_id       BIGINT       NOT NULL REFERENCES books (id),
+    user_id       BIGINT       NOT NULL REFERENCES users (id)
+);
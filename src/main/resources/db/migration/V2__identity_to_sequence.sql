@@ -0,0 +1,18 @@
+-- Moves databases created before migrations existed from IDENTITY ids to the shared pooled sequence
+-- used by BaseEntity (library_id_seq, increment 50, pooled-lo optimizer).
+-- On a database created by V1 it only re-positions the still unused sequence.
+
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE books ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE borrowing ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+-- Hibernate validates the increment against allocationSize, so it must stay 50.
+CREATE SEQUENCE IF NOT EXISTS library_id_seq START WITH 1 INCREMENT BY 50;
+
+-- With pooled-lo every nextval() value is the low end of a block of 50 ids, so the next
+-- value only has to be above every id already handed out by the old IDENTITY columns.
+SELECT setval('library_id_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 0) FROM users),
+                       (SELECT COALESCE(MAX(id), 0) FROM books),
+                       (SELECT COALESCE(MAX(id), 0) FROM borrowing)) + 1,
+              false);
@@ -0,0 +1,28 @@
+-- Indexes for the access patterns in BorrowingRepository. The plain ones are also declared on the
+-- Borrowing entity; the partial ones are PostgreSQL only and live here.
+
+-- countByUserIdAndStatus, findByUserIdAndStatus (borrow limit checks, user deletion)
+CREATE INDEX IF NOT EXISTS idx_borrowing_user_status ON borrowing (user_id, status);
+
+-- findByUserId paged by borrow date, findByUserIdOrderByBorrowDateDesc, findLatestActivityDateByUserId
+CREATE INDEX IF NOT EXISTS idx_borrowing_user_borrow_date ON borrowing (user_id, borrow_date DESC);
+
+-- existsByUserIdAndBookIdAndStatus, findByBookIdAndStatus
+CREATE INDEX IF NOT EXISTS idx_borrowing_book_status ON borrowing (book_id, status);
+
+-- findByBookId paged by borrow date, findByBookIdOrderByBorrowDateDesc
+CREATE INDEX IF NOT EXISTS idx_borrowing_book_borrow_date ON borrowing (book_id, borrow_date DESC);
+
+-- findByStatus, findByStatusOrderByDueDateAsc, findOverdueBorrowings sorted by due date
+CREATE INDEX IF NOT EXISTS idx_borrowing_status_due_date ON borrowing (status, due_date);
+
+-- Date range exports
+CREATE INDEX IF NOT EXISTS idx_borrowing_borrow_date ON borrowing (borrow_date);
+
+-- Overdue sweep: only unreturned loans are ever checked against the due date
+CREATE INDEX IF NOT EXISTS idx_borrowing_unreturned_due_date ON borrowing (due_date)
+    WHERE status IN ('ACTIVE', 'OVERDUE');
+
+-- countByUserIdAndReturnedLateAndReturnDateBetween (late return penalties)
+CREATE INDEX IF NOT EXISTS idx_borrowing_user_late_return_date ON borrowing (user_id, return_date)
+    WHERE returned_late = TRUE;
@@ -0,0 +1,12 @@
+-- A user may hold at most one unreturned copy of a book. Enforcing this in the database replaces the
+-- existsByUserIdAndBookIdAndStatus pre-check in BorrowingServiceImpl.borrowBook, which raced with
+-- concurrent checkouts and only looked at ACTIVE loans.
+-- The index name is referenced by Borrowing.ACTIVE_LOAN_CONSTRAINT.
+--
+-- If this fails on an existing database, duplicates slipped through the old check; find them with
+--   SELECT user_id, book_id, count(*) FROM borrowing WHERE status IN ('ACTIVE', 'OVERDUE')
+--   GROUP BY user_id, book_id HAVING count(*) > 1;
+-- and return the extra loans through the API so book quantities stay consistent.
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_borrowing_active_user_book ON borrowing (user_id, book_id)
+    WHERE status IN ('ACTIVE', 'OVERDUE');
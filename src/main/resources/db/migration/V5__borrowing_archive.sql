@@ -0,0 +1,54 @@
+-- Archive tier for returned loans. BorrowingArchiveService moves RETURNED rows older than
+-- app.borrowing.archive.retention-months here, so the live borrowing table and its indexes only hold
+-- unreturned and recently returned loans. BorrowingHistory reads both tables with UNION ALL.
+--
+-- The live table itself is not partitioned: the unique index uk_borrowing_active_user_book (V4) would have to
+-- include the partition key, which would stop it from preventing duplicate loans.
+
+CREATE TABLE borrowing_archive
+(
+    id            BIGINT       NOT NULL,
+    user_id       BIGINT       NOT NULL,
+    book_id       BIGINT       NOT NULL,
+    borrow_date   DATE         NOT NULL,
+    due_date      DATE,
+    return_date   DATE,
+    returned_late BOOLEAN      NOT NULL DEFAULT FALSE,
+    created_at    TIMESTAMP(6) NOT NULL,
+    created_by    VARCHAR(255) NOT NULL,
+    archived_at   TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id, borrow_date)
+) PARTITION BY RANGE (borrow_date);
+
+-- Catches rows whose month has no partition yet; the archival job creates partitions before copying
+CREATE TABLE borrowing_archive_default PARTITION OF borrowing_archive DEFAULT;
+
+CREATE INDEX idx_borrowing_archive_user_borrow_date ON borrowing_archive (user_id, borrow_date DESC);
+CREATE INDEX idx_borrowing_archive_book_borrow_date ON borrowing_archive (book_id, borrow_date DESC);
+
+-- Creates one partition per month between from_date and to_date (inclusive) and returns how many were created.
+-- Partitions are named borrowing_archive_yYYYYmMM.
+CREATE OR REPLACE FUNCTION ensure_borrowing_archive_partitions(from_date DATE, to_date DATE)
+    RETURNS INTEGER
+    LANGUAGE plpgsql
+AS
+$$
+DECLARE
+    month_start DATE := date_trunc('month', from_date)::DATE;
+    last_month  DATE := date_trunc('month', to_date)::DATE;
+    part_name   TEXT;
+    created     INTEGER := 0;
+BEGIN
+    WHILE month_start <= last_month
+        LOOP
+            part_name := format('borrowing_archive_y%sm%s', to_char(month_start, 'YYYY'), to_char(month_start, 'MM'));
+            IF to_regclass(part_name) IS NULL THEN
+                EXECUTE format('CREATE TABLE %I PARTITION OF borrowing_archive FOR VALUES FROM (%L) TO (%L)',
+                               part_name, month_start, (month_start + INTERVAL '1 month')::DATE);
+                created := created + 1;
+            END IF;
+            month_start := (month_start + INTERVAL '1 month')::DATE;
+        END LOOP;
+    RETURN created;
+END;
+$$;
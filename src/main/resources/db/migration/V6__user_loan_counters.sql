@@ -0,0 +1,17 @@
+-- Denormalized loan counters so the borrow limit check reads one row instead of counting borrowings.
+-- Maintained by BorrowingServiceImpl and UserServiceImpl; LoanCounterReconciliationService repairs drift.
+
+ALTER TABLE users
+    ADD COLUMN IF NOT EXISTS active_loan_count  INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS overdue_loan_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE users u
+SET active_loan_count  = c.active_count,
+    overdue_loan_count = c.overdue_count
+FROM (SELECT user_id,
+             COUNT(*) FILTER (WHERE status = 'ACTIVE')  AS active_count,
+             COUNT(*) FILTER (WHERE status = 'OVERDUE') AS overdue_count
+      FROM borrowing
+      WHERE status IN ('ACTIVE', 'OVERDUE')
+      GROUP BY user_id) c
+WHERE u.id = c.user_id;
@@ -0,0 +1,28 @@
+-- Hold queue for books without a copy on the shelf. Holds are served first come, first served per book;
+-- a returned copy is reserved for the next WAITING hold (READY) until its pickup deadline passes.
+
+CREATE TABLE book_holds
+(
+    id              BIGINT       NOT NULL PRIMARY KEY,
+    version         INTEGER,
+    created_at      TIMESTAMP(6) NOT NULL,
+    created_by      VARCHAR(255) NOT NULL,
+    updated_at      TIMESTAMP(6) NOT NULL,
+    updated_by      VARCHAR(255) NOT NULL,
+    book_id         BIGINT       NOT NULL REFERENCES books (id) ON DELETE CASCADE,
+    user_id         BIGINT       NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    status          VARCHAR(20)  NOT NULL,
+    requested_at    TIMESTAMP(6) NOT NULL,
+    ready_at        TIMESTAMP(6),
+    pickup_deadline TIMESTAMP(6)
+);
+
+-- Next WAITING hold of a book, in queue order
+CREATE INDEX idx_book_holds_book_status_requested ON book_holds (book_id, status, requested_at);
+CREATE INDEX idx_book_holds_user_status ON book_holds (user_id, status);
+-- READY holds past their pickup deadline
+CREATE INDEX idx_book_holds_status_deadline ON book_holds (status, pickup_deadline);
+
+-- At most one open hold per patron and book; referenced by Hold.OPEN_HOLD_CONSTRAINT
+CREATE UNIQUE INDEX uk_book_holds_open_user_book ON book_holds (user_id, book_id)
+    WHERE status IN ('WAITING', 'READY');
@@ -0,0 +1,29 @@
+-- Coordination of scheduled jobs across nodes. A job (or one shard of it) runs only on the node holding its
+-- row in job_locks: a lease taken by moving locked_until into the future, which another node can take over once
+-- it has passed. Every run is recorded in job_runs.
+
+CREATE TABLE job_locks
+(
+    name         VARCHAR(100) NOT NULL PRIMARY KEY,
+    locked_until TIMESTAMP(6) NOT NULL,
+    locked_at    TIMESTAMP(6) NOT NULL,
+    locked_by    VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE job_runs
+(
+    id            BIGINT       NOT NULL PRIMARY KEY,
+    job_name      VARCHAR(100) NOT NULL,
+    shard         INTEGER,
+    shard_count   INTEGER,
+    node          VARCHAR(255) NOT NULL,
+    started_at    TIMESTAMP(6) NOT NULL,
+    finished_at   TIMESTAMP(6) NOT NULL,
+    duration_ms   BIGINT       NOT NULL,
+    rows_affected BIGINT       NOT NULL,
+    status        VARCHAR(20)  NOT NULL,
+    error         VARCHAR(1000)
+);
+
+CREATE INDEX idx_job_runs_job_started ON job_runs (job_name, started_at DESC);
+CREATE INDEX idx_job_runs_started ON job_runs (started_at);
@@ -0,0 +1,95 @@
+package tr.com.eaaslan.library.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tr.com.eaaslan.library.model.UserRole;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.UserRepository;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LibraryBusinessHealthIndicatorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private LibraryBusinessHealthIndicator indicator;
+
+    @BeforeEach
+    void setUp() {
+        indicator = new LibraryBusinessHealthIndicator(jdbcTemplate, userRepository, bookRepository, Duration.ofMinutes(5));
+    }
+
+    @Test
+    @DisplayName("Should answer probes from the snapshot without querying")
+    void shouldServeSnapshot() {
+        when(bookRepository.existsByIdNotNull()).thenReturn(true);
+        when(userRepository.existsByRole(UserRole.ADMIN)).thenReturn(true);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString())).thenReturn(42L);
+        indicator.refresh();
+
+        Health first = indicator.health();
+        Health second = indicator.health();
+
+        assertEquals(Status.UP, first.getStatus());
+        assertEquals(true, first.getDetails().get("system_ready"));
+        assertEquals(42L, first.getDetails().get("approximate_books"));
+        assertEquals(false, second.getDetails().get("stale"));
+        verify(bookRepository, times(1)).existsByIdNotNull();
+        verify(jdbcTemplate, times(3)).queryForObject(anyString(), eq(Long.class), anyString());
+        verify(userRepository, never()).count();
+    }
+
+    @Test
+    @DisplayName("Should stay up without books and without row estimates")
+    void shouldReportEmptyLibrary() {
+        when(bookRepository.existsByIdNotNull()).thenReturn(false);
+        when(userRepository.existsByRole(UserRole.ADMIN)).thenReturn(true);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString()))
+                .thenThrow(new BadSqlGrammarException("estimate", "SELECT", new SQLException("pg_class")));
+
+        indicator.refresh();
+        indicator.refresh();
+
+        Health health = indicator.health();
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(false, health.getDetails().get("system_ready"));
+        assertFalse(health.getDetails().containsKey("approximate_books"));
+        // Not asked again after the first failure
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class), anyString());
+    }
+
+    @Test
+    @DisplayName("Should report down when the refresh fails")
+    void shouldReportFailedRefresh() {
+        assertEquals(Status.UNKNOWN, indicator.health().getStatus());
+        when(bookRepository.existsByIdNotNull()).thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        indicator.refresh();
+
+        Health health = indicator.health();
+        assertEquals(Status.DOWN, health.getStatus());
+        assertTrue(health.getDetails().get("error").toString().contains("connection refused"));
+    }
+}
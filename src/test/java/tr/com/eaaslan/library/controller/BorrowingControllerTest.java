@@ -15,8 +15,12 @@ import tr.com.eaaslan.library.model.BorrowingStatus;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingCreateRequest;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingResponse;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingReturnRequest;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkItemResult;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkOperationResponse;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkReturnRequest;
 import tr.com.eaaslan.library.security.SecurityService;
 import tr.com.eaaslan.library.service.BorrowingService;
+import tr.com.eaaslan.library.service.BulkBorrowingService;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -48,6 +52,9 @@ class BorrowingControllerTest extends AbstractControllerTest {
 
     private SecurityService securityService;
 
+    @MockitoBean
+    private BulkBorrowingService bulkBorrowingService;
+
     @Test
     @DisplayName("Should create a new borrowing successfully")
     void shouldCreateNewBorrowing() throws Exception {
@@ -180,4 +187,44 @@ class BorrowingControllerTest extends AbstractControllerTest {
                 .andExpect(jsonPath("$.status", is("RETURNED")))
                 .andExpect(jsonPath("$.returnDate").exists());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should return several books and report each borrowing")
+    void shouldReturnBooksInBulk() throws Exception {
+
+        BulkReturnRequest request = new BulkReturnRequest(List.of(1L, 2L), LocalDate.now());
+
+        BorrowingResponse returned = new BorrowingResponse(
+                1L, 1L, "user@example.com", "User Name",
+                1L, "Book Title", "1234567890",
+                LocalDate.now().minusDays(14), LocalDate.now(), LocalDate.now(),
+                BorrowingStatus.RETURNED.name(), false, LocalDateTime.now(), "system"
+        );
+
+        when(bulkBorrowingService.returnBooks(any(), anyString())).thenReturn(BulkOperationResponse.of(List.of(
+                BulkItemResult.succeeded(1L, returned),
+                BulkItemResult.failed(2L, "Book has already been returned for borrowing ID: 2"))));
+
+        mockMvc.perform(put("/api/v1/borrowings/bulk/return")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested", is(2)))
+                .andExpect(jsonPath("$.succeeded", is(1)))
+                .andExpect(jsonPath("$.results[0].borrowing.status", is("RETURNED")))
+                .andExpect(jsonPath("$.results[1].success", is(false)));
+    }
+
+    @Test
+    @DisplayName("Should reject an empty bulk return")
+    void shouldRejectEmptyBulkReturn() throws Exception {
+
+        mockMvc.perform(put("/api/v1/borrowings/bulk/return")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BulkReturnRequest(List.of(), null))))
+                .andExpect(status().isBadRequest());
+    }
+}
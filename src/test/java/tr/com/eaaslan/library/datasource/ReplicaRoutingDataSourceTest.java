@@ -0,0 +1,145 @@
+package tr.com.eaaslan.library.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes between two in-memory H2 databases, each knowing whether it is the primary or the replica.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final String PATRON = "patron@example.com";
+
+    private SimpleMeterRegistry registry;
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ReplicaSet replicaSet;
+    private ReadYourWrites readYourWrites;
+    private JdbcTemplate routed;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        LibraryMetrics libraryMetrics = new LibraryMetrics(registry);
+        DataSource primaryDataSource = database("primary");
+        DataSource replicaDataSource = database("replica");
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        // Stands in for the replication lag a standby would report
+        replica.execute("CREATE TABLE replication (lag_seconds DOUBLE PRECISION)");
+        replica.update("INSERT INTO replication VALUES (0)");
+
+        replicaSet = new ReplicaSet(Map.of("replica-1", replicaDataSource), "SELECT lag_seconds FROM replication",
+                Duration.ofSeconds(5), libraryMetrics);
+        readYourWrites = new ReadYourWrites(true, Duration.ofSeconds(5));
+        DataSource routing = ReplicaRoutingDataSource.create(primaryDataSource, replicaSet, readYourWrites,
+                libraryMetrics);
+
+        routed = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        SecurityContextHolder.clearContext();
+        replicaSet.close();
+        primary.execute("SHUTDOWN");
+        replica.execute("SHUTDOWN");
+    }
+
+    @Test
+    @DisplayName("Should send read-write transactions and work outside transactions to the primary")
+    void shouldWriteToPrimary() {
+        replicaSet.checkLag();
+
+        assertEquals("primary", readWrite.execute(status -> node()));
+        assertEquals("primary", node());
+    }
+
+    @Test
+    @DisplayName("Should read from the replica once it is known to be within the maximum lag")
+    void shouldReadFromCheckedReplica() {
+        assertEquals("primary", readOnly.execute(status -> node()));
+
+        replicaSet.checkLag();
+
+        assertEquals("replica", readOnly.execute(status -> node()));
+        assertEquals(1, registry.get("library.datasource.reads").tag("route", "replica").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should read from the primary while the replica is behind")
+    void shouldFallBackWhileReplicaIsBehind() {
+        replica.update("UPDATE replication SET lag_seconds = 30");
+        replicaSet.checkLag();
+
+        assertEquals("primary", readOnly.execute(status -> node()));
+        assertEquals(30, registry.get("library.datasource.replica.lag").gauge().value());
+
+        replica.update("UPDATE replication SET lag_seconds = 1");
+        replicaSet.checkLag();
+
+        assertEquals("replica", readOnly.execute(status -> node()));
+        assertEquals(1, registry.get("library.datasource.reads").tag("route", "replicas-behind").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should check the lag on a thread of its own once started")
+    void shouldCheckLagOnItsOwnThread() throws InterruptedException {
+        replicaSet.startLagChecks(Duration.ofMillis(10));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!"replica".equals(readOnly.execute(status -> node())) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("replica", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    @DisplayName("Should read a patron's own writes from the primary")
+    void shouldReadOwnWritesFromPrimary() {
+        replicaSet.checkLag();
+        readYourWrites.recordWrite(PATRON);
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(PATRON, null));
+        assertEquals("primary", readOnly.execute(status -> node()));
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("other@example.com", null));
+        assertEquals("replica", readOnly.execute(status -> node()));
+    }
+
+    private String node() {
+        return routed.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static DataSource database(String node) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + node + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(16))");
+        jdbcTemplate.update("INSERT INTO node VALUES (?)", node);
+        return dataSource;
+    }
+}
@@ -0,0 +1,96 @@
+package tr.com.eaaslan.library.limit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    @DisplayName("Should reject requests over the limit until one is released")
+    void shouldRejectAtLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, Duration.ofSeconds(1), 0.5);
+
+        long first = limiter.tryAcquire();
+        assertTrue(first >= 0);
+        assertTrue(limiter.tryAcquire() >= 0);
+        assertEquals(-1, limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release(first, false);
+        assertTrue(limiter.tryAcquire() >= 0);
+    }
+
+    @Test
+    @DisplayName("Should raise the limit while a well-used limit answers fast, up to the maximum")
+    void shouldIncreaseWhenFast() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 4, Duration.ofSeconds(1), 0.5);
+
+        for (int round = 0; round < 50; round++) {
+            int limit = limiter.getLimit();
+            long[] starts = new long[limit];
+            for (int i = 0; i < limit; i++) {
+                starts[i] = limiter.tryAcquire();
+            }
+            for (long start : starts) {
+                limiter.release(start, false);
+            }
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should not raise the limit while most of it is unused")
+    void shouldNotIncreaseWhenIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, Duration.ofSeconds(1), 0.5);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.release(limiter.tryAcquire(), false);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should lower the limit once per round of requests that failed together")
+    void shouldDecreaseOncePerRound() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 10, Duration.ofSeconds(1), 0.5);
+        long first = limiter.tryAcquire();
+        long second = limiter.tryAcquire();
+
+        limiter.release(first, true);
+        limiter.release(second, true);
+        assertEquals(5, limiter.getLimit());
+
+        limiter.release(limiter.tryAcquire(), true);
+        assertEquals(2, limiter.getLimit());
+        limiter.release(limiter.tryAcquire(), true);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should lower the limit when a request exceeds the latency threshold")
+    void shouldDecreaseWhenSlow() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 10, Duration.ofMillis(1), 0.5);
+
+        long start = limiter.tryAcquire();
+        Thread.sleep(10);
+        limiter.release(start, false);
+
+        assertEquals(5, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should reject inconsistent settings")
+    void shouldValidateSettings() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimiter(1, 2, 10, Duration.ofSeconds(1), 0.5));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimiter(2, 1, 10, Duration.ofSeconds(1), 1.0));
+    }
+}
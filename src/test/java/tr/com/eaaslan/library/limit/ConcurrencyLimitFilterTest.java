@@ -0,0 +1,61 @@
+package tr.com.eaaslan.library.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.LimitedEndpoint;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private SimpleMeterRegistry registry;
+    private AdaptiveConcurrencyLimiter limiter;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        limiter = new AdaptiveConcurrencyLimiter(1, 1, 10, Duration.ofSeconds(1), 0.5);
+        filter = new ConcurrencyLimitFilter(limiter, LimitedEndpoint.BORROWINGS, new LibraryMetrics(registry),
+                Duration.ofSeconds(2));
+    }
+
+    @Test
+    @DisplayName("Should answer 503 with Retry-After when the limit is reached")
+    void shouldRejectAtLimit() throws Exception {
+        limiter.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/borrowings"), response, chain);
+
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertNull(chain.getRequest());
+        assertEquals(1, registry.get("library.concurrency.rejected").tag("endpoint", "borrowings").counter().count());
+        assertEquals(1, registry.get("library.concurrency.in-flight").tag("endpoint", "borrowings").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should pass writes under the limit and reads at any time")
+    void shouldPassAdmittedRequests() throws Exception {
+        MockFilterChain write = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/borrowings"), new MockHttpServletResponse(), write);
+        assertNotNull(write.getRequest());
+        assertEquals(0, limiter.getInFlight());
+
+        limiter.tryAcquire();
+        MockFilterChain read = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/borrowings"), new MockHttpServletResponse(), read);
+        assertNotNull(read.getRequest());
+    }
+}
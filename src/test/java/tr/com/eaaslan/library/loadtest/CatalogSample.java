@@ -0,0 +1,58 @@
+package tr.com.eaaslan.library.loadtest;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The books virtual users pick from: the popular list first, then random catalogue pages. Picks follow a Zipf
+ * distribution over that order, so the popular books get most of the traffic, as in the generated history.
+ */
+final class CatalogSample {
+
+    private final List<Book> books;
+    private final int pages;
+    private final double[] cumulative;
+
+    record Book(long id, String title, String author) {
+    }
+
+    /**
+     * @param pages the number of 20-book pages in the catalogue
+     */
+    CatalogSample(List<Book> books, int pages, double zipfExponent) {
+        if (books.isEmpty()) {
+            throw new IllegalStateException("The catalogue is empty; start the server with the loadtest profile first");
+        }
+        this.books = books;
+        this.pages = pages;
+        this.cumulative = new double[books.size()];
+        double sum = 0;
+        for (int i = 0; i < books.size(); i++) {
+            sum += 1.0 / Math.pow(i + 1, zipfExponent);
+            cumulative[i] = sum;
+        }
+    }
+
+    Book pick(Random random) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulative[middle] < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return books.get(low);
+    }
+
+    int pages() {
+        return pages;
+    }
+
+    int size() {
+        return books.size();
+    }
+}
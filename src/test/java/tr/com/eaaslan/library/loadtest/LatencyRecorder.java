@@ -0,0 +1,78 @@
+package tr.com.eaaslan.library.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies per endpoint, kept as raw samples so percentiles are exact. A five minute run at a few thousand
+ * requests per second stays well below a hundred megabytes. Thread-safe.
+ */
+final class LatencyRecorder {
+
+    private final Map<String, Samples> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * @param status the HTTP status, or -1 when the request failed without a response
+     */
+    void record(String endpoint, long nanos, int status) {
+        endpoints.computeIfAbsent(endpoint, name -> new Samples()).add(TimeUnit.NANOSECONDS.toMicros(nanos), status);
+    }
+
+    List<Summary> summarize(Duration elapsed) {
+        double seconds = Math.max(elapsed.toMillis() / 1000.0, 0.001);
+        return endpoints.entrySet().stream()
+                .map(entry -> entry.getValue().summarize(entry.getKey(), seconds))
+                .sorted(Comparator.comparing(Summary::endpoint))
+                .toList();
+    }
+
+    /**
+     * One endpoint's results; rejected counts 4xx answers such as a checkout over the borrow limit, errors
+     * count 5xx answers and failed requests. Latencies are in milliseconds.
+     */
+    record Summary(String endpoint, int requests, int rejected, int errors, double throughput,
+                   double p50, double p90, double p95, double p99, double max) {
+    }
+
+    private static final class Samples {
+
+        private long[] micros = new long[1024];
+        private int count;
+        private int rejected;
+        private int errors;
+
+        synchronized void add(long latencyMicros, int status) {
+            if (count == micros.length) {
+                micros = Arrays.copyOf(micros, count * 2);
+            }
+            micros[count++] = latencyMicros;
+            if (status < 0 || status >= 500) {
+                errors++;
+            } else if (status >= 400) {
+                rejected++;
+            }
+        }
+
+        synchronized Summary summarize(String endpoint, double seconds) {
+            long[] sorted = Arrays.copyOf(micros, count);
+            Arrays.sort(sorted);
+            return new Summary(endpoint, count, rejected, errors, count / seconds,
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 95), percentile(sorted, 99),
+                    sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1000.0);
+        }
+
+        // Nearest-rank percentile
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            return sorted[Math.max(rank - 1, 0)] / 1000.0;
+        }
+    }
+}
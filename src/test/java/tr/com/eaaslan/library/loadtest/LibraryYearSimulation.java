@@ -0,0 +1,520 @@
+package tr.com.eaaslan.library.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import tr.com.eaaslan.library.exception.InvalidUserStatusException;
+import tr.com.eaaslan.library.exception.LibraryException;
+import tr.com.eaaslan.library.model.Book;
+import tr.com.eaaslan.library.model.Genre;
+import tr.com.eaaslan.library.model.User;
+import tr.com.eaaslan.library.model.UserRole;
+import tr.com.eaaslan.library.model.UserStatus;
+import tr.com.eaaslan.library.model.dto.borrowing.BorrowingCreateRequest;
+import tr.com.eaaslan.library.model.dto.borrowing.BorrowingResponse;
+import tr.com.eaaslan.library.model.dto.borrowing.BorrowingReturnRequest;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.UserRepository;
+import tr.com.eaaslan.library.service.AccountMaintenanceService;
+import tr.com.eaaslan.library.service.BorrowingArchiveService;
+import tr.com.eaaslan.library.service.BorrowingServiceImpl;
+import tr.com.eaaslan.library.service.JobRunner;
+import tr.com.eaaslan.library.service.PenaltyService;
+import tr.com.eaaslan.library.util.DataInitializer;
+import tr.com.eaaslan.library.util.DummyDataInitializer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays a year of library activity against PostgreSQL in minutes. The application clock is replaced by a
+ * {@link SimulatedClock}, which the simulation moves through every checkout and return of a day and then
+ * through the nightly jobs (overdue sweep, late penalties, suspension expiry, weekly inactive account check
+ * and archival), each called at its scheduled time. Traffic is single threaded and drawn from a seeded random,
+ * so two runs with the same options do the same work.
+ * <p>
+ * Reports how the tables grow month by month, how long each nightly job takes as history accumulates, and
+ * service latencies per hour of the day and per month in the peak hour. Not picked up by the default surefire
+ * includes; run it explicitly, with options as system properties:
+ * <pre>
+ * mvn test -Dtest=LibraryYearSimulation -Dsurefire.failIfNoSpecifiedTests=false -Dsimulation.days=365
+ * </pre>
+ * Options, all {@code simulation.*}: {@code start}, {@code days}, {@code warm-up-days} (traffic without jobs
+ * before the measured period, so every patron has borrowed once), {@code patrons}, {@code new-patrons-per-day},
+ * {@code books}, {@code borrows-per-day} (mean), {@code zipf-exponent}, {@code seasonal-amplitude},
+ * {@code peak-month}, {@code late-return-rate}, {@code seed}, {@code report}.
+ * <p>
+ * The fixed-delay tasks (statistics flush, hold sweep, recommendation updates) keep running on wall-clock time
+ * in the background; they do not change the outcome of any loan.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.show-sql=false",
+        "app.borrowing.archive.manage-partitions=true",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+        "logging.level.tr.com.eaaslan.library=WARN"})
+@ActiveProfiles("test-container")
+@Testcontainers
+class LibraryYearSimulation {
+
+    private static final Options OPTIONS = Options.fromSystemProperties();
+
+    // Checkouts per opening hour, 9:00 to 19:00; the after-work hour is the busiest
+    private static final int OPENING_HOUR = 9;
+    private static final double[] HOURLY_WEIGHTS = {4, 6, 7, 9, 8, 7, 8, 10, 14, 12, 6};
+    private static final int PEAK_HOUR = OPENING_HOUR + indexOfMax(HOURLY_WEIGHTS);
+    private static final Distribution HOURLY = new Distribution(HOURLY_WEIGHTS);
+
+    private static final List<String> TABLES = List.of("borrowing", "borrowing_archive", "users", "books",
+            "daily_loan_statistics", "book_loan_statistics", "job_runs");
+    private static final Genre[] GENRES = Genre.values();
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("simulationdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void databaseProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+    }
+
+    @TestConfiguration
+    static class SimulatedClockConfig {
+
+        @Bean
+        @Primary
+        SimulatedClock simulatedClock() {
+            return new SimulatedClock(OPTIONS.start().minusDays(OPTIONS.warmUpDays()).atStartOfDay(),
+                    ZoneId.systemDefault());
+        }
+    }
+
+    // The simulation seeds its own population, so that runs are repeatable
+    @MockitoBean
+    private DataInitializer dataInitializer;
+
+    @MockitoBean
+    private DummyDataInitializer dummyDataInitializer;
+
+    @Autowired
+    private SimulatedClock clock;
+
+    @Autowired
+    private BorrowingServiceImpl borrowingService;
+
+    @Autowired
+    private PenaltyService penaltyService;
+
+    @Autowired
+    private AccountMaintenanceService accountMaintenanceService;
+
+    @Autowired
+    private BorrowingArchiveService borrowingArchiveService;
+
+    @Autowired
+    private JobRunner jobRunner;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(OPTIONS.seed());
+    private final List<Long> bookIds = new ArrayList<>();
+    private final List<String> patrons = new ArrayList<>();
+    // Patrons who have not borrowed yet come first, as a new member does on the day they join
+    private final Deque<String> firstVisits = new ArrayDeque<>();
+    private final TreeMap<LocalDate, List<Loan>> returnsDue = new TreeMap<>();
+    private final Map<String, Integer> outcomes = new TreeMap<>();
+    private final Map<String, Map<YearMonth, List<Long>>> jobMillis = new LinkedHashMap<>();
+    private final List<Snapshot> growth = new ArrayList<>();
+    private final LatencyRecorder latencyByHour = new LatencyRecorder();
+    private final LatencyRecorder peakHourByMonth = new LatencyRecorder();
+    private Distribution popularity;
+    private int registered;
+    private boolean measuring;
+
+    private record Loan(long id, String email) {
+    }
+
+    private record Visit(LocalDateTime time, Loan loan) {
+    }
+
+    @Test
+    void simulateYear() throws IOException {
+        Instant started = Instant.now();
+        seedCatalog();
+        register(OPTIONS.patrons());
+
+        LocalDate end = OPTIONS.start().plusDays(OPTIONS.days());
+        for (LocalDate date = OPTIONS.start().minusDays(OPTIONS.warmUpDays()); date.isBefore(end);
+             date = date.plusDays(1)) {
+            measuring = !date.isBefore(OPTIONS.start());
+            if (measuring) {
+                runNightlyJobs(date);
+                if (date.equals(OPTIONS.start()) || date.getDayOfMonth() == 1) {
+                    growth.add(snapshot(date));
+                }
+                clock.set(date.atTime(8, 0));
+                register(OPTIONS.newPatronsPerDay());
+            }
+            openLibrary(date);
+        }
+        clock.set(end.atStartOfDay());
+        growth.add(snapshot(end));
+
+        report(Duration.between(started, Instant.now()));
+        assertTrue(outcomes.getOrDefault("borrowed", 0) > 0, "No checkout succeeded");
+    }
+
+    private void seedCatalog() {
+        List<Book> books = new ArrayList<>(OPTIONS.books());
+        for (int i = 1; i <= OPTIONS.books(); i++) {
+            books.add(Book.builder()
+                    .isbn(String.format("979%010d", i))
+                    .title("Simulated Book " + i)
+                    .author("Author " + i % 997)
+                    .publicationYear(Year.of(1950 + i % 75))
+                    .publisher("Publisher " + i % 53)
+                    .genre(GENRES[i % GENRES.length])
+                    .available(true)
+                    .quantity(1 + random.nextInt(4))
+                    .build());
+        }
+        bookRepository.saveAll(books).forEach(book -> bookIds.add(book.getId()));
+
+        // Ids are in insertion order, so the lowest ids are the most popular books
+        double[] weights = new double[bookIds.size()];
+        for (int rank = 0; rank < weights.length; rank++) {
+            weights[rank] = 1 / Math.pow(rank + 1, OPTIONS.zipfExponent());
+        }
+        popularity = new Distribution(weights);
+    }
+
+    private void register(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int number = ++registered;
+            users.add(User.builder()
+                    .email("patron" + number + "@simulation.library.com")
+                    .password("not-used-for-login")
+                    .firstName("Patron")
+                    .lastName("Number " + number)
+                    .phoneNumber(String.format("05%09d", number))
+                    .role(UserRole.PATRON)
+                    .status(UserStatus.ACTIVE)
+                    .build());
+        }
+        userRepository.saveAll(users).forEach(user -> {
+            patrons.add(user.getEmail());
+            firstVisits.add(user.getEmail());
+        });
+    }
+
+    // Jobs in the order and at the times of their cron expressions
+    private void runNightlyJobs(LocalDate date) {
+        job(date, LocalTime.of(0, 15), "overdue-loans", borrowingService::runOverdueStatusUpdate);
+        job(date, LocalTime.of(0, 30), "job-history-purge", jobRunner::purgeHistory);
+        job(date, LocalTime.of(1, 0), "late-penalties", penaltyService::runLatePenalties);
+        job(date, LocalTime.of(2, 0), "suspension-expirations", penaltyService::runSuspensionExpirations);
+        if (date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            job(date, LocalTime.of(3, 0), "inactive-accounts", accountMaintenanceService::runInactiveAccountsCheck);
+        }
+        job(date, LocalTime.of(3, 30), "borrowing-archive", borrowingArchiveService::archiveReturnedBorrowings);
+    }
+
+    private void job(LocalDate date, LocalTime time, String name, Runnable job) {
+        clock.set(date.atTime(time));
+        long start = System.nanoTime();
+        job.run();
+        jobMillis.computeIfAbsent(name, key -> new TreeMap<>())
+                .computeIfAbsent(YearMonth.from(date), key -> new ArrayList<>())
+                .add((System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void openLibrary(LocalDate date) {
+        List<Visit> visits = new ArrayList<>();
+        for (int i = borrowsOn(date); i > 0; i--) {
+            visits.add(new Visit(timeOfDay(date), null));
+        }
+        for (Loan loan : returnsDue.getOrDefault(date, List.of())) {
+            visits.add(new Visit(timeOfDay(date), loan));
+        }
+        returnsDue.remove(date);
+        visits.sort(Comparator.comparing(Visit::time));
+
+        for (Visit visit : visits) {
+            clock.set(visit.time());
+            if (visit.loan() == null) {
+                borrow(visit.time());
+            } else {
+                giveBack(visit.loan(), visit.time());
+            }
+        }
+    }
+
+    private void borrow(LocalDateTime time) {
+        if (patrons.isEmpty()) {
+            return;
+        }
+        String email = firstVisits.isEmpty() ? patrons.get(random.nextInt(patrons.size())) : firstVisits.poll();
+        long bookId = bookIds.get(popularity.sample(random));
+
+        long start = System.nanoTime();
+        int status = 200;
+        String outcome = "borrowed";
+        try {
+            BorrowingResponse loan = borrowingService.borrowBook(new BorrowingCreateRequest(bookId, null, null), email);
+            scheduleReturn(loan);
+        } catch (InvalidUserStatusException e) {
+            // Deleted for inactivity; the patron does not come back
+            patrons.remove(email);
+            status = e.getHttpStatus().value();
+            outcome = "borrow rejected: " + e.getClass().getSimpleName();
+        } catch (LibraryException e) {
+            status = e.getHttpStatus().value();
+            outcome = "borrow rejected: " + e.getClass().getSimpleName();
+        } catch (RuntimeException e) {
+            status = 500;
+            outcome = "borrow failed: " + e.getClass().getSimpleName();
+        }
+        record("borrow", time, System.nanoTime() - start, status, outcome);
+    }
+
+    private void giveBack(Loan loan, LocalDateTime time) {
+        long start = System.nanoTime();
+        int status = 200;
+        String outcome = "returned";
+        try {
+            borrowingService.returnBook(loan.id(), new BorrowingReturnRequest(null), loan.email());
+        } catch (LibraryException e) {
+            // Closed by the inactive account check, or the patron is gone
+            status = e.getHttpStatus().value();
+            outcome = "return rejected: " + e.getClass().getSimpleName();
+        } catch (RuntimeException e) {
+            status = 500;
+            outcome = "return failed: " + e.getClass().getSimpleName();
+        }
+        record("return", time, System.nanoTime() - start, status, outcome);
+    }
+
+    private void record(String operation, LocalDateTime time, long nanos, int status, String outcome) {
+        if (!measuring) {
+            return;
+        }
+        outcomes.merge(outcome, 1, Integer::sum);
+        latencyByHour.record(String.format("%s %02d:00", operation, time.getHour()), nanos, status);
+        if (time.getHour() == PEAK_HOUR) {
+            peakHourByMonth.record(operation + " " + YearMonth.from(time), nanos, status);
+        }
+    }
+
+    // Most loans come back within the loan period; late ones up to three weeks after the due date
+    private void scheduleReturn(BorrowingResponse loan) {
+        LocalDate returnDate = random.nextDouble() < OPTIONS.lateReturnRate()
+                ? loan.dueDate().plusDays(1 + random.nextInt(21))
+                : loan.borrowDate().plusDays(1 + random.nextInt(
+                (int) ChronoUnit.DAYS.between(loan.borrowDate(), loan.dueDate())));
+        returnsDue.computeIfAbsent(returnDate, date -> new ArrayList<>()).add(new Loan(loan.id(), loan.userEmail()));
+    }
+
+    // Poisson-like around the seasonal mean, quieter at weekends
+    private int borrowsOn(LocalDate date) {
+        double season = 1 + OPTIONS.seasonalAmplitude() * Math.cos(2 * Math.PI
+                * (date.getDayOfYear() - OPTIONS.peakMonth().firstDayOfYear(date.isLeapYear()) - 15) / 365.0);
+        boolean weekend = date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+        double mean = OPTIONS.borrowsPerDay() * season * (weekend ? 0.6 : 1.0);
+        return (int) Math.max(0, Math.round(mean + random.nextGaussian() * Math.sqrt(mean)));
+    }
+
+    private LocalDateTime timeOfDay(LocalDate date) {
+        return date.atTime(OPENING_HOUR + HOURLY.sample(random), random.nextInt(60), random.nextInt(60));
+    }
+
+    // Partitioned tables are summed over their partitions; pg_partition_tree returns a plain table by itself
+    private Snapshot snapshot(LocalDate date) {
+        Map<String, Long> rows = new LinkedHashMap<>();
+        Map<String, Long> bytes = new LinkedHashMap<>();
+        for (String table : TABLES) {
+            rows.put(table, jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class));
+            bytes.put(table, jdbcTemplate.queryForObject(
+                    "SELECT coalesce(sum(pg_total_relation_size(relid)), 0) FROM pg_partition_tree(?::regclass)",
+                    Long.class, table));
+        }
+        Long database = jdbcTemplate.queryForObject("SELECT pg_database_size(current_database())", Long.class);
+        return new Snapshot(date.toString(), rows, bytes, database);
+    }
+
+    private record Snapshot(String date, Map<String, Long> rows, Map<String, Long> bytes, long databaseBytes) {
+    }
+
+    private record JobMonth(String job, String month, int runs, long p50Ms, long maxMs) {
+    }
+
+    private void report(Duration elapsed) throws IOException {
+        System.out.printf("%nSimulated %d days (after %d warm-up days) in %s%n", OPTIONS.days(), OPTIONS.warmUpDays(),
+                elapsed.truncatedTo(ChronoUnit.SECONDS));
+        outcomes.forEach((outcome, count) -> System.out.printf("  %-60s %9d%n", outcome, count));
+
+        System.out.printf("%n%-12s %22s %22s %12s %12s %10s%n", "Date", "borrowing rows / MB",
+                "archive rows / MB", "users", "job_runs", "DB MB");
+        for (Snapshot snapshot : growth) {
+            System.out.printf(Locale.ROOT, "%-12s %12d / %7.1f %12d / %7.1f %12d %12d %10.1f%n", snapshot.date(),
+                    snapshot.rows().get("borrowing"), megabytes(snapshot.bytes().get("borrowing")),
+                    snapshot.rows().get("borrowing_archive"), megabytes(snapshot.bytes().get("borrowing_archive")),
+                    snapshot.rows().get("users"), snapshot.rows().get("job_runs"), megabytes(snapshot.databaseBytes()));
+        }
+
+        List<JobMonth> jobs = new ArrayList<>();
+        jobMillis.forEach((job, months) -> months.forEach((month, millis) -> {
+            long[] sorted = millis.stream().mapToLong(Long::longValue).sorted().toArray();
+            jobs.add(new JobMonth(job, month.toString(), sorted.length, sorted[(sorted.length - 1) / 2],
+                    sorted[sorted.length - 1]));
+        }));
+        System.out.printf("%n%-24s %-8s %6s %10s %10s%n", "Job", "Month", "Runs", "p50 ms", "max ms");
+        jobs.forEach(job -> System.out.printf("%-24s %-8s %6d %10d %10d%n",
+                job.job(), job.month(), job.runs(), job.p50Ms(), job.maxMs()));
+
+        List<LatencyRecorder.Summary> byHour = latencyByHour.summarize(elapsed);
+        List<LatencyRecorder.Summary> peakByMonth = peakHourByMonth.summarize(elapsed);
+        printLatencies("Latency by hour of day", byHour);
+        printLatencies("Latency in the peak hour (" + PEAK_HOUR + ":00) by month", peakByMonth);
+
+        Path report = Path.of(OPTIONS.report());
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("options", OPTIONS);
+        json.put("outcomes", outcomes);
+        json.put("growth", growth);
+        json.put("jobs", jobs);
+        json.put("latencyByHour", byHour);
+        json.put("peakHourLatencyByMonth", peakByMonth);
+        new ObjectMapper().findAndRegisterModules().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(report.toFile(), json);
+        System.out.println("\nReport written to " + report.toAbsolutePath());
+    }
+
+    private static void printLatencies(String title, List<LatencyRecorder.Summary> summaries) {
+        System.out.printf("%n%s%n%-20s %9s %8s %7s %9s %9s %9s %9s%n", title, "Operation", "Calls", "Rejected",
+                "Errors", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (LatencyRecorder.Summary summary : summaries) {
+            System.out.printf(Locale.ROOT, "%-20s %9d %8d %7d %9.1f %9.1f %9.1f %9.1f%n", summary.endpoint(),
+                    summary.requests(), summary.rejected(), summary.errors(), summary.p50(), summary.p95(),
+                    summary.p99(), summary.max());
+        }
+    }
+
+    private static double megabytes(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+
+    private static int indexOfMax(double[] values) {
+        int max = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[max]) {
+                max = i;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Draws indexes with probability proportional to their weights, by binary search over the cumulative sums.
+     */
+    private static final class Distribution {
+
+        private final double[] cumulative;
+
+        Distribution(double[] weights) {
+            cumulative = new double[weights.length];
+            double sum = 0;
+            for (int i = 0; i < weights.length; i++) {
+                sum += weights[i];
+                cumulative[i] = sum;
+            }
+        }
+
+        int sample(Random random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int index = Arrays.binarySearch(cumulative, target);
+            return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+        }
+    }
+
+    private record Options(LocalDate start, int days, int warmUpDays, int patrons, int newPatronsPerDay, int books,
+                           double borrowsPerDay, double zipfExponent, double seasonalAmplitude, Month peakMonth,
+                           double lateReturnRate, long seed, String report) {
+
+        static Options fromSystemProperties() {
+            return new Options(
+                    LocalDate.parse(property("start", "2025-01-01")),
+                    Integer.parseInt(property("days", "365")),
+                    Integer.parseInt(property("warm-up-days", "30")),
+                    Integer.parseInt(property("patrons", "2000")),
+                    Integer.parseInt(property("new-patrons-per-day", "5")),
+                    Integer.parseInt(property("books", "5000")),
+                    Double.parseDouble(property("borrows-per-day", "300")),
+                    Double.parseDouble(property("zipf-exponent", "1.0")),
+                    Double.parseDouble(property("seasonal-amplitude", "0.3")),
+                    Month.valueOf(property("peak-month", "OCTOBER")),
+                    Double.parseDouble(property("late-return-rate", "0.12")),
+                    Long.parseLong(property("seed", "42")),
+                    property("report", "target/simulation-report.json"));
+        }
+
+        private static String property(String name, String defaultValue) {
+            return System.getProperty("simulation." + name, defaultValue);
+        }
+    }
+}
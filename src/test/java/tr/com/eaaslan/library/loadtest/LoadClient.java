@@ -0,0 +1,94 @@
+package tr.com.eaaslan.library.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Blocking HTTP calls against the API, each timed into a {@link LatencyRecorder} under an endpoint name such as
+ * {@code GET /books/{id}}. Meant to be called from virtual threads, which park instead of holding an OS thread
+ * while waiting for the response.
+ */
+final class LoadClient {
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+    private final LatencyRecorder recorder;
+
+    LoadClient(HttpClient http, String baseUrl, Duration timeout, ObjectMapper objectMapper, LatencyRecorder recorder) {
+        this.http = http;
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.objectMapper = objectMapper;
+        this.recorder = recorder;
+    }
+
+    LoadClient withRecorder(LatencyRecorder recorder) {
+        return new LoadClient(http, baseUrl, timeout, objectMapper, recorder);
+    }
+
+    Response get(String endpoint, String path, String token) throws InterruptedException {
+        return send(endpoint, "GET", path, token, null);
+    }
+
+    Response send(String endpoint, String method, String path, String token, Object body) throws InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout);
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(toJson(body)));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            recorder.record(endpoint, System.nanoTime() - start, response.statusCode());
+            return new Response(response.statusCode(), response.body(), objectMapper);
+        } catch (IOException e) {
+            recorder.record(endpoint, System.nanoTime() - start, -1);
+            return new Response(-1, new byte[0], objectMapper);
+        }
+    }
+
+    static String encode(String pathSegment) {
+        return URLEncoder.encode(pathSegment, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    record Response(int status, byte[] body, ObjectMapper objectMapper) {
+
+        boolean successful() {
+            return status >= 200 && status < 300;
+        }
+
+        JsonNode json() {
+            try {
+                return objectMapper.readTree(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package tr.com.eaaslan.library.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import tr.com.eaaslan.library.loadtest.LoadClient.Response;
+import tr.com.eaaslan.library.loadtest.LoadScenario.VirtualUser;
+import tr.com.eaaslan.library.util.SyntheticDataGenerator;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load driver: every virtual user runs on its own virtual thread and repeats a scenario drawn from
+ * the mix, followed by a random think time, until the run ends. Latency percentiles per endpoint are printed and
+ * written as JSON.
+ * <p>
+ * Runs against a server started with the {@code loadtest} profile, whose generated accounts it logs in with:
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=tr.com.eaaslan.library.loadtest.LoadDriver \
+ *     -Dexec.args="--virtual-users=500 --duration=PT10M --mix=BROWSE:70,CHECKOUT:15,RETURNS:10,EXPORTS:5"
+ * </pre>
+ * Options, all {@code --name=value}: {@code base-url}, {@code virtual-users}, {@code duration}, {@code ramp-up},
+ * {@code think-time} (mean), {@code mix}, {@code patrons} (generated population), {@code logins} (distinct patron
+ * accounts used), {@code librarians}, {@code password}, {@code catalog-pages} (random pages sampled besides the
+ * popular list), {@code zipf-exponent}, {@code timeout}, {@code report}.
+ */
+public final class LoadDriver {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("base-url", "http://localhost:8080"),
+            Map.entry("virtual-users", "200"),
+            Map.entry("duration", "PT5M"),
+            Map.entry("ramp-up", "PT30S"),
+            Map.entry("think-time", "PT1S"),
+            Map.entry("mix", "BROWSE:70,CHECKOUT:15,RETURNS:10,EXPORTS:5"),
+            Map.entry("patrons", "1000000"),
+            Map.entry("logins", "200"),
+            Map.entry("librarians", "20"),
+            Map.entry("password", "loadtest123"),
+            Map.entry("catalog-pages", "20"),
+            Map.entry("zipf-exponent", "1.0"),
+            Map.entry("timeout", "PT60S"),
+            Map.entry("report", "target/loadtest-report.json"));
+
+    private final Map<String, String> options;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private LoadDriver(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0 || !DEFAULTS.containsKey(arg.substring(2, separator))) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of --" + DEFAULTS.keySet());
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        new LoadDriver(options).run();
+    }
+
+    private void run() throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        LoadClient setupClient = new LoadClient(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build(), options.get("base-url"), duration("timeout"), objectMapper, new LatencyRecorder());
+
+        Random random = new Random(42);
+        List<String> patronTokens = login(setupClient, SyntheticDataGenerator.PATRON_EMAIL,
+                integer("logins"), integer("patrons"), random);
+        List<String> librarianTokens = login(setupClient, SyntheticDataGenerator.LIBRARIAN_EMAIL,
+                integer("librarians"), integer("librarians"), random);
+        CatalogSample catalog = sampleCatalog(setupClient, random);
+        Map<LoadScenario, Integer> mix = mix();
+        System.out.printf("Logged in %d patrons and %d librarians, sampled %d books; starting %d virtual users%n",
+                patronTokens.size(), librarianTokens.size(), catalog.size(), integer("virtual-users"));
+
+        LoadClient client = setupClient.withRecorder(recorder);
+        Queue<Long> returnBin = new ConcurrentLinkedQueue<>();
+        AtomicInteger aborted = new AtomicInteger();
+        int virtualUsers = integer("virtual-users");
+        long rampUpNanos = duration("ramp-up").toNanos();
+        long thinkMillis = duration("think-time").toMillis();
+        Instant start = Instant.now();
+        long deadline = System.nanoTime() + duration("duration").toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < virtualUsers; i++) {
+                VirtualUser user = new VirtualUser(client, catalog, patronTokens.get(i % patronTokens.size()),
+                        librarianTokens.get(i % librarianTokens.size()), returnBin);
+                long delay = rampUpNanos * i / virtualUsers;
+                executor.submit(() -> {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                    while (System.nanoTime() < deadline) {
+                        try {
+                            pick(mix).run(user);
+                        } catch (RuntimeException e) {
+                            // An unexpected response body; the request itself is already recorded
+                            aborted.incrementAndGet();
+                        }
+                        if (thinkMillis > 0) {
+                            // Uniform around the mean think time
+                            Thread.sleep(ThreadLocalRandom.current().nextLong(2 * thinkMillis));
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+
+        report(recorder.summarize(Duration.between(start, Instant.now())));
+        if (aborted.get() > 0) {
+            System.out.printf("%d scenario iterations were aborted on unexpected responses%n", aborted.get());
+        }
+    }
+
+    private List<String> login(LoadClient client, String emailFormat, int accounts, int population, Random random)
+            throws InterruptedException {
+        Set<Integer> numbers = new LinkedHashSet<>();
+        while (numbers.size() < Math.min(accounts, population)) {
+            numbers.add(1 + random.nextInt(population));
+        }
+
+        List<String> tokens = new ArrayList<>(numbers.size());
+        for (int number : numbers) {
+            Response response = client.send("POST /auth/login", "POST", "/api/v1/auth/login", null,
+                    Map.of("email", emailFormat.formatted(number), "password", options.get("password")));
+            if (!response.successful()) {
+                throw new IllegalStateException("Login of " + emailFormat.formatted(number) + " failed with status "
+                        + response.status() + "; is the server running with the loadtest profile?");
+            }
+            tokens.add(response.json().get("token").asText());
+        }
+        return tokens;
+    }
+
+    // The popular books first, then books from random listing pages
+    private CatalogSample sampleCatalog(LoadClient client, Random random) throws InterruptedException {
+        Map<Long, CatalogSample.Book> books = new LinkedHashMap<>();
+        Response popular = client.get("GET /books/popular", "/api/v1/books/popular?window=YEAR&limit=100", null);
+        for (JsonNode entry : popular.json()) {
+            add(books, entry.get("book"));
+        }
+
+        Response first = client.get("GET /books", "/api/v1/books?page=0&size=100", null);
+        int pages = Math.max(first.json().path("totalPages").asInt(), 1);
+        for (int i = 0; i < integer("catalog-pages"); i++) {
+            Response page = client.get("GET /books", "/api/v1/books?size=100&page=" + random.nextInt(pages), null);
+            for (JsonNode book : page.json().path("content")) {
+                add(books, book);
+            }
+        }
+        return new CatalogSample(new ArrayList<>(books.values()), pages * 5, Double.parseDouble(options.get("zipf-exponent")));
+    }
+
+    private static void add(Map<Long, CatalogSample.Book> books, JsonNode book) {
+        books.putIfAbsent(book.get("id").asLong(),
+                new CatalogSample.Book(book.get("id").asLong(), book.get("title").asText(), book.get("author").asText()));
+    }
+
+    private Map<LoadScenario, Integer> mix() {
+        Map<LoadScenario, Integer> mix = new EnumMap<>(LoadScenario.class);
+        for (String entry : options.get("mix").split(",")) {
+            String[] parts = entry.split(":");
+            mix.put(LoadScenario.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+
+    private static LoadScenario pick(Map<LoadScenario, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int target = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<LoadScenario, Integer> entry : mix.entrySet()) {
+            target -= entry.getValue();
+            if (target < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty scenario mix");
+    }
+
+    private void report(List<LatencyRecorder.Summary> summaries) throws IOException {
+        System.out.printf("%n%-40s %9s %8s %7s %9s %9s %9s %9s %9s %9s%n", "Endpoint", "Requests", "Rejected",
+                "Errors", "Req/s", "p50 ms", "p90 ms", "p95 ms", "p99 ms", "max ms");
+        for (LatencyRecorder.Summary summary : summaries) {
+            System.out.printf(Locale.ROOT, "%-40s %9d %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    summary.endpoint(), summary.requests(), summary.rejected(), summary.errors(), summary.throughput(),
+                    summary.p50(), summary.p90(), summary.p95(), summary.p99(), summary.max());
+        }
+
+        Path report = Path.of(options.get("report"));
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        objectMapper.writeValue(report.toFile(), Map.of("options", options, "endpoints", summaries));
+        System.out.println("\nReport written to " + report.toAbsolutePath());
+    }
+
+    private int integer(String option) {
+        return Integer.parseInt(options.get(option));
+    }
+
+    private Duration duration(String option) {
+        return Duration.parse(options.get(option));
+    }
+}
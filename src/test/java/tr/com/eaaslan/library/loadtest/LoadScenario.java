@@ -0,0 +1,135 @@
+package tr.com.eaaslan.library.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import tr.com.eaaslan.library.loadtest.LoadClient.Response;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * What a virtual user does in one iteration. Each scenario is a short sequence of requests the way the
+ * corresponding kind of user issues them.
+ */
+enum LoadScenario {
+
+    /**
+     * A patron looking through the catalogue: a listing page, a book, a search and sometimes recommendations or
+     * the popular list.
+     */
+    BROWSE {
+        @Override
+        void run(VirtualUser user) throws InterruptedException {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            // Nobody pages deep into a listing sorted by title
+            int page = random.nextInt(Math.min(user.catalog().pages(), 50));
+            user.client().get("GET /books", "/api/v1/books?page=" + page + "&size=20", user.patronToken());
+
+            CatalogSample.Book book = user.catalog().pick(random);
+            user.client().get("GET /books/{id}", "/api/v1/books/" + book.id(), user.patronToken());
+
+            if (random.nextBoolean()) {
+                String[] words = book.title().split(" ");
+                String word = words[random.nextInt(words.length)];
+                user.client().get("GET /books/search/title/{title}",
+                        "/api/v1/books/search/title/" + LoadClient.encode(word) + "?size=10", user.patronToken());
+            } else {
+                String[] names = book.author().split(" ");
+                user.client().get("GET /books/search/author/{author}",
+                        "/api/v1/books/search/author/" + LoadClient.encode(names[names.length - 1]) + "?size=10",
+                        user.patronToken());
+            }
+            if (random.nextDouble() < 0.3) {
+                user.client().get("GET /books/{id}/recommendations",
+                        "/api/v1/books/" + book.id() + "/recommendations?limit=10", user.patronToken());
+            }
+            if (random.nextDouble() < 0.2) {
+                user.client().get("GET /books/popular", "/api/v1/books/popular?window=MONTH&limit=10", user.patronToken());
+            }
+        }
+    },
+
+    /**
+     * A patron borrowing a popular book and checking their loans. Successful checkouts go to the return bin;
+     * checkouts over the borrow limit or of an unavailable book are counted as rejected.
+     */
+    CHECKOUT {
+        @Override
+        void run(VirtualUser user) throws InterruptedException {
+            CatalogSample.Book book = user.catalog().pick(ThreadLocalRandom.current());
+            user.client().get("GET /books/{id}", "/api/v1/books/" + book.id(), user.patronToken());
+
+            Response borrowed = user.client().send("POST /borrowings", "POST", "/api/v1/borrowings",
+                    user.patronToken(), Map.of("bookId", book.id()));
+            if (borrowed.successful()) {
+                user.returnBin().add(borrowed.json().get("id").asLong());
+            }
+            user.client().get("GET /borrowings/my-borrowings", "/api/v1/borrowings/my-borrowings?size=10",
+                    user.patronToken());
+        }
+    },
+
+    /**
+     * A librarian emptying the return bin with one bulk return. With an empty bin they return overdue loans
+     * instead, which keeps patrons below their borrow limit over long runs.
+     */
+    RETURNS {
+        @Override
+        void run(VirtualUser user) throws InterruptedException {
+            List<Long> ids = new ArrayList<>(RETURN_BIN_BATCH);
+            Long id;
+            while (ids.size() < RETURN_BIN_BATCH && (id = user.returnBin().poll()) != null) {
+                ids.add(id);
+            }
+            if (ids.isEmpty()) {
+                Response overdue = user.client().get("GET /borrowings/overdue",
+                        "/api/v1/borrowings/overdue?size=" + RETURN_BIN_BATCH, user.librarianToken());
+                if (overdue.successful()) {
+                    for (JsonNode borrowing : overdue.json().path("content")) {
+                        ids.add(borrowing.get("id").asLong());
+                    }
+                }
+            }
+            if (!ids.isEmpty()) {
+                user.client().send("PUT /borrowings/bulk/return", "PUT", "/api/v1/borrowings/bulk/return",
+                        user.librarianToken(), Map.of("borrowingIds", ids));
+            }
+        }
+    },
+
+    /**
+     * A librarian pulling one of the PDF reports.
+     */
+    EXPORTS {
+        @Override
+        void run(VirtualUser user) throws InterruptedException {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            switch (random.nextInt(3)) {
+                case 0 -> user.client().get("GET /export/borrowings/overdue", "/api/v1/export/borrowings/overdue",
+                        user.librarianToken());
+                case 1 -> user.client().get("GET /export/borrowings/book/{bookId}",
+                        "/api/v1/export/borrowings/book/" + user.catalog().pick(random).id(), user.librarianToken());
+                default -> {
+                    LocalDate today = LocalDate.now();
+                    user.client().get("GET /export/borrowings/date-range",
+                            "/api/v1/export/borrowings/date-range?startDate=" + today.minusDays(7) + "&endDate=" + today,
+                            user.librarianToken());
+                }
+            }
+        }
+    };
+
+    private static final int RETURN_BIN_BATCH = 25;
+
+    abstract void run(VirtualUser user) throws InterruptedException;
+
+    /**
+     * What a virtual user works with. The return bin is shared by all of them.
+     */
+    record VirtualUser(LoadClient client, CatalogSample catalog, String patronToken, String librarianToken,
+                       Queue<Long> returnBin) {
+    }
+}
@@ -0,0 +1,49 @@
+package tr.com.eaaslan.library.loadtest;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * A clock that stands still until it is moved, replacing the application clock so a simulation decides what
+ * day and hour it is. Only ever moves forward, as the job locks and checkpoints expect.
+ */
+final class SimulatedClock extends Clock {
+
+    private final ZoneId zone;
+    private volatile Instant instant;
+
+    SimulatedClock(LocalDateTime start, ZoneId zone) {
+        this.zone = zone;
+        this.instant = start.atZone(zone).toInstant();
+    }
+
+    void set(LocalDateTime time) {
+        Instant next = time.atZone(zone).toInstant();
+        if (next.isBefore(instant)) {
+            throw new IllegalArgumentException("Cannot move the clock back from " + now() + " to " + time);
+        }
+        instant = next;
+    }
+
+    LocalDateTime now() {
+        return LocalDateTime.ofInstant(instant, zone);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    // A snapshot; callers that keep it do not see later moves
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return Clock.fixed(instant, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return instant;
+    }
+}
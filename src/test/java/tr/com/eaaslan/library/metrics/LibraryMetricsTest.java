@@ -0,0 +1,73 @@
+package tr.com.eaaslan.library.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.EventStream;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.PdfReport;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.SearchType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private LibraryMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new LibraryMetrics(registry);
+    }
+
+    @Test
+    @DisplayName("Should register the request meters up front")
+    void shouldPreRegisterMeters() {
+        assertEquals(2, registry.find("library.borrowing.borrow").timers().size());
+        assertEquals(2, registry.find("library.borrowing.return").timers().size());
+        assertEquals(SearchType.values().length, registry.find("library.book.search").timers().size());
+        assertEquals(PdfReport.values().length, registry.find("library.pdf.size").summaries().size());
+        assertEquals(3, registry.find("library.security.jwt.filter").timers().size());
+        assertNotNull(registry.find("library.pdf.export").tag("report", "date-range").timer());
+    }
+
+    @Test
+    @DisplayName("Should record into the meter of the outcome")
+    void shouldRecordByOutcome() {
+        long start = System.nanoTime();
+        metrics.recordBorrow(start, true);
+        metrics.recordBorrow(start, false);
+        metrics.recordBorrow(start, false);
+        metrics.recordPdfExport(PdfReport.OVERDUE, start, 2048);
+
+        assertEquals(1, registry.get("library.borrowing.borrow").tag("outcome", "success").timer().count());
+        assertEquals(2, registry.get("library.borrowing.borrow").tag("outcome", "failure").timer().count());
+        assertEquals(2048, registry.get("library.pdf.size").tag("report", "overdue").summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should publish stream subscribers and dropped events")
+    void shouldTrackEventStreams() {
+        AtomicInteger subscribers = new AtomicInteger(3);
+        metrics.registerSubscriberGauge(EventStream.AVAILABILITY, subscribers::get);
+        metrics.recordDroppedEvent(EventStream.HOLDS);
+
+        assertEquals(3, registry.get("library.sse.subscribers").tag("stream", "availability").gauge().value());
+        subscribers.set(1);
+        assertEquals(1, registry.get("library.sse.subscribers").tag("stream", "availability").gauge().value());
+        assertEquals(1, registry.get("library.sse.events.dropped").tag("stream", "holds").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should record job runs per job and status")
+    void shouldRecordJobRuns() {
+        metrics.recordJobRun("penalties", true, 1200, 40);
+        metrics.recordJobRun("penalties", true, 800, 2);
+
+        assertEquals(2, registry.get("library.job.duration").tags("job", "penalties", "status", "succeeded").timer().count());
+        assertEquals(42, registry.get("library.job.rows").tags("job", "penalties", "status", "succeeded").counter().count());
+    }
+}
@@ -113,13 +113,13 @@ class BorrowingTest {
                 .build();
 
         // Act & Assert
-        assertTrue(overdueBorrowing.isOverdue(),
+        assertTrue(overdueBorrowing.isOverdue(LocalDate.now()),
                 "Borrowing should be identified as overdue when due date is in the past and status is ACTIVE");
 
-        assertFalse(notOverdueBorrowing.isOverdue(),
+        assertFalse(notOverdueBorrowing.isOverdue(LocalDate.now()),
                 "Borrowing should not be identified as overdue when due date is in the future");
 
-        assertFalse(returnedBorrowing.isOverdue(),
+        assertFalse(returnedBorrowing.isOverdue(LocalDate.now()),
                 "Borrowing should not be identified as overdue when already returned, even if due date is in the past");
     }
 
@@ -137,7 +137,7 @@ class BorrowingTest {
                 .build();
 
 
-        assertFalse(borrowing.isOverdue(), "Borrowing should not be overdue when due date is in the future");
+        assertFalse(borrowing.isOverdue(LocalDate.now()), "Borrowing should not be overdue when due date is in the future");
     }
 
     @Test
@@ -154,7 +154,7 @@ class BorrowingTest {
                 .status(BorrowingStatus.RETURNED)
                 .build();
 
-        assertFalse(borrowing.isOverdue(), "Returned borrowings should not be overdue even if due date is in the past");
+        assertFalse(borrowing.isOverdue(LocalDate.now()), "Returned borrowings should not be overdue even if due date is in the past");
     }
 
     @Test
@@ -258,7 +258,7 @@ class BorrowingTest {
                 .status(status)
                 .build();
 
-        assertEquals(expectedIsOverdue, borrowing.isOverdue(),
+        assertEquals(expectedIsOverdue, borrowing.isOverdue(LocalDate.now()),
                 testName + ": incorrect overdue status");
     }
 
@@ -1,5 +1,8 @@
 package tr.com.eaaslan.library.repository;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -7,6 +10,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
@@ -18,6 +22,7 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import tr.com.eaaslan.library.config.TestJpaConfig;
+import tr.com.eaaslan.library.model.BaseEntity;
 import tr.com.eaaslan.library.model.Book;
 import tr.com.eaaslan.library.model.Genre;
 import tr.com.eaaslan.library.util.BookTestData;
@@ -25,11 +30,12 @@ import tr.com.eaaslan.library.util.BookTestData;
 import java.time.Year;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @ActiveProfiles("test")
 @Import(TestJpaConfig.class)
 class BookRepositoryTest {
@@ -37,6 +43,12 @@ class BookRepositoryTest {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size}")
+    private int batchSize;
+
     @BeforeEach
     void setUp() {
 
@@ -210,4 +222,37 @@ class BookRepositoryTest {
         );
     }
 
+    @Test
+    @DisplayName("Should batch bulk inserts using pooled sequence ids")
+    void shouldBatchBulkInsertsUsingPooledSequenceIds() {
+        int rows = 1000;
+        List<Book> books = IntStream.range(0, rows)
+                .mapToObj(i -> Book.builder()
+                        .isbn(String.format("97%011d", i))
+                        .title("Bulk Book " + i)
+                        .author("Bulk Author")
+                        .publicationYear(Year.of(2000))
+                        .publisher("Bulk Publisher")
+                        .genre(Genre.FICTION)
+                        .build())
+                .toList();
+
+        // The fixtures of setUp are still pending; flushed here so that only the bulk insert is counted
+        bookRepository.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        bookRepository.saveAll(books);
+        bookRepository.flush();
+
+        assertEquals(rows, statistics.getEntityInsertCount());
+        // IDENTITY needs one INSERT per row; pooled sequence ids allow one INSERT per JDBC batch
+        // plus one sequence call per block of ids (one more where the block of setUp runs out)
+        long maxStatements = rows / batchSize + rows / BaseEntity.ID_ALLOCATION_SIZE + 1;
+        assertTrue(statistics.getPrepareStatementCount() <= maxStatements,
+                "Inserts should be batched into at most " + maxStatements + " statements, but "
+                        + statistics.getPrepareStatementCount() + " were prepared");
+        assertTrue(books.stream().allMatch(book -> book.getId() != null));
+    }
+
 }
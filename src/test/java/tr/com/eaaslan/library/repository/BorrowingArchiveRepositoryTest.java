@@ -0,0 +1,166 @@
+package tr.com.eaaslan.library.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import tr.com.eaaslan.library.config.TestJpaConfig;
+import tr.com.eaaslan.library.model.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(TestJpaConfig.class)
+class BorrowingArchiveRepositoryTest {
+
+    @Autowired
+    private BorrowingArchiveRepository archiveRepository;
+
+    @Autowired
+    private BorrowingHistoryRepository historyRepository;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User user;
+    private Borrowing oldReturned;
+    private Borrowing recentReturned;
+    private Borrowing active;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .email("archive@library.com")
+                .password("password")
+                .firstName("Archive")
+                .lastName("User")
+                .phoneNumber("05501234569")
+                .role(UserRole.PATRON)
+                .status(UserStatus.ACTIVE)
+                .build());
+
+        Book book = bookRepository.save(Book.builder()
+                .isbn("1234567892")
+                .title("Archived Book")
+                .author("Author")
+                .publicationYear(Year.of(2020))
+                .publisher("Test Publisher")
+                .genre(Genre.FICTION)
+                .available(true)
+                .quantity(3)
+                .build());
+
+        LocalDate today = LocalDate.now();
+
+        oldReturned = borrowingRepository.save(Borrowing.builder()
+                .user(user)
+                .book(book)
+                .borrowDate(today.minusMonths(14))
+                .dueDate(today.minusMonths(14).plusDays(14))
+                .returnDate(today.minusMonths(13))
+                .returnedLate(true)
+                .status(BorrowingStatus.RETURNED)
+                .build());
+
+        recentReturned = borrowingRepository.save(Borrowing.builder()
+                .user(user)
+                .book(book)
+                .borrowDate(today.minusDays(20))
+                .dueDate(today.minusDays(6))
+                .returnDate(today.minusDays(10))
+                .status(BorrowingStatus.RETURNED)
+                .build());
+
+        active = borrowingRepository.save(Borrowing.builder()
+                .user(user)
+                .book(book)
+                .borrowDate(today.minusDays(2))
+                .dueDate(today.plusDays(12))
+                .status(BorrowingStatus.ACTIVE)
+                .build());
+
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Should only select returned borrowings older than the cutoff")
+    void shouldSelectOnlyOldReturnedBorrowings() {
+        LocalDate cutoff = LocalDate.now().minusMonths(12);
+
+        List<Long> ids = archiveRepository.findArchivableBorrowingIds(cutoff, 0, Long.MAX_VALUE,
+                PageRequest.of(0, 10));
+
+        assertEquals(List.of(oldReturned.getId()), ids);
+        assertEquals(oldReturned.getBorrowDate(), archiveRepository.findEarliestArchivableBorrowDate(cutoff));
+    }
+
+    @Test
+    @DisplayName("Should move borrowings to the archive and keep them visible in the history")
+    void shouldMoveBorrowingsToArchiveAndKeepThemInHistory() {
+        List<Long> ids = List.of(oldReturned.getId());
+
+        assertEquals(1, archiveRepository.copyFromBorrowing(ids, LocalDateTime.now()));
+        assertEquals(1, archiveRepository.deleteArchivedBorrowings(ids));
+        entityManager.clear();
+
+        assertFalse(borrowingRepository.existsById(oldReturned.getId()));
+
+        BorrowingArchive archived = archiveRepository.findById(oldReturned.getId()).orElseThrow();
+        assertEquals(user.getId(), archived.getUserId());
+        assertTrue(archived.isReturnedLate());
+        assertNotNull(archived.getArchivedAt());
+
+        Page<BorrowingHistory> history = historyRepository.findByUserId(user.getId(), PageRequest.of(0, 10));
+        assertEquals(3, history.getTotalElements());
+
+        BorrowingHistory archivedHistory = historyRepository.findById(oldReturned.getId()).orElseThrow();
+        assertEquals(BorrowingStatus.RETURNED, archivedHistory.getStatus());
+        assertEquals("Archived Book", archivedHistory.getBook().getTitle());
+
+        assertEquals(active.getBorrowDate(), historyRepository.findLatestActivityDateByUserId(user.getId()));
+    }
+
+    @Test
+    @DisplayName("Should not archive borrowings that are not returned")
+    void shouldNotArchiveUnreturnedBorrowings() {
+        List<Long> ids = List.of(active.getId(), recentReturned.getId());
+
+        assertEquals(1, archiveRepository.copyFromBorrowing(ids, LocalDateTime.now()));
+        assertEquals(1, archiveRepository.deleteArchivedBorrowings(ids));
+        entityManager.clear();
+
+        assertTrue(borrowingRepository.existsById(active.getId()));
+        assertTrue(archiveRepository.existsById(recentReturned.getId()));
+    }
+
+    @Test
+    @DisplayName("Should delete archived borrowings of a user")
+    void shouldDeleteArchivedBorrowingsOfUser() {
+        archiveRepository.copyFromBorrowing(List.of(oldReturned.getId()), LocalDateTime.now());
+        archiveRepository.deleteArchivedBorrowings(List.of(oldReturned.getId()));
+
+        assertEquals(1, archiveRepository.deleteByUserId(user.getId()));
+        assertEquals(0, archiveRepository.count());
+    }
+}
@@ -0,0 +1,174 @@
+package tr.com.eaaslan.library.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import tr.com.eaaslan.library.model.Borrowing;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the Flyway migrations against PostgreSQL and checks with EXPLAIN that the hot
+ * {@link BorrowingRepository} queries are served by the intended indexes.
+ * Sequential scans are disabled for the session so the assertion does not depend on table size.
+ * The PostgreSQL-only constraints from the migrations are exercised here as well.
+ */
+@Testcontainers
+class BorrowingQueryPlanTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("plandb")
+            .withUsername("test")
+            .withPassword("test");
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO users (id, version, created_at, created_by, updated_at, updated_by, email, password,
+                                       first_name, last_name, phone_number, role, status, deleted, max_allowed_borrows)
+                    SELECT g, 0, now(), 'test', now(), 'test', 'user' || g || '@library.com', 'password',
+                           'First', 'Last', '05' || lpad(g::text, 9, '0'), 'PATRON', 'ACTIVE', false, 3
+                    FROM generate_series(1, 200) g
+                    """);
+            statement.execute("""
+                    INSERT INTO books (id, version, created_at, created_by, updated_at, updated_by, isbn, title, author,
+                                       publication_year, publisher, genre, available, quantity)
+                    SELECT g, 0, now(), 'test', now(), 'test', lpad(g::text, 13, '0'), 'Title ' || g, 'Author',
+                           2000, 'Publisher', 'FICTION', true, 5
+                    FROM generate_series(1, 500) g
+                    """);
+            statement.execute("""
+                    -- user/book pairs repeat every 1000 rows, so only the first 1000 may hold unreturned loans
+                    INSERT INTO borrowing (id, version, created_at, created_by, updated_at, updated_by, borrow_date,
+                                           due_date, return_date, status, returned_late, book_id, user_id)
+                    SELECT g, 0, now(), 'test', now(), 'test', current_date - (g % 365),
+                           current_date - (g % 365) + 14,
+                           CASE WHEN g % 10 = 0 AND g <= 1000 THEN NULL ELSE current_date - (g % 365) + (g % 20) END,
+                           CASE WHEN g % 10 = 0 AND g <= 1000 THEN 'ACTIVE' ELSE 'RETURNED' END,
+                           g % 20 > 14, (g % 500) + 1, (g % 200) + 1
+                    FROM generate_series(1, 20000) g
+                    """);
+            statement.execute("ANALYZE");
+            statement.execute("SET enable_seqscan = off");
+        }
+    }
+
+    @AfterAll
+    static void closeConnection() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    private static Stream<Arguments> hotQueries() {
+        return Stream.of(
+                Arguments.of("countByUserIdAndStatus",
+                        "SELECT count(*) FROM borrowing WHERE user_id = 7 AND status = 'ACTIVE'",
+                        "idx_borrowing_user_status"),
+                Arguments.of("findByUserId ordered by borrow date",
+                        "SELECT * FROM borrowing WHERE user_id = 7 ORDER BY borrow_date DESC LIMIT 10",
+                        "idx_borrowing_user_borrow_date"),
+                Arguments.of("findLatestActivityDateByUserId",
+                        "SELECT max(borrow_date) FROM borrowing WHERE user_id = 7",
+                        "idx_borrowing_user_borrow_date"),
+                Arguments.of("findByBookIdAndStatus",
+                        "SELECT * FROM borrowing WHERE book_id = 42 AND status = 'ACTIVE'",
+                        "idx_borrowing_book_status"),
+                Arguments.of("findByBookIdOrderByBorrowDateDesc",
+                        "SELECT * FROM borrowing WHERE book_id = 42 ORDER BY borrow_date DESC",
+                        "idx_borrowing_book_borrow_date"),
+                Arguments.of("findByStatusOrderByDueDateAsc",
+                        "SELECT * FROM borrowing WHERE status = 'OVERDUE' ORDER BY due_date",
+                        "idx_borrowing_status_due_date"),
+                Arguments.of("overdue sweep over unreturned loans",
+                        "SELECT * FROM borrowing WHERE status IN ('ACTIVE', 'OVERDUE') AND due_date < current_date",
+                        "idx_borrowing_unreturned_due_date"),
+                Arguments.of("findByBorrowDateBetweenOrderByBorrowDateDesc",
+                        "SELECT * FROM borrowing WHERE borrow_date BETWEEN current_date - 30 AND current_date "
+                                + "ORDER BY borrow_date DESC",
+                        "idx_borrowing_borrow_date"),
+                Arguments.of("countByUserIdAndReturnedLateAndReturnDateBetween",
+                        "SELECT count(*) FROM borrowing WHERE user_id = 7 AND returned_late = true "
+                                + "AND return_date BETWEEN current_date - 30 AND current_date",
+                        "idx_borrowing_user_late_return_date"),
+                Arguments.of("findUserIdsWithLateReturnsBetween",
+                        "SELECT user_id FROM borrowing WHERE user_id IN (7, 8, 9) AND returned_late = true "
+                                + "AND return_date BETWEEN current_date - 30 AND current_date "
+                                + "GROUP BY user_id HAVING count(*) >= 3",
+                        "idx_borrowing_user_late_return_date")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    @DisplayName("Hot borrowing queries should use index scans")
+    void hotQueriesShouldUseIndexScans(String description, String sql, String expectedIndex) throws SQLException {
+        String plan = explain(sql);
+
+        assertTrue(plan.contains("Index Scan") || plan.contains("Index Only Scan") || plan.contains("Bitmap Index Scan"),
+                description + " should use an index scan, plan was:\n" + plan);
+        assertTrue(plan.contains(expectedIndex),
+                description + " should use " + expectedIndex + ", plan was:\n" + plan);
+    }
+
+    @Test
+    @DisplayName("Should reject a second unreturned loan of the same book by the same user")
+    void shouldRejectDuplicateUnreturnedLoan() throws SQLException {
+        String insert = """
+                INSERT INTO borrowing (id, version, created_at, created_by, updated_at, updated_by, borrow_date,
+                                       due_date, status, returned_late, book_id, user_id)
+                VALUES (%d, 0, now(), 'test', now(), 'test', current_date, current_date + 14, '%s', false, 3, 11)
+                """;
+        try (Statement statement = connection.createStatement()) {
+            // (user 11, book 3) has no loans in the seed data
+            statement.execute(insert.formatted(900_001, "ACTIVE"));
+            statement.execute(insert.formatted(900_002, "RETURNED"));
+
+            SQLException duplicate = assertThrows(SQLException.class,
+                    () -> statement.execute(insert.formatted(900_003, "OVERDUE")));
+            assertEquals("23505", duplicate.getSQLState());
+            assertTrue(duplicate.getMessage().contains(Borrowing.ACTIVE_LOAN_CONSTRAINT));
+
+            statement.execute("DELETE FROM borrowing WHERE id >= 900001");
+        }
+    }
+
+    private String explain(String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN " + sql)) {
+            while (resultSet.next()) {
+                plan.append(resultSet.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
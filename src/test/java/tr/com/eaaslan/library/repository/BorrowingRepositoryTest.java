@@ -1,11 +1,13 @@
 package tr.com.eaaslan.library.repository;
 
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -36,6 +38,9 @@ class BorrowingRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private User activeUser;
     private User secondUser;
     private Book firstBook;
@@ -249,6 +254,24 @@ class BorrowingRepositoryTest {
         assertEquals(BorrowingStatus.OVERDUE, overdueBorrowings.getContent().get(0).getStatus());
     }
 
+    @Test
+    @DisplayName("Should fetch users and books with the listed borrowings")
+    void shouldFetchUsersAndBooksWithListedBorrowings() {
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Borrowing> listed = borrowingRepository.findAll(PageRequest.of(0, 10)).getContent();
+        List<Borrowing> overdue = borrowingRepository.findOverdueBorrowings(
+                LocalDateTime.now(), PageRequest.of(0, 10)).getContent();
+
+        // Fetched with the loans, so mapping the responses issues no further statement per row
+        assertEquals(4, listed.size());
+        assertTrue(listed.stream().allMatch(b -> Hibernate.isInitialized(b.getUser())
+                && Hibernate.isInitialized(b.getBook())));
+        assertTrue(overdue.stream().allMatch(b -> Hibernate.isInitialized(b.getUser())
+                && Hibernate.isInitialized(b.getBook())));
+    }
+
     @Test
     @DisplayName("Should check if user has already borrowed a specific book")
     void shouldCheckIfUserHasAlreadyBorrowedSpecificBook() {
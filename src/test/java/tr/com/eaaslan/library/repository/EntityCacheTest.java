@@ -0,0 +1,165 @@
+package tr.com.eaaslan.library.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tr.com.eaaslan.library.config.TestJpaConfig;
+import tr.com.eaaslan.library.model.Book;
+import tr.com.eaaslan.library.model.User;
+import tr.com.eaaslan.library.model.UserRole;
+import tr.com.eaaslan.library.model.UserStatus;
+import tr.com.eaaslan.library.util.BookTestData;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every repository call commits on its own, so that the cache sees committed rows only
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=true")
+@ActiveProfiles("test")
+@Import(TestJpaConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EntityCacheTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private Book book;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        book = bookRepository.save(BookTestData.getTestBooks().getFirst());
+        user = userRepository.save(User.builder()
+                .email("patron@library.com")
+                .password("password")
+                .firstName("Patron")
+                .lastName("User")
+                .phoneNumber("05501234569")
+                .role(UserRole.PATRON)
+                .status(UserStatus.ACTIVE)
+                .build());
+
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should load a cached book by id without SQL")
+    void shouldLoadBookByIdFromCache() {
+        bookRepository.findById(book.getId()).orElseThrow();
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        Book cached = bookRepository.findById(book.getId()).orElseThrow();
+
+        assertEquals(book.getTitle(), cached.getTitle());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Should resolve a cached ISBN without SQL")
+    void shouldFindBookByIsbnFromCache() {
+        bookRepository.findByIsbn(book.getIsbn()).orElseThrow();
+
+        statistics.clear();
+        Book cached = bookRepository.findByIsbn(book.getIsbn()).orElseThrow();
+
+        assertEquals(book.getId(), cached.getId());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getNaturalIdCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Should resolve a cached email without SQL")
+    void shouldFindUserByEmailFromCache() {
+        userRepository.findByEmail(user.getEmail()).orElseThrow();
+
+        statistics.clear();
+        User cached = userRepository.findByEmail(user.getEmail()).orElseThrow();
+
+        assertEquals(user.getId(), cached.getId());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getNaturalIdCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Should not return a stale book after an update")
+    void shouldUpdateCacheOnWrite() {
+        Book loaded = bookRepository.findById(book.getId()).orElseThrow();
+        loaded.setQuantity(loaded.getQuantity() + 1);
+        bookRepository.save(loaded);
+
+        statistics.clear();
+        Book cached = bookRepository.findById(book.getId()).orElseThrow();
+
+        assertEquals(loaded.getQuantity(), cached.getQuantity());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Should resolve a changed email and forget the old one")
+    void shouldFollowEmailChange() {
+        userRepository.findByEmail(user.getEmail()).orElseThrow();
+        User loaded = userRepository.findById(user.getId()).orElseThrow();
+        loaded.setEmail("renamed@library.com");
+        userRepository.save(loaded);
+
+        assertTrue(userRepository.findByEmail("patron@library.com").isEmpty());
+        assertEquals(user.getId(), userRepository.findByEmail("renamed@library.com").orElseThrow().getId());
+    }
+
+    @Test
+    @DisplayName("Should read a status changed by another node from the row on the checkout path")
+    void shouldReadCurrentStatusPastStaleCache() {
+        userRepository.findByEmail(user.getEmail()).orElseThrow();
+        // Another node suspends the patron; this node's cache does not hear of it
+        jdbcTemplate.update("UPDATE users SET status = 'SUSPENDED', version = version + 1 WHERE id = ?", user.getId());
+
+        assertEquals(UserStatus.ACTIVE, userRepository.findByEmail(user.getEmail()).orElseThrow().getStatus());
+        assertEquals(UserStatus.SUSPENDED,
+                userRepository.findCurrentByEmail(user.getEmail()).orElseThrow().getStatus());
+        // The read refreshed the cache entry
+        assertEquals(UserStatus.SUSPENDED, userRepository.findByEmail(user.getEmail()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should read a quantity changed by another node from the row on the checkout path")
+    void shouldReadCurrentQuantityPastStaleCache() {
+        bookRepository.findById(book.getId()).orElseThrow();
+        jdbcTemplate.update("UPDATE books SET quantity = 0, available = false, version = version + 1 WHERE id = ?",
+                book.getId());
+
+        Book current = bookRepository.findCurrentById(book.getId()).orElseThrow();
+
+        assertEquals(0, current.getQuantity());
+        assertFalse(current.isAvailable());
+    }
+}
@@ -0,0 +1,176 @@
+package tr.com.eaaslan.library.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import tr.com.eaaslan.library.config.TestJpaConfig;
+import tr.com.eaaslan.library.model.*;
+import tr.com.eaaslan.library.model.dto.stats.TopAuthorResponse;
+import tr.com.eaaslan.library.model.dto.stats.TopBookResponse;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(TestJpaConfig.class)
+class LoanStatisticsRepositoryTest {
+
+    @Autowired
+    private DailyLoanStatisticsRepository dailyRepository;
+
+    @Autowired
+    private BookLoanStatisticsRepository bookStatisticsRepository;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private BorrowingArchiveRepository archiveRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final LocalDate today = LocalDate.now();
+    private Book novel;
+    private Book history;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(User.builder()
+                .email("stats@library.com")
+                .password("password")
+                .firstName("Stats")
+                .lastName("User")
+                .phoneNumber("05501234573")
+                .role(UserRole.PATRON)
+                .status(UserStatus.ACTIVE)
+                .build());
+
+        novel = bookRepository.save(book("1234567895", "Novelist", Genre.FICTION, 1));
+        history = bookRepository.save(book("1234567896", "Historian", Genre.HISTORY, 3));
+
+        borrowingRepository.save(borrowing(user, novel, BorrowingStatus.OVERDUE, today.minusDays(20), null, false));
+        borrowingRepository.save(borrowing(user, history, BorrowingStatus.RETURNED, today.minusDays(10), today, true));
+        borrowingRepository.save(borrowing(user, novel, BorrowingStatus.RETURNED, today.minusDays(40),
+                today.minusDays(30), false));
+
+        archiveRepository.save(BorrowingArchive.builder()
+                .id(999_999L)
+                .userId(user.getId())
+                .bookId(novel.getId())
+                .borrowDate(today.minusMonths(14))
+                .dueDate(today.minusMonths(14).plusDays(14))
+                .returnDate(today.minusMonths(13))
+                .returnedLate(false)
+                .createdAt(LocalDateTime.now())
+                .createdBy("system")
+                .archivedAt(LocalDateTime.now())
+                .build());
+
+        entityManager.flush();
+        dailyRepository.deleteAllStatistics();
+        bookStatisticsRepository.deleteAllStatistics();
+        dailyRepository.rebuildFromLoans();
+        bookStatisticsRepository.rebuildFromLoans();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should rebuild per-book aggregates from live and archived loans")
+    void shouldRebuildBookStatistics() {
+        BookLoanStatistics novelStats = bookStatisticsRepository.findById(novel.getId()).orElseThrow();
+
+        assertEquals(3, novelStats.getLoanCount());
+        assertEquals(1, novelStats.getOpenLoanCount());
+        assertEquals(1, novelStats.getOverdueLoanCount());
+
+        List<TopBookResponse> topBooks = bookStatisticsRepository.findTopBooks(PageRequest.of(0, 1));
+        assertEquals(List.of(new TopBookResponse(novel.getId(), novel.getTitle(), "Novelist", 3L)), topBooks);
+
+        List<TopAuthorResponse> topAuthors = bookStatisticsRepository.findTopAuthors(PageRequest.of(0, 10));
+        assertEquals(List.of(new TopAuthorResponse("Novelist", 3L), new TopAuthorResponse("Historian", 1L)), topAuthors);
+    }
+
+    @Test
+    @DisplayName("Should rebuild daily loans, returns and late returns")
+    void shouldRebuildDailyStatistics() {
+        DailyLoanStatistics todayStats = dailyRepository.findById(today).orElseThrow();
+        assertEquals(0, todayStats.getLoanCount());
+        assertEquals(1, todayStats.getReturnCount());
+        assertEquals(1, todayStats.getLateReturnCount());
+
+        assertEquals(1, dailyRepository.findById(today.minusDays(20)).orElseThrow().getLoanCount());
+        assertEquals(1, dailyRepository.findById(today.minusMonths(13)).orElseThrow().getReturnCount());
+        // Both ends are inclusive: the return 30 days ago, the loans 20 and 10 days ago and today's return
+        assertEquals(List.of(today.minusDays(30), today.minusDays(20), today.minusDays(10), today),
+                dailyRepository.findByStatDateBetweenOrderByStatDate(today.minusDays(30), today).stream()
+                        .map(DailyLoanStatistics::getStatDate)
+                        .toList());
+    }
+
+    @Test
+    @DisplayName("Should sum shelf copies and loans per genre and apply deltas")
+    void shouldSumByGenreAndApplyDeltas() {
+        assertEquals(1, bookStatisticsRepository.addDeltas(history.getId(), 1, 1, 0));
+        entityManager.clear();
+
+        Map<Genre, Object[]> byGenre = bookStatisticsRepository.sumByGenre().stream()
+                .collect(Collectors.toMap(row -> (Genre) row[0], row -> row));
+
+        Object[] fiction = byGenre.get(Genre.FICTION);
+        assertEquals(1L, ((Number) fiction[1]).longValue());
+        assertEquals(1L, ((Number) fiction[2]).longValue());
+        assertEquals(1L, ((Number) fiction[3]).longValue());
+        assertEquals(3L, ((Number) fiction[4]).longValue());
+
+        Object[] historyRow = byGenre.get(Genre.HISTORY);
+        assertEquals(3L, ((Number) historyRow[1]).longValue());
+        assertEquals(1L, ((Number) historyRow[2]).longValue());
+        assertEquals(2L, ((Number) historyRow[4]).longValue());
+    }
+
+    private static Book book(String isbn, String author, Genre genre, int quantity) {
+        return Book.builder()
+                .isbn(isbn)
+                .title("Book " + isbn)
+                .author(author)
+                .publicationYear(Year.of(2020))
+                .publisher("Test Publisher")
+                .genre(genre)
+                .available(true)
+                .quantity(quantity)
+                .build();
+    }
+
+    private static Borrowing borrowing(User user, Book book, BorrowingStatus status, LocalDate borrowDate,
+                                       LocalDate returnDate, boolean returnedLate) {
+        return Borrowing.builder()
+                .user(user)
+                .book(book)
+                .borrowDate(borrowDate)
+                .dueDate(borrowDate.plusDays(14))
+                .returnDate(returnDate)
+                .returnedLate(returnedLate)
+                .status(status)
+                .build();
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -19,6 +20,7 @@ import tr.com.eaaslan.library.model.UserRole;
 import tr.com.eaaslan.library.model.UserStatus;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -33,6 +35,9 @@ class UserRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private User admin;
     private User librarian;
     private User activePatron;
@@ -162,4 +167,73 @@ class UserRepositoryTest {
         assertEquals(3, activeSearch.getTotalElements(), "Should find all active users");
         assertEquals(1, suspendedSearch.getTotalElements(), "Should find one suspended user");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should only reserve a loan slot while the user is below the borrow limit")
+    void shouldReserveLoanSlotOnlyBelowLimit() {
+        Long patronId = activePatron.getId();
+        userRepository.adjustLoanCounts(patronId, 1, 1);
+
+        assertEquals(1, userRepository.incrementActiveLoanCountIfBelowLimit(patronId), "Third loan fits the limit of 3");
+        assertEquals(0, userRepository.incrementActiveLoanCountIfBelowLimit(patronId), "Fourth loan exceeds the limit");
+
+        entityManager.clear();
+        User reloaded = userRepository.findById(patronId).orElseThrow();
+        assertEquals(2, reloaded.getActiveLoanCount());
+        assertEquals(1, reloaded.getOverdueLoanCount());
+    }
+
+    @Test
+    @DisplayName("Should not overwrite loan counters when saving a stale user entity")
+    void shouldNotOverwriteLoanCountersFromStaleEntity() {
+        Long patronId = activePatron.getId();
+        userRepository.adjustLoanCounts(patronId, 2, 0);
+
+        activePatron.setFirstName("Renamed");
+        userRepository.saveAndFlush(activePatron);
+
+        entityManager.clear();
+        User reloaded = userRepository.findById(patronId).orElseThrow();
+        assertEquals("Renamed", reloaded.getFirstName());
+        assertEquals(2, reloaded.getActiveLoanCount());
+        assertEquals(List.of(patronId), userRepository.findNonZeroLoanCounts().stream().map(row -> row[0]).toList());
+    }
+
+    @Test
+    @DisplayName("Should lock and return the loan counters of the given users")
+    void shouldLockLoanCounts() {
+        Long patronId = activePatron.getId();
+        userRepository.adjustLoanCounts(patronId, 2, 1);
+
+        List<Object[]> rows = userRepository.lockLoanCounts(List.of(patronId, -1L));
+
+        assertEquals(1, rows.size());
+        assertEquals(patronId, ((Number) rows.get(0)[0]).longValue());
+        assertEquals(2, ((Number) rows.get(0)[1]).intValue());
+        assertEquals(1, ((Number) rows.get(0)[2]).intValue());
+    }
+
+    @Test
+    @DisplayName("Should select users for a bulk status change by filter and update them in one statement")
+    void shouldSelectAndUpdateUsersForBulkStatusChange() {
+        List<Long> activePatrons = userRepository.findIdsForStatusChange(
+                UserRole.PATRON, UserStatus.ACTIVE, 0L, PageRequest.of(0, 10));
+        List<Long> allUsers = userRepository.findIdsForStatusChange(null, null, 0L, PageRequest.of(0, 10));
+        List<Long> afterFirst = userRepository.findIdsForStatusChange(
+                null, null, allUsers.getFirst(), PageRequest.of(0, 10));
+
+        assertEquals(List.of(activePatron.getId()), activePatrons);
+        assertEquals(4, allUsers.size());
+        assertEquals(allUsers.subList(1, 4), afterFirst);
+
+        int updated = userRepository.updateStatusByIdIn(
+                List.of(activePatron.getId(), suspendedPatron.getId()), UserStatus.SUSPENDED,
+                LocalDateTime.now(), "admin@library.com");
+
+        assertEquals(1, updated, "The already suspended patron is left untouched");
+        entityManager.clear();
+        User reloaded = userRepository.findById(activePatron.getId()).orElseThrow();
+        assertEquals(UserStatus.SUSPENDED, reloaded.getStatus());
+        assertEquals("admin@library.com", reloaded.getUpdatedBy());
+    }
+}
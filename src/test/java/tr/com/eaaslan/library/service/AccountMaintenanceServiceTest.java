@@ -4,20 +4,22 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import tr.com.eaaslan.library.model.User;
 import tr.com.eaaslan.library.model.UserRole;
 import tr.com.eaaslan.library.model.UserStatus;
-import tr.com.eaaslan.library.repository.BorrowingRepository;
+import tr.com.eaaslan.library.repository.BorrowingHistoryRepository;
 import tr.com.eaaslan.library.repository.UserRepository;
+import tr.com.eaaslan.library.service.JobRunner.IdRange;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,9 +29,14 @@ class AccountMaintenanceServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private BorrowingRepository borrowingRepository;
+    private BorrowingHistoryRepository borrowingHistoryRepository;
+
+    @Mock
+    private LoanReleaseService loanReleaseService;
+
+    @Mock
+    private JobRunner jobRunner;
 
-    @InjectMocks
     private AccountMaintenanceService accountMaintenanceService;
 
     private User activePatronWithRecentActivity;
@@ -39,6 +46,8 @@ class AccountMaintenanceServiceTest {
 
     @BeforeEach
     void setUp() {
+        accountMaintenanceService = new AccountMaintenanceService(userRepository, borrowingHistoryRepository,
+                loanReleaseService, jobRunner, Clock.systemDefaultZone());
 
         activePatronWithRecentActivity = User.builder()
 
@@ -79,26 +88,30 @@ class AccountMaintenanceServiceTest {
     @DisplayName("Should mark inactive patron accounts as deleted")
     void shouldMarkInactivePatronAccountsAsDeleted() {
 
-        when(userRepository.findAllByStatus(UserStatus.ACTIVE))
+        when(userRepository.findAllById(List.of(1L, 2L, 3L, 4L)))
                 .thenReturn(Arrays.asList(
                         activePatronWithRecentActivity,
                         activePatronWithoutRecentActivity,
                         adminUser,
                         librarianUser));
 
-        when(borrowingRepository.findLatestActivityDateByUserId(1L))
+        when(borrowingHistoryRepository.findLatestActivityDateByUserId(1L))
                 .thenReturn(LocalDate.now().minusDays(15)); // Active within last month
 
-        when(borrowingRepository.findLatestActivityDateByUserId(2L))
+        when(borrowingHistoryRepository.findLatestActivityDateByUserId(2L))
                 .thenReturn(LocalDate.now().minusDays(45)); // Not active for more than a month
 
-        accountMaintenanceService.handleInactiveAccounts();
+        int deleted = accountMaintenanceService.handleInactiveAccounts(List.of(1L, 2L, 3L, 4L));
+
+        assertEquals(1, deleted);
 
         verify(userRepository, never()).save(argThat(user -> user.getId().equals(1L) && user.isDeleted()));
 
         verify(userRepository, never()).save(argThat(user ->
                 (user.getId().equals(3L) || user.getId().equals(4L)) && user.isDeleted()));
 
+        verify(loanReleaseService).releaseUnreturnedLoans(List.of(2L), "system");
+
         verify(userRepository).saveAll(argThat(users -> {
             List<User> userList = new ArrayList<>();
             users.forEach(userList::add);
@@ -111,4 +124,16 @@ class AccountMaintenanceServiceTest {
                     "system".equals(userList.getFirst().getDeletedBy());
         }));
     }
+
+    @Test
+    @DisplayName("Should shard the scheduled check by user id range")
+    void shouldShardScheduledCheckByUserIdRange() {
+
+        when(userRepository.findMinId()).thenReturn(1L);
+        when(userRepository.findMaxId()).thenReturn(4L);
+
+        accountMaintenanceService.runInactiveAccountsCheck();
+
+        verify(jobRunner).runSharded(eq("inactive-accounts"), eq(new IdRange(1, 4)), any(), any());
+    }
 }
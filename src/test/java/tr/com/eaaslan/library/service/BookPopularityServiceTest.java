@@ -0,0 +1,165 @@
+package tr.com.eaaslan.library.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import tr.com.eaaslan.library.exception.BusinessRuleException;
+import tr.com.eaaslan.library.model.Book;
+import tr.com.eaaslan.library.model.Genre;
+import tr.com.eaaslan.library.model.PopularityWindow;
+import tr.com.eaaslan.library.model.dto.book.PopularBookResponse;
+import tr.com.eaaslan.library.model.mapper.BookMapper;
+import tr.com.eaaslan.library.repository.BookLoanStatisticsRepository;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingArchiveRepository;
+import tr.com.eaaslan.library.repository.BorrowingRepository;
+import tr.com.eaaslan.library.service.BookPopularityService.RankedBook;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BookPopularityServiceTest {
+
+    @Mock
+    private BorrowingRepository borrowingRepository;
+
+    @Mock
+    private BorrowingArchiveRepository borrowingArchiveRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookLoanStatisticsRepository bookLoanStatisticsRepository;
+
+    @Mock
+    private BookMapper bookMapper;
+
+    private BookPopularityService bookPopularityService;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        bookPopularityService = new BookPopularityService(borrowingRepository, borrowingArchiveRepository,
+                bookRepository, bookLoanStatisticsRepository, bookMapper, Clock.systemDefaultZone());
+
+        when(bookRepository.findAllIdsAndGenres()).thenReturn(List.of(
+                new Object[]{1L, Genre.FICTION}, new Object[]{2L, Genre.HISTORY}, new Object[]{3L, Genre.FICTION}));
+        when(bookLoanStatisticsRepository.findAllLoanCounts()).thenReturn(List.of(
+                new Object[]{1L, 3L}, new Object[]{2L, 5L}, new Object[]{3L, 40L}));
+        when(borrowingRepository.countLoansByBookAndDaySince(any())).thenReturn(List.of(
+                new Object[]{1L, today.minusDays(2), 3L}, new Object[]{2L, today.minusDays(20), 5L}));
+        when(borrowingArchiveRepository.countLoansByBookAndDaySince(any())).thenReturn(List.<Object[]>of(
+                new Object[]{3L, today.minusDays(200), 7L}));
+    }
+
+    @Test
+    @DisplayName("Should rank the rebuilt counts per window and genre")
+    void shouldRankPerWindowAndGenre() {
+        bookPopularityService.rebuild(today);
+
+        assertEquals(List.of(new RankedBook(1, 3)), top(PopularityWindow.WEEK, null, 10, today));
+        assertEquals(List.of(new RankedBook(2, 5), new RankedBook(1, 3)), top(PopularityWindow.MONTH, null, 10, today));
+        assertEquals(List.of(new RankedBook(3, 7), new RankedBook(2, 5), new RankedBook(1, 3)),
+                top(PopularityWindow.YEAR, null, 10, today));
+        assertEquals(List.of(new RankedBook(3, 40), new RankedBook(2, 5)),
+                top(PopularityWindow.ALL_TIME, null, 2, today));
+        assertEquals(List.of(new RankedBook(3, 7), new RankedBook(1, 3)),
+                top(PopularityWindow.YEAR, Genre.FICTION, 10, today));
+    }
+
+    @Test
+    @DisplayName("Should count new borrows and drop days that slid out of a window")
+    void shouldSlideWindows() {
+        bookPopularityService.rebuild(today);
+        bookPopularityService.recordBorrow(4L, Genre.MYSTERY, today);
+        bookPopularityService.recordBorrow(4L, Genre.MYSTERY, today);
+
+        assertEquals(List.of(new RankedBook(1, 3), new RankedBook(4, 2)), top(PopularityWindow.WEEK, null, 10, today));
+
+        bookPopularityService.recordBorrow(5L, Genre.MYSTERY, today.plusDays(1));
+
+        LocalDate nextWeek = today.plusDays(7);
+        assertEquals(List.of(new RankedBook(5, 1)), top(PopularityWindow.WEEK, null, 10, nextWeek));
+        assertEquals(List.of(new RankedBook(4, 2), new RankedBook(5, 1)),
+                top(PopularityWindow.MONTH, Genre.MYSTERY, 10, nextWeek));
+
+        LocalDate nextYear = today.plusDays(366);
+        assertTrue(top(PopularityWindow.YEAR, null, 10, nextYear).isEmpty());
+        assertEquals(List.of(new RankedBook(3, 40), new RankedBook(2, 5), new RankedBook(1, 3), new RankedBook(4, 2)),
+                top(PopularityWindow.ALL_TIME, null, 4, nextYear));
+    }
+
+    @Test
+    @DisplayName("Should skip and forget books that were deleted after being counted")
+    void shouldSkipDeletedBooks() {
+        Book history = Book.builder().genre(Genre.HISTORY).build();
+        history.setId(2L);
+        when(bookRepository.findAllById(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.contains(2L) ? List.of(history) : List.of();
+        });
+        bookPopularityService.rebuild(today);
+
+        List<PopularBookResponse> popular = bookPopularityService.getPopularBooks(PopularityWindow.MONTH, null, 10);
+
+        assertEquals(1, popular.size());
+        assertEquals(1, popular.getFirst().rank());
+        assertEquals(5, popular.getFirst().loans());
+        assertEquals(List.of(new RankedBook(3, 40), new RankedBook(2, 5)),
+                top(PopularityWindow.ALL_TIME, null, 10, today));
+    }
+
+    @Test
+    @DisplayName("Should drop loans the nightly rebuild no longer finds")
+    void shouldReplaceCountsOnRebuild() {
+        bookPopularityService.rebuild(today);
+        // Counted on this node, then deleted with its patron
+        bookPopularityService.recordBorrow(4L, Genre.MYSTERY, today);
+
+        bookPopularityService.rebuild(today);
+
+        assertEquals(List.of(new RankedBook(1, 3)), top(PopularityWindow.WEEK, null, 10, today));
+    }
+
+    @Test
+    @DisplayName("Should start counting on the clock's day before the first rebuild")
+    void shouldStartOnClockDay() {
+        LocalDate day = LocalDate.of(2020, 3, 1);
+        Clock clock = Clock.fixed(day.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+        BookPopularityService service = new BookPopularityService(borrowingRepository, borrowingArchiveRepository,
+                bookRepository, bookLoanStatisticsRepository, bookMapper, clock);
+
+        service.recordBorrow(4L, Genre.MYSTERY, day);
+
+        assertEquals(List.of(new RankedBook(4, 1)), service.getTopBooks(PopularityWindow.WEEK, null, 10, day));
+    }
+
+    @Test
+    @DisplayName("Should reject limits outside 1 to 100")
+    void shouldRejectInvalidLimit() {
+        assertThrows(BusinessRuleException.class,
+                () -> bookPopularityService.getPopularBooks(PopularityWindow.WEEK, null, 0));
+        assertThrows(BusinessRuleException.class,
+                () -> bookPopularityService.getPopularBooks(PopularityWindow.WEEK, null, 101));
+    }
+
+    private List<RankedBook> top(PopularityWindow window, Genre genre, int limit, LocalDate day) {
+        return bookPopularityService.getTopBooks(window, genre, limit, day);
+    }
+}
@@ -0,0 +1,134 @@
+package tr.com.eaaslan.library.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import tr.com.eaaslan.library.exception.BusinessRuleException;
+import tr.com.eaaslan.library.exception.ResourceNotFoundException;
+import tr.com.eaaslan.library.model.dto.book.BookRecommendationResponse;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingRepository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BookRecommendationServiceTest {
+
+    @Mock
+    private BorrowingRepository borrowingRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private JobRunner jobRunner;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private BookRecommendationService recommendationService;
+
+    @BeforeEach
+    void setUp() {
+        recommendationService = new BookRecommendationService(borrowingRepository, bookRepository, jobRunner,
+                transactionTemplate, 5, 100);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(bookRepository.findAllTitlesAndAuthors()).thenReturn(List.of(
+                new Object[]{1L, "Dune", "Herbert"},
+                new Object[]{2L, "Foundation", "Asimov"},
+                new Object[]{3L, "Hyperion", "Simmons"}));
+        when(borrowingRepository.streamDistinctUserBookPairs()).thenAnswer(invocation -> Stream.of(
+                new Object[]{1L, 1L}, new Object[]{1L, 2L},
+                new Object[]{2L, 1L}, new Object[]{2L, 2L}, new Object[]{2L, 3L}));
+        when(bookRepository.existsById(any())).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Should serve the co-borrowed books of the rebuilt matrix")
+    void shouldRecommendFromRebuiltMatrix() {
+        recommendationService.rebuild();
+
+        assertEquals(List.of(
+                        new BookRecommendationResponse(2L, "Foundation", "Asimov", 2),
+                        new BookRecommendationResponse(3L, "Hyperion", "Simmons", 1)),
+                recommendationService.getRecommendations(1L, 5));
+        assertEquals(1, recommendationService.getRecommendations(1L, 1).size());
+    }
+
+    @Test
+    @DisplayName("Should fold new loans into the matrix without double counting earlier ones")
+    void shouldApplyNewLoansIncrementally() {
+        recommendationService.rebuild();
+        // Patron 1 borrows book 3 for the first time and book 1 again
+        recommendationService.recordBorrow(1L, 3L);
+        recommendationService.recordBorrow(1L, 1L);
+        when(borrowingRepository.countLoansByUserAndBook(any())).thenReturn(List.of(
+                new Object[]{1L, 1L, 2L}, new Object[]{1L, 2L, 1L}, new Object[]{1L, 3L, 1L}));
+
+        recommendationService.applyPendingLoans();
+
+        assertEquals(List.of(
+                        new BookRecommendationResponse(1L, "Dune", "Herbert", 2),
+                        new BookRecommendationResponse(2L, "Foundation", "Asimov", 2)),
+                recommendationService.getRecommendations(3L, 5));
+        assertEquals(List.of(
+                        new BookRecommendationResponse(2L, "Foundation", "Asimov", 2),
+                        new BookRecommendationResponse(3L, "Hyperion", "Simmons", 2)),
+                recommendationService.getRecommendations(1L, 5));
+    }
+
+    @Test
+    @DisplayName("Should reject unknown books and limits above the kept top-N")
+    void shouldValidateRequest() {
+        recommendationService.rebuild();
+        when(bookRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> recommendationService.getRecommendations(99L, 5));
+        assertThrows(BusinessRuleException.class, () -> recommendationService.getRecommendations(1L, 6));
+    }
+
+    @Test
+    @DisplayName("Should keep only the loans committed after the rebuild snapshot pending")
+    void shouldKeepLoansCommittedDuringRebuild() {
+        // Patron 2's loan of book 3 is already part of the rebuild's snapshot
+        recommendationService.recordBorrow(2L, 3L);
+        when(borrowingRepository.streamDistinctUserBookPairs()).thenAnswer(invocation -> Stream.of(
+                new Object[]{1L, 1L}, new Object[]{1L, 2L},
+                new Object[]{2L, 1L}, new Object[]{2L, 2L}, new Object[]{2L, 3L},
+                new Object[]{3L, 1L}));
+        when(bookRepository.findAllTitlesAndAuthors()).thenAnswer(invocation -> {
+            // Commits after the pairs query took its snapshot
+            recommendationService.recordBorrow(3L, 2L);
+            return List.of(
+                    new Object[]{1L, "Dune", "Herbert"},
+                    new Object[]{2L, "Foundation", "Asimov"},
+                    new Object[]{3L, "Hyperion", "Simmons"});
+        });
+        when(borrowingRepository.countLoansByUserAndBook(any())).thenReturn(List.of(
+                new Object[]{3L, 1L, 1L}, new Object[]{3L, 2L, 1L}));
+
+        recommendationService.rebuild();
+        recommendationService.applyPendingLoans();
+
+        verify(borrowingRepository).countLoansByUserAndBook(List.of(3L));
+        assertEquals(List.of(
+                        new BookRecommendationResponse(2L, "Foundation", "Asimov", 3),
+                        new BookRecommendationResponse(3L, "Hyperion", "Simmons", 1)),
+                recommendationService.getRecommendations(1L, 5));
+    }
+}
@@ -4,19 +4,24 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
 import tr.com.eaaslan.library.exception.ResourceAlreadyExistException;
 import tr.com.eaaslan.library.exception.ResourceNotFoundException;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
 import tr.com.eaaslan.library.model.Book;
+import tr.com.eaaslan.library.model.BorrowingStatus;
 import tr.com.eaaslan.library.model.Genre;
 import tr.com.eaaslan.library.model.dto.book.BookCreateRequest;
 import tr.com.eaaslan.library.model.dto.book.BookResponse;
 import tr.com.eaaslan.library.model.dto.book.BookUpdateRequest;
 import tr.com.eaaslan.library.model.mapper.BookMapper;
 import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingArchiveRepository;
+import tr.com.eaaslan.library.repository.BorrowingRepository;
 
 import java.time.LocalDateTime;
 import java.time.Year;
@@ -37,6 +42,18 @@ class BookServiceUnitTest {
     @Mock
     private BookMapper bookMapper;
 
+    @Mock
+    private BorrowingRepository borrowingRepository;
+
+    @Mock
+    private BorrowingArchiveRepository borrowingArchiveRepository;
+
+    @Mock
+    private HoldService holdService;
+
+    @Mock
+    private LibraryMetrics libraryMetrics;
+
     @InjectMocks
     private BookServiceImpl bookService;
 
@@ -251,10 +268,11 @@ class BookServiceUnitTest {
     }
 
     @Test
-    @DisplayName("Should delete book")
+    @DisplayName("Should delete book with its loans and holds")
     void shouldDeleteBook() {
 
-        when(bookRepository.getBooksById(anyLong())).thenReturn(Optional.of(testBook));
+        when(bookRepository.findById(anyLong())).thenReturn(Optional.of(testBook));
+        when(borrowingRepository.findByBookIdAndStatus(1L, BorrowingStatus.ACTIVE)).thenReturn(List.of());
         when(bookMapper.toResponse(any(Book.class))).thenReturn(testBookResponse);
 
         BookResponse result = bookService.deleteBook(1L);
@@ -262,8 +280,11 @@ class BookServiceUnitTest {
         assertNotNull(result);
         assertEquals(testBookResponse.id(), result.id());
 
-        verify(bookRepository).getBooksById(1L);
-        verify(bookRepository).delete(testBook);
+        InOrder inOrder = inOrder(borrowingRepository, borrowingArchiveRepository, holdService, bookRepository);
+        inOrder.verify(borrowingRepository).deleteByBookId(1L);
+        inOrder.verify(borrowingArchiveRepository).deleteByBookId(1L);
+        inOrder.verify(holdService).deleteHoldsOfBook(1L);
+        inOrder.verify(bookRepository).delete(testBook);
         verify(bookMapper).toResponse(testBook);
     }
 
@@ -271,11 +292,12 @@ class BookServiceUnitTest {
     @DisplayName("Should throw exception when deleting non-existent book")
     void shouldThrowExceptionWhenDeletingNonExistentBook() {
 
-        when(bookRepository.getBooksById(anyLong())).thenReturn(Optional.empty());
+        when(bookRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> bookService.deleteBook(1L));
 
-        verify(bookRepository).getBooksById(1L);
+        verify(bookRepository).findById(1L);
+        verify(holdService, never()).deleteHoldsOfBook(any());
         verify(bookRepository, never()).delete(any());
     }
 
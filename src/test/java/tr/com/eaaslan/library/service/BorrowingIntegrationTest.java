@@ -1,20 +1,27 @@
 package tr.com.eaaslan.library.service;
 
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import tr.com.eaaslan.library.exception.UserSuspendedException;
 import tr.com.eaaslan.library.model.*;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingCreateRequest;
+import tr.com.eaaslan.library.model.dto.borrowing.BorrowingResponse;
 import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingRepository;
 import tr.com.eaaslan.library.repository.UserRepository;
+import tr.com.eaaslan.library.util.MaxQueries;
 
 import java.time.LocalDate;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SpringBootTest
@@ -31,6 +38,58 @@ class BorrowingIntegrationTest {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    private User activePatron;
+    private Book availableBook;
+
+    // Flushed here, so that the inserts do not count against the budget of the test
+    @BeforeEach
+    void setUp() {
+        activePatron = userRepository.saveAndFlush(User.builder()
+                .email("active-test@example.com")
+                .password("password")
+                .firstName("Active")
+                .lastName("User")
+                .phoneNumber("05524323466")
+                .role(UserRole.PATRON)
+                .status(UserStatus.ACTIVE)
+                .build());
+
+        availableBook = bookRepository.saveAndFlush(Book.builder()
+                .isbn("TEST" + UUID.randomUUID().toString().substring(0, 8))
+                .title("Available Book")
+                .author("Test Author")
+                .publicationYear(java.time.Year.of(2020))
+                .publisher("Test Publisher")
+                .genre(Genre.FICTION)
+                .available(true)
+                .quantity(2)
+                .build());
+    }
+
+    // The budgeted test commits, so its rows are removed here; in the other tests this is rolled back anyway
+    @AfterEach
+    void tearDown() {
+        borrowingRepository.deleteAll(
+                borrowingRepository.findByUserIdAndStatus(activePatron.getId(), BorrowingStatus.ACTIVE));
+        bookRepository.deleteById(availableBook.getId());
+        userRepository.deleteById(activePatron.getId());
+    }
+
+    // Runs outside the test transaction, so that the budget covers the UPDATEs flushed on commit
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @MaxQueries(9)
+    @DisplayName("Should borrow a book within a fixed number of SQL statements")
+    void shouldBorrowWithinStatementBudget() {
+        BorrowingResponse response = borrowingService.borrowBook(
+                new BorrowingCreateRequest(availableBook.getId(), null, null), activePatron.getEmail());
+
+        assertEquals(availableBook.getId(), response.bookId());
+    }
+
     @Test
     @DisplayName("Should prevent suspended users from borrowing books")
     void shouldPreventSuspendedUsersFromBorrowingBooks() {
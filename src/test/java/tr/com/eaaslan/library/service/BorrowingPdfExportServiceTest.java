@@ -4,12 +4,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
 import tr.com.eaaslan.library.model.BorrowingStatus;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingResponse;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -24,7 +25,9 @@ class BorrowingPdfExportServiceTest {
     @Mock
     private BorrowingService borrowingService;
 
-    @InjectMocks
+    @Mock
+    private LibraryMetrics libraryMetrics;
+
     private BorrowingPdfExportService pdfExportService;
 
     private List<BorrowingResponse> sampleBorrowings;
@@ -32,6 +35,8 @@ class BorrowingPdfExportServiceTest {
 
     @BeforeEach
     void setUp() {
+        pdfExportService = new BorrowingPdfExportService(borrowingService, libraryMetrics,
+                new WorkloadBulkhead(libraryMetrics, 2, 4, Duration.ofSeconds(10), 2, 100, Duration.ofHours(1), 10));
 
         sampleBorrowings = createSampleBorrowings();
         emptyBorrowings = new ArrayList<>();
@@ -1,26 +1,33 @@
 package tr.com.eaaslan.library.service;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 import org.springframework.security.access.AccessDeniedException;
+import tr.com.eaaslan.library.datasource.ReadYourWrites;
 import tr.com.eaaslan.library.exception.*;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
 import tr.com.eaaslan.library.model.*;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingCreateRequest;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingResponse;
 import tr.com.eaaslan.library.model.dto.borrowing.BorrowingReturnRequest;
 import tr.com.eaaslan.library.model.mapper.BorrowingMapper;
 import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingHistoryRepository;
 import tr.com.eaaslan.library.repository.BorrowingRepository;
 import tr.com.eaaslan.library.repository.UserRepository;
 
+import java.sql.SQLException;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +41,9 @@ class BorrowingServiceUnitTest {
     @Mock
     private BorrowingRepository borrowingRepository;
 
+    @Mock
+    private BorrowingHistoryRepository historyRepository;
+
     @Mock
     private BookRepository bookRepository;
 
@@ -43,7 +53,30 @@ class BorrowingServiceUnitTest {
     @Mock
     private BorrowingMapper borrowingMapper;
 
-    @InjectMocks
+    @Mock
+    private BookAvailabilityEventService eventService;
+
+    @Mock
+    private LoanStatisticsService loanStatisticsService;
+
+    @Mock
+    private BookPopularityService bookPopularityService;
+
+    @Mock
+    private BookRecommendationService bookRecommendationService;
+
+    @Mock
+    private HoldService holdService;
+
+    @Mock
+    private LibraryMetrics libraryMetrics;
+
+    @Mock
+    private JobRunner jobRunner;
+
+    @Mock
+    private ReadYourWrites readYourWrites;
+
     private BorrowingServiceImpl borrowingService;
 
     private User activeUser;
@@ -59,6 +92,7 @@ class BorrowingServiceUnitTest {
 
     @BeforeEach
     void setUp() {
+        borrowingService = service(Clock.systemDefaultZone());
 
         activeUser = User.builder()
                 .email("user@example.com")
@@ -122,15 +156,31 @@ class BorrowingServiceUnitTest {
         borrowingsPage = new PageImpl<>(List.of(activeBorrowing, overdueBorrowing));
     }
 
+    @Test
+    @DisplayName("Should hand over the copy reserved for the patron's hold")
+    void shouldBorrowCopyReservedForHold() {
+        when(userRepository.findCurrentByEmail(activeUser.getEmail())).thenReturn(Optional.of(activeUser));
+        when(bookRepository.findCurrentById(unavailableBook.getId())).thenReturn(Optional.of(unavailableBook));
+        when(userRepository.incrementActiveLoanCountIfBelowLimit(activeUser.getId())).thenReturn(1);
+        when(holdService.claimReadyHold(activeUser.getId(), unavailableBook.getId())).thenReturn(true);
+        when(borrowingRepository.saveAndFlush(any(Borrowing.class))).thenAnswer(i -> i.getArgument(0));
+        when(borrowingMapper.toResponse(any(Borrowing.class))).thenReturn(borrowingResponse);
+
+        borrowingService.borrowBook(new BorrowingCreateRequest(unavailableBook.getId(), null, null),
+                activeUser.getEmail());
+
+        assertEquals(0, unavailableBook.getQuantity());
+        verify(borrowingRepository).saveAndFlush(any(Borrowing.class));
+        verify(bookRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("Should create a new borrowing")
     void shouldCreateNewBorrowing() {
-        when(userRepository.findByEmail(activeUser.getEmail())).thenReturn(Optional.of(activeUser));
-        when(bookRepository.findById(availableBook.getId())).thenReturn(Optional.of(availableBook));
-        when(borrowingRepository.countByUserIdAndStatus(activeUser.getId(), BorrowingStatus.ACTIVE)).thenReturn(0L);
-        when(borrowingRepository.existsByUserIdAndBookIdAndStatus(
-                activeUser.getId(), availableBook.getId(), BorrowingStatus.ACTIVE)).thenReturn(false);
-        when(borrowingRepository.save(any(Borrowing.class))).thenAnswer(i -> i.getArgument(0));
+        when(userRepository.findCurrentByEmail(activeUser.getEmail())).thenReturn(Optional.of(activeUser));
+        when(bookRepository.findCurrentById(availableBook.getId())).thenReturn(Optional.of(availableBook));
+        when(userRepository.incrementActiveLoanCountIfBelowLimit(activeUser.getId())).thenReturn(1);
+        when(borrowingRepository.saveAndFlush(any(Borrowing.class))).thenAnswer(i -> i.getArgument(0));
         when(borrowingMapper.toResponse(any(Borrowing.class))).thenReturn(borrowingResponse);
 
         BorrowingResponse response = borrowingService.borrowBook(createRequest, activeUser.getEmail());
@@ -139,13 +189,18 @@ class BorrowingServiceUnitTest {
         assertEquals(borrowingResponse, response);
 
         verify(bookRepository).save(any(Book.class));
-        verify(borrowingRepository).save(any(Borrowing.class));
+        verify(borrowingRepository).saveAndFlush(any(Borrowing.class));
+        verify(borrowingRepository, never()).existsByUserIdAndBookIdAndStatus(any(), any(), any());
+        verify(borrowingRepository, never()).countByUserIdAndStatus(any(), any());
+        verify(loanStatisticsService).recordBorrow(availableBook.getId(), LocalDate.now());
+        verify(bookPopularityService).recordBorrow(availableBook.getId(), availableBook.getGenre(), LocalDate.now());
+        verify(readYourWrites).recordWrite(activeUser.getEmail());
     }
 
     @Test
     @DisplayName("Should throw exception when user has suspended status")
     void shouldThrowExceptionWhenUserHasSuspendedStatus() {
-        when(userRepository.findByEmail(suspendedUser.getEmail())).thenReturn(Optional.of(suspendedUser));
+        when(userRepository.findCurrentByEmail(suspendedUser.getEmail())).thenReturn(Optional.of(suspendedUser));
 
         assertThrows(UserSuspendedException.class,
                 () -> borrowingService.borrowBook(createRequest, suspendedUser.getEmail()));
@@ -157,36 +212,56 @@ class BorrowingServiceUnitTest {
     @Test
     @DisplayName("Should throw exception when book is unavailable")
     void shouldThrowExceptionWhenBookIsUnavailable() {
-        when(userRepository.findByEmail(activeUser.getEmail())).thenReturn(Optional.of(activeUser));
-        when(bookRepository.findById(unavailableBook.getId())).thenReturn(Optional.of(unavailableBook));
-        when(borrowingRepository.countByUserIdAndStatus(activeUser.getId(), BorrowingStatus.ACTIVE)).thenReturn(0L);
+        when(userRepository.findCurrentByEmail(activeUser.getEmail())).thenReturn(Optional.of(activeUser));
+        when(bookRepository.findCurrentById(unavailableBook.getId())).thenReturn(Optional.of(unavailableBook));
+        when(userRepository.incrementActiveLoanCountIfBelowLimit(activeUser.getId())).thenReturn(1);
 
         BorrowingCreateRequest unavailableBookRequest = new BorrowingCreateRequest(unavailableBook.getId(), null, null);
 
         assertThrows(BookNotAvailableException.class,
                 () -> borrowingService.borrowBook(unavailableBookRequest, activeUser.getEmail()));
 
-        verify(userRepository).findByEmail(any());
-        verify(bookRepository).findById(any());
+        verify(userRepository).findCurrentByEmail(any());
+        verify(bookRepository).findCurrentById(any());
         verify(borrowingRepository, never()).save(any());
     }
 
     @Test
     @DisplayName("Should throw exception when user already borrowed the book")
     void shouldThrowExceptionWhenUserAlreadyBorrowedTheBook() {
-        when(userRepository.findByEmail(activeUser.getEmail())).thenReturn(Optional.of(activeUser));
-        when(borrowingRepository.countByUserIdAndStatus(activeUser.getId(), BorrowingStatus.ACTIVE)).thenReturn(0L);
-        when(bookRepository.findById(availableBook.getId())).thenReturn(Optional.of(availableBook));
-        when(borrowingRepository.existsByUserIdAndBookIdAndStatus(
-                activeUser.getId(), availableBook.getId(), BorrowingStatus.ACTIVE)).thenReturn(true);
+        when(userRepository.findCurrentByEmail(activeUser.getEmail())).thenReturn(Optional.of(activeUser));
+        when(userRepository.incrementActiveLoanCountIfBelowLimit(activeUser.getId())).thenReturn(1);
+        when(bookRepository.findCurrentById(availableBook.getId())).thenReturn(Optional.of(availableBook));
+        when(borrowingRepository.saveAndFlush(any(Borrowing.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement",
+                new ConstraintViolationException("duplicate key value violates unique constraint",
+                        new SQLException("duplicate key", "23505"), Borrowing.ACTIVE_LOAN_CONSTRAINT)));
 
         assertThrows(AlreadyBorrowedException.class,
                 () -> borrowingService.borrowBook(createRequest, activeUser.getEmail()));
 
-        verify(userRepository).findByEmail(any());
-        verify(borrowingRepository).countByUserIdAndStatus(any(), any());
-        verify(bookRepository).findById(any());
-        verify(borrowingRepository, never()).save(any());
+        verify(userRepository).findCurrentByEmail(any());
+        verify(userRepository).incrementActiveLoanCountIfBelowLimit(activeUser.getId());
+        verify(bookRepository).findCurrentById(any());
+        verify(bookRepository, never()).save(any());
+        verify(eventService, never()).publishBookAvailabilityChange(any());
+    }
+
+    @Test
+    @DisplayName("Should rethrow integrity violations unrelated to duplicate loans")
+    void shouldRethrowUnrelatedIntegrityViolations() {
+        when(userRepository.findCurrentByEmail(activeUser.getEmail())).thenReturn(Optional.of(activeUser));
+        when(userRepository.incrementActiveLoanCountIfBelowLimit(activeUser.getId())).thenReturn(1);
+        when(bookRepository.findCurrentById(availableBook.getId())).thenReturn(Optional.of(availableBook));
+        when(borrowingRepository.saveAndFlush(any(Borrowing.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement",
+                new ConstraintViolationException("insert or update violates foreign key constraint",
+                        new SQLException("foreign key", "23503"), "fk_borrowing_book")));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> borrowingService.borrowBook(createRequest, activeUser.getEmail()));
+
+        verify(bookRepository, never()).save(any());
     }
 
     @Test
@@ -194,12 +269,17 @@ class BorrowingServiceUnitTest {
     void shouldReturnBookSuccessfully() {
         when(borrowingRepository.findById(activeBorrowing.getId())).thenReturn(Optional.of(activeBorrowing));
         when(userRepository.findByEmail(activeUser.getEmail())).thenReturn(Optional.of(activeUser));
+        when(bookRepository.findCurrentById(activeBorrowing.getBook().getId()))
+                .thenReturn(Optional.of(activeBorrowing.getBook()));
         when(borrowingRepository.save(any(Borrowing.class))).thenAnswer(i -> i.getArgument(0));
         when(borrowingMapper.toResponse(any(Borrowing.class))).thenReturn(borrowingResponse);
 
         BorrowingResponse response = borrowingService.returnBook(activeBorrowing.getId(), returnRequest, activeUser.getEmail());
 
         assertNotNull(response);
+        verify(userRepository).adjustLoanCounts(activeUser.getId(), -1, 0);
+        verify(loanStatisticsService).recordReturn(eq(activeBorrowing.getBook().getId()), any(LocalDate.class),
+                eq(false), anyBoolean());
         verify(bookRepository).save(any());
         verify(borrowingRepository).save(any(Borrowing.class));
     }
@@ -261,6 +341,7 @@ class BorrowingServiceUnitTest {
 
         when(borrowingRepository.findById(lateBorrowing.getId())).thenReturn(Optional.of(lateBorrowing));
         when(userRepository.findByEmail(activeUser.getEmail())).thenReturn(Optional.of(activeUser));
+        when(bookRepository.findCurrentById(availableBook.getId())).thenReturn(Optional.of(availableBook));
         when(borrowingRepository.save(any(Borrowing.class))).thenAnswer(i -> {
             Borrowing savedBorrowing = i.getArgument(0);
             assertTrue(savedBorrowing.isReturnedLate(), "Borrowing should be marked as returned late");
@@ -294,12 +375,13 @@ class BorrowingServiceUnitTest {
     @DisplayName("Should get borrowings by user")
     void shouldGetBorrowingsByUser() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Borrowing> borrowingsPage = new PageImpl<>(List.of(activeBorrowing));
+        BorrowingHistory history = new BorrowingHistory();
+        Page<BorrowingHistory> historyPage = new PageImpl<>(List.of(history));
 
         when(userRepository.findById(activeUser.getId())).thenReturn(Optional.of(activeUser));
-        when(borrowingRepository.findByUserId(eq(activeUser.getId()), any(Pageable.class)))
-                .thenReturn(borrowingsPage);
-        when(borrowingMapper.toResponse(activeBorrowing)).thenReturn(borrowingResponse);
+        when(historyRepository.findByUserId(eq(activeUser.getId()), any(Pageable.class)))
+                .thenReturn(historyPage);
+        when(borrowingMapper.toResponse(history)).thenReturn(borrowingResponse);
 
         Page<BorrowingResponse> response = borrowingService.getBorrowingsByUser(activeUser.getId(), 0, 10);
 
@@ -313,13 +395,14 @@ class BorrowingServiceUnitTest {
     void shouldGetBorrowingsByCurrentUser() {
         // Arrange
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Borrowing> borrowingsPage = new PageImpl<>(List.of(activeBorrowing));
+        BorrowingHistory history = new BorrowingHistory();
+        Page<BorrowingHistory> historyPage = new PageImpl<>(List.of(history));
 
         when(userRepository.findByEmail(activeUser.getEmail())).thenReturn(Optional.of(activeUser));
         when(userRepository.findById(activeUser.getId())).thenReturn(Optional.of(activeUser));
-        when(borrowingRepository.findByUserId(eq(activeUser.getId()), any(Pageable.class)))
-                .thenReturn(borrowingsPage);
-        when(borrowingMapper.toResponse(activeBorrowing)).thenReturn(borrowingResponse);
+        when(historyRepository.findByUserId(eq(activeUser.getId()), any(Pageable.class)))
+                .thenReturn(historyPage);
+        when(borrowingMapper.toResponse(history)).thenReturn(borrowingResponse);
 
         Page<BorrowingResponse> response = borrowingService.getBorrowingsByCurrentUser(activeUser.getEmail(), 0, 10);
 
@@ -328,7 +411,7 @@ class BorrowingServiceUnitTest {
         assertEquals(borrowingResponse, response.getContent().getFirst());
 
         verify(userRepository).findByEmail(activeUser.getEmail());
-        verify(borrowingRepository).findByUserId(eq(activeUser.getId()), any(Pageable.class));
+        verify(historyRepository).findByUserId(eq(activeUser.getId()), any(Pageable.class));
     }
 
     @Test
@@ -336,12 +419,13 @@ class BorrowingServiceUnitTest {
     void shouldGetBorrowingsByBook() {
         // Arrange
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Borrowing> borrowingsPage = new PageImpl<>(List.of(activeBorrowing));
+        BorrowingHistory history = new BorrowingHistory();
+        Page<BorrowingHistory> historyPage = new PageImpl<>(List.of(history));
 
         when(bookRepository.findById(availableBook.getId())).thenReturn(Optional.of(availableBook));
-        when(borrowingRepository.findByBookId(eq(availableBook.getId()), any(Pageable.class)))
-                .thenReturn(borrowingsPage);
-        when(borrowingMapper.toResponse(activeBorrowing)).thenReturn(borrowingResponse);
+        when(historyRepository.findByBookId(eq(availableBook.getId()), any(Pageable.class)))
+                .thenReturn(historyPage);
+        when(borrowingMapper.toResponse(history)).thenReturn(borrowingResponse);
 
         Page<BorrowingResponse> response = borrowingService.getBorrowingsByBook(availableBook.getId(), 0, 10);
 
@@ -350,7 +434,7 @@ class BorrowingServiceUnitTest {
         assertEquals(borrowingResponse, response.getContent().get(0));
 
         verify(bookRepository).findById(availableBook.getId());
-        verify(borrowingRepository).findByBookId(eq(availableBook.getId()), any(Pageable.class));
+        verify(historyRepository).findByBookId(eq(availableBook.getId()), any(Pageable.class));
     }
 
     @Test
@@ -401,14 +485,29 @@ class BorrowingServiceUnitTest {
         assertThrows(ResourceNotFoundException.class, () -> borrowingService.getBorrowingById(nonExistentId));
 
         verify(borrowingRepository).findById(nonExistentId);
-        verify(borrowingMapper, never()).toResponse(any());
+        verify(historyRepository).findById(nonExistentId);
+        verify(borrowingMapper, never()).toResponse(any(Borrowing.class));
+        verify(borrowingMapper, never()).toResponse(any(BorrowingHistory.class));
+    }
+
+    @Test
+    @DisplayName("Should find archived borrowing by id")
+    void shouldFindArchivedBorrowingById() {
+
+        BorrowingHistory archived = new BorrowingHistory();
+        when(borrowingRepository.findById(5L)).thenReturn(Optional.empty());
+        when(historyRepository.findById(5L)).thenReturn(Optional.of(archived));
+        when(borrowingMapper.toResponse(archived)).thenReturn(borrowingResponse);
+
+        BorrowingResponse response = borrowingService.getBorrowingById(5L);
+
+        assertEquals(borrowingResponse, response);
     }
 
     @Test
     @DisplayName("Should update overdue status for borrowings")
     void shouldUpdateOverdueStatusForBorrowings() {
 
-        Pageable pageable = PageRequest.of(0, Integer.MAX_VALUE);
         LocalDate today = LocalDate.now();
 
         Borrowing overdueBorrowing = Borrowing.builder()
@@ -420,31 +519,72 @@ class BorrowingServiceUnitTest {
                 .build();
         overdueBorrowing.setId(4L);
 
-        Page<Borrowing> activeBorrowingsPage = new PageImpl<>(List.of(overdueBorrowing));
+        // Returned after the chunk was read
+        Borrowing returnedBorrowing = Borrowing.builder()
+                .user(activeUser)
+                .book(availableBook)
+                .borrowDate(today.minusDays(30))
+                .dueDate(today.minusDays(1))
+                .status(BorrowingStatus.RETURNED)
+                .build();
+        returnedBorrowing.setId(5L);
 
-        when(borrowingRepository.findByStatus(eq(BorrowingStatus.ACTIVE), any(Pageable.class)))
-                .thenReturn(activeBorrowingsPage);
+        when(borrowingRepository.findByIdIn(List.of(4L, 5L))).thenReturn(List.of(overdueBorrowing, returnedBorrowing));
         when(borrowingRepository.saveAll(anyList())).thenReturn(List.of(overdueBorrowing));
 
-        borrowingService.updateOverdueStatus();
+        int marked = borrowingService.markOverdue(List.of(4L, 5L));
 
-        verify(borrowingRepository).findByStatus(eq(BorrowingStatus.ACTIVE), any(Pageable.class));
-        verify(borrowingRepository).saveAll(anyList());
+        assertEquals(1, marked);
+        assertEquals(BorrowingStatus.OVERDUE, overdueBorrowing.getStatus());
+        assertEquals(BorrowingStatus.RETURNED, returnedBorrowing.getStatus());
+        verify(borrowingRepository).saveAll(List.of(overdueBorrowing));
+        verify(userRepository).adjustLoanCounts(activeUser.getId(), -1, 1);
     }
 
     @Test
     @DisplayName("Should throw exception when user has exceeded borrowing limit")
     void shouldThrowExceptionWhenUserHasExceededBorrowingLimit() {
 
-        when(userRepository.findByEmail(activeUser.getEmail())).thenReturn(Optional.of(activeUser));
-        when(borrowingRepository.countByUserIdAndStatus(activeUser.getId(), BorrowingStatus.ACTIVE))
-                .thenReturn((long) activeUser.getMaxAllowedBorrows());
+        when(userRepository.findCurrentByEmail(activeUser.getEmail())).thenReturn(Optional.of(activeUser));
+        when(userRepository.incrementActiveLoanCountIfBelowLimit(activeUser.getId())).thenReturn(0);
 
         assertThrows(BorrowingLimitExceededException.class,
                 () -> borrowingService.borrowBook(createRequest, activeUser.getEmail()));
 
-        verify(userRepository).findByEmail(activeUser.getEmail());
-        verify(borrowingRepository).countByUserIdAndStatus(activeUser.getId(), BorrowingStatus.ACTIVE);
+        verify(userRepository).findCurrentByEmail(activeUser.getEmail());
+        verify(userRepository).incrementActiveLoanCountIfBelowLimit(activeUser.getId());
         verify(bookRepository, never()).findById(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should judge overdue loans by the injected clock")
+    void shouldMarkOverdueByInjectedClock() {
+
+        LocalDate today = LocalDate.of(2025, 3, 10);
+        Borrowing dueToday = Borrowing.builder()
+                .user(activeUser)
+                .book(availableBook)
+                .borrowDate(today.minusDays(14))
+                .dueDate(today)
+                .status(BorrowingStatus.ACTIVE)
+                .build();
+        dueToday.setId(6L);
+        when(borrowingRepository.findByIdIn(List.of(6L))).thenReturn(List.of(dueToday));
+
+        assertEquals(0, service(fixedAt(today)).markOverdue(List.of(6L)));
+        assertEquals(BorrowingStatus.ACTIVE, dueToday.getStatus());
+
+        assertEquals(1, service(fixedAt(today.plusDays(1))).markOverdue(List.of(6L)));
+        assertEquals(BorrowingStatus.OVERDUE, dueToday.getStatus());
+    }
+
+    private BorrowingServiceImpl service(Clock clock) {
+        return new BorrowingServiceImpl(borrowingRepository, historyRepository, userRepository, bookRepository,
+                borrowingMapper, eventService, loanStatisticsService, bookPopularityService, bookRecommendationService,
+                holdService, jobRunner, readYourWrites, libraryMetrics, clock);
+    }
+
+    private static Clock fixedAt(LocalDate date) {
+        return Clock.fixed(date.atTime(9, 0).atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+    }
+}
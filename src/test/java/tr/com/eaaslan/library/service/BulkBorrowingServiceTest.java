@@ -0,0 +1,241 @@
+package tr.com.eaaslan.library.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import tr.com.eaaslan.library.datasource.ReadYourWrites;
+import tr.com.eaaslan.library.exception.UserSuspendedException;
+import tr.com.eaaslan.library.model.*;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkBorrowRequest;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkItemResult;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkOperationResponse;
+import tr.com.eaaslan.library.model.dto.borrowing.BulkReturnRequest;
+import tr.com.eaaslan.library.model.mapper.BorrowingMapper;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingRepository;
+import tr.com.eaaslan.library.repository.UserRepository;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class BulkBorrowingServiceTest {
+
+    @Mock
+    private BorrowingRepository borrowingRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BorrowingMapper borrowingMapper;
+
+    @Mock
+    private BookAvailabilityEventService eventService;
+
+    @Mock
+    private LoanStatisticsService loanStatisticsService;
+
+    @Mock
+    private BookPopularityService bookPopularityService;
+
+    @Mock
+    private BookRecommendationService bookRecommendationService;
+
+    @Mock
+    private HoldService holdService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ReadYourWrites readYourWrites;
+
+    private BulkBorrowingService bulkBorrowingService;
+
+    private User librarian;
+    private User patron;
+    private Book firstBook;
+    private Book secondBook;
+
+    @BeforeEach
+    void setUp() {
+        bulkBorrowingService = new BulkBorrowingService(borrowingRepository, userRepository, bookRepository,
+                borrowingMapper, eventService, loanStatisticsService, bookPopularityService, bookRecommendationService,
+                holdService, transactionTemplate, readYourWrites, Clock.systemDefaultZone(), 2);
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        librarian = User.builder().email("librarian@example.com").role(UserRole.LIBRARIAN)
+                .status(UserStatus.ACTIVE).build();
+        librarian.setId(10L);
+
+        patron = User.builder().email("patron@example.com").role(UserRole.PATRON)
+                .status(UserStatus.ACTIVE).maxAllowedBorrows(3).build();
+        patron.setId(1L);
+
+        firstBook = Book.builder().title("First").available(true).quantity(1).build();
+        firstBook.setId(100L);
+
+        secondBook = Book.builder().title("Second").available(true).quantity(2).build();
+        secondBook.setId(200L);
+    }
+
+    private Borrowing borrowing(Long id, Book book, BorrowingStatus status) {
+        Borrowing borrowing = Borrowing.builder()
+                .user(patron)
+                .book(book)
+                .borrowDate(LocalDate.now().minusDays(20))
+                .dueDate(LocalDate.now().minusDays(6))
+                .status(status)
+                .build();
+        borrowing.setId(id);
+        return borrowing;
+    }
+
+    @Test
+    @DisplayName("Should return a bin of books with per-item results and one event per book")
+    void shouldReturnBinWithPerItemResults() {
+        Borrowing active = borrowing(1L, firstBook, BorrowingStatus.ACTIVE);
+        Borrowing overdue = borrowing(2L, firstBook, BorrowingStatus.OVERDUE);
+        Borrowing alreadyReturned = borrowing(3L, secondBook, BorrowingStatus.RETURNED);
+
+        when(userRepository.findByEmail(librarian.getEmail())).thenReturn(Optional.of(librarian));
+        when(borrowingRepository.findByIdIn(List.of(1L, 2L))).thenReturn(List.of(active, overdue));
+        when(borrowingRepository.findByIdIn(List.of(3L, 4L))).thenReturn(List.of(alreadyReturned));
+
+        BulkOperationResponse response = bulkBorrowingService.returnBooks(
+                new BulkReturnRequest(List.of(1L, 2L, 3L, 4L), LocalDate.now()), librarian.getEmail());
+
+        assertEquals(4, response.requested());
+        assertEquals(2, response.succeeded());
+        assertEquals(List.of(true, true, false, false),
+                response.results().stream().map(BulkItemResult::success).toList());
+        assertEquals(3, firstBook.getQuantity());
+        assertTrue(active.isReturnedLate());
+
+        verify(borrowingRepository, times(2)).findByIdIn(anyCollection());
+        verify(userRepository).adjustLoanCounts(patron.getId(), -1, -1);
+        verify(eventService, times(1)).publishBookAvailabilityChange(firstBook);
+        verify(eventService, never()).publishBookAvailabilityChange(secondBook);
+        verify(loanStatisticsService).recordReturn(firstBook.getId(), LocalDate.now(), false, true);
+        verify(loanStatisticsService).recordReturn(firstBook.getId(), LocalDate.now(), true, true);
+    }
+
+    @Test
+    @DisplayName("Should reject returns of other users' borrowings for patrons")
+    void shouldRejectOtherUsersBorrowingsForPatrons() {
+        User otherPatron = User.builder().email("other@example.com").role(UserRole.PATRON)
+                .status(UserStatus.ACTIVE).build();
+        otherPatron.setId(2L);
+
+        when(userRepository.findByEmail(otherPatron.getEmail())).thenReturn(Optional.of(otherPatron));
+        when(borrowingRepository.findByIdIn(List.of(1L)))
+                .thenReturn(List.of(borrowing(1L, firstBook, BorrowingStatus.ACTIVE)));
+
+        BulkOperationResponse response = bulkBorrowingService.returnBooks(
+                new BulkReturnRequest(List.of(1L), null), otherPatron.getEmail());
+
+        assertEquals(1, response.failed());
+        assertEquals(1, firstBook.getQuantity());
+        verify(eventService, never()).publishBookAvailabilityChange(any());
+    }
+
+    @Test
+    @DisplayName("Should borrow available books up to the remaining limit")
+    void shouldBorrowAvailableBooksUpToLimit() {
+        Book unavailable = Book.builder().title("Gone").available(false).quantity(0).build();
+        unavailable.setId(300L);
+        Book thirdBook = Book.builder().title("Third").available(true).quantity(1).build();
+        thirdBook.setId(400L);
+        patron.setActiveLoanCount(2);
+
+        when(userRepository.findCurrentByEmail(patron.getEmail())).thenReturn(Optional.of(patron));
+        when(userRepository.findCurrentById(patron.getId())).thenReturn(Optional.of(patron));
+        when(bookRepository.findAllCurrentById(List.of(100L, 300L))).thenReturn(List.of(firstBook, unavailable));
+        when(bookRepository.findAllCurrentById(List.of(200L, 400L))).thenReturn(List.of(secondBook, thirdBook));
+        when(userRepository.incrementActiveLoanCountIfWithinLimit(eq(patron.getId()), anyInt())).thenReturn(1);
+
+        BulkOperationResponse response = bulkBorrowingService.borrowBooks(
+                new BulkBorrowRequest(List.of(100L, 300L, 200L, 400L), null), patron.getEmail());
+
+        assertEquals(List.of(true, false, true, false),
+                response.results().stream().map(BulkItemResult::success).toList());
+        assertEquals(0, firstBook.getQuantity());
+        assertFalse(firstBook.isAvailable());
+        assertEquals(1, secondBook.getQuantity());
+        assertEquals(1, thirdBook.getQuantity());
+        verify(userRepository, times(2)).incrementActiveLoanCountIfWithinLimit(patron.getId(), 1);
+    }
+
+    @Test
+    @DisplayName("Should borrow the copy reserved for the patron's ready hold")
+    void shouldBorrowReservedCopyOfReadyHold() {
+        Book reserved = Book.builder().title("Reserved").available(false).quantity(0).build();
+        reserved.setId(300L);
+
+        when(userRepository.findCurrentByEmail(patron.getEmail())).thenReturn(Optional.of(patron));
+        when(userRepository.findCurrentById(patron.getId())).thenReturn(Optional.of(patron));
+        when(holdService.readyHoldBookIds(patron.getId())).thenReturn(Set.of(300L));
+        when(bookRepository.findAllCurrentById(List.of(300L, 100L))).thenReturn(List.of(reserved, firstBook));
+        when(userRepository.incrementActiveLoanCountIfWithinLimit(eq(patron.getId()), anyInt())).thenReturn(1);
+
+        BulkOperationResponse response = bulkBorrowingService.borrowBooks(
+                new BulkBorrowRequest(List.of(300L, 100L), null), patron.getEmail());
+
+        assertEquals(2, response.succeeded());
+        assertEquals(0, reserved.getQuantity());
+        assertEquals(0, firstBook.getQuantity());
+        verify(holdService).claimReadyHold(patron.getId(), 300L);
+        verify(holdService, never()).claimReadyHold(patron.getId(), 100L);
+        verify(eventService, never()).publishBookAvailabilityChange(reserved);
+        verify(eventService).publishBookAvailabilityChange(firstBook);
+    }
+
+    @Test
+    @DisplayName("Should report every item of a chunk as failed when the chunk rolls back")
+    void shouldFailWholeChunkOnRollback() {
+        when(userRepository.findCurrentByEmail(patron.getEmail())).thenReturn(Optional.of(patron));
+        when(userRepository.findCurrentById(patron.getId())).thenReturn(Optional.of(patron));
+        when(bookRepository.findAllCurrentById(List.of(100L, 200L))).thenReturn(List.of(firstBook, secondBook));
+        when(userRepository.incrementActiveLoanCountIfWithinLimit(eq(patron.getId()), anyInt())).thenReturn(0);
+
+        BulkOperationResponse response = bulkBorrowingService.borrowBooks(
+                new BulkBorrowRequest(List.of(100L, 200L), null), patron.getEmail());
+
+        assertEquals(2, response.failed());
+        verify(borrowingRepository, never()).saveAll(anyList());
+        verify(eventService, never()).publishBookAvailabilityChange(any());
+    }
+
+    @Test
+    @DisplayName("Should reject bulk checkout for suspended users")
+    void shouldRejectBulkCheckoutForSuspendedUsers() {
+        patron.setStatus(UserStatus.SUSPENDED);
+        when(userRepository.findCurrentByEmail(patron.getEmail())).thenReturn(Optional.of(patron));
+
+        assertThrows(UserSuspendedException.class, () -> bulkBorrowingService.borrowBooks(
+                new BulkBorrowRequest(List.of(100L), null), patron.getEmail()));
+
+        verify(transactionTemplate, never()).execute(any());
+    }
+}
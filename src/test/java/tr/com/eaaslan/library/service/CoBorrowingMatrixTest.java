@@ -0,0 +1,76 @@
+package tr.com.eaaslan.library.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tr.com.eaaslan.library.service.CoBorrowingMatrix.CoBorrowedBooks;
+import tr.com.eaaslan.library.util.LongIntHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoBorrowingMatrixTest {
+
+    @Test
+    @DisplayName("Should count each patron once per pair and rank by co-borrowers")
+    void shouldRankCoBorrowedBooks() {
+        CoBorrowingMatrix.Builder builder = new CoBorrowingMatrix.Builder(10);
+        add(builder, 1, 10, 20, 30);
+        add(builder, 2, 10, 20);
+        add(builder, 3, 10, 30, 40);
+        add(builder, 4, 10);
+        CoBorrowingMatrix matrix = builder.build();
+
+        CoBorrowedBooks top = matrix.topCoBorrowed(10, 2);
+        assertArrayEquals(new long[]{20, 30}, top.bookIds());
+        assertArrayEquals(new int[]{2, 2}, top.borrowers());
+
+        assertArrayEquals(new long[]{10, 30}, matrix.topCoBorrowed(20, 5).bookIds());
+        assertEquals(5, matrix.pairs());
+        assertEquals(0, matrix.topCoBorrowed(99, 5).size());
+    }
+
+    @Test
+    @DisplayName("Should leave out patrons above the book cap")
+    void shouldSkipHeavyBorrowers() {
+        CoBorrowingMatrix.Builder builder = new CoBorrowingMatrix.Builder(2);
+        add(builder, 1, 10, 20, 30);
+        add(builder, 2, 10, 20);
+        CoBorrowingMatrix matrix = builder.build();
+
+        assertEquals(1, matrix.pairs());
+        assertArrayEquals(new int[]{1}, matrix.topCoBorrowed(10, 5).borrowers());
+    }
+
+    @Test
+    @DisplayName("Should pair a newly borrowed book with the patron's earlier books")
+    void shouldAddBookIncrementally() {
+        CoBorrowingMatrix matrix = new CoBorrowingMatrix();
+        matrix.addBorrower(new long[]{10, 20});
+        matrix.addBook(30, new long[]{10, 20, 30});
+
+        assertArrayEquals(new long[]{20, 30}, matrix.topCoBorrowed(10, 5).bookIds());
+        assertArrayEquals(new long[]{10, 20}, matrix.topCoBorrowed(30, 5).bookIds());
+        assertEquals(3, matrix.pairs());
+    }
+
+    @Test
+    @DisplayName("Should grow the primitive map and keep every counter")
+    void shouldGrowLongIntHashMap() {
+        LongIntHashMap map = new LongIntHashMap();
+        for (long key = 1; key <= 10_000; key++) {
+            map.addTo(key, (int) key);
+        }
+        map.addTo(5_000, 1);
+
+        assertEquals(10_000, map.size());
+        assertEquals(5_001, map.get(5_000));
+        assertEquals(0, map.get(10_001));
+        assertFalse(map.containsKey(-1));
+        assertThrows(IllegalArgumentException.class, () -> map.addTo(0, 1));
+    }
+
+    private static void add(CoBorrowingMatrix.Builder builder, long userId, long... bookIds) {
+        for (long bookId : bookIds) {
+            builder.add(userId, bookId);
+        }
+    }
+}
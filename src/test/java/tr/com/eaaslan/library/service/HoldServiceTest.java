@@ -0,0 +1,189 @@
+package tr.com.eaaslan.library.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import tr.com.eaaslan.library.config.ClockConfig;
+import tr.com.eaaslan.library.config.TestJpaConfig;
+import tr.com.eaaslan.library.exception.BusinessRuleException;
+import tr.com.eaaslan.library.exception.ResourceAlreadyExistException;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.model.*;
+import tr.com.eaaslan.library.model.dto.hold.HoldResponse;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.HoldRepository;
+import tr.com.eaaslan.library.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({TestJpaConfig.class, ClockConfig.class, HoldService.class, BookAvailabilityEventService.class,
+        LibraryMetrics.class, SimpleMeterRegistry.class})
+class HoldServiceTest {
+
+    // Only the scheduled runs go through it
+    @MockitoBean
+    private JobRunner jobRunner;
+
+    @Autowired
+    private HoldService holdService;
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User first;
+    private User second;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        first = userRepository.save(user("first@library.com", "05501234580"));
+        second = userRepository.save(user("second@library.com", "05501234581"));
+        book = bookRepository.save(Book.builder()
+                .isbn("1234567897")
+                .title("New Release")
+                .author("Author")
+                .publicationYear(Year.of(2025))
+                .publisher("Test Publisher")
+                .genre(Genre.FICTION)
+                .available(false)
+                .quantity(0)
+                .build());
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Should queue holds in request order and reject duplicates")
+    void shouldQueueHolds() {
+        HoldResponse firstHold = holdService.placeHold(book.getId(), first.getEmail());
+        HoldResponse secondHold = holdService.placeHold(book.getId(), second.getEmail());
+
+        assertEquals(HoldStatus.WAITING.name(), firstHold.status());
+        assertEquals(1, firstHold.queuePosition());
+        assertEquals(2, secondHold.queuePosition());
+        assertThrows(ResourceAlreadyExistException.class, () -> holdService.placeHold(book.getId(), first.getEmail()));
+    }
+
+    @Test
+    @DisplayName("Should not accept holds on books with a copy on the shelf")
+    void shouldRejectHoldOnAvailableBook() {
+        book.setQuantity(1);
+        book.setAvailable(true);
+        bookRepository.saveAndFlush(book);
+
+        assertThrows(BusinessRuleException.class, () -> holdService.placeHold(book.getId(), first.getEmail()));
+    }
+
+    @Test
+    @DisplayName("Should reserve a returned copy for the oldest hold until it is claimed")
+    void shouldReserveReturnedCopyForFirstHold() {
+        HoldResponse firstHold = holdService.placeHold(book.getId(), first.getEmail());
+        HoldResponse secondHold = holdService.placeHold(book.getId(), second.getEmail());
+
+        book.setQuantity(1);
+        book.setAvailable(true);
+        assertEquals(1, holdService.allocateCopies(book));
+        entityManager.flush();
+
+        assertEquals(0, book.getQuantity());
+        assertFalse(book.isAvailable());
+        Hold ready = holdRepository.findById(firstHold.id()).orElseThrow();
+        assertEquals(HoldStatus.READY, ready.getStatus());
+        assertNotNull(ready.getPickupDeadline());
+        assertEquals(HoldStatus.WAITING, holdRepository.findById(secondHold.id()).orElseThrow().getStatus());
+        assertEquals(Set.of(book.getId()), holdService.readyHoldBookIds(first.getId()));
+        assertEquals(Set.of(), holdService.readyHoldBookIds(second.getId()));
+
+        assertFalse(holdService.claimReadyHold(second.getId(), book.getId()));
+        assertTrue(holdService.claimReadyHold(first.getId(), book.getId()));
+        assertEquals(HoldStatus.FULFILLED, holdRepository.findById(firstHold.id()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should pass an unclaimed copy to the next hold once the pickup window is over")
+    void shouldExpireUnclaimedHold() {
+        HoldResponse firstHold = holdService.placeHold(book.getId(), first.getEmail());
+        HoldResponse secondHold = holdService.placeHold(book.getId(), second.getEmail());
+        book.setQuantity(1);
+        holdService.allocateCopies(book);
+
+        Hold ready = holdRepository.findById(firstHold.id()).orElseThrow();
+        ready.setPickupDeadline(LocalDateTime.now().minusMinutes(1));
+        holdRepository.saveAndFlush(ready);
+
+        holdService.sweepHolds();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(HoldStatus.EXPIRED, holdRepository.findById(firstHold.id()).orElseThrow().getStatus());
+        assertEquals(HoldStatus.READY, holdRepository.findById(secondHold.id()).orElseThrow().getStatus());
+        assertEquals(0, bookRepository.findById(book.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should pass the copy reserved for a deleted patron to the next hold")
+    void shouldReleaseCopyOfDeletedPatron() {
+        HoldResponse firstHold = holdService.placeHold(book.getId(), first.getEmail());
+        HoldResponse secondHold = holdService.placeHold(book.getId(), second.getEmail());
+        book.setQuantity(1);
+        holdService.allocateCopies(book);
+        entityManager.flush();
+
+        assertEquals(1, holdService.deleteHoldsOfUser(first.getId()));
+        userRepository.delete(first);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(holdRepository.findById(firstHold.id()).isEmpty());
+        assertEquals(HoldStatus.READY, holdRepository.findById(secondHold.id()).orElseThrow().getStatus());
+        assertEquals(0, bookRepository.findById(book.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should delete the holds of a deleted book")
+    void shouldDeleteHoldsOfBook() {
+        holdService.placeHold(book.getId(), first.getEmail());
+        holdService.placeHold(book.getId(), second.getEmail());
+
+        assertEquals(2, holdService.deleteHoldsOfBook(book.getId()));
+        bookRepository.delete(book);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(0, holdRepository.count());
+        assertTrue(bookRepository.findById(book.getId()).isEmpty());
+    }
+
+    private static User user(String email, String phoneNumber) {
+        return User.builder()
+                .email(email)
+                .password("password")
+                .firstName("Hold")
+                .lastName("Patron")
+                .phoneNumber(phoneNumber)
+                .role(UserRole.PATRON)
+                .status(UserStatus.ACTIVE)
+                .build();
+    }
+}
@@ -0,0 +1,352 @@
+package tr.com.eaaslan.library.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tr.com.eaaslan.library.config.TestJpaConfig;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.model.JobLock;
+import tr.com.eaaslan.library.model.JobRun;
+import tr.com.eaaslan.library.model.JobRunStatus;
+import tr.com.eaaslan.library.repository.JobCheckpointRepository;
+import tr.com.eaaslan.library.repository.JobLockRepository;
+import tr.com.eaaslan.library.repository.JobRunRepository;
+import tr.com.eaaslan.library.service.JobRunner.IdRange;
+import tr.com.eaaslan.library.service.JobRunner.KeysetReader;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Locks and run history commit in their own transactions, so the tests run without one and clean up after
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(TestJpaConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JobRunnerTest {
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Autowired
+    private JobRunRepository jobRunRepository;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Ids 1 to 10, standing in for a table read by keyset
+    private final KeysetReader reader = (afterId, lastId, limit) -> LongStream.rangeClosed(1, 10)
+            .filter(id -> id > afterId && id <= lastId)
+            .limit(limit)
+            .boxed()
+            .toList();
+
+    @AfterEach
+    void tearDown() {
+        jobRunRepository.deleteAll();
+        jobLockRepository.deleteAll();
+        jobCheckpointRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should run a job on one node only while its lease is held")
+    void shouldRunOnOneNode() {
+        JobRunner first = runner("node-1", Duration.ofMinutes(5));
+        JobRunner second = runner("node-2", Duration.ofMinutes(5));
+        AtomicInteger runs = new AtomicInteger();
+
+        // The second node fires while the first is still running, then again after it finished
+        boolean ranFirst = first.run("penalties", () -> {
+            assertFalse(second.run("penalties", runs::incrementAndGet));
+            return runs.incrementAndGet();
+        });
+        boolean ranSecond = second.run("penalties", runs::incrementAndGet);
+
+        assertTrue(ranFirst);
+        assertFalse(ranSecond);
+        assertEquals(1, runs.get());
+
+        JobRun run = jobRunRepository.findAll().getFirst();
+        assertEquals("penalties", run.getJobName());
+        assertEquals("node-1", run.getNode());
+        assertEquals(JobRunStatus.SUCCEEDED, run.getStatus());
+        assertEquals(1, run.getRowsAffected());
+        assertNull(run.getShard());
+    }
+
+    @Test
+    @DisplayName("Should let another node take over an expired lease")
+    void shouldTakeOverExpiredLease() {
+        LocalDateTime past = LocalDateTime.now().minusHours(2);
+        jobLockRepository.save(JobLock.builder()
+                .name("penalties")
+                .lockedAt(past)
+                .lockedUntil(past.plusHours(1))
+                .lockedBy("crashed-node")
+                .build());
+
+        assertTrue(runner("node-1", Duration.ZERO).run("penalties", () -> 0));
+        assertTrue(runner("node-2", Duration.ZERO).run("penalties", () -> 0));
+        assertEquals("node-2", jobLockRepository.findById("penalties").orElseThrow().getLockedBy());
+    }
+
+    @Test
+    @DisplayName("Should record failed runs and release the lock")
+    void shouldRecordFailure() {
+        JobRunner runner = runner("node-1", Duration.ZERO);
+
+        assertTrue(runner.run("penalties", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        JobRun run = jobRunRepository.findAll().getFirst();
+        assertEquals(JobRunStatus.FAILED, run.getStatus());
+        assertEquals("IllegalStateException: boom", run.getError());
+        assertTrue(runner.run("penalties", () -> 0));
+    }
+
+    @Test
+    @DisplayName("Should split the id range into shards that each run once")
+    void shouldRunEachShardOnce() {
+        JobRunner first = runner("node-1", Duration.ofMinutes(5));
+        JobRunner second = runner("node-2", Duration.ofMinutes(5));
+        List<Long> processed = new ArrayList<>();
+
+        int ranFirst = first.runSharded("accounts", new IdRange(1, 10), reader, ids -> {
+            processed.addAll(ids);
+            return ids.size();
+        });
+        int ranSecond = second.runSharded("accounts", new IdRange(1, 10), reader, ids -> {
+            processed.addAll(ids);
+            return ids.size();
+        });
+
+        assertEquals(4, ranFirst);
+        assertEquals(0, ranSecond);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), processed.stream().sorted().toList());
+        assertEquals(4, jobRunRepository.count());
+        assertEquals(10, jobRunRepository.findAll().stream().mapToLong(JobRun::getRowsAffected).sum());
+    }
+
+    @Test
+    @DisplayName("Should run shards in parallel on one node")
+    void shouldRunShardsInParallel() {
+        JobRunner runner = new JobRunner(jobLockRepository, jobRunRepository, jobCheckpointRepository,
+                transactionManager, new LibraryMetrics(new SimpleMeterRegistry()), bulkhead(),
+                Clock.systemDefaultZone(), Duration.ofHours(1), Duration.ZERO, 4, 4, 2, Duration.ofHours(12),
+                Duration.ofDays(90), "node-1");
+        List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+
+        assertEquals(4, runner.runSharded("accounts", new IdRange(1, 10), reader, ids -> {
+            processed.addAll(ids);
+            return ids.size();
+        }));
+        assertEquals(10, processed.size());
+    }
+
+    @Test
+    @DisplayName("Should keep committed chunks of a failed run and continue after its checkpoint")
+    void shouldResumeFromCheckpoint() {
+        JobRunner runner = runner("node-1", Duration.ZERO);
+        List<Long> processed = new ArrayList<>();
+        AtomicInteger failures = new AtomicInteger(1);
+
+        assertTrue(runner.runChunked("overdue", reader, ids -> {
+            if (ids.contains(5L) && failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("boom");
+            }
+            processed.addAll(ids);
+            return ids.size();
+        }));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), processed);
+        assertEquals(4, jobCheckpointRepository.findById("overdue").orElseThrow().getLastId());
+        JobRun failed = jobRunRepository.findAll().getFirst();
+        assertEquals(JobRunStatus.FAILED, failed.getStatus());
+        assertEquals(4, failed.getRowsAffected());
+
+        processed.clear();
+        assertTrue(runner.runChunked("overdue", reader, ids -> {
+            processed.addAll(ids);
+            return ids.size();
+        }));
+
+        assertEquals(List.of(5L, 6L, 7L, 8L, 9L, 10L), processed);
+        assertTrue(jobCheckpointRepository.findById("overdue").isEmpty());
+        JobRun resumed = jobRunRepository.findAll().stream()
+                .filter(run -> run.getStatus() == JobRunStatus.SUCCEEDED)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(4L, resumed.getResumedAfterId());
+        assertEquals(6, resumed.getRowsAffected());
+    }
+
+    @Test
+    @DisplayName("Should start over at the next day's firing instead of resuming a failed run of the day before")
+    void shouldNotResumeStaleCheckpoint() {
+        List<Long> processed = new ArrayList<>();
+        runner("node-1", Duration.ZERO).runChunked("overdue", reader, ids -> {
+            if (ids.contains(5L)) {
+                throw new IllegalStateException("boom");
+            }
+            return ids.size();
+        });
+        assertEquals(4, jobCheckpointRepository.findById("overdue").orElseThrow().getLastId());
+
+        Clock nextDay = Clock.offset(Clock.systemDefaultZone(), Duration.ofDays(1));
+        assertTrue(runner("node-1", Duration.ZERO, nextDay).runChunked("overdue", reader, ids -> {
+            processed.addAll(ids);
+            return ids.size();
+        }));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), processed);
+        JobRun run = jobRunRepository.findAll().stream()
+                .filter(candidate -> candidate.getStatus() == JobRunStatus.SUCCEEDED)
+                .findFirst()
+                .orElseThrow();
+        assertNull(run.getResumedAfterId());
+    }
+
+    @Test
+    @DisplayName("Should renew the lease with every chunk so a long run keeps it")
+    void shouldRenewLeasePerChunk() {
+        // Ten minutes pass whenever the runner reads the clock, so the run outlasts its first lease
+        Clock racing = new Clock() {
+            private Instant now = Instant.now();
+
+            @Override
+            public ZoneId getZone() {
+                return ZoneId.systemDefault();
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public synchronized Instant instant() {
+                now = now.plus(Duration.ofMinutes(10));
+                return now;
+            }
+        };
+        List<JobLock> leases = new ArrayList<>();
+
+        assertTrue(runner("node-1", Duration.ZERO, racing).runChunked("overdue", reader, ids -> {
+            leases.add(jobLockRepository.findById("overdue").orElseThrow());
+            return ids.size();
+        }));
+
+        JobLock first = leases.getFirst();
+        JobLock last = leases.getLast();
+        assertEquals(first.getLockedAt(), last.getLockedAt());
+        assertTrue(last.getLockedUntil().isAfter(first.getLockedAt().plusHours(1)));
+    }
+
+    @Test
+    @DisplayName("Should stop a chunked run without committing another chunk once its lease is lost")
+    void shouldStopWhenLeaseLost() {
+        List<Long> processed = new ArrayList<>();
+
+        assertTrue(runner("node-1", Duration.ZERO).runChunked("overdue", reader, ids -> {
+            if (ids.contains(3L)) {
+                // The lease ran out and another node took the job over
+                jobLockRepository.findById("overdue").orElseThrow().setLockedBy("node-2");
+            }
+            processed.addAll(ids);
+            return ids.size();
+        }));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), processed);
+        JobRun run = jobRunRepository.findAll().getFirst();
+        assertEquals(JobRunStatus.FAILED, run.getStatus());
+        assertTrue(run.getError().contains("lost its lease"));
+        assertEquals("node-2", jobLockRepository.findById("overdue").orElseThrow().getLockedBy());
+    }
+
+    @Test
+    @DisplayName("Should run node-local jobs on every node and record them")
+    void shouldRunOnEveryNode() {
+        AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(runner("node-1", Duration.ofMinutes(5)).runOnThisNode("recommendations", runs::incrementAndGet));
+        assertTrue(runner("node-2", Duration.ofMinutes(5)).runOnThisNode("recommendations", runs::incrementAndGet));
+
+        assertEquals(2, runs.get());
+        assertEquals(0, jobLockRepository.count());
+        assertEquals(2, jobRunRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should reject a checkpoint max age that spans a schedule period")
+    void shouldValidateCheckpointMaxAge() {
+        JobRunner runner = runner("node-1", Duration.ZERO);
+
+        assertDoesNotThrow(() -> runner.validateCheckpointMaxAge("0 15 0 * * ?"));
+        assertDoesNotThrow(() -> runner.validateCheckpointMaxAge("0 0 3 * * 0"));
+        assertThrows(IllegalStateException.class, () -> runner.validateCheckpointMaxAge("0 0 */6 * * ?"));
+    }
+
+    @Test
+    @DisplayName("Should skip a job without a free slot and leave its lease to other nodes")
+    void shouldNotLeaseWithoutSlot() {
+        WorkloadBulkhead oneJobAtATime = new WorkloadBulkhead(new LibraryMetrics(new SimpleMeterRegistry()), 1, 0,
+                Duration.ZERO, 1, 0, Duration.ZERO, 10);
+        JobRunner runner = new JobRunner(jobLockRepository, jobRunRepository, jobCheckpointRepository,
+                transactionManager, new LibraryMetrics(new SimpleMeterRegistry()), oneJobAtATime,
+                Clock.systemDefaultZone(), Duration.ofHours(1), Duration.ZERO, 4, 1, 2, Duration.ofHours(12),
+                Duration.ofDays(90), "node-1");
+
+        assertTrue(runner.run("penalties", () -> {
+            assertFalse(runner.run("archive", () -> 0));
+            return 0;
+        }));
+
+        assertTrue(jobLockRepository.findById("archive").isEmpty());
+        assertEquals(1, jobRunRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should skip sharded jobs without ids")
+    void shouldSkipEmptyRange() {
+        assertEquals(0, runner("node-1", Duration.ZERO).runSharded("accounts", IdRange.of(null, null), reader, ids -> 1));
+        assertEquals(0, jobRunRepository.count());
+    }
+
+    // Four shards, chunks of two ids, one shard at a time
+    private JobRunner runner(String nodeId, Duration lockAtLeastFor) {
+        return runner(nodeId, lockAtLeastFor, Clock.systemDefaultZone());
+    }
+
+    private JobRunner runner(String nodeId, Duration lockAtLeastFor, Clock clock) {
+        return new JobRunner(jobLockRepository, jobRunRepository, jobCheckpointRepository, transactionManager,
+                new LibraryMetrics(new SimpleMeterRegistry()), bulkhead(), clock,
+                Duration.ofHours(1), lockAtLeastFor, 4, 1, 2, Duration.ofHours(12), Duration.ofDays(90), nodeId);
+    }
+
+    // Room for the four parallel shards
+    private static WorkloadBulkhead bulkhead() {
+        return new WorkloadBulkhead(new LibraryMetrics(new SimpleMeterRegistry()), 2, 4, Duration.ofSeconds(10),
+                4, 100, Duration.ofMinutes(10), 10);
+    }
+}
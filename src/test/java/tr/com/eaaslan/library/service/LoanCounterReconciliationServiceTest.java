@@ -0,0 +1,95 @@
+package tr.com.eaaslan.library.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tr.com.eaaslan.library.model.BorrowingStatus;
+import tr.com.eaaslan.library.repository.BorrowingRepository;
+import tr.com.eaaslan.library.repository.UserRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanCounterReconciliationServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private BorrowingRepository borrowingRepository;
+
+    @InjectMocks
+    private LoanCounterReconciliationService reconciliationService;
+
+    @Test
+    @DisplayName("Should repair users whose stored loan counters differ from their borrowings")
+    void shouldRepairDriftedCounters() {
+        when(borrowingRepository.countUnreturnedByUserAndStatus()).thenReturn(List.of(
+                new Object[]{1L, BorrowingStatus.ACTIVE, 2L},
+                new Object[]{1L, BorrowingStatus.OVERDUE, 1L},
+                new Object[]{2L, BorrowingStatus.ACTIVE, 1L}));
+        when(userRepository.findNonZeroLoanCounts()).thenReturn(List.of(
+                new Object[]{1L, 2, 1},   // correct
+                new Object[]{2L, 3, 0},   // drifted
+                new Object[]{3L, 1, 0})); // has no unreturned loans any more
+        when(userRepository.lockLoanCounts(argThat(ids -> ids.containsAll(List.of(2L, 3L)) && ids.size() == 2)))
+                .thenReturn(List.of(new Object[]{2L, 3, 0}, new Object[]{3L, 1, 0}));
+        when(borrowingRepository.countUnreturnedByUserAndStatusForUsers(any())).thenReturn(List.<Object[]>of(
+                new Object[]{2L, BorrowingStatus.ACTIVE, 1L}));
+
+        int repaired = reconciliationService.reconcileLoanCounters();
+
+        assertEquals(2, repaired);
+        verify(userRepository).setLoanCounts(2L, 1, 0);
+        verify(userRepository).setLoanCounts(3L, 0, 0);
+        verify(userRepository, never()).setLoanCounts(eq(1L), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should set counters for users that have loans but zero stored counters")
+    void shouldSetCountersForUsersMissingThem() {
+        when(borrowingRepository.countUnreturnedByUserAndStatus()).thenReturn(List.<Object[]>of(
+                new Object[]{4L, BorrowingStatus.OVERDUE, 2L}));
+        when(userRepository.findNonZeroLoanCounts()).thenReturn(List.of());
+        when(userRepository.lockLoanCounts(List.of(4L))).thenReturn(List.<Object[]>of(new Object[]{4L, 0, 0}));
+        when(borrowingRepository.countUnreturnedByUserAndStatusForUsers(List.of(4L))).thenReturn(List.<Object[]>of(
+                new Object[]{4L, BorrowingStatus.OVERDUE, 2L}));
+
+        int repaired = reconciliationService.reconcileLoanCounters();
+
+        assertEquals(1, repaired);
+        verify(userRepository).setLoanCounts(4L, 0, 2);
+    }
+
+    @Test
+    @DisplayName("Should recount under the row lock and keep counters a concurrent checkout already settled")
+    void shouldRecountUnderLock() {
+        // The unlocked read caught a checkout whose loan was visible before its counter increment
+        when(borrowingRepository.countUnreturnedByUserAndStatus()).thenReturn(List.<Object[]>of(
+                new Object[]{5L, BorrowingStatus.ACTIVE, 2L}));
+        when(userRepository.findNonZeroLoanCounts()).thenReturn(List.<Object[]>of(new Object[]{5L, 1, 0}));
+        when(userRepository.lockLoanCounts(List.of(5L))).thenReturn(List.<Object[]>of(new Object[]{5L, 2, 0}));
+        when(borrowingRepository.countUnreturnedByUserAndStatusForUsers(List.of(5L))).thenReturn(List.<Object[]>of(
+                new Object[]{5L, BorrowingStatus.ACTIVE, 2L}));
+
+        assertEquals(0, reconciliationService.reconcileLoanCounters());
+        verify(userRepository, never()).setLoanCounts(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should not write anything when counters are consistent")
+    void shouldNotWriteWhenConsistent() {
+        when(borrowingRepository.countUnreturnedByUserAndStatus()).thenReturn(List.of());
+        when(userRepository.findNonZeroLoanCounts()).thenReturn(List.of());
+
+        assertEquals(0, reconciliationService.reconcileLoanCounters());
+        verify(userRepository, never()).lockLoanCounts(any());
+        verify(userRepository, never()).setLoanCounts(anyLong(), anyInt(), anyInt());
+    }
+}
@@ -0,0 +1,165 @@
+package tr.com.eaaslan.library.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import tr.com.eaaslan.library.config.ClockConfig;
+import tr.com.eaaslan.library.config.TestJpaConfig;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.model.*;
+import tr.com.eaaslan.library.repository.BookRepository;
+import tr.com.eaaslan.library.repository.BorrowingRepository;
+import tr.com.eaaslan.library.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({TestJpaConfig.class, ClockConfig.class, LoanReleaseService.class, BookAvailabilityEventService.class,
+        LoanStatisticsService.class, LibraryMetrics.class, SimpleMeterRegistry.class})
+class LoanReleaseServiceTest {
+
+    // Only the scheduled runs go through it
+    @MockitoBean
+    private JobRunner jobRunner;
+
+    @Autowired
+    private LoanReleaseService loanReleaseService;
+
+    @Autowired
+    private BorrowingRepository borrowingRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User leaving;
+    private User staying;
+    private Book firstBook;
+    private Book secondBook;
+
+    @BeforeEach
+    void setUp() {
+        leaving = userRepository.save(user("leaving@library.com", "05501234570"));
+        staying = userRepository.save(user("staying@library.com", "05501234571"));
+
+        firstBook = bookRepository.save(book("1234567893", 0));
+        secondBook = bookRepository.save(book("1234567894", 1));
+
+        LocalDate today = LocalDate.now();
+        borrowingRepository.save(borrowing(leaving, firstBook, BorrowingStatus.ACTIVE, today.minusDays(3)));
+        borrowingRepository.save(borrowing(leaving, secondBook, BorrowingStatus.OVERDUE, today.minusDays(30)));
+        borrowingRepository.save(borrowing(staying, firstBook, BorrowingStatus.ACTIVE, today.minusDays(2)));
+        Borrowing returned = borrowing(leaving, secondBook, BorrowingStatus.RETURNED, today.minusDays(60));
+        returned.setReturnDate(today.minusDays(50));
+        borrowingRepository.save(returned);
+
+        userRepository.setLoanCounts(leaving.getId(), 1, 1);
+        userRepository.setLoanCounts(staying.getId(), 1, 0);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should close open loans, restock books and reset counters with set-based statements")
+    void shouldReleaseUnreturnedLoans() {
+        int closed = loanReleaseService.releaseUnreturnedLoans(List.of(leaving.getId()), "admin");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(2, closed);
+
+        List<Borrowing> loans = borrowingRepository.findByUserIdOrderByBorrowDateDesc(leaving.getId());
+        assertTrue(loans.stream().allMatch(b -> b.getStatus() == BorrowingStatus.RETURNED));
+        Borrowing formerlyOverdue = loans.stream().filter(b -> b.getBook().getId().equals(secondBook.getId())
+                && b.getReturnDate().equals(LocalDate.now())).findFirst().orElseThrow();
+        assertTrue(formerlyOverdue.isReturnedLate());
+        assertEquals("admin", formerlyOverdue.getUpdatedBy());
+
+        Book first = bookRepository.findById(firstBook.getId()).orElseThrow();
+        assertEquals(1, first.getQuantity());
+        assertTrue(first.isAvailable());
+        assertEquals(2, bookRepository.findById(secondBook.getId()).orElseThrow().getQuantity());
+
+        User released = userRepository.findById(leaving.getId()).orElseThrow();
+        assertEquals(0, released.getActiveLoanCount());
+        assertEquals(0, released.getOverdueLoanCount());
+
+        assertEquals(1, userRepository.findById(staying.getId()).orElseThrow().getActiveLoanCount());
+        assertEquals(1, borrowingRepository.countByUserIdAndStatus(staying.getId(), BorrowingStatus.ACTIVE));
+    }
+
+    @Test
+    @DisplayName("Should delete all loans of a user and put unreturned copies back")
+    void shouldDeleteAllLoans() {
+        int deleted = loanReleaseService.deleteAllLoans(List.of(leaving.getId()), "admin");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(3, deleted);
+        assertTrue(borrowingRepository.findByUserIdOrderByBorrowDateDesc(leaving.getId()).isEmpty());
+        assertEquals(1, bookRepository.findById(firstBook.getId()).orElseThrow().getQuantity());
+        assertEquals(2, bookRepository.findById(secondBook.getId()).orElseThrow().getQuantity());
+        assertEquals(1, borrowingRepository.countByUserIdAndStatus(staying.getId(), BorrowingStatus.ACTIVE));
+    }
+
+    @Test
+    @DisplayName("Should do nothing for users without open loans")
+    void shouldIgnoreUsersWithoutOpenLoans() {
+        User idle = userRepository.save(user("idle@library.com", "05501234572"));
+
+        assertEquals(0, loanReleaseService.releaseUnreturnedLoans(List.of(idle.getId()), "admin"));
+        assertEquals(0, loanReleaseService.releaseUnreturnedLoans(List.of(), "admin"));
+    }
+
+    private static User user(String email, String phoneNumber) {
+        return User.builder()
+                .email(email)
+                .password("password")
+                .firstName("Loan")
+                .lastName("Holder")
+                .phoneNumber(phoneNumber)
+                .role(UserRole.PATRON)
+                .status(UserStatus.ACTIVE)
+                .build();
+    }
+
+    private static Book book(String isbn, int quantity) {
+        return Book.builder()
+                .isbn(isbn)
+                .title("Book " + isbn)
+                .author("Author")
+                .publicationYear(Year.of(2020))
+                .publisher("Test Publisher")
+                .genre(Genre.FICTION)
+                .available(quantity > 0)
+                .quantity(quantity)
+                .build();
+    }
+
+    private static Borrowing borrowing(User user, Book book, BorrowingStatus status, LocalDate borrowDate) {
+        return Borrowing.builder()
+                .user(user)
+                .book(book)
+                .borrowDate(borrowDate)
+                .dueDate(borrowDate.plusDays(14))
+                .status(status)
+                .build();
+    }
+}
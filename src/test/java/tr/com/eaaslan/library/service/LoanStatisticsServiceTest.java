@@ -0,0 +1,194 @@
+package tr.com.eaaslan.library.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tr.com.eaaslan.library.model.BookLoanStatistics;
+import tr.com.eaaslan.library.repository.BookLoanStatisticsRepository;
+import tr.com.eaaslan.library.repository.DailyLoanStatisticsRepository;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LoanStatisticsServiceTest {
+
+    @Mock
+    private DailyLoanStatisticsRepository dailyRepository;
+
+    @Mock
+    private BookLoanStatisticsRepository bookRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private LoanStatisticsService loanStatisticsService;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        when(dailyRepository.addDeltas(any(), anyLong(), anyLong(), anyLong())).thenReturn(1);
+        when(bookRepository.addDeltas(any(), anyLong(), anyLong(), anyLong())).thenReturn(1);
+    }
+
+    @Test
+    @DisplayName("Should coalesce transitions into one update per day and book")
+    void shouldCoalesceDeltasPerDayAndBook() {
+        loanStatisticsService.recordBorrow(1L, today);
+        loanStatisticsService.recordBorrow(1L, today);
+        loanStatisticsService.recordOverdue(1L);
+        loanStatisticsService.recordReturn(1L, today, true, true);
+        loanStatisticsService.recordBorrow(2L, today);
+
+        loanStatisticsService.flush();
+
+        verify(dailyRepository).addDeltas(today, 3, 1, 1);
+        verify(bookRepository).addDeltas(1L, 2, 1, 0);
+        verify(bookRepository).addDeltas(2L, 1, 1, 0);
+
+        loanStatisticsService.flush();
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should insert the aggregate row when it does not exist yet")
+    void shouldInsertMissingRow() {
+        when(bookRepository.addDeltas(eq(3L), anyLong(), anyLong(), anyLong())).thenReturn(0);
+
+        loanStatisticsService.recordBorrow(3L, today);
+        loanStatisticsService.flush();
+
+        verify(bookRepository).save(argThat((BookLoanStatistics s) ->
+                s.getBookId() == 3L && s.getLoanCount() == 1 && s.getOpenLoanCount() == 1));
+    }
+
+    @Test
+    @DisplayName("Should keep the deltas of a failed flush for the next one")
+    void shouldRetryFailedFlush() {
+        when(dailyRepository.addDeltas(any(), anyLong(), anyLong(), anyLong()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(1);
+
+        loanStatisticsService.recordBorrow(1L, today);
+        loanStatisticsService.flush();
+        loanStatisticsService.recordBorrow(1L, today);
+        loanStatisticsService.flush();
+
+        verify(dailyRepository).addDeltas(today, 2, 0, 0);
+    }
+
+    @Test
+    @DisplayName("Should only count transitions once their transaction commits")
+    void shouldWaitForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            loanStatisticsService.recordBorrow(1L, today);
+            loanStatisticsService.flush();
+            verify(transactionManager, never()).commit(any());
+
+            commit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        loanStatisticsService.flush();
+        verify(dailyRepository).addDeltas(today, 1, 0, 0);
+    }
+
+    @Test
+    @DisplayName("Should keep the delta of a loan committed during a rebuild")
+    void shouldKeepDeltaCommittedDuringRebuild() {
+        // Already part of the rebuild's snapshot
+        loanStatisticsService.recordBorrow(1L, today);
+        when(bookRepository.rebuildFromLoans()).thenAnswer(invocation -> {
+            // Commits after the snapshot was taken, so the rebuild does not see it
+            loanStatisticsService.recordBorrow(2L, today);
+            return 1;
+        });
+
+        loanStatisticsService.rebuild();
+        loanStatisticsService.flush();
+
+        verify(dailyRepository).addDeltas(today, 1, 0, 0);
+        verify(bookRepository).addDeltas(eq(2L), anyLong(), anyLong(), anyLong());
+        verify(bookRepository, never()).addDeltas(eq(1L), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should take the rebuild snapshot only after in-flight loans commit")
+    void shouldWaitForInFlightLoansBeforeSnapshot() throws Exception {
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch committing = new CountDownLatch(1);
+        CompletableFuture<Void> loan = CompletableFuture.runAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                loanStatisticsService.recordBorrow(1L, today);
+                recorded.countDown();
+                await(committing);
+                commit();
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+        assertTrue(recorded.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(loanStatisticsService::rebuild);
+        Thread.sleep(200);
+        verify(dailyRepository, never()).deleteAllStatistics();
+
+        committing.countDown();
+        loan.get(5, TimeUnit.SECONDS);
+        rebuild.get(5, TimeUnit.SECONDS);
+        verify(dailyRepository).deleteAllStatistics();
+
+        // The loan committed before the snapshot, so its delta was discarded
+        loanStatisticsService.flush();
+        verify(dailyRepository, never()).addDeltas(any(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should keep the pending deltas when the rebuild fails")
+    void shouldKeepDeltasOfFailedRebuild() {
+        when(bookRepository.rebuildFromLoans()).thenThrow(new QueryTimeoutException("timeout"));
+
+        loanStatisticsService.recordBorrow(1L, today);
+        assertThrows(QueryTimeoutException.class, loanStatisticsService::rebuild);
+        loanStatisticsService.flush();
+
+        verify(dailyRepository).addDeltas(today, 1, 0, 0);
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
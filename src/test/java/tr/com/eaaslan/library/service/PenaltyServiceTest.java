@@ -4,7 +4,6 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import tr.com.eaaslan.library.model.User;
@@ -12,10 +11,13 @@ import tr.com.eaaslan.library.model.UserStatus;
 import tr.com.eaaslan.library.repository.BorrowingRepository;
 import tr.com.eaaslan.library.repository.UserRepository;
 
+import java.time.Clock;
 import java.time.LocalDate;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,7 +29,9 @@ class PenaltyServiceTest {
     @Mock
     private BorrowingRepository borrowingRepository;
 
-    @InjectMocks
+    @Mock
+    private JobRunner jobRunner;
+
     private PenaltyService penaltyService;
 
     private User userWithManyLateReturns;
@@ -36,6 +40,7 @@ class PenaltyServiceTest {
 
     @BeforeEach
     void setUp() {
+        penaltyService = new PenaltyService(userRepository, borrowingRepository, jobRunner, Clock.systemDefaultZone());
 
         userWithManyLateReturns = User.builder()
                 .email("manylate@example.com")
@@ -61,40 +66,59 @@ class PenaltyServiceTest {
     @DisplayName("Should suspend users with 3+ late returns")
     void shouldSuspendUsersWithThreeOrMoreLateReturns() {
 
-        when(userRepository.findAllByStatus(UserStatus.ACTIVE))
-                .thenReturn(Arrays.asList(userWithManyLateReturns, userWithFewLateReturns));
+        when(borrowingRepository.findUserIdsWithLateReturnsBetween(
+                eq(List.of(1L, 2L)), any(LocalDate.class), any(LocalDate.class), eq(3L)))
+                .thenReturn(List.of(1L));
+        when(userRepository.findAllById(List.of(1L))).thenReturn(List.of(userWithManyLateReturns));
+
+        int suspended = penaltyService.applyLatePenalties(List.of(1L, 2L));
+
+        assertEquals(1, suspended);
+        verify(userRepository).saveAll(argThat(users -> {
+            List<User> userList = new ArrayList<>();
+            users.forEach(userList::add);
+            return userList.size() == 1 &&
+                    userList.getFirst().getId().equals(1L) &&
+                    userList.getFirst().getStatus() == UserStatus.SUSPENDED &&
+                    userList.getFirst().getSuspensionEndDate() != null;
+        }));
+        assertEquals(UserStatus.ACTIVE, userWithFewLateReturns.getStatus());
+    }
+
+    @Test
+    @DisplayName("Should restore users whose suspension has expired")
+    void shouldRestoreUsersWhoseSuspensionHasExpired() {
+
+        when(userRepository.findAllById(List.of(3L))).thenReturn(List.of(suspendedUser));
 
-        when(borrowingRepository.countByUserIdAndReturnedLateAndReturnDateBetween(
-                eq(1L), eq(true), any(LocalDate.class), any(LocalDate.class)))
-                .thenReturn(3L);
+        int restored = penaltyService.checkSuspensionExpirations(List.of(3L));
 
-        when(borrowingRepository.countByUserIdAndReturnedLateAndReturnDateBetween(
-                eq(2L), eq(true), any(LocalDate.class), any(LocalDate.class)))
-                .thenReturn(1L);
+        assertEquals(1, restored);
+        assertEquals(UserStatus.ACTIVE, suspendedUser.getStatus());
+        assertNull(suspendedUser.getSuspensionEndDate());
+        verify(userRepository).saveAll(List.of(suspendedUser));
+    }
 
-        penaltyService.applyLatePenalties();
+    @Test
+    @DisplayName("Should not restore users whose suspension is still running")
+    void shouldKeepRunningSuspensions() {
 
-        verify(userRepository).save(argThat(user ->
-                user.getId().equals(1L) &&
-                        user.getStatus() == UserStatus.SUSPENDED &&
-                        user.getSuspensionEndDate() != null));
+        suspendedUser.setSuspensionEndDate(LocalDate.now().plusDays(3));
+        when(userRepository.findAllById(List.of(3L))).thenReturn(List.of(suspendedUser));
 
-        verify(userRepository, never()).save(argThat(user -> user.getId().equals(2L)));
+        assertEquals(0, penaltyService.checkSuspensionExpirations(List.of(3L)));
+        assertEquals(UserStatus.SUSPENDED, suspendedUser.getStatus());
     }
 
     @Test
-    @DisplayName("Should restore users whose suspension has expired")
-    void shouldRestoreUsersWhoseSuspensionHasExpired() {
+    @DisplayName("Should not run the late penalties job when there are no users")
+    void shouldSkipLatePenaltiesWithoutUsers() {
 
-        when(userRepository.findByStatusAndSuspensionEndDateBefore(
-                eq(UserStatus.SUSPENDED), any(LocalDate.class)))
-                .thenReturn(List.of(suspendedUser));
+        when(userRepository.findMinId()).thenReturn(null);
+        when(userRepository.findMaxId()).thenReturn(null);
 
-        penaltyService.checkSuspensionExpirations();
+        penaltyService.runLatePenalties();
 
-        verify(userRepository).save(argThat(user ->
-                user.getId().equals(3L) &&
-                        user.getStatus() == UserStatus.ACTIVE &&
-                        user.getSuspensionEndDate() == null));
+        verify(jobRunner).runSharded(eq("late-penalties"), isNull(), any(), any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package tr.com.eaaslan.library.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import tr.com.eaaslan.library.exception.BusinessRuleException;
+import tr.com.eaaslan.library.model.UserRole;
+import tr.com.eaaslan.library.model.UserStatus;
+import tr.com.eaaslan.library.model.dto.user.UserBulkStatusRequest;
+import tr.com.eaaslan.library.model.dto.user.UserBulkStatusResponse;
+import tr.com.eaaslan.library.repository.UserRepository;
+
+import java.time.Clock;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserBulkStatusServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private UserBulkStatusService userBulkStatusService;
+
+    @BeforeEach
+    void setUp() {
+        userBulkStatusService = new UserBulkStatusService(userRepository, transactionTemplate, Clock.systemDefaultZone(), 2);
+    }
+
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Should activate pending patrons chunk by chunk using keyset paging")
+    void shouldActivatePendingPatronsInChunks() {
+        runTransactionsInline();
+        when(userRepository.findIdsForStatusChange(eq(UserRole.PATRON), eq(UserStatus.PENDING), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(3L, 5L), List.of(8L), List.of());
+        when(userRepository.updateStatusByIdIn(anyCollection(), eq(UserStatus.ACTIVE), any(), eq("admin@library.com")))
+                .thenReturn(2, 1);
+
+        UserBulkStatusResponse response = userBulkStatusService.updateStatus(
+                new UserBulkStatusRequest(null, UserRole.PATRON, UserStatus.PENDING, UserStatus.ACTIVE),
+                "admin@library.com");
+
+        assertEquals(new UserBulkStatusResponse("ACTIVE", 3, 3, 0, 2), response);
+        verify(userRepository).findIdsForStatusChange(eq(UserRole.PATRON), eq(UserStatus.PENDING), eq(5L), any(Pageable.class));
+        verify(userRepository).findIdsForStatusChange(eq(UserRole.PATRON), eq(UserStatus.PENDING), eq(8L), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should count users that already have the target status as unchanged")
+    void shouldReportUnchangedUsersForIdSelection() {
+        runTransactionsInline();
+        when(userRepository.countNotDeletedByIdIn(List.of(1L, 2L))).thenReturn(2L);
+        when(userRepository.countNotDeletedByIdIn(List.of(3L))).thenReturn(1L);
+        when(userRepository.updateStatusByIdIn(anyCollection(), eq(UserStatus.SUSPENDED), any(), anyString()))
+                .thenReturn(1, 0);
+
+        UserBulkStatusResponse response = userBulkStatusService.updateStatus(
+                new UserBulkStatusRequest(List.of(1L, 2L, 2L, 3L), null, null, UserStatus.SUSPENDED),
+                "librarian@library.com");
+
+        assertEquals(new UserBulkStatusResponse("SUSPENDED", 3, 1, 2, 2), response);
+    }
+
+    @Test
+    @DisplayName("Should reject DELETED as a bulk target status")
+    void shouldRejectDeletedTargetStatus() {
+        assertThrows(BusinessRuleException.class, () -> userBulkStatusService.updateStatus(
+                new UserBulkStatusRequest(List.of(1L), null, null, UserStatus.DELETED), "admin@library.com"));
+
+        verifyNoInteractions(userRepository, transactionTemplate);
+    }
+
+    @Test
+    @DisplayName("Should require either user IDs or a filter")
+    void shouldValidateSelection() {
+        assertTrue(new UserBulkStatusRequest(List.of(1L), null, null, UserStatus.ACTIVE).isSelectionValid());
+        assertTrue(new UserBulkStatusRequest(null, UserRole.PATRON, null, UserStatus.ACTIVE).isSelectionValid());
+        assertFalse(new UserBulkStatusRequest(List.of(1L), UserRole.PATRON, null, UserStatus.ACTIVE).isSelectionValid());
+        assertFalse(new UserBulkStatusRequest(List.of(), null, null, UserStatus.ACTIVE).isSelectionValid());
+    }
+}
@@ -19,10 +19,11 @@ import tr.com.eaaslan.library.exception.ResourceNotFoundException;
 import tr.com.eaaslan.library.model.*;
 import tr.com.eaaslan.library.model.dto.user.*;
 import tr.com.eaaslan.library.model.mapper.UserMapper;
-import tr.com.eaaslan.library.repository.BorrowingRepository;
 import tr.com.eaaslan.library.repository.UserRepository;
 
+import java.time.Clock;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,11 +35,16 @@ import static org.mockito.Mockito.*;
 @MockitoSettings(strictness = Strictness.LENIENT) // Use lenient strictness for all tests
 class UserServiceUnitTest {
 
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 10, 9, 0);
+
     @Mock
     private UserRepository userRepository;
 
     @Mock
-    private BorrowingRepository borrowingRepository;
+    private LoanReleaseService loanReleaseService;
+
+    @Mock
+    private HoldService holdService;
 
     @Mock
     private UserMapper userMapper;
@@ -46,7 +52,6 @@ class UserServiceUnitTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
-    @InjectMocks
     private UserServiceImpl userService;
 
     private MockedStatic<SecurityContextHolder> securityContextHolderMock;
@@ -63,6 +68,9 @@ class UserServiceUnitTest {
 
     @BeforeEach
     void setUp() {
+        Clock clock = Clock.fixed(NOW.atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+        userService = new UserServiceImpl(userRepository, userMapper, passwordEncoder, loanReleaseService, holdService,
+                clock);
 
         testUser = User.builder()
                 .email("test@example.com")
@@ -164,9 +172,6 @@ class UserServiceUnitTest {
         when(authentication.getName()).thenReturn("test@example.com");
         when(securityContext.getAuthentication()).thenReturn(authentication);
         securityContextHolderMock.when(SecurityContextHolder::getContext).thenReturn(securityContext);
-
-        when(borrowingRepository.findByUserIdAndStatus(anyLong(), any(BorrowingStatus.class), any(Pageable.class)))
-                .thenReturn(Page.empty());
     }
 
     @AfterEach
@@ -397,16 +402,13 @@ class UserServiceUnitTest {
         when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(userMapper.toResponse(testUser)).thenReturn(testUserResponse);
 
-        when(borrowingRepository.findByUserIdAndStatus(
-                eq(1L), eq(BorrowingStatus.ACTIVE), any(Pageable.class)))
-                .thenReturn(Page.empty());
-
         UserResponse response = userService.deleteUser(1L, "admin");
 
         assertNotNull(response);
         assertEquals(testUserResponse.id(), response.id());
 
         verify(userRepository).findById(1L);
+        verify(loanReleaseService).releaseUnreturnedLoans(List.of(1L), "admin");
         verify(userRepository).save(testUser);
         verify(userMapper).toResponse(testUser);
 
@@ -414,7 +416,7 @@ class UserServiceUnitTest {
         verify(userRepository).save(userCaptor.capture());
         User savedUser = userCaptor.getValue();
         assertTrue(savedUser.isDeleted());
-        assertNotNull(savedUser.getDeletedAt());
+        assertEquals(NOW, savedUser.getDeletedAt());
         assertEquals("admin", savedUser.getDeletedBy());
     }
 
@@ -425,17 +427,16 @@ class UserServiceUnitTest {
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         when(userMapper.toResponse(testUser)).thenReturn(testUserResponse);
 
-        when(borrowingRepository.findByUserIdAndStatus(
-                eq(1L), eq(BorrowingStatus.ACTIVE), any(Pageable.class)))
-                .thenReturn(Page.empty());
-
         UserResponse response = userService.hardDeleteUser(1L, "admin");
 
         assertNotNull(response);
         assertEquals(testUserResponse.id(), response.id());
 
         verify(userRepository).findById(1L);
-        verify(userRepository).delete(testUser);
+        InOrder inOrder = inOrder(loanReleaseService, holdService, userRepository);
+        inOrder.verify(loanReleaseService).deleteAllLoans(List.of(1L), "admin");
+        inOrder.verify(holdService).deleteHoldsOfUser(1L);
+        inOrder.verify(userRepository).delete(testUser);
         verify(userMapper).toResponse(testUser);
     }
 
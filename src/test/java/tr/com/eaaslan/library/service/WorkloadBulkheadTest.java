@@ -0,0 +1,103 @@
+package tr.com.eaaslan.library.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tr.com.eaaslan.library.exception.ServiceOverloadedException;
+import tr.com.eaaslan.library.metrics.LibraryMetrics;
+import tr.com.eaaslan.library.metrics.LibraryMetrics.Workload;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkloadBulkheadTest {
+
+    private SimpleMeterRegistry registry;
+    private ExecutorService executor;
+    private CountDownLatch running;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        executor = Executors.newSingleThreadExecutor();
+        running = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should reject reporting work when the slots and the queue are full")
+    void shouldRejectWhenSaturated() throws Exception {
+        WorkloadBulkhead bulkhead = bulkhead(0, Duration.ofSeconds(10));
+        occupySlot(bulkhead);
+
+        ServiceOverloadedException exception = assertThrows(ServiceOverloadedException.class,
+                () -> bulkhead.call(Workload.REPORTING, () -> "report"));
+
+        assertEquals(10, exception.getRetryAfterSeconds());
+        assertEquals(1, registry.get("library.workload.rejected").tag("workload", "reporting").counter().count());
+        assertEquals(1, registry.get("library.workload.active").tag("workload", "reporting").gauge().value());
+        // Other classes have slots of their own
+        assertEquals("job", bulkhead.call(Workload.JOBS, () -> "job"));
+    }
+
+    @Test
+    @DisplayName("Should run queued work once a slot is free")
+    void shouldRunQueuedWork() throws Exception {
+        WorkloadBulkhead bulkhead = bulkhead(1, Duration.ofSeconds(10));
+        occupySlot(bulkhead);
+
+        Thread releaser = Thread.ofVirtual().start(() -> {
+            while (registry.get("library.workload.queued").tag("workload", "reporting").gauge().value() < 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+        });
+
+        assertEquals("report", bulkhead.call(Workload.REPORTING, () -> "report"));
+        releaser.join();
+        assertEquals(0, registry.get("library.workload.queued").tag("workload", "reporting").gauge().value());
+        assertEquals(2, registry.get("library.workload.wait").tag("workload", "reporting").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should reject queued work that waited too long")
+    void shouldRejectAfterMaxWait() throws Exception {
+        WorkloadBulkhead bulkhead = bulkhead(1, Duration.ofMillis(50));
+        occupySlot(bulkhead);
+
+        assertThrows(ServiceOverloadedException.class, () -> bulkhead.run(Workload.REPORTING, () -> {
+        }));
+        assertEquals(0, registry.get("library.workload.queued").tag("workload", "reporting").gauge().value());
+    }
+
+    // One reporting slot, held by another thread until release
+    private WorkloadBulkhead bulkhead(int maxQueued, Duration maxWait) {
+        return new WorkloadBulkhead(new LibraryMetrics(registry), 1, maxQueued, maxWait, 1, 0, maxWait, 10);
+    }
+
+    private void occupySlot(WorkloadBulkhead bulkhead) throws InterruptedException {
+        executor.submit(() -> bulkhead.run(Workload.REPORTING, () -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,22 @@
+package tr.com.eaaslan.library.util;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the test when its body runs more SQL statements than allowed, e.g. because a loop or a mapper loads
+ * associations one by one. Counts statements of the test thread through the datasource proxy, between the end of
+ * the {@code @BeforeEach} methods and the end of the test; set up fixtures there. Needs an application context
+ * with the proxy, such as {@code @SpringBootTest}.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryCountExtension.class)
+public @interface MaxQueries {
+
+    int value();
+}